@@ -0,0 +1,181 @@
+package org.jbei.auth;
+
+import org.jbei.auth.hmac.HmacSignatureFactory;
+import org.jbei.ice.lib.common.logging.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.Key;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * KeyTable backed by a directory of key files, where each file is named by its key id and contains the
+ * Base64 encoded key.
+ * <p>
+ * All keys are read once the directory is watched for changes, so keys are added, replaced or removed as their
+ * files change without reading from disk on lookup. If the directory cannot be watched (e.g. it does not exist yet),
+ * keys are read from disk on every lookup (and not retained) and watching the directory is retried on lookup
+ */
+public class FileKeyTable implements KeyTable, Closeable {
+
+    private static final long WATCH_RETRY_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private final Path directory;
+    private final Map<String, Key> keys = new ConcurrentHashMap<>();
+    private volatile WatchService watcher;
+    private volatile long watchFailed;                       // time (ms) watching an existing directory failed
+
+    /**
+     * @param directory directory containing the key files
+     */
+    public FileKeyTable(final Path directory) {
+        this.directory = directory.toAbsolutePath().normalize();
+        startWatching();
+    }
+
+    @Override
+    public Key getKey(final String keyId) {
+        if (watcher != null || startWatching())
+            return keys.get(keyId);
+
+        try {
+            final Path file = directory.resolve(keyId).normalize();
+            if (directory.equals(file.getParent()) && Files.isRegularFile(file))
+                return read(file);
+        } catch (final InvalidPathException e) {
+            // not a valid key id
+        }
+        Logger.error("Failed to load rest-auth key " + keyId);
+        return null;
+    }
+
+    /**
+     * Stops watching the directory for changes
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        final WatchService service = watcher;
+        watcher = null;
+        watchFailed = Long.MAX_VALUE;       // do not start watching again
+        if (service != null)
+            service.close();
+    }
+
+    // starts watching the directory (and loads all keys) if it is not already watched
+    private synchronized boolean startWatching() {
+        if (watcher != null)
+            return true;
+
+        if (!Files.isDirectory(directory) || System.currentTimeMillis() - watchFailed < WATCH_RETRY_INTERVAL)
+            return false;
+
+        final WatchService service = watch(directory);
+        if (service == null) {
+            watchFailed = System.currentTimeMillis();
+            return false;
+        }
+
+        watcher = service;
+        reloadAll();
+        Logger.info("Loaded " + keys.size() + " key(s) from " + directory);
+        return true;
+    }
+
+    private WatchService watch(final Path directory) {
+        try {
+            final WatchService service = directory.getFileSystem().newWatchService();
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            final Thread thread = new Thread(() -> processEvents(service), "key-table-watcher");
+            thread.setDaemon(true);
+            thread.start();
+            return service;
+        } catch (final IOException | UnsupportedOperationException e) {
+            Logger.warn("Cannot watch " + directory + " for key changes: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // runs on the watcher thread until the watch service is closed
+    private void processEvents(final WatchService service) {
+        try {
+            while (true) {
+                final WatchKey watchKey = service.take();
+                for (final WatchEvent<?> event : watchKey.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        reloadAll();
+                        continue;
+                    }
+
+                    final Path file = directory.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE || !Files.isRegularFile(file))
+                        keys.remove(file.getFileName().toString());
+                    else
+                        load(file);
+                }
+
+                if (!watchKey.reset()) {
+                    Logger.warn("Key directory " + directory + " is no longer accessible");
+                    stopWatching(service);
+                    return;
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    // keys are read from disk on lookup until the directory can be watched again
+    private synchronized void stopWatching(final WatchService service) {
+        if (watcher != service)
+            return;
+
+        watcher = null;
+        keys.clear();
+        try {
+            service.close();
+        } catch (final IOException e) {
+            Logger.error(e);
+        }
+    }
+
+    private void reloadAll() {
+        try (Stream<Path> files = Files.list(directory)) {
+            final Map<String, Key> loaded = new ConcurrentHashMap<>();
+            files.filter(Files::isRegularFile).forEach(file -> {
+                final Key key = read(file);
+                if (key != null)
+                    loaded.put(file.getFileName().toString(), key);
+            });
+            keys.keySet().retainAll(loaded.keySet());
+            keys.putAll(loaded);
+        } catch (final IOException e) {
+            Logger.error("Failed to list keys in " + directory, e);
+        }
+    }
+
+    private Key load(final Path file) {
+        final Key key = read(file);
+        if (key != null)
+            keys.put(file.getFileName().toString(), key);
+        return key;
+    }
+
+    // collects all lines in the file and decodes the value into a Key object
+    private Key read(final Path file) {
+        try {
+            final String encoded = String.join("", Files.readAllLines(file, StandardCharsets.UTF_8));
+            return HmacSignatureFactory.decodeKey(encoded.trim());
+        } catch (final Exception e) {
+            Logger.error("Failed to load rest-auth key " + file.getFileName());
+            return null;
+        }
+    }
+}
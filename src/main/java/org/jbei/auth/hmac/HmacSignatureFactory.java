@@ -21,6 +21,7 @@ import java.net.URI;
 import java.nio.charset.Charset;
 import java.security.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Generates {@link HmacSignature} objects for use in authenticating requests to a REST service. By
@@ -66,6 +67,18 @@ public class HmacSignatureFactory {
     private static final String NEWLINE = "\n";
 
     private final KeyTable table;
+    private final Map<String, MacPrototype> prototypes = new ConcurrentHashMap<>();
+
+    // initialized Mac (never updated) and the key it was initialized with
+    private static class MacPrototype {
+        private final Key key;
+        private final Mac mac;
+
+        MacPrototype(final Key key, final Mac mac) {
+            this.key = key;
+            this.mac = mac;
+        }
+    }
 
     /**
      * Convenience method to create a new random key for signing requests.
@@ -120,10 +133,8 @@ public class HmacSignatureFactory {
     public HmacSignature buildSignature(final HttpServletRequest request, final String keyId,
                                         final String userId) throws SignatureException {
         try {
-            final Mac mac = Mac.getInstance(HMAC);
-            final Key key = table.getKey(keyId);
-            if (key != null) {
-                mac.init(key);
+            final Mac mac = initMac(keyId);
+            if (mac != null) {
                 mac.update((buildRequestString(userId, request)).getBytes(UTF8));
                 return new DefaultHmacSignature(mac, userId);
             }
@@ -145,10 +156,8 @@ public class HmacSignatureFactory {
     public HmacSignature buildSignature(final HttpRequestBase request, final String keyId,
                                         final String userId) throws SignatureException {
         try {
-            final Mac mac = Mac.getInstance(HMAC);
-            final Key key = table.getKey(keyId);
-            if (key != null) {
-                mac.init(key);
+            final Mac mac = initMac(keyId);
+            if (mac != null) {
                 mac.update((buildRequestString(userId, request)).getBytes(UTF8));
                 return new DefaultHmacSignature(mac, userId);
             }
@@ -176,10 +185,8 @@ public class HmacSignatureFactory {
                                         final String method, final String host, final String path,
                                         final Map<String, ? extends Iterable<String>> params) throws SignatureException {
         try {
-            final Mac mac = Mac.getInstance(HMAC);
-            final Key key = table.getKey(keyId);
-            if (key != null) {
-                mac.init(key);
+            final Mac mac = initMac(keyId);
+            if (mac != null) {
                 mac.update((buildRequestString(userId, method, host, path,
                         extractAndSortParams(params))).getBytes(UTF8));
                 return new DefaultHmacSignature(mac, userId);
@@ -191,6 +198,39 @@ public class HmacSignatureFactory {
 
     }
 
+    /**
+     * Creates a {@link Mac} initialized with the key for the key identifier. Initialized instances are kept
+     * per key as prototypes and cloned, to avoid the provider lookup and key setup on each request.
+     *
+     * @param keyId the key identifier
+     * @return an initialized Mac, or {@code null} if there is no key for the identifier
+     * @throws InvalidKeyException      if the key cannot be used with the HMAC algorithm
+     * @throws NoSuchAlgorithmException if the HMAC algorithm is not available
+     */
+    private Mac initMac(final String keyId) throws InvalidKeyException, NoSuchAlgorithmException {
+        final Key key = table.getKey(keyId);
+        if (key == null) {
+            prototypes.remove(keyId);
+            return null;
+        }
+
+        MacPrototype prototype = prototypes.get(keyId);
+        if (prototype == null || prototype.key != key) {
+            final Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            prototype = new MacPrototype(key, mac);
+            prototypes.put(keyId, prototype);
+        }
+
+        try {
+            return (Mac) prototype.mac.clone();
+        } catch (final CloneNotSupportedException e) {
+            final Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            return mac;
+        }
+    }
+
     private List<String> extractAndSortParams(final Map<String, ? extends Iterable<String>> params) {
         final List<String> encParams = new ArrayList<String>();
         for (final Map.Entry<String, ? extends Iterable<String>> entry : params.entrySet()) {
@@ -3,17 +3,17 @@ package org.jbei.ice;
 import org.apache.commons.lang3.StringUtils;
 import org.jbei.ice.lib.account.AccountController;
 import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.config.ConfigurationCache;
 import org.jbei.ice.lib.config.ConfigurationSettings;
 import org.jbei.ice.lib.dto.ConfigurationKey;
-import org.jbei.ice.lib.entry.sequence.annotation.AutoAnnotationBlastDbBuildTask;
+import org.jbei.ice.lib.entry.ReadAuditQueue;
+import org.jbei.ice.lib.entry.sequence.annotation.AutoAnnotationBlastDbScheduler;
 import org.jbei.ice.lib.executor.IceExecutorService;
 import org.jbei.ice.lib.group.GroupController;
+import org.jbei.ice.lib.search.blast.BlastIndexUpdateQueue;
 import org.jbei.ice.lib.search.blast.RebuildBlastIndexTask;
-import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.DbType;
 import org.jbei.ice.storage.hibernate.HibernateConfiguration;
-import org.jbei.ice.storage.hibernate.dao.ConfigurationDAO;
-import org.jbei.ice.storage.model.ConfigurationModel;
 
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -168,34 +168,49 @@ public class ApplicationInitialize {
         // check data directory
         checkDataDirectory(dataDirectory);
 
+        // pick up configuration changes made by other instances
+        ConfigurationCache.getInstance().start(getIntValue(settings, ConfigurationKey.CONFIGURATION_REFRESH_INTERVAL));
+
         try {
             // check blast database exists and build if it doesn't
             RebuildBlastIndexTask task = new RebuildBlastIndexTask();
-            IceExecutorService.getInstance().runTask(task);
-
-            AutoAnnotationBlastDbBuildTask autoAnnotationBlastDbBuildTask = new AutoAnnotationBlastDbBuildTask();
-            IceExecutorService.getInstance().runTask(autoAnnotationBlastDbBuildTask);
+            if (!IceExecutorService.getInstance().runTask(task))
+                Logger.warn("Could not schedule blast database check");
+
+            // build the auto annotation blast database now and then daily
+            AutoAnnotationBlastDbScheduler.getInstance().start();
+
+            // start applying sequence changes to the blast database
+            int interval = getIntValue(settings, ConfigurationKey.BLAST_INDEX_FLUSH_INTERVAL);
+            int size = getIntValue(settings, ConfigurationKey.BLAST_INDEX_FLUSH_SIZE);
+            BlastIndexUpdateQueue.getInstance().start(interval, size);
+
+            // start writing entry read audits in the background
+            ReadAuditQueue.getInstance().start(getIntValue(settings, ConfigurationKey.AUDIT_FLUSH_INTERVAL),
+                    getIntValue(settings, ConfigurationKey.AUDIT_FLUSH_SIZE),
+                    getIntValue(settings, ConfigurationKey.AUDIT_QUEUE_CAPACITY),
+                    getIntValue(settings, ConfigurationKey.AUDIT_READ_INTERVAL));
         } catch (Exception e) {
             Logger.error(e);
         }
     }
 
+    private static int getIntValue(ConfigurationSettings settings, ConfigurationKey key) {
+        String value = settings.getPropertyValue(key);
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (Exception e) {
+            Logger.warn("Invalid value \"" + value + "\" for " + key.name() + ". Using default");
+            return Integer.parseInt(key.getDefaultValue());
+        }
+    }
+
     private static void checkDataDirectory(Path dataDirectory) {
         ConfigurationSettings settings = new ConfigurationSettings();
         String value = settings.getPropertyValue(ConfigurationKey.DATA_DIRECTORY);
         if (!StringUtils.isEmpty(value))
             return;
 
-        ConfigurationDAO dao = DAOFactory.getConfigurationDAO();
-        ConfigurationModel model = dao.get(ConfigurationKey.DATA_DIRECTORY);
-        if (model == null) {
-            model = new ConfigurationModel();
-            model.setKey(ConfigurationKey.DATA_DIRECTORY.name());
-            model.setValue(dataDirectory.toString());
-            dao.create(model);
-        } else {
-            model.setValue(dataDirectory.toString());
-            dao.update(model);
-        }
+        settings.setPropertyValue(ConfigurationKey.DATA_DIRECTORY, dataDirectory.toString());
     }
 }
@@ -6,6 +6,7 @@ import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.access.AccessPermission;
 import org.jbei.ice.lib.dto.folder.FolderAuthorization;
 import org.jbei.ice.lib.dto.folder.FolderDetails;
+import org.jbei.ice.lib.entry.EntryAccess;
 import org.jbei.ice.lib.entry.EntryAuthorization;
 import org.jbei.ice.lib.entry.EntryPermissionTask;
 import org.jbei.ice.lib.executor.IceExecutorService;
@@ -22,6 +23,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller for permissions
@@ -86,6 +88,29 @@ public class PermissionsController {
         return null;
     }
 
+    /**
+     * Adds an entry permission using privileges that have already been evaluated for a batch of entries,
+     * instead of evaluating write privileges on the entry again
+     *
+     * @param userId      unique identifier for user adding the permission
+     * @param access      entry permission to add
+     * @param entryAccess privileges of the user on a set of entries that includes the entry
+     * @return added permission
+     * @throws PermissionException if the user does not have write privileges on the entry
+     */
+    public Permission addPermission(String userId, AccessPermission access, EntryAccess entryAccess) {
+        if (!access.isEntry())
+            return addPermission(userId, access);
+
+        Entry entry = DAOFactory.getEntryDAO().get(access.getTypeId());
+        if (entry == null)
+            throw new IllegalArgumentException("Cannot find entry " + access.getTypeId());
+
+        if (!entryAccess.canWrite(entry.getId()))
+            throw new PermissionException(userId + " does not have permission for this action");
+        return addPermission(access, entry, null, null);
+    }
+
     protected Permission addPermission(AccessPermission access, Entry entry, Folder folder, BulkUpload upload) {
         // account or group
         Account account = null;
@@ -310,6 +335,7 @@ public class PermissionsController {
      * @param folder folder user permissions are being propagated
      * @param add    true if folder is to be added, false otherwise
      * @return true if action permission was scheduled to be propagated
+     * @throws RejectedExecutionException if the propagation task could not be queued
      */
     public boolean propagateFolderPermissions(String userId, Folder folder, boolean add) {
         if (!accountController.isAdministrator(userId) && !userId.equalsIgnoreCase(folder.getOwnerEmail()))
@@ -322,7 +348,8 @@ public class PermissionsController {
 
         List<Long> entries = folderDAO.getEntryIds(folder);
         EntryPermissionTask task = new EntryPermissionTask(userId, entries, permissions, add);
-        IceExecutorService.getInstance().runTask(task);
+        if (!IceExecutorService.getInstance().runTask(task))
+            throw new RejectedExecutionException("Could not schedule permission propagation for folder " + folder.getId());
         return true;
     }
 
@@ -4,6 +4,7 @@ import org.jbei.ice.lib.account.AccountType;
 import org.jbei.ice.lib.account.TokenHash;
 import org.jbei.ice.lib.dto.web.RegistryPartner;
 import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateConfiguration;
 import org.jbei.ice.storage.hibernate.dao.AccountDAO;
 import org.jbei.ice.storage.model.Account;
 import org.jbei.ice.storage.model.ApiKey;
@@ -22,6 +23,9 @@ import java.util.Optional;
  */
 public class TokenVerification {
 
+    private static final String API_KEY_SCOPE = "api:";
+    private static final String PARTNER_SCOPE = "partner:";
+
     private final TokenHash tokenHash;
 
     public TokenVerification() {
@@ -39,6 +43,12 @@ public class TokenVerification {
      * @return user id according to api keys validation
      */
     public String verifyAPIKey(String token, String clientId, String userId) {
+        VerifiedAPIKey verified = VerifiedTokenCache.getInstance().verify(API_KEY_SCOPE + clientId, token, userId,
+                () -> verifyAPIKeyHash(token, clientId, userId), VerifiedAPIKey::isOwnerValid);
+        return verified.userId;
+    }
+
+    private VerifiedAPIKey verifyAPIKeyHash(String token, String clientId, String userId) {
         // hash = (token, client + salt + client)
 
         Optional<ApiKey> optionalKey = DAOFactory.getApiKeyDAO().getByClientId(clientId);
@@ -46,8 +56,7 @@ public class TokenVerification {
             throw new PermissionException("Invalid client Id " + clientId);
 
         ApiKey key = optionalKey.get();
-        String hash_token = tokenHash.encrypt(token, clientId + key.getSecret() + clientId);
-        if (!hash_token.equalsIgnoreCase(key.getHashedToken()))
+        if (!tokenHash.matches(token, clientId + key.getSecret() + clientId, key.getHashedToken()))
             throw new PermissionException("Invalid token");
 
         // validate owner; must have a valid account on this instance
@@ -58,7 +67,7 @@ public class TokenVerification {
 
         // return owner if none specified
         if (userId == null || key.getOwnerEmail().equalsIgnoreCase(userId))
-            return account.getEmail();
+            return new VerifiedAPIKey(account.getEmail(), account.getEmail(), false);
 
         // must be admin
         if (account.getType() != AccountType.ADMIN)
@@ -68,17 +77,66 @@ public class TokenVerification {
         if (key.getAllowDelegate() == null || !key.getAllowDelegate())
             throw new PermissionException("Invalid API key request. Delegation not permitted.");
 
-        return userId;
+        return new VerifiedAPIKey(userId, account.getEmail(), true);
     }
 
     public RegistryPartner verifyPartnerToken(String url, String token) {
+        return VerifiedTokenCache.getInstance().verify(PARTNER_SCOPE + url, token, null,
+                () -> verifyPartnerTokenHash(url, token));
+    }
+
+    private RegistryPartner verifyPartnerTokenHash(String url, String token) {
         RemotePartner remotePartner = DAOFactory.getRemotePartnerDAO().getByUrl(url);
         if (remotePartner == null)
             return null;
 
-        String hash = this.tokenHash.encrypt(token + url, remotePartner.getSalt());
-        if (!hash.equals(remotePartner.getAuthenticationToken()))
+        if (!this.tokenHash.matches(token + url, remotePartner.getSalt(), remotePartner.getAuthenticationToken()))
             return null;
         return remotePartner.toDataTransferObject();
     }
+
+    /**
+     * Discards cached verifications of the api key for a client. Must be called when the key is deleted or changed
+     *
+     * @param clientId client identifier for the api key
+     */
+    public static void invalidateAPIKey(String clientId) {
+        invalidate(API_KEY_SCOPE + clientId);
+    }
+
+    /**
+     * Discards cached verifications of the token for a web of registries partner. Must be called when
+     * the partner is removed or its token is changed
+     *
+     * @param url partner url
+     */
+    public static void invalidatePartnerToken(String url) {
+        invalidate(PARTNER_SCOPE + url);
+    }
+
+    // invalidates now and again once the current transaction completes, so that a verification of the previous
+    // credential by a concurrent request before the change is committed is not retained
+    private static void invalidate(String scope) {
+        VerifiedTokenCache.getInstance().invalidate(scope);
+        HibernateConfiguration.afterCompletion(committed -> VerifiedTokenCache.getInstance().invalidate(scope));
+    }
+
+    // successful api key verification. The owner of the key is checked again when the verification is reused
+    private static class VerifiedAPIKey {
+        private final String userId;
+        private final String ownerEmail;
+        private final boolean delegated;
+
+        VerifiedAPIKey(String userId, String ownerEmail, boolean delegated) {
+            this.userId = userId;
+            this.ownerEmail = ownerEmail;
+            this.delegated = delegated;
+        }
+
+        // owner must still have an account, and be an administrator if the key is used for delegation
+        boolean isOwnerValid() {
+            Account account = DAOFactory.getAccountDAO().getByEmail(ownerEmail);
+            return account != null && (!delegated || account.getType() == AccountType.ADMIN);
+        }
+    }
 }
@@ -0,0 +1,162 @@
+package org.jbei.ice.lib.access;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.bind.DatatypeConverter;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Short lived cache of successfully verified credentials (api keys and web of registries partner tokens), to
+ * avoid the (deliberately expensive) token hash on every request made with the same credentials.
+ * <p>
+ * Entries are keyed by a keyed digest (HMAC-SHA256 with a random per process key) of the credential scope (e.g.
+ * the api client id), the token and any qualifier, so tokens are not held in memory. Failed verifications are
+ * not cached. Entries for a scope are invalidated when the credential is deleted or rotated and all entries expire
+ * after a fixed time
+ */
+public class VerifiedTokenCache {
+
+    private static final long EXPIRY = TimeUnit.MINUTES.toMillis(5);
+    private static final int MAX_SIZE = 10000;
+    private static final String DIGEST_ALGORITHM = "HmacSHA256";
+    private static final VerifiedTokenCache INSTANCE = new VerifiedTokenCache();
+
+    private final Map<String, Verified> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final ThreadLocal<Mac> digest;
+
+    private VerifiedTokenCache() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        SecretKeySpec keySpec = new SecretKeySpec(key, DIGEST_ALGORITHM);
+        digest = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(DIGEST_ALGORITHM);
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    public static VerifiedTokenCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Retrieves the result of a previous successful verification of the credentials, or verifies (and caches
+     * the result if successful) if there is none
+     *
+     * @param scope     identifies the credential. e.g. the client id for api keys. Used for invalidation
+     * @param token     token being verified
+     * @param qualifier optional value that the verification result also depends on
+     * @param verifier  performs the verification. Returns null or throws an exception if verification fails
+     * @param <T>       type of verification result
+     * @return result of verification
+     */
+    public <T> T verify(String scope, String token, String qualifier, Supplier<T> verifier) {
+        return verify(scope, token, qualifier, verifier, value -> true);
+    }
+
+    /**
+     * Retrieves the result of a previous successful verification of the credentials, provided it is still valid,
+     * or verifies (and caches the result if successful) if there is none
+     *
+     * @param scope      identifies the credential. e.g. the client id for api keys. Used for invalidation
+     * @param token      token being verified
+     * @param qualifier  optional value that the verification result also depends on
+     * @param verifier   performs the verification. Returns null or throws an exception if verification fails
+     * @param revalidate (cheaply) checks that a cached result is still valid, e.g. that the owner of the credential
+     *                   still exists. The credentials are verified again if it returns false
+     * @param <T>        type of verification result
+     * @return result of verification
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T verify(String scope, String token, String qualifier, Supplier<T> verifier,
+                        Predicate<T> revalidate) {
+        String key = digest(scope, token, qualifier);
+        long currentGeneration = generation.get();
+        Verified verified = entries.get(key);
+        if (verified != null && verified.generation == currentGeneration
+                && System.currentTimeMillis() - verified.created < EXPIRY) {
+            if (revalidate.test((T) verified.value)) {
+                hits.increment();
+                return (T) verified.value;
+            }
+            entries.remove(key, verified);
+        }
+
+        misses.increment();
+        T value = verifier.get();
+        if (value == null)
+            return null;
+
+        // do not cache if invalidated while verifying
+        if (currentGeneration == generation.get()) {
+            if (entries.size() >= MAX_SIZE)
+                entries.clear();
+            entries.put(key, new Verified(scope, value, currentGeneration));
+        }
+        return value;
+    }
+
+    /**
+     * Discards the cached verifications for a credential
+     *
+     * @param scope identifies the credential
+     */
+    public void invalidate(String scope) {
+        generation.incrementAndGet();
+        entries.values().removeIf(verified -> verified.scope.equals(scope));
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private String digest(String scope, String token, String qualifier) {
+        Mac mac = digest.get();
+        update(mac, scope);
+        update(mac, token);
+        update(mac, qualifier);
+        return DatatypeConverter.printBase64Binary(mac.doFinal());
+    }
+
+    // length prefixed to keep values distinct
+    private void update(Mac mac, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        int length = value == null ? -1 : bytes.length;
+        mac.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+        mac.update(bytes);
+    }
+
+    private static class Verified {
+        private final String scope;
+        private final Object value;
+        private final long generation;
+        private final long created;
+
+        Verified(String scope, Object value, long generation) {
+            this.scope = scope;
+            this.value = value;
+            this.generation = generation;
+            this.created = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.jbei.ice.lib.account;
+
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.dao.UserSessionDAO;
+import org.jbei.ice.storage.model.UserSessionModel;
+
+import java.util.Date;
+
+/**
+ * Stores user sessions in the database. Expected to be called within a transaction
+ */
+public class DatabaseSessionStore implements SessionStore {
+
+    private final UserSessionDAO dao;
+
+    public DatabaseSessionStore() {
+        this.dao = DAOFactory.getUserSessionDAO();
+    }
+
+    @Override
+    public void save(UserSession session) {
+        UserSessionModel model = new UserSessionModel();
+        model.setSessionId(session.getSessionId());
+        model.setUserId(session.getUserId());
+        model.setCreationTime(new Date(session.getCreationTime()));
+        model.setLastAccessTime(new Date(session.getLastAccessTime()));
+        dao.deleteBySessionId(session.getSessionId());
+        dao.create(model);
+    }
+
+    @Override
+    public UserSession get(String sessionId) {
+        return dao.getBySessionId(sessionId).map(UserSessionModel::toDataTransferObject).orElse(null);
+    }
+
+    @Override
+    public boolean touch(String sessionId, long lastAccessTime) {
+        return dao.updateLastAccessTime(sessionId, new Date(lastAccessTime)) > 0;
+    }
+
+    @Override
+    public void delete(String sessionId) {
+        dao.deleteBySessionId(sessionId);
+    }
+
+    @Override
+    public void deleteForUser(String userId) {
+        dao.deleteByUserId(userId);
+    }
+
+    @Override
+    public void deleteExpired(long maxAge, long idleTimeout) {
+        long now = System.currentTimeMillis();
+        dao.deleteExpired(new Date(now - maxAge), new Date(now - idleTimeout));
+    }
+}
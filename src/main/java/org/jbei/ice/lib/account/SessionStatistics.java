@@ -0,0 +1,92 @@
+package org.jbei.ice.lib.account;
+
+import org.jbei.ice.storage.IDataTransferModel;
+
+/**
+ * Statistics for the user sessions maintained by {@link UserSessions} and the cache of verified api
+ * (and partner) tokens
+ */
+public class SessionStatistics implements IDataTransferModel {
+
+    private int activeSessions;         // sessions held in memory
+    private int activeUsers;            // users with at least one session held in memory
+    private long lookups;               // number of session lookups
+    private long misses;                // lookups for unknown or expired sessions
+    private long evictions;             // sessions evicted because the maximum number of sessions was reached
+    private double averageLookupTime;   // microseconds
+    private String store;
+    private long tokenCacheHits;
+    private long tokenCacheMisses;
+
+    public int getActiveSessions() {
+        return activeSessions;
+    }
+
+    public void setActiveSessions(int activeSessions) {
+        this.activeSessions = activeSessions;
+    }
+
+    public int getActiveUsers() {
+        return activeUsers;
+    }
+
+    public void setActiveUsers(int activeUsers) {
+        this.activeUsers = activeUsers;
+    }
+
+    public long getLookups() {
+        return lookups;
+    }
+
+    public void setLookups(long lookups) {
+        this.lookups = lookups;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public double getAverageLookupTime() {
+        return averageLookupTime;
+    }
+
+    public void setAverageLookupTime(double averageLookupTime) {
+        this.averageLookupTime = averageLookupTime;
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    public void setStore(String store) {
+        this.store = store;
+    }
+
+    public long getTokenCacheHits() {
+        return tokenCacheHits;
+    }
+
+    public void setTokenCacheHits(long tokenCacheHits) {
+        this.tokenCacheHits = tokenCacheHits;
+    }
+
+    public long getTokenCacheMisses() {
+        return tokenCacheMisses;
+    }
+
+    public void setTokenCacheMisses(long tokenCacheMisses) {
+        this.tokenCacheMisses = tokenCacheMisses;
+    }
+}
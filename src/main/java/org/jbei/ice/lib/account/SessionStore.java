@@ -0,0 +1,50 @@
+package org.jbei.ice.lib.account;
+
+/**
+ * Persistent backend for {@link UserSessions}. Allows sessions to survive restarts and be shared by multiple
+ * instances of the application using the same store. Sessions are always cached in memory; the store is consulted
+ * for sessions not found in memory and periodically (see {@link #touch(String, long)}) for cached sessions, so that
+ * sessions deleted by another instance (e.g. on logout) are no longer accepted
+ */
+public interface SessionStore {
+
+    /**
+     * Saves a newly created session
+     *
+     * @param session session to save
+     */
+    void save(UserSession session);
+
+    /**
+     * @param sessionId unique session identifier
+     * @return session with the specified identifier or null if none is found
+     */
+    UserSession get(String sessionId);
+
+    /**
+     * Updates the last access time for a session. Called periodically (not on every access)
+     *
+     * @param sessionId      unique session identifier
+     * @param lastAccessTime time (ms) the session was last accessed
+     * @return false if the session is no longer stored
+     */
+    boolean touch(String sessionId, long lastAccessTime);
+
+    /**
+     * @param sessionId unique identifier of session to delete
+     */
+    void delete(String sessionId);
+
+    /**
+     * @param userId unique identifier of user whose sessions are to be deleted
+     */
+    void deleteForUser(String userId);
+
+    /**
+     * Deletes stored sessions that have expired
+     *
+     * @param maxAge      maximum time (ms) since a session was created
+     * @param idleTimeout maximum time (ms) since a session was last accessed
+     */
+    void deleteExpired(long maxAge, long idleTimeout);
+}
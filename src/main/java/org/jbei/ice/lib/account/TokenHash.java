@@ -1,14 +1,28 @@
 package org.jbei.ice.lib.account;
 
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.ConfigurationKey;
+import org.jbei.ice.lib.utils.Utils;
+
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
 import javax.xml.bind.DatatypeConverter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.KeySpec;
 
 /**
+ * Hashes tokens using a (configurable) PBKDF2 key derivation function.
+ * <p>
+ * {@link #encrypt(String, String)} always uses the default parameters, since its output is also used as a shared
+ * secret with other instances. Locally stored credential hashes (api keys and partner tokens) are created
+ * using {@link #encode(String, String)}, which uses the parameters configured for the deployment
+ * ({@link ConfigurationKey#TOKEN_HASH_ALGORITHM} and {@link ConfigurationKey#TOKEN_HASH_ITERATIONS}) and records
+ * them with the hash when they differ from the defaults, so existing hashes remain valid when they are changed
+ *
  * @author Hector Plahar
  */
 public class TokenHash {
@@ -17,15 +31,105 @@ public class TokenHash {
     private static final int SALT_BYTE_SIZE = 32;
     private static final int TOKEN_BYTE_SIZE = 128;
     private static final int PBKDF2_ITERATIONS = 20000;
+    private static final String PBKDF2_ALGORITHM = "PBKDF2WithHmacSHA1";
+    private static final String SEPARATOR = "$";
+
+    private final String algorithm;
+    private final int iterations;
+
+    public TokenHash() {
+        this(PBKDF2_ALGORITHM, PBKDF2_ITERATIONS);
+    }
+
+    /**
+     * @param algorithm  name of the (PBKDF2) secret key factory algorithm e.g. <code>PBKDF2WithHmacSHA256</code>
+     * @param iterations number of iterations
+     */
+    public TokenHash(String algorithm, int iterations) {
+        this.algorithm = algorithm;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Creates a token hash using the parameters configured for this deployment. Requires an active transaction
+     *
+     * @return token hash for credentials
+     */
+    public static TokenHash forCredentials() {
+        String algorithm = Utils.getConfigValue(ConfigurationKey.TOKEN_HASH_ALGORITHM);
+        String value = Utils.getConfigValue(ConfigurationKey.TOKEN_HASH_ITERATIONS);
+        int iterations;
+        try {
+            iterations = Integer.parseInt(value.trim());
+        } catch (Exception e) {
+            Logger.warn("Invalid value \"" + value + "\" for " + ConfigurationKey.TOKEN_HASH_ITERATIONS + ". Using default");
+            iterations = PBKDF2_ITERATIONS;
+        }
+        return new TokenHash(algorithm, iterations);
+    }
 
     public String encrypt(String value, String salt) {
+        return hash(value, salt, PBKDF2_ALGORITHM, PBKDF2_ITERATIONS);
+    }
+
+    /**
+     * Hashes a value (using the parameters this object was created with) for storage and later verification
+     * using {@link #matches(String, String, String)}
+     *
+     * @param value value to hash
+     * @param salt  salt
+     * @return encoded hash. Includes the hash parameters if they are not the defaults
+     */
+    public String encode(String value, String salt) {
+        String hash = hash(value, salt, algorithm, iterations);
+        if (hash == null || (PBKDF2_ALGORITHM.equals(algorithm) && iterations == PBKDF2_ITERATIONS))
+            return hash;
+        return SEPARATOR + algorithm + SEPARATOR + iterations + SEPARATOR + hash;
+    }
+
+    /**
+     * Checks if a value matches an encoded hash created by {@link #encode(String, String)} (or
+     * {@link #encrypt(String, String)}) using the parameters recorded with the hash
+     *
+     * @param value   value to check
+     * @param salt    salt used to create the hash
+     * @param encoded encoded hash
+     * @return true if the value matches the hash, false otherwise
+     */
+    public boolean matches(String value, String salt, String encoded) {
+        if (encoded == null)
+            return false;
+
+        String hashAlgorithm = PBKDF2_ALGORITHM;
+        int hashIterations = PBKDF2_ITERATIONS;
+        String expected = encoded;
+        if (encoded.startsWith(SEPARATOR)) {
+            String[] parts = encoded.split("\\" + SEPARATOR);
+            if (parts.length != 4)
+                return false;
+
+            hashAlgorithm = parts[1];
+            try {
+                hashIterations = Integer.parseInt(parts[2]);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            expected = parts[3];
+        }
+
+        String hash = hash(value, salt, hashAlgorithm, hashIterations);
+        return hash != null && MessageDigest.isEqual(hash.getBytes(StandardCharsets.UTF_8),
+                expected.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String hash(String value, String salt, String hashAlgorithm, int hashIterations) {
         if (value == null || value.trim().isEmpty() || salt == null || salt.trim().isEmpty())
             throw new NullPointerException("Cannot encrypt null value or salt");
 
-        KeySpec spec = new PBEKeySpec(value.toCharArray(), salt.getBytes(), PBKDF2_ITERATIONS, HASH_BYTE_SIZE);
+        KeySpec spec = new PBEKeySpec(value.toCharArray(), salt.getBytes(), hashIterations, HASH_BYTE_SIZE);
 
         try {
-            SecretKeyFactory keyFactory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
+            SecretKeyFactory keyFactory = SecretKeyFactory.getInstance(hashAlgorithm);
             byte[] hash = keyFactory.generateSecret(spec).getEncoded();
             return DatatypeConverter.printBase64Binary(hash);
         } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
@@ -2,6 +2,7 @@ package org.jbei.ice.lib.account;
 
 import org.jbei.ice.lib.access.AccessStatus;
 import org.jbei.ice.lib.access.PermissionException;
+import org.jbei.ice.lib.access.TokenVerification;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.access.AccessKey;
 import org.jbei.ice.lib.dto.common.Results;
@@ -48,10 +49,10 @@ public class UserApiKeys {
             return null;
         }
 
-        TokenHash hash = new TokenHash();
+        TokenHash hash = TokenHash.forCredentials();
         String token = hash.generateRandomToken(32);
         String salt = hash.generateSalt();
-        String hash_token = hash.encrypt(token, clientId + salt + clientId);
+        String hash_token = hash.encode(token, clientId + salt + clientId);
 
         ApiKey apiKey = new ApiKey();
         apiKey.setCreationTime(new Date());
@@ -134,6 +135,7 @@ public class UserApiKeys {
         }
 
         apiKeyDAO.delete(key);
+        TokenVerification.invalidateAPIKey(key.getClientId());
         return true;
     }
 
@@ -153,6 +155,8 @@ public class UserApiKeys {
         key.setAllowDelegate(apiKey.isAllowDelegate());
         key.setReadOnly(apiKey.isReadOnly());
 
-        return apiKeyDAO.update(key).toDataTransferObject();
+        key = apiKeyDAO.update(key);
+        TokenVerification.invalidateAPIKey(key.getClientId());
+        return key.toDataTransferObject();
     }
 }
@@ -0,0 +1,61 @@
+package org.jbei.ice.lib.account;
+
+import org.jbei.ice.storage.IDataTransferModel;
+
+/**
+ * Web application session for an authenticated user
+ */
+public class UserSession implements IDataTransferModel {
+
+    private final String sessionId;
+    private final String userId;
+    private final long creationTime;
+    private volatile long lastAccessTime;
+    private volatile long lastStoredAccessTime;
+
+    public UserSession(String sessionId, String userId, long creationTime, long lastAccessTime) {
+        this.sessionId = sessionId;
+        this.userId = userId;
+        this.creationTime = creationTime;
+        this.lastAccessTime = lastAccessTime;
+        this.lastStoredAccessTime = lastAccessTime;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    public long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    public void setLastAccessTime(long lastAccessTime) {
+        this.lastAccessTime = lastAccessTime;
+    }
+
+    long getLastStoredAccessTime() {
+        return lastStoredAccessTime;
+    }
+
+    void setLastStoredAccessTime(long lastStoredAccessTime) {
+        this.lastStoredAccessTime = lastStoredAccessTime;
+    }
+
+    /**
+     * @param now         current time (ms)
+     * @param maxAge      maximum time (ms) since the session was created
+     * @param idleTimeout maximum time (ms) since the session was last accessed
+     * @return true if the session has expired
+     */
+    boolean isExpired(long now, long maxAge, long idleTimeout) {
+        return now - creationTime > maxAge || now - lastAccessTime > idleTimeout;
+    }
+}
@@ -2,32 +2,121 @@ package org.jbei.ice.lib.account;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jbei.ice.lib.access.PermissionException;
+import org.jbei.ice.lib.access.VerifiedTokenCache;
 import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.ConfigurationKey;
+import org.jbei.ice.lib.utils.Utils;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.model.Account;
 
-import java.util.HashSet;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Creates and maintains the web application sessions for users who have successfully authenticated
+ * Creates and maintains the web application sessions for users who have successfully authenticated.
+ * <p>
+ * Sessions are indexed by session id for constant time lookups, and expire after a maximum age or a period
+ * of inactivity (both configurable). The number of sessions held in memory is bounded; the least recently
+ * accessed sessions are evicted once the maximum is exceeded. Sessions can optionally be persisted in a
+ * {@link SessionStore} (configured using {@link ConfigurationKey#SESSION_STORE}) so they survive restarts and
+ * can be shared by multiple instances. Sessions held in memory are re-checked against the store every
+ * {@link #STORE_CHECK_INTERVAL} ms, so that a session invalidated by another instance is not accepted for longer
  *
  * @author Hector Plahar
  */
 public class UserSessions {
 
+    private static final int MAX_SESSIONS = 10000;
+    private static final long STORE_CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+    private static final long STORE_PURGE_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    private final static ConcurrentHashMap<String, UserSession> sessions = new ConcurrentHashMap<>();
     private final static ConcurrentHashMap<String, Set<String>> userSessionMap = new ConcurrentHashMap<>();
+    private final static LongAdder lookups = new LongAdder();
+    private final static LongAdder lookupTime = new LongAdder();
+    private final static LongAdder misses = new LongAdder();
+    private final static LongAdder evictions = new LongAdder();
+
+    private static volatile boolean configured;
+    private static volatile long maxAge = TimeUnit.HOURS.toMillis(
+            Long.parseLong(ConfigurationKey.SESSION_MAX_AGE.getDefaultValue()));
+    private static volatile long idleTimeout = TimeUnit.MINUTES.toMillis(
+            Long.parseLong(ConfigurationKey.SESSION_IDLE_TIMEOUT.getDefaultValue()));
+    private static volatile SessionStore store;
+    private static volatile long lastStorePurge;
 
+    /**
+     * Retrieves the identifier of the user the session belongs to
+     *
+     * @param sessionId unique session identifier
+     * @return user identifier or null if the session is not valid or has expired
+     */
     public static String getUserIdBySession(String sessionId) {
-        for (Map.Entry<String, Set<String>> entrySet : userSessionMap.entrySet()) {
-            if (entrySet.getValue().contains(sessionId)) {
-                return entrySet.getKey();
+        if (StringUtils.isEmpty(sessionId))
+            return null;
+
+        long start = System.nanoTime();
+        try {
+            UserSession session = getSession(sessionId);
+            return session == null ? null : session.getUserId();
+        } finally {
+            lookups.increment();
+            lookupTime.add(System.nanoTime() - start);
+        }
+    }
+
+    private static UserSession getSession(String sessionId) {
+        if (!configured)
+            configure();
+
+        SessionStore sessionStore = store;
+        UserSession session = sessions.get(sessionId);
+        if (session == null && sessionStore != null) {
+            try {
+                session = sessionStore.get(sessionId);
+            } catch (Exception e) {
+                Logger.error("Exception retrieving stored session", e);
             }
+            if (session != null)
+                cacheSession(session);
+        }
+
+        if (session == null) {
+            misses.increment();
+            return null;
         }
-        return null;
+
+        long now = System.currentTimeMillis();
+        if (session.isExpired(now, maxAge, idleTimeout)) {
+            misses.increment();
+            removeSession(session, true);
+            return null;
+        }
+
+        session.setLastAccessTime(now);
+        if (sessionStore != null && now - session.getLastStoredAccessTime() > STORE_CHECK_INTERVAL) {
+            session.setLastStoredAccessTime(now);
+            boolean stored = true;
+            try {
+                stored = sessionStore.touch(sessionId, now);
+            } catch (Exception e) {
+                Logger.error("Exception updating stored session", e);
+            }
+
+            // deleted by another instance
+            if (!stored) {
+                misses.increment();
+                removeSession(session, false);
+                return null;
+            }
+        }
+        return session;
     }
 
     /**
@@ -44,8 +133,26 @@ public class UserSessions {
     }
 
     protected static void putSession(String userId, String sessionId) {
-        Set<String> sessionIds = userSessionMap.computeIfAbsent(userId, k -> new HashSet<>());
-        sessionIds.add(sessionId);
+        // pick up any changes to the session configuration
+        configure();
+
+        long now = System.currentTimeMillis();
+        UserSession session = new UserSession(sessionId, userId, now, now);
+        cacheSession(session);
+
+        SessionStore sessionStore = store;
+        if (sessionStore == null)
+            return;
+
+        try {
+            sessionStore.save(session);
+            if (now - lastStorePurge > STORE_PURGE_INTERVAL) {
+                lastStorePurge = now;
+                sessionStore.deleteExpired(maxAge, idleTimeout);
+            }
+        } catch (Exception e) {
+            Logger.error("Exception storing session", e);
+        }
     }
 
     /**
@@ -66,15 +173,150 @@ public class UserSessions {
     }
 
     /**
-     * Invalidates the session id for the specified user
-     * by removing the stored session id
+     * Invalidates the sessions for the specified user
+     * by removing the stored session ids
      *
      * @param userId unique user id
      */
     public static void invalidateSession(String userId) {
         if (userId == null)
             return;
-        userSessionMap.remove(userId);
+
+        Set<String> sessionIds = userSessionMap.remove(userId);
+        if (sessionIds != null) {
+            for (String sessionId : sessionIds)
+                sessions.remove(sessionId);
+        }
+
+        SessionStore sessionStore = store;
+        if (sessionStore == null)
+            return;
+
+        try {
+            sessionStore.deleteForUser(userId);
+        } catch (Exception e) {
+            Logger.error("Exception deleting stored sessions", e);
+        }
+    }
+
+    /**
+     * @return statistics for the sessions held in memory, session lookups and verified token lookups
+     */
+    public static SessionStatistics getStatistics() {
+        SessionStatistics statistics = new SessionStatistics();
+        statistics.setActiveSessions(sessions.size());
+        statistics.setActiveUsers(userSessionMap.size());
+        long count = lookups.sum();
+        statistics.setLookups(count);
+        statistics.setMisses(misses.sum());
+        statistics.setEvictions(evictions.sum());
+        statistics.setAverageLookupTime(count == 0 ? 0 : lookupTime.sum() / (count * 1000.0));
+        SessionStore sessionStore = store;
+        statistics.setStore(sessionStore == null ? "MEMORY" : sessionStore.getClass().getSimpleName());
+        statistics.setTokenCacheHits(VerifiedTokenCache.getInstance().getHits());
+        statistics.setTokenCacheMisses(VerifiedTokenCache.getInstance().getMisses());
+        return statistics;
+    }
+
+    // clears the sessions held in memory (but not stored sessions), which is equivalent to a restart
+    static void clearSessions() {
+        sessions.clear();
+        userSessionMap.clear();
+        configured = false;
+    }
+
+    private static void cacheSession(UserSession session) {
+        UserSession previous = sessions.put(session.getSessionId(), session);
+        if (previous != null && !previous.getUserId().equals(session.getUserId()))
+            removeUserSession(previous);
+
+        userSessionMap.compute(session.getUserId(), (userId, sessionIds) -> {
+            if (sessionIds == null)
+                sessionIds = ConcurrentHashMap.newKeySet();
+            sessionIds.add(session.getSessionId());
+            return sessionIds;
+        });
+
+        if (sessions.size() > MAX_SESSIONS)
+            evictSessions();
+    }
+
+    private static void removeSession(UserSession session, boolean fromStore) {
+        if (!sessions.remove(session.getSessionId(), session))
+            return;
+
+        removeUserSession(session);
+        SessionStore sessionStore = store;
+        if (!fromStore || sessionStore == null)
+            return;
+
+        try {
+            sessionStore.delete(session.getSessionId());
+        } catch (Exception e) {
+            Logger.error("Exception deleting stored session", e);
+        }
+    }
+
+    private static void removeUserSession(UserSession session) {
+        userSessionMap.computeIfPresent(session.getUserId(), (userId, sessionIds) -> {
+            sessionIds.remove(session.getSessionId());
+            return sessionIds.isEmpty() ? null : sessionIds;
+        });
+    }
+
+    // removes expired sessions and then the least recently accessed sessions (from memory only) until
+    // the number of sessions is below the maximum
+    private static synchronized void evictSessions() {
+        if (sessions.size() <= MAX_SESSIONS)
+            return;
+
+        long now = System.currentTimeMillis();
+        List<UserSession> active = new ArrayList<>(sessions.size());
+        for (UserSession session : sessions.values()) {
+            if (session.isExpired(now, maxAge, idleTimeout))
+                removeSession(session, false);
+            else
+                active.add(session);
+        }
+
+        int excess = active.size() - MAX_SESSIONS;
+        if (excess <= 0)
+            return;
+
+        active.sort(Comparator.comparingLong(UserSession::getLastAccessTime));
+        for (int i = 0; i < excess; i += 1) {
+            removeSession(active.get(i), false);
+            evictions.increment();
+        }
+    }
+
+    // reads the session configuration. Requires an active transaction
+    private static void configure() {
+        try {
+            maxAge = TimeUnit.HOURS.toMillis(getLongValue(ConfigurationKey.SESSION_MAX_AGE));
+            idleTimeout = TimeUnit.MINUTES.toMillis(getLongValue(ConfigurationKey.SESSION_IDLE_TIMEOUT));
+
+            String storeType = Utils.getConfigValue(ConfigurationKey.SESSION_STORE);
+            if ("DATABASE".equalsIgnoreCase(storeType)) {
+                if (!(store instanceof DatabaseSessionStore))
+                    store = new DatabaseSessionStore();
+            } else {
+                store = null;
+            }
+            configured = true;
+        } catch (Exception e) {
+            Logger.error("Exception reading session configuration", e);
+        }
+    }
+
+    private static long getLongValue(ConfigurationKey key) {
+        String value = Utils.getConfigValue(key);
+        try {
+            return Long.parseLong(value.trim());
+        } catch (Exception e) {
+            Logger.warn("Invalid value \"" + value + "\" for " + key.name() + ". Using default");
+            return Long.parseLong(key.getDefaultValue());
+        }
     }
 
     /**
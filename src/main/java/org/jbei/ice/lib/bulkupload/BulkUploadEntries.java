@@ -1,6 +1,5 @@
 package org.jbei.ice.lib.bulkupload;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jbei.ice.lib.access.PermissionException;
 import org.jbei.ice.lib.account.AccountController;
@@ -376,7 +375,14 @@ public class BulkUploadEntries {
         return uploadInfo;
     }
 
-    boolean createEntries(List<PartWithSample> data, HashMap<String, InputStream> files) {
+    /**
+     * @param data  parts (with samples) to create entries for
+     * @param files files in the uploaded zip archive, or null
+     * @return false if there is no data
+     * @throws ZipUploadFiles.SizeLimitException if a sequence file is larger than
+     *                                           {@link ConfigurationKey#BULK_UPLOAD_MAX_SEQUENCE_SIZE}
+     */
+    boolean createEntries(List<PartWithSample> data, ZipUploadFiles files) throws ZipUploadFiles.SizeLimitException {
         // check permissions for upload
         authorization.expectWrite(userId, upload);
 
@@ -385,6 +391,7 @@ public class BulkUploadEntries {
         if (data == null)
             return false;
 
+        long maxSequenceSize = files == null ? 0 : BulkZipUpload.getMaxSequenceSize();
         for (PartWithSample partWithSample : data) {
             if (partWithSample == null)
                 continue;
@@ -397,7 +404,7 @@ public class BulkUploadEntries {
             Entry entry = entryDAO.get(partData.getId());
 
             // save files
-            saveFiles(partData, entry, files);
+            saveFiles(partData, entry, files, maxSequenceSize);
 
             // save sample, if available
             PartSample partSample = partWithSample.getPartSample();
@@ -410,32 +417,34 @@ public class BulkUploadEntries {
         return true;
     }
 
-    private void saveSequence(PartData data, Entry entry, HashMap<String, InputStream> files) throws IOException {
+    private void saveSequence(PartData data, Entry entry, ZipUploadFiles files, long maxSequenceSize)
+            throws IOException {
         // check main entry
         if (!StringUtils.isEmpty(data.getSequenceFileName())) {
             String sequenceName = data.getSequenceFileName();
             PartSequence partSequence = new PartSequence(entry.getOwnerEmail(), entry.getRecordId());
-            partSequence.parseSequenceFile(files.get(sequenceName), sequenceName, false);
+            try (InputStream sequenceStream = files.getInputStream(sequenceName, maxSequenceSize)) {
+                partSequence.parseSequenceFile(sequenceStream, sequenceName, false);
+            }
         }
 
         // check linked
         if (data.getLinkedParts() != null && !data.getLinkedParts().isEmpty()) {
             Iterator<Entry> entryIterator = entry.getLinkedEntries().iterator();
             if (entryIterator.hasNext()) {
-                saveSequence(data.getLinkedParts().get(0), entryIterator.next(), files);
+                saveSequence(data.getLinkedParts().get(0), entryIterator.next(), files, maxSequenceSize);
             }
         }
     }
 
-    private void saveAttachment(PartData data, Entry entry, HashMap<String, InputStream> files) throws IOException {
+    private void saveAttachment(PartData data, Entry entry, ZipUploadFiles files) throws IOException {
         // check main
         if (data.getAttachments() != null && !data.getAttachments().isEmpty()) {
             String attachmentName = data.getAttachments().get(0).getFilename();
             if (StringUtils.isEmpty(attachmentName))
                 return;
 
-            InputStream attachmentStream = files.get(attachmentName);
-            if (attachmentStream == null)
+            if (!files.contains(attachmentName))
                 return;
 
             // clear
@@ -456,7 +465,9 @@ public class BulkUploadEntries {
             attachment.setFileName(attachmentName);
             String dataDir = Utils.getConfigValue(ConfigurationKey.DATA_DIRECTORY);
             Path path = Paths.get(dataDir, "attachments", attachment.getFileId());
-            Files.write(path, IOUtils.toByteArray(attachmentStream));
+            try (InputStream attachmentStream = files.getInputStream(attachmentName)) {
+                Files.copy(attachmentStream, path);
+            }
             DAOFactory.getAttachmentDAO().create(attachment);
         }
 
@@ -469,10 +480,16 @@ public class BulkUploadEntries {
         }
     }
 
-    private void saveFiles(PartData data, Entry entry, HashMap<String, InputStream> files) {
+    private void saveFiles(PartData data, Entry entry, ZipUploadFiles files, long maxSequenceSize)
+            throws ZipUploadFiles.SizeLimitException {
+        if (files == null)
+            return;
+
         // check sequence
         try {
-            saveSequence(data, entry, files);
+            saveSequence(data, entry, files, maxSequenceSize);
+        } catch (ZipUploadFiles.SizeLimitException e) {
+            throw e;
         } catch (IOException e) {
             Logger.error("Exception saving sequence", e);
         }
@@ -10,6 +10,8 @@ import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.ConfigurationKey;
 import org.jbei.ice.lib.dto.access.AccessPermission;
 import org.jbei.ice.lib.dto.entry.*;
+import org.jbei.ice.lib.entry.BatchEntryAuthorization;
+import org.jbei.ice.lib.entry.EntryAccess;
 import org.jbei.ice.lib.entry.attachment.Attachments;
 import org.jbei.ice.lib.entry.sequence.PartSequence;
 import org.jbei.ice.lib.executor.IceExecutorService;
@@ -29,6 +31,7 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller for dealing with bulk imports (including drafts)
@@ -323,7 +326,8 @@ public class BulkUploads {
      * @param userId  account of user making the request
      * @param draftId unique identifier for bulk import
      * @return deleted bulk import
-     * @throws PermissionException if lacking permissions
+     * @throws PermissionException        if lacking permissions
+     * @throws RejectedExecutionException if the delete task could not be queued
      */
     public BulkUploadInfo deleteDraftById(String userId, long draftId) throws PermissionException {
         BulkUpload draft = dao.get(draftId);
@@ -335,7 +339,8 @@ public class BulkUploads {
             throw new PermissionException("No permissions to delete draft " + draftId);
 
         BulkUploadDeleteTask task = new BulkUploadDeleteTask(userId, draftId);
-        IceExecutorService.getInstance().runTask(task);
+        if (!IceExecutorService.getInstance().runTask(task))
+            throw new RejectedExecutionException("Could not schedule delete of draft " + draftId);
 
         BulkUploadInfo draftInfo = draft.toDataTransferObject();
         AccountTransfer accountTransfer = draft.getAccount().toDataTransferObject();
@@ -400,6 +405,15 @@ public class BulkUploads {
             permissions.add(accessPermission);
         }
 
+        // evaluate write privileges on all contents (and linked entries) at once
+        List<Long> ids = new ArrayList<>();
+        for (Entry entry : bulkUpload.getContents()) {
+            ids.add(entry.getId());
+            for (Entry linked : entry.getLinkedEntries())
+                ids.add(linked.getId());
+        }
+        EntryAccess entryAccess = new BatchEntryAuthorization(userId).evaluate(ids);
+
         // go through passed contents
         // TODO : this needs to go into a task that auto updates
         for (Entry entry : bulkUpload.getContents()) {
@@ -415,10 +429,10 @@ public class BulkUploads {
             for (AccessPermission accessPermission : permissions) {
                 accessPermission.setTypeId(entry.getId());
 
-                permissionsController.addPermission(userId, accessPermission);
+                permissionsController.addPermission(userId, accessPermission, entryAccess);
                 if (plasmid != null) {
                     accessPermission.setTypeId(plasmid.getId());
-                    permissionsController.addPermission(userId, accessPermission);
+                    permissionsController.addPermission(userId, accessPermission, entryAccess);
                 }
             }
 
@@ -2,14 +2,17 @@ package org.jbei.ice.lib.bulkupload;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.ConfigurationKey;
 import org.jbei.ice.lib.dto.entry.EntryFieldLabel;
 import org.jbei.ice.lib.dto.entry.PartData;
+import org.jbei.ice.lib.utils.Utils;
 
-import java.io.*;
-import java.util.HashMap;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 /**
  * Bulk Upload with zip files. It is expected that the zip contains a csv
@@ -20,6 +23,8 @@ import java.util.zip.ZipInputStream;
  */
 public class BulkZipUpload extends BulkCSVUpload {
 
+    private static final long MB = 1024 * 1024;
+
     BulkZipUpload(String userId, InputStream inputStream, long uploadId) {
         super(userId, inputStream, uploadId);
     }
@@ -28,66 +33,38 @@ public class BulkZipUpload extends BulkCSVUpload {
      * Process the zip file. It expects that there is exactly one file with the .csv extension.
      * This means that a .csv cannot be used as an attachment
      * </p>
-     * Also, all dot files are ignored
+     * Also, all dot files are ignored.
+     * </p>
+     * The zip file is spooled to the temporary directory and its files are read from there as needed; the csv file
+     * is validated first, then the sequence and attachment files it references are checked (sequence files larger
+     * than {@link ConfigurationKey#BULK_UPLOAD_MAX_SEQUENCE_SIZE} MB are rejected since they are parsed in memory)
+     * and only then are the files read to create the entries
      */
     public ProcessedBulkUpload processUpload() {
         ProcessedBulkUpload processedBulkUpload = new ProcessedBulkUpload();
-        InputStream csvFile = null;
-        HashMap<String, InputStream> files = new HashMap<>();
+        Path tmpDir = Paths.get(Utils.getConfigValue(ConfigurationKey.TEMPORARY_DIRECTORY));
 
         try (BufferedInputStream bis = new BufferedInputStream(inputStream);
-             ZipInputStream zis = new ZipInputStream(bis)) {
-
-            ZipEntry zipEntry;
-            while ((zipEntry = zis.getNextEntry()) != null) {
-
-                if (zipEntry.isDirectory())
-                    continue;
-
-                String name = zipEntry.getName();
-                if (name.contains("/"))
-                    name = name.substring(name.lastIndexOf("/") + 1);
+             ZipUploadFiles files = new ZipUploadFiles(bis, tmpDir)) {
 
-                // ignore all dot files
-                if (name.startsWith("."))
-                    continue;
-
-                int len;
-                ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-                byte[] buffer = new byte[1024];
-                while ((len = zis.read(buffer)) > 0) {
-                    byteArrayOutputStream.write(buffer, 0, len);
-                }
-                zis.closeEntry();
-
-                // get main csv
-                if (name.endsWith(".csv")) {
-                    if (csvFile != null) {
-                        processedBulkUpload.setSuccess(false);
-                        processedBulkUpload.setUserMessage("Duplicate csv file in zip archive. It should only contain one.");
-                        return processedBulkUpload;
-                    } else {
-                        csvFile = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
-                    }
-                } else {
-                    files.put(name, new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
-                }
+            if (files.getCsvCount() > 1) {
+                processedBulkUpload.setSuccess(false);
+                processedBulkUpload.setUserMessage("Duplicate csv file in zip archive. It should only contain one.");
+                return processedBulkUpload;
             }
-        } catch (IOException e) {
-            processedBulkUpload.setSuccess(false);
-            processedBulkUpload.setUserMessage(e.getCause().getMessage());
-            return processedBulkUpload;
-        }
 
-        if (csvFile == null) {
-            processedBulkUpload.setSuccess(false);
-            processedBulkUpload.setUserMessage("Could not find a csv file in the zip archive");
-            return processedBulkUpload;
-        }
+            if (files.getCsvCount() == 0) {
+                processedBulkUpload.setSuccess(false);
+                processedBulkUpload.setUserMessage("Could not find a csv file in the zip archive");
+                return processedBulkUpload;
+            }
 
-        try {
             // retrieve the partData and validates
-            List<PartWithSample> updates = super.getBulkUploadDataFromFile(csvFile);
+            List<PartWithSample> updates;
+            try (InputStream csvFile = files.getCsvInputStream()) {
+                updates = super.getBulkUploadDataFromFile(csvFile);
+            }
+
             if (updates == null) {
                 processedBulkUpload.setSuccess(false);
                 processedBulkUpload.setUserMessage("Validation failed");
@@ -98,15 +75,15 @@ public class BulkZipUpload extends BulkCSVUpload {
             }
 
             // validate files to ensure that for each partData with a file, that the file is available
+            long maxSequenceSize = getMaxSequenceSize();
             for (PartWithSample partWithSample : updates) {
 
-                // check sequences
+                // check sequences, including those of linked parts
                 PartData data = partWithSample.getPartData();
-                String sequenceFile = data.getSequenceFileName();
-                if (StringUtils.isNotBlank(sequenceFile) && files.get(sequenceFile) == null) {
+                String message = checkSequenceFile(data, files, maxSequenceSize);
+                if (message != null) {
                     processedBulkUpload.setSuccess(false);
-                    processedBulkUpload.setUserMessage("Sequence file \"" + sequenceFile
-                            + "\" not found in the zip archive");
+                    processedBulkUpload.setUserMessage(message);
                     return processedBulkUpload;
                 }
 
@@ -114,9 +91,9 @@ public class BulkZipUpload extends BulkCSVUpload {
                 String attachmentFile;
                 if (data.getAttachments() != null && !data.getAttachments().isEmpty()) {
                     attachmentFile = data.getAttachments().get(0).getFilename();
-                    if (StringUtils.isNotBlank(attachmentFile) && files.get(attachmentFile) == null) {
+                    if (StringUtils.isNotBlank(attachmentFile) && !files.contains(attachmentFile)) {
                         processedBulkUpload.setSuccess(false);
-                        processedBulkUpload.setUserMessage("Attachment file \"" + sequenceFile
+                        processedBulkUpload.setUserMessage("Attachment file \"" + attachmentFile
                                 + "\" not found in the zip archive");
                         return processedBulkUpload;
                     }
@@ -144,4 +121,38 @@ public class BulkZipUpload extends BulkCSVUpload {
             return processedBulkUpload;
         }
     }
+
+    // message if the sequence file of the part (or of a linked part) is missing or too large, or null
+    private String checkSequenceFile(PartData data, ZipUploadFiles files, long maxSequenceSize) {
+        String sequenceFile = data.getSequenceFileName();
+        if (StringUtils.isNotBlank(sequenceFile) && !files.contains(sequenceFile))
+            return "Sequence file \"" + sequenceFile + "\" not found in the zip archive";
+
+        // the size in the archive may be unknown or wrong; the limit is also enforced when the file is read
+        if (StringUtils.isNotBlank(sequenceFile) && files.getSize(sequenceFile) > maxSequenceSize) {
+            return "Sequence file \"" + sequenceFile + "\" exceeds the maximum size of " + (maxSequenceSize / MB)
+                    + "MB";
+        }
+
+        if (data.getLinkedParts() == null || data.getLinkedParts().isEmpty())
+            return null;
+        return checkSequenceFile(data.getLinkedParts().get(0), files, maxSequenceSize);
+    }
+
+    /**
+     * @return maximum size (in bytes) of a sequence file in a zip upload
+     */
+    static long getMaxSequenceSize() {
+        String value = Utils.getConfigValue(ConfigurationKey.BULK_UPLOAD_MAX_SEQUENCE_SIZE);
+        try {
+            long size = Long.parseLong(value.trim());
+            if (size > 0)
+                return size * MB;
+        } catch (Exception e) {
+            // use default
+        }
+        Logger.warn("Invalid value \"" + value + "\" for " + ConfigurationKey.BULK_UPLOAD_MAX_SEQUENCE_SIZE.name()
+                + ". Using default");
+        return Long.parseLong(ConfigurationKey.BULK_UPLOAD_MAX_SEQUENCE_SIZE.getDefaultValue()) * MB;
+    }
 }
@@ -0,0 +1,194 @@
+package org.jbei.ice.lib.bulkupload;
+
+import org.jbei.ice.lib.common.logging.Logger;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Files in a zip archive uploaded for a bulk upload. The archive is spooled to a temporary file and its members are
+ * read from it on demand, so the memory used does not depend on the size of the archive. The temporary file is
+ * deleted when closed.
+ * <p>
+ * Members are referenced by file name (without any folders); directories and dot files are ignored. Files with a
+ * <code>.csv</code> extension are not available as files; see {@link #getCsvCount()}
+ */
+class ZipUploadFiles implements Closeable {
+
+    private final Path spooled;
+    private final ZipFile zipFile;
+    private final Map<String, ZipEntry> files = new HashMap<>();
+    private ZipEntry csv;
+    private int csvCount;
+
+    /**
+     * @param inputStream zip archive. It is read to the end but not closed
+     * @param directory   directory to spool the archive to
+     * @throws IOException on exception spooling the archive, or if it is not a valid zip archive
+     */
+    ZipUploadFiles(InputStream inputStream, Path directory) throws IOException {
+        spooled = Files.createTempFile(directory, "bulk-upload-", ".zip");
+        try {
+            Files.copy(inputStream, spooled, StandardCopyOption.REPLACE_EXISTING);
+            zipFile = new ZipFile(spooled.toFile());
+        } catch (IOException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry zipEntry = entries.nextElement();
+            if (zipEntry.isDirectory())
+                continue;
+
+            String name = zipEntry.getName();
+            if (name.contains("/"))
+                name = name.substring(name.lastIndexOf("/") + 1);
+
+            // ignore all dot files
+            if (name.startsWith("."))
+                continue;
+
+            if (name.endsWith(".csv")) {
+                csv = zipEntry;
+                csvCount += 1;
+            } else {
+                files.put(name, zipEntry);
+            }
+        }
+    }
+
+    /**
+     * @return number of csv files in the archive
+     */
+    int getCsvCount() {
+        return csvCount;
+    }
+
+    /**
+     * @return stream for the csv file in the archive, or null if there is none. Must be closed by the caller
+     * @throws IOException on exception reading the archive
+     */
+    InputStream getCsvInputStream() throws IOException {
+        return csv == null ? null : zipFile.getInputStream(csv);
+    }
+
+    boolean contains(String name) {
+        return files.containsKey(name);
+    }
+
+    /**
+     * @param name name of file
+     * @return uncompressed size (in bytes) of the file, or -1 if not known or the file is not in the archive
+     */
+    long getSize(String name) {
+        ZipEntry zipEntry = files.get(name);
+        return zipEntry == null ? -1 : zipEntry.getSize();
+    }
+
+    /**
+     * @param name name of file
+     * @return stream for the file, or null if the file is not in the archive. Must be closed by the caller
+     * @throws IOException on exception reading the archive
+     */
+    InputStream getInputStream(String name) throws IOException {
+        ZipEntry zipEntry = files.get(name);
+        return zipEntry == null ? null : zipFile.getInputStream(zipEntry);
+    }
+
+    /**
+     * The size of a file in the archive is only known from its zip entry, which can be missing or wrong, so the limit
+     * is enforced as the file is read
+     *
+     * @param name  name of file
+     * @param limit maximum number of (uncompressed) bytes that can be read from the file
+     * @return stream for the file, or null if the file is not in the archive. Must be closed by the caller
+     * @throws IOException on exception reading the archive. A {@link SizeLimitException} is thrown by the stream
+     *                     once more than <code>limit</code> bytes are read
+     */
+    InputStream getInputStream(String name, long limit) throws IOException {
+        InputStream inputStream = getInputStream(name);
+        return inputStream == null ? null : new LimitedInputStream(inputStream, name, limit);
+    }
+
+    /**
+     * Exception thrown when more than the allowed number of bytes are read from a file in the archive
+     */
+    static class SizeLimitException extends IOException {
+
+        SizeLimitException(String name, long limit) {
+            super("File \"" + name + "\" exceeds the maximum size of " + limit + " bytes");
+        }
+    }
+
+    // stream that throws once more than the limit is read
+    private static class LimitedInputStream extends FilterInputStream {
+        private final String name;
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, String name, long limit) {
+            super(in);
+            this.name = name;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value != -1)
+                count(1);
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0)
+                count(read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void count(long read) throws SizeLimitException {
+            count += read;
+            if (count > limit)
+                throw new SizeLimitException(name, limit);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            zipFile.close();
+        } finally {
+            try {
+                Files.deleteIfExists(spooled);
+            } catch (IOException e) {
+                Logger.error(e);
+            }
+        }
+    }
+}
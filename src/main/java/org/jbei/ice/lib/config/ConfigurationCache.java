@@ -0,0 +1,256 @@
+package org.jbei.ice.lib.config;
+
+import org.hibernate.Session;
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.ConfigurationKey;
+import org.jbei.ice.storage.hibernate.HibernateConfiguration;
+import org.jbei.ice.storage.model.ConfigurationModel;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Process wide, in memory snapshot of the system configuration values.
+ * <p>
+ * The snapshot is loaded (in its own session) on first use and is immutable; reads are a single volatile read
+ * and do not require a transaction. Values written through {@link ConfigurationSettings} are applied to the
+ * snapshot immediately by swapping in an updated copy, and the snapshot is reloaded if the writing transaction
+ * rolls back.
+ * <p>
+ * Each write also increments a version stamp stored (as {@link #VERSION_KEY}) in the configuration table. When
+ * started, a background thread periodically compares the stored version with the version of the snapshot and
+ * reloads the snapshot if it is behind, which picks up changes made by other instances sharing the database.
+ * <p>
+ * Listeners can {@link #subscribe(ConfigurationKey, Consumer)} to changes in the value of a key
+ */
+public class ConfigurationCache {
+
+    static final String VERSION_KEY = "CONFIGURATION_VERSION";
+    private static final ConfigurationCache INSTANCE = new ConfigurationCache();
+
+    private final Map<ConfigurationKey, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot;
+    private ScheduledExecutorService refresher;
+
+    private ConfigurationCache() {
+    }
+
+    public static ConfigurationCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param key configuration key
+     * @return value for the key or the key's default value if it has not been set
+     */
+    public String getValue(ConfigurationKey key) {
+        Snapshot current = this.snapshot;
+        if (current == null || current.stale)
+            current = reload();
+
+        String value = current.values.get(key.name());
+        return value == null ? key.getDefaultValue() : value;
+    }
+
+    /**
+     * Registers a listener that is notified (with the new value) whenever the value of the key changes in the
+     * cache, whether from a local write or a reload
+     *
+     * @param key      configuration key
+     * @param listener called with the new value of the key
+     */
+    public void subscribe(ConfigurationKey key, Consumer<String> listener) {
+        listeners.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * @param key      configuration key
+     * @param listener listener previously registered with {@link #subscribe(ConfigurationKey, Consumer)}
+     */
+    public void unsubscribe(ConfigurationKey key, Consumer<String> listener) {
+        List<Consumer<String>> keyListeners = listeners.get(key);
+        if (keyListeners != null)
+            keyListeners.remove(listener);
+    }
+
+    /**
+     * Starts the background check for changes made by other instances
+     *
+     * @param interval interval, in seconds, at which the stored version is checked
+     */
+    public synchronized void start(int interval) {
+        if (refresher != null)
+            return;
+
+        Logger.info("Starting configuration refresh (interval " + interval + "s)");
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "configuration-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long delay = Math.max(1, interval);
+        refresher.scheduleWithFixedDelay(this::refresh, delay, delay, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (refresher == null)
+            return;
+
+        refresher.shutdownNow();
+        refresher = null;
+    }
+
+    /**
+     * Marks the snapshot as stale so the next read reloads it
+     */
+    public synchronized void invalidate() {
+        Snapshot current = this.snapshot;
+        if (current != null && !current.stale)
+            this.snapshot = new Snapshot(current.values, current.version, true);
+    }
+
+    /**
+     * Applies a value written in the current transaction to the snapshot. The snapshot version is only advanced
+     * if the write directly follows it; otherwise another instance changed the configuration in between, and the
+     * snapshot is reloaded once the transaction completes
+     *
+     * @param key     configuration key
+     * @param value   new value
+     * @param version version stamp written with the value
+     */
+    void put(ConfigurationKey key, String value, long version) {
+        Snapshot previous;
+        Snapshot updated;
+        boolean behind;
+        synchronized (this) {
+            previous = this.snapshot;
+            Snapshot base = previous == null || previous.stale ? load() : previous;
+
+            behind = version != base.version + 1;
+            Map<String, String> values = new HashMap<>(base.values);
+            values.put(key.name(), value);
+            updated = new Snapshot(values, behind ? base.version : version, false);
+            this.snapshot = updated;
+        }
+
+        if (previous != null)
+            notifyListeners(previous, updated);
+        HibernateConfiguration.afterCompletion(committed -> {
+            if (!committed || behind)
+                invalidate();
+        });
+    }
+
+    private Snapshot reload() {
+        Snapshot previous;
+        Snapshot updated;
+        synchronized (this) {
+            previous = this.snapshot;
+            if (previous != null && !previous.stale)
+                return previous;
+
+            updated = load();
+            this.snapshot = updated;
+        }
+
+        if (previous != null)
+            notifyListeners(previous, updated);
+        return updated;
+    }
+
+    // runs on the refresh thread
+    void refresh() {
+        try {
+            Snapshot current = this.snapshot;
+            if (current == null)
+                return;
+
+            long version;
+            try (Session session = HibernateConfiguration.newSession()) {
+                version = getVersion(readValues(session, VERSION_KEY));
+            }
+
+            if (version > current.version) {
+                Logger.info("Configuration version changed to " + version + ". Reloading");
+                invalidate();
+                reload();
+            }
+        } catch (Exception e) {
+            Logger.error("Exception refreshing configuration", e);
+        }
+    }
+
+    // loads committed values in a separate session so no transaction is required of the caller
+    private Snapshot load() {
+        try (Session session = HibernateConfiguration.newSession()) {
+            Map<String, String> values = readValues(session, null);
+            return new Snapshot(values, getVersion(values), false);
+        }
+    }
+
+    private Map<String, String> readValues(Session session, String key) {
+        CriteriaBuilder builder = session.getCriteriaBuilder();
+        CriteriaQuery<ConfigurationModel> query = builder.createQuery(ConfigurationModel.class);
+        Root<ConfigurationModel> root = query.from(ConfigurationModel.class);
+        if (key != null)
+            query.where(builder.equal(root.get("key"), key));
+
+        Map<String, String> values = new HashMap<>();
+        for (ConfigurationModel model : session.createQuery(query).list()) {
+            values.put(model.getKey(), model.getValue());
+        }
+        return values;
+    }
+
+    private long getVersion(Map<String, String> values) {
+        String value = values.get(VERSION_KEY);
+        if (value == null)
+            return 0;
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            Logger.warn("Invalid value \"" + value + "\" for " + VERSION_KEY);
+            return 0;
+        }
+    }
+
+    private void notifyListeners(Snapshot previous, Snapshot updated) {
+        for (Map.Entry<ConfigurationKey, List<Consumer<String>>> entry : listeners.entrySet()) {
+            String key = entry.getKey().name();
+            String value = updated.values.get(key);
+            if (Objects.equals(previous.values.get(key), value))
+                continue;
+
+            if (value == null)
+                value = entry.getKey().getDefaultValue();
+            for (Consumer<String> listener : entry.getValue()) {
+                try {
+                    listener.accept(value);
+                } catch (Exception e) {
+                    Logger.error("Exception notifying listener of change to " + key, e);
+                }
+            }
+        }
+    }
+
+    private static class Snapshot {
+        private final Map<String, String> values;
+        private final long version;
+        private final boolean stale;
+
+        Snapshot(Map<String, String> values, long version, boolean stale) {
+            this.values = Collections.unmodifiableMap(values);
+            this.version = version;
+            this.stale = stale;
+        }
+    }
+}
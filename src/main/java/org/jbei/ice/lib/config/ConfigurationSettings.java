@@ -1,5 +1,6 @@
 package org.jbei.ice.lib.config;
 
+import org.apache.commons.lang3.EnumUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jbei.ice.lib.access.PermissionException;
 import org.jbei.ice.lib.account.AccountController;
@@ -45,10 +46,7 @@ public class ConfigurationSettings {
     }
 
     public String getPropertyValue(ConfigurationKey key) {
-        ConfigurationModel config = dao.get(key);
-        if (config == null)
-            return key.getDefaultValue();
-        return config.getValue();
+        return ConfigurationCache.getInstance().getValue(key);
     }
 
     public Setting getPropertyValue(String key) {
@@ -92,11 +90,20 @@ public class ConfigurationSettings {
             configuration = new ConfigurationModel();
             configuration.setKey(key.name());
             configuration.setValue(value);
-            return dao.create(configuration);
+            configuration = dao.create(configuration);
+        } else {
+            configuration.setValue(value);
+            configuration = dao.update(configuration);
         }
 
-        configuration.setValue(value);
-        return dao.update(configuration);
+        updateCache(key, value);
+        return configuration;
+    }
+
+    // bumps the stored version (so other instances reload) and applies the value to the local cache
+    private void updateCache(ConfigurationKey key, String value) {
+        long version = dao.increment(ConfigurationCache.VERSION_KEY);
+        ConfigurationCache.getInstance().put(key, value, version);
     }
 
     public Setting updateSetting(String userId, Setting setting, String url) {
@@ -134,8 +141,8 @@ public class ConfigurationSettings {
         String osName = System.getProperty("os.name").replaceAll("\\s+", "").toLowerCase();
         String blast = "ncbi-blast-2.6.0+-x64-" + osName + ".tar.gz";
 
-        Path path = Paths.get(dao.get(ConfigurationKey.TEMPORARY_DIRECTORY).getValue(), blast);
-        Path dest = Paths.get(dao.get(ConfigurationKey.DATA_DIRECTORY).getValue());
+        Path path = Paths.get(getPropertyValue(ConfigurationKey.TEMPORARY_DIRECTORY), blast);
+        Path dest = Paths.get(getPropertyValue(ConfigurationKey.DATA_DIRECTORY));
         if (!Files.exists(dest)) {
             Logger.error("Cannot access access dir : " + dest.toString());
             return null;
@@ -157,7 +164,11 @@ public class ConfigurationSettings {
                 }
             });
 
-            return dao.update(configuration).toDataTransferObject();
+            configuration = dao.update(configuration);
+            ConfigurationKey key = EnumUtils.getEnum(ConfigurationKey.class, configuration.getKey());
+            if (key != null)
+                updateCache(key, configuration.getValue());
+            return configuration.toDataTransferObject();
         } catch (Exception e) {
             Logger.error(e);
             return null;
@@ -179,7 +190,7 @@ public class ConfigurationSettings {
 
     public SiteSettings getSiteSettings() {
         SiteSettings settings = new SiteSettings();
-        String dataDirectory = dao.get(ConfigurationKey.DATA_DIRECTORY).getValue();
+        String dataDirectory = getPropertyValue(ConfigurationKey.DATA_DIRECTORY);
         final String LOGO_NAME = "logo.png";
         final String LOGIN_MESSAGE_FILENAME = "institution.html";
         final String FOOTER_FILENAME = "footer.html";
@@ -195,7 +206,7 @@ public class ConfigurationSettings {
     public File getUIAsset(String assetName) {
         if (StringUtils.isEmpty(assetName))
             throw new IllegalArgumentException("Cannot retrieve asset with no name");
-        String dataDirectory = dao.get(ConfigurationKey.DATA_DIRECTORY).getValue();
+        String dataDirectory = getPropertyValue(ConfigurationKey.DATA_DIRECTORY);
         Path path = Paths.get(dataDirectory, UI_CONFIG_DIR, assetName);
         if (Files.exists(path)) {
             return path.toFile();
@@ -0,0 +1,91 @@
+package org.jbei.ice.lib.dto;
+
+import org.jbei.ice.storage.IDataTransferModel;
+
+/**
+ * Metrics for the queue of entry reads waiting to be written to the audit log
+ */
+public class AuditQueueStatus implements IDataTransferModel {
+
+    private int depth;              // number of pending reads
+    private int capacity;
+    private long lag;               // age (ms) of oldest pending read
+    private long flushCount;        // number of batches written
+    private long writtenCount;      // total number of audits written
+    private long collapsedCount;    // reads merged with a pending read by the same user of the same entry
+    private long droppedCount;      // reads not recorded because the queue was full
+    private int lastFlushSize;
+    private long lastFlushDuration; // ms
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getLag() {
+        return lag;
+    }
+
+    public void setLag(long lag) {
+        this.lag = lag;
+    }
+
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    public void setFlushCount(long flushCount) {
+        this.flushCount = flushCount;
+    }
+
+    public long getWrittenCount() {
+        return writtenCount;
+    }
+
+    public void setWrittenCount(long writtenCount) {
+        this.writtenCount = writtenCount;
+    }
+
+    public long getCollapsedCount() {
+        return collapsedCount;
+    }
+
+    public void setCollapsedCount(long collapsedCount) {
+        this.collapsedCount = collapsedCount;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public void setDroppedCount(long droppedCount) {
+        this.droppedCount = droppedCount;
+    }
+
+    public int getLastFlushSize() {
+        return lastFlushSize;
+    }
+
+    public void setLastFlushSize(int lastFlushSize) {
+        this.lastFlushSize = lastFlushSize;
+    }
+
+    public long getLastFlushDuration() {
+        return lastFlushDuration;
+    }
+
+    public void setLastFlushDuration(long lastFlushDuration) {
+        this.lastFlushDuration = lastFlushDuration;
+    }
+}
@@ -26,6 +26,10 @@ public enum ConfigurationKey implements IDataTransferModel {
     PART_NUMBER_DELIMITER("_"),
 
     BLAST_INSTALL_DIR(""),
+    BLAST_INDEX_FLUSH_INTERVAL("5"),
+    BLAST_INDEX_FLUSH_SIZE("500"),
+    BLAST_MAX_CONCURRENT("2"),
+    BLAST_TIMEOUT("300"),
 
     NEW_REGISTRATION_ALLOWED("NO"),
     PASSWORD_CHANGE_ALLOWED("YES"),
@@ -35,10 +39,42 @@ public enum ConfigurationKey implements IDataTransferModel {
     EMAILER(Type.CUSTOM.name()),
     GMAIL_APPLICATION_PASSWORD(""),
     WEB_OF_REGISTRIES_MASTER("registry.jbei.org"),
+    WEB_SEARCH_TIMEOUT("15"),               // seconds; overall time allowed for searches of partner registries
+    WEB_SEARCH_PARTNER_TIMEOUT("10"),       // seconds; connect/read timeout for the search of a single partner
+
+    // shared http clients used for calls to partner registries
+    REST_CLIENT_CONNECT_TIMEOUT("10"),      // seconds
+    REST_CLIENT_READ_TIMEOUT("60"),         // seconds
+    REST_CLIENT_COMPRESS_REQUESTS("NO"),    // gzip request bodies; all partners must be able to decode them
+
+    // transfer of entries to partner registries
+    TRANSFER_CHUNK_SIZE("50"),              // parts sent per request
+    TRANSFER_CONCURRENCY("3"),              // requests sent in parallel
+
+    // zip bulk uploads are spooled to disk; sequence files in them are parsed in memory
+    BULK_UPLOAD_MAX_SEQUENCE_SIZE("100"),   // MB; uploads with larger sequence files are rejected
 
     // sample request config
     SAMPLE_CREATE_APPROVAL_MESSAGE(""),
-    AUTHENTICATION_METHOD("DEFAULT");
+    AUTHENTICATION_METHOD("DEFAULT"),
+
+    // user session config
+    SESSION_STORE("MEMORY"),
+    SESSION_MAX_AGE("168"),             // hours
+    SESSION_IDLE_TIMEOUT("1440"),       // minutes
+
+    // hash parameters for stored api keys and partner tokens
+    TOKEN_HASH_ALGORITHM("PBKDF2WithHmacSHA1"),
+    TOKEN_HASH_ITERATIONS("20000"),
+
+    // entry read audits are written in batches by a background writer
+    AUDIT_FLUSH_INTERVAL("5"),              // seconds
+    AUDIT_FLUSH_SIZE("500"),                // number of pending reads that triggers a write
+    AUDIT_QUEUE_CAPACITY("20000"),          // pending reads above this are dropped
+    AUDIT_READ_INTERVAL("60"),              // seconds; reads of an entry by a user within an interval are recorded once
+
+    // interval at which configuration changes made by other instances are picked up
+    CONFIGURATION_REFRESH_INTERVAL("30");   // seconds
 
     private String defaultValue;
 
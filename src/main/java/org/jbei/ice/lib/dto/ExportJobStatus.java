@@ -0,0 +1,73 @@
+package org.jbei.ice.lib.dto;
+
+import org.jbei.ice.storage.IDataTransferModel;
+
+/**
+ * Progress of a job exporting entries (and their sequences) to a file
+ */
+public class ExportJobStatus implements IDataTransferModel {
+
+    private String id;                      // identifies the export; same for identical exports of unchanged data
+    private String status;                  // one of TaskStatus
+    private int entryCount;                 // number of entries the user can read
+    private int writtenEntryCount;
+    private int sequenceFileCount;          // known once all entries have been written
+    private int writtenSequenceFileCount;
+    private long fileSize;                  // size (bytes) of the export file, once completed
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(int entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    public int getWrittenEntryCount() {
+        return writtenEntryCount;
+    }
+
+    public void setWrittenEntryCount(int writtenEntryCount) {
+        this.writtenEntryCount = writtenEntryCount;
+    }
+
+    public int getSequenceFileCount() {
+        return sequenceFileCount;
+    }
+
+    public void setSequenceFileCount(int sequenceFileCount) {
+        this.sequenceFileCount = sequenceFileCount;
+    }
+
+    public int getWrittenSequenceFileCount() {
+        return writtenSequenceFileCount;
+    }
+
+    public void setWrittenSequenceFileCount(int writtenSequenceFileCount) {
+        this.writtenSequenceFileCount = writtenSequenceFileCount;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+}
@@ -0,0 +1,73 @@
+package org.jbei.ice.lib.dto.search;
+
+import org.jbei.ice.storage.IDataTransferModel;
+
+/**
+ * Metrics for the queue of pending changes to the blast database
+ */
+public class BlastIndexQueueStatus implements IDataTransferModel {
+
+    private int depth;              // number of parts with pending changes
+    private long lag;               // age (ms) of oldest pending change
+    private long flushCount;        // number of batches applied
+    private long appliedCount;      // total number of changes applied
+    private long coalescedCount;    // number of changes merged with an already pending change for the same part
+    private int lastFlushSize;
+    private long lastFlushDuration; // ms
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public long getLag() {
+        return lag;
+    }
+
+    public void setLag(long lag) {
+        this.lag = lag;
+    }
+
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    public void setFlushCount(long flushCount) {
+        this.flushCount = flushCount;
+    }
+
+    public long getAppliedCount() {
+        return appliedCount;
+    }
+
+    public void setAppliedCount(long appliedCount) {
+        this.appliedCount = appliedCount;
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public void setCoalescedCount(long coalescedCount) {
+        this.coalescedCount = coalescedCount;
+    }
+
+    public int getLastFlushSize() {
+        return lastFlushSize;
+    }
+
+    public void setLastFlushSize(int lastFlushSize) {
+        this.lastFlushSize = lastFlushSize;
+    }
+
+    public long getLastFlushDuration() {
+        return lastFlushDuration;
+    }
+
+    public void setLastFlushDuration(long lastFlushDuration) {
+        this.lastFlushDuration = lastFlushDuration;
+    }
+}
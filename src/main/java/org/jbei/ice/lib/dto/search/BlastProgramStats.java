@@ -0,0 +1,73 @@
+package org.jbei.ice.lib.dto.search;
+
+import org.jbei.ice.storage.IDataTransferModel;
+
+/**
+ * Execution statistics for a blast program, including a histogram of run times
+ */
+public class BlastProgramStats implements IDataTransferModel {
+
+    private String program;
+    private long count;             // number of completed runs
+    private long timeouts;          // number of runs killed for exceeding the deadline
+    private long rejected;          // number of runs rejected because too many were queued
+    private long averageTime;       // ms
+    private long[] bucketLimits;    // upper limit (ms) of each histogram bucket. last bucket has no limit
+    private long[] buckets;         // number of runs in each bucket
+
+    public String getProgram() {
+        return program;
+    }
+
+    public void setProgram(String program) {
+        this.program = program;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public void setTimeouts(long timeouts) {
+        this.timeouts = timeouts;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getAverageTime() {
+        return averageTime;
+    }
+
+    public void setAverageTime(long averageTime) {
+        this.averageTime = averageTime;
+    }
+
+    public long[] getBucketLimits() {
+        return bucketLimits;
+    }
+
+    public void setBucketLimits(long[] bucketLimits) {
+        this.bucketLimits = bucketLimits;
+    }
+
+    public long[] getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(long[] buckets) {
+        this.buckets = buckets;
+    }
+}
@@ -0,0 +1,37 @@
+package org.jbei.ice.lib.dto.web;
+
+import org.jbei.ice.lib.dto.entry.PartData;
+import org.jbei.ice.storage.IDataTransferModel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * A batch of parts (with their linked parts and sequences) transferred to another registry in a single request.
+ * The recipient acknowledges the chunk by returning it with the part ids set to the ids on the recipient.
+ * <p>
+ * The key identifies the chunk so that it can be safely sent again (e.g. when resuming a transfer); receiving
+ * the same parts again does not create new entries
+ */
+public class TransferChunk implements IDataTransferModel {
+
+    private String key;
+    private ArrayList<PartData> parts = new ArrayList<>();
+    private HashMap<String, String> sequences = new HashMap<>();   // record id -> genbank sequence
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public ArrayList<PartData> getParts() {
+        return parts;
+    }
+
+    public HashMap<String, String> getSequences() {
+        return sequences;
+    }
+}
@@ -0,0 +1,73 @@
+package org.jbei.ice.lib.dto.web;
+
+import org.jbei.ice.storage.IDataTransferModel;
+
+/**
+ * Progress of a transfer of entries to a partner registry
+ */
+public class TransferStatus implements IDataTransferModel {
+
+    private String id;                  // identifies the transfer; same for transfers of the same entries
+    private String status;              // one of TaskStatus
+    private int totalParts;
+    private int totalChunks;
+    private int acknowledgedChunks;
+    private int failedChunks;           // in the last run of the transfer
+    private boolean complete;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getTotalParts() {
+        return totalParts;
+    }
+
+    public void setTotalParts(int totalParts) {
+        this.totalParts = totalParts;
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    public void setTotalChunks(int totalChunks) {
+        this.totalChunks = totalChunks;
+    }
+
+    public int getAcknowledgedChunks() {
+        return acknowledgedChunks;
+    }
+
+    public void setAcknowledgedChunks(int acknowledgedChunks) {
+        this.acknowledgedChunks = acknowledgedChunks;
+    }
+
+    public int getFailedChunks() {
+        return failedChunks;
+    }
+
+    public void setFailedChunks(int failedChunks) {
+        this.failedChunks = failedChunks;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+}
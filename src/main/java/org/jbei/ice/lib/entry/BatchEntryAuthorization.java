@@ -0,0 +1,122 @@
+package org.jbei.ice.lib.entry;
+
+import org.jbei.ice.lib.account.AccountType;
+import org.jbei.ice.lib.dto.folder.FolderType;
+import org.jbei.ice.lib.group.GroupController;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.dao.PermissionDAO;
+import org.jbei.ice.storage.model.Account;
+import org.jbei.ice.storage.model.Group;
+
+import java.util.*;
+
+/**
+ * Evaluates the read and write privileges of a user on many entries at once. Applies the same rules as
+ * {@link EntryAuthorization} but with a fixed number of queries for each batch of entries instead of
+ * several queries for each entry.
+ * <p>
+ * Results are memoized for the lifetime of the instance, so an instance is meant to be used for a single
+ * request; privileges that change after an entry has been evaluated are not reflected
+ */
+public class BatchEntryAuthorization {
+
+    // number of entry ids in each query
+    static final int BATCH_SIZE = 1000;
+
+    private final String userId;
+    private final PermissionDAO permissionDAO;
+    private final Set<Long> evaluated = new HashSet<>();
+    private final Set<Long> readable = new HashSet<>();
+    private final Set<Long> writable = new HashSet<>();
+    private Account account;
+    private List<Group> groups;
+    private Boolean admin;
+
+    public BatchEntryAuthorization(String userId) {
+        this.userId = userId;
+        this.permissionDAO = DAOFactory.getPermissionDAO();
+    }
+
+    /**
+     * Evaluates the privileges of the user on the specified entries. Entries that were evaluated by an earlier call
+     * are not evaluated again
+     *
+     * @param entryIds unique identifiers for entries
+     * @return read and write privileges of the user on the specified entries
+     */
+    public EntryAccess evaluate(Collection<Long> entryIds) {
+        List<Long> pending = new ArrayList<>();
+        for (Long entryId : entryIds) {
+            if (entryId != null && evaluated.add(entryId))
+                pending.add(entryId);
+        }
+
+        for (int i = 0; i < pending.size(); i += BATCH_SIZE) {
+            evaluateBatch(pending.subList(i, Math.min(pending.size(), i + BATCH_SIZE)));
+        }
+
+        return new EntryAccess(evaluated(entryIds), readable, writable);
+    }
+
+    public boolean canRead(long entryId) {
+        return evaluate(Collections.singletonList(entryId)).canRead(entryId);
+    }
+
+    public boolean canWrite(long entryId) {
+        return evaluate(Collections.singletonList(entryId)).canWrite(entryId);
+    }
+
+    private void evaluateBatch(List<Long> batch) {
+        // anonymous users can only read entries that are (or are in folders that are) readable by the public group
+        if (userId == null) {
+            List<Group> publicGroup = Collections.singletonList(new GroupController().createOrRetrievePublicGroup());
+            readable.addAll(permissionDAO.getEntryPermissions(batch, null, publicGroup).keySet());
+            readable.addAll(permissionDAO.getFolderEntryPermissions(batch, null, publicGroup).keySet());
+            return;
+        }
+
+        if (isAdmin()) {
+            readable.addAll(batch);
+            writable.addAll(batch);
+            return;
+        }
+
+        // owner
+        List<Long> owned = DAOFactory.getEntryDAO().getOwnedEntryIds(userId, batch);
+        readable.addAll(owned);
+        writable.addAll(owned);
+
+        // explicit account and group permissions, and permissions on folders that the entries are in
+        Map<Long, Boolean> permissions = permissionDAO.getEntryPermissions(batch, account, groups);
+        permissionDAO.getFolderEntryPermissions(batch, account, groups)
+                .forEach((id, canWrite) -> permissions.merge(id, canWrite, Boolean::logicalOr));
+        permissions.forEach((id, canWrite) -> {
+            readable.add(id);
+            if (canWrite)
+                writable.add(id);
+        });
+
+        // public folders
+        readable.addAll(DAOFactory.getFolderDAO().getEntryIdsInFolderType(FolderType.PUBLIC, batch));
+    }
+
+    private boolean isAdmin() {
+        if (admin == null) {
+            account = DAOFactory.getAccountDAO().getByEmail(userId);
+            if (account == null)
+                throw new IllegalArgumentException("Could not retrieve account information for user " + userId);
+            admin = account.getType() == AccountType.ADMIN;
+            groups = new GroupController().getAllGroups(account);
+        }
+        return admin;
+    }
+
+    private List<Long> evaluated(Collection<Long> entryIds) {
+        List<Long> ids = new ArrayList<>(entryIds.size());
+        for (Long entryId : entryIds) {
+            if (entryId != null)
+                ids.add(entryId);
+        }
+        return ids;
+    }
+}
@@ -8,17 +8,13 @@ import org.jbei.ice.lib.dto.access.AccessPermission;
 import org.jbei.ice.lib.dto.entry.*;
 import org.jbei.ice.lib.dto.folder.FolderAuthorization;
 import org.jbei.ice.lib.dto.folder.FolderType;
-import org.jbei.ice.lib.dto.search.SearchQuery;
-import org.jbei.ice.lib.dto.search.SearchResult;
-import org.jbei.ice.lib.dto.search.SearchResults;
 import org.jbei.ice.lib.entry.sequence.PartSequence;
-import org.jbei.ice.lib.executor.IceExecutorService;
 import org.jbei.ice.lib.folder.collection.CollectionEntries;
 import org.jbei.ice.lib.folder.collection.CollectionType;
 import org.jbei.ice.lib.group.GroupController;
 import org.jbei.ice.lib.search.SearchIndexes;
 import org.jbei.ice.lib.search.blast.Action;
-import org.jbei.ice.lib.search.blast.RebuildBlastIndexTask;
+import org.jbei.ice.lib.search.blast.BlastIndexUpdateQueue;
 import org.jbei.ice.lib.utils.Utils;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.InfoToModelFactory;
@@ -43,6 +39,7 @@ public class Entries extends HasEntry {
     private final EntryDAO dao;
     private final String userId;
     private final EntryAuthorization authorization;
+    private final BatchEntryAuthorization batchAuthorization;
     private final SequenceDAO sequenceDAO;
     private final CustomEntryFieldValueDAO entryFieldValueDAO;
 
@@ -53,6 +50,7 @@ public class Entries extends HasEntry {
     public Entries(String userId) {
         this.dao = DAOFactory.getEntryDAO();
         this.authorization = new EntryAuthorization();
+        this.batchAuthorization = new BatchEntryAuthorization(userId);
         this.userId = userId;
         sequenceDAO = DAOFactory.getSequenceDAO();
         entryFieldValueDAO = DAOFactory.getCustomEntryFieldValueDAO();
@@ -172,12 +170,13 @@ public class Entries extends HasEntry {
 
     public List<Long> updateVisibility(List<Long> entryIds, Visibility visibility) {
         List<Long> updated = new ArrayList<>();
+        EntryAccess access = batchAuthorization.evaluate(entryIds);
         for (long entryId : entryIds) {
-            Entry entry = dao.get(entryId);
-            if (entry.getVisibility() == visibility.getValue())
+            if (!access.canWrite(entryId))
                 continue;
 
-            if (!authorization.canWrite(userId, entry))
+            Entry entry = dao.get(entryId);
+            if (entry == null || entry.getVisibility() == visibility.getValue())
                 continue;
 
             entry.setVisibility(visibility.getValue());
@@ -205,9 +204,7 @@ public class Entries extends HasEntry {
                 }
 
             case SEARCH:
-                SearchQuery query = context.getSearchQuery();
-                query.getParameters().setRetrieveCount(Integer.MAX_VALUE);
-                return getSearchResults(query);
+                return new SearchIndexes().runSearchIds(userId, context.getSearchQuery());
 
             case COLLECTION:
                 if (!context.getEntries().isEmpty()) {
@@ -226,11 +223,13 @@ public class Entries extends HasEntry {
      */
     public List<ParsedEntryId> validateEntries(InputStream stream, boolean checkName) throws IOException {
         List<ParsedEntryId> accepted = new ArrayList<>();
-        EntryAuthorization authorization = new EntryAuthorization();
 
         try (CSVReader reader = new CSVReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
             List<String[]> results = reader.readAll();
 
+            // look up all entries first so that read privileges are evaluated in one batch
+            Map<String[], List<Entry>> matches = new LinkedHashMap<>();
+            List<Long> ids = new ArrayList<>();
             for (String[] result : results) {
                 if (result[0].isEmpty())
                     continue;
@@ -244,12 +243,21 @@ public class Entries extends HasEntry {
                     if (entry != null)
                         entries.add(entry);
                 }
+                matches.put(result, entries);
+                for (Entry entry : entries)
+                    ids.add(entry.getId());
+            }
+
+            EntryAccess access = batchAuthorization.evaluate(ids);
+            for (Map.Entry<String[], List<Entry>> match : matches.entrySet()) {
+                String[] result = match.getKey();
+                List<Entry> entries = match.getValue();
 
                 if (entries.isEmpty())
                     accepted.add(new ParsedEntryId(result[0], null));
                 else {
                     for (Entry e : entries) {
-                        if (!authorization.canRead(this.userId, e)) {
+                        if (!access.canRead(e.getId())) {
                             accepted.add(new ParsedEntryId(result[0], null));
                             continue;
                         }
@@ -290,17 +298,6 @@ public class Entries extends HasEntry {
         return DAOFactory.getFolderDAO().getFolderContentIds(folderId, type, visibleOnly);
     }
 
-    private List<Long> getSearchResults(SearchQuery searchQuery) {
-        SearchIndexes searchIndexes = new SearchIndexes();
-        SearchResults searchResults = searchIndexes.runSearch(userId, searchQuery);
-        // todo : inefficient: have search return ids only
-        List<Long> results = new LinkedList<>();
-        for (SearchResult result : searchResults.getResults()) {
-            results.add(result.getEntryInfo().getId());
-        }
-        return results;
-    }
-
     /**
      * Creates a copy of referenced part
      *
@@ -417,8 +414,7 @@ public class Entries extends HasEntry {
 
         // rebuild blast database
         if (sequenceDAO.hasSequence(entry.getId())) {
-            RebuildBlastIndexTask task = new RebuildBlastIndexTask(Action.CREATE, entry.getPartNumber());
-            IceExecutorService.getInstance().runTask(task);
+            BlastIndexUpdateQueue.getInstance().add(Action.CREATE, entry.getPartNumber());
         }
 
         return entry;
@@ -1,19 +1,21 @@
 package org.jbei.ice.lib.entry;
 
 import com.opencsv.CSVWriter;
-import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.io.IOUtils;
 import org.jbei.ice.lib.account.AccountType;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.ConfigurationKey;
 import org.jbei.ice.lib.dto.entry.EntryFieldLabel;
 import org.jbei.ice.lib.dto.entry.EntryType;
-import org.jbei.ice.lib.dto.entry.PartData;
 import org.jbei.ice.lib.entry.sequence.InputStreamWrapper;
 import org.jbei.ice.lib.entry.sequence.PartSequence;
+import org.jbei.ice.lib.entry.sequence.SequenceAsString;
 import org.jbei.ice.lib.entry.sequence.SequenceFormat;
 import org.jbei.ice.lib.group.GroupController;
+import org.jbei.ice.lib.utils.LongList;
 import org.jbei.ice.lib.utils.Utils;
 import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateConfiguration;
 import org.jbei.ice.storage.hibernate.dao.AccountDAO;
 import org.jbei.ice.storage.hibernate.dao.EntryDAO;
 import org.jbei.ice.storage.hibernate.dao.PermissionDAO;
@@ -21,15 +23,16 @@ import org.jbei.ice.storage.hibernate.dao.SequenceDAO;
 import org.jbei.ice.storage.model.Account;
 import org.jbei.ice.storage.model.Entry;
 import org.jbei.ice.storage.model.Group;
-import org.jbei.ice.storage.model.Sequence;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipOutputStream;
 
 /**
@@ -39,6 +42,12 @@ import java.util.zip.ZipOutputStream;
  */
 public class EntriesAsCSV {
 
+    // number of entries read at a time
+    private static final int CHUNK_SIZE = 500;
+
+    // threads used to generate the sequence files of an export
+    private static final int SEQUENCE_THREADS = 4;
+
     private final String userId;
     private Path csvPath;
     private List<Long> entries;
@@ -48,6 +57,9 @@ public class EntriesAsCSV {
     private SequenceDAO sequenceDAO;
     private AccountDAO accountDAO;
     private PermissionDAO permissionDAO;
+    private final AtomicInteger writtenEntryCount = new AtomicInteger();
+    private final AtomicInteger writtenSequenceFileCount = new AtomicInteger();
+    private volatile int sequenceFileCount;
 
     /**
      * @param formats optional list of formats of sequences to include
@@ -115,19 +127,56 @@ public class EntriesAsCSV {
     }
 
     /**
-     * Iterate through list of entries and extract values
+     * Writes the specified entries directly to the output stream; as a zip file containing the csv file and the
+     * sequence files if any sequence formats were specified, or as a csv file otherwise (see {@link #isZip()}).
+     * Entries are read in chunks and written as they are read so the output starts immediately and the memory
+     * used does not depend on the number of entries.
+     * <p>
+     * Sequence files are generated by a small pool of threads, each in its own transaction, so the entries must
+     * have been committed
      *
-     * @throws IOException on Exception write values to file
+     * @param entries      ids of entries to write. Entries the user is not allowed to read are skipped
+     * @param outputStream stream to write to. It is not closed
+     * @param fields       optional list of fields used to filter the data
+     * @throws IOException on exception writing to the output stream
      */
-    private void writeList(EntryFieldLabel... fields) throws IOException {
+    public void write(List<Long> entries, OutputStream outputStream, EntryFieldLabel... fields) throws IOException {
+        this.entries = entries == null ? new ArrayList<>() : entries;
+        if (fields == null || fields.length == 0)
+            fields = getEntryFields();
 
-        // filter entries based on what the user is allowed to see if the user is not an admin
-        Account account = this.accountDAO.getByEmail(userId);
-        if (account.getType() != AccountType.ADMIN) {
-            List<Group> accountGroups = new GroupController().getAllGroups(account);
-            entries = permissionDAO.getCanReadEntries(account, accountGroups, entries);
+        if (!includeSequences) {
+            CSVWriter writer = new CSVWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            writeRows(writer, fields, null);
+            writer.flush();
+            return;
         }
 
+        ZipOutputStream zos = new ZipOutputStream(outputStream);
+        zos.putNextEntry(new ZipEntry("entries.csv"));
+        CSVWriter writer = new CSVWriter(new OutputStreamWriter(zos, StandardCharsets.UTF_8));
+        LongList sequenceIds = new LongList();
+        writeRows(writer, fields, sequenceIds);
+        writer.flush();
+        zos.closeEntry();
+
+        writeSequences(sequenceIds, getSequenceFormats(), true, false, zos);
+        zos.finish();
+    }
+
+    /**
+     * @return true if the output of {@link #write(List, OutputStream, EntryFieldLabel...)} is a zip file
+     */
+    public boolean isZip() {
+        return includeSequences;
+    }
+
+    /**
+     * Iterate through list of entries and extract values
+     *
+     * @throws IOException on Exception write values to file
+     */
+    private void writeList(EntryFieldLabel... fields) throws IOException {
         if (entries == null) {
             Logger.warn("No entries to convert to csv format");
             return;
@@ -137,20 +186,54 @@ public class EntriesAsCSV {
         Path tmpPath = Paths.get(Utils.getConfigValue(ConfigurationKey.TEMPORARY_DIRECTORY));
         File tmpFile = File.createTempFile("ice-", ".csv", tmpPath.toFile());
         csvPath = tmpFile.toPath();
-        FileWriter fileWriter = new FileWriter(tmpFile);
 
         if (fields == null || fields.length == 0)
             fields = getEntryFields();
-        String[] headers = getCSVHeaders(fields);
-        Set<Long> sequenceSet = new HashSet<>();
+        LongList sequenceIds = includeSequences ? new LongList() : null;
+
+        try (CSVWriter writer = new CSVWriter(new FileWriter(tmpFile))) {
+            writeRows(writer, fields, sequenceIds);
+        }
+
+        if (sequenceIds != null && !sequenceIds.isEmpty())
+            writeZip(sequenceIds);
+    }
+
+    /**
+     * Writes the headers and a line for each entry that the user can read. Entries are read in chunks, with the
+     * permissions, sequences and parents of the entries in each chunk retrieved in bulk
+     *
+     * @param writer      csv writer
+     * @param fields      fields to write
+     * @param sequenceIds if not null, the ids of entries with a sequence are added to it
+     */
+    private void writeRows(CSVWriter writer, EntryFieldLabel[] fields, LongList sequenceIds) {
+        writer.writeNext(getCSVHeaders(fields));
+
+        ReadableEntries readableEntries = new ReadableEntries();
+        for (int start = 0; start < entries.size(); start += CHUNK_SIZE) {
+            List<Long> chunk = entries.subList(start, Math.min(entries.size(), start + CHUNK_SIZE));
+            List<Long> readable = readableEntries.filter(chunk);
+            if (readable.isEmpty())
+                continue;
 
-        try (CSVWriter writer = new CSVWriter(fileWriter)) {
+            Map<Long, Entry> chunkEntries = new HashMap<>();
+            for (Entry entry : dao.getEntriesByIdSet(readable))
+                chunkEntries.put(entry.getId(), entry);
 
-            writer.writeNext(headers);
+            Map<Long, String> sequenceFileNames = sequenceIds != null
+                    ? sequenceDAO.getSequenceFileNames(readable) : Collections.emptyMap();
 
-            // write entry fields
-            for (long entryId : entries) {
-                Entry entry = dao.get(entryId);
+            // parents that the user can read
+            Map<Long, Map<Long, String>> parents = dao.getParentPartNumbers(readable);
+            Set<Long> parentIds = new HashSet<>();
+            parents.values().forEach(map -> parentIds.addAll(map.keySet()));
+            EntryAccess parentAccess = new BatchEntryAuthorization(userId).evaluate(parentIds);
+
+            for (Long entryId : chunk) {
+                Entry entry = chunkEntries.get(entryId);
+                if (entry == null)
+                    continue;
 
                 //  get contents and write data out
                 String[] line = new String[fields.length + 4];
@@ -165,33 +248,35 @@ public class EntriesAsCSV {
                 }
 
                 // write sequence information
-                if (this.includeSequences && sequenceDAO.hasSequence(entryId)) {
-                    line[i + 1] = getSequenceName(entry);
-                    sequenceSet.add(entryId);
+                if (sequenceFileNames.containsKey(entryId)) {
+                    sequenceIds.addLong(entryId);
+                    line[i + 1] = this.includeSequences ? getSequenceName(entry, sequenceFileNames.get(entryId)) : "";
                 } else {
                     line[i + 1] = "";
                 }
 
                 // get parents for entry
-                EntryLinks links = new EntryLinks(this.userId, entry.getPartNumber());
-                StringBuilder parents = new StringBuilder();
-                for (PartData data : links.getParents()) {
-                    parents.append(data.getPartId()).append(",");
+                StringBuilder parentIdList = new StringBuilder();
+                for (Map.Entry<Long, String> parent : parents.getOrDefault(entryId, Collections.emptyMap()).entrySet()) {
+                    if (!parentAccess.canRead(parent.getKey()))
+                        continue;
+                    if (parentIdList.length() > 0)
+                        parentIdList.append(",");
+                    parentIdList.append(parent.getValue());
                 }
-                if (!StringUtils.isEmpty(parents.toString()))
-                    parents = new StringBuilder(parents.substring(0, parents.length() - 1));
-                line[i + 2] = ("\"" + parents + "\"");
+                line[i + 2] = ("\"" + parentIdList + "\"");
 
                 // write line
                 writer.writeNext(line);
+                writtenEntryCount.incrementAndGet();
             }
-        }
 
-        if (!sequenceSet.isEmpty())
-            writeZip(sequenceSet);
+            // entries are not needed once written
+            dao.evict(chunkEntries.values());
+        }
     }
 
-    private String getSequenceName(Entry entry) {
+    private String getSequenceName(Entry entry, String fileName) {
         String format;
         if (formats == null || formats.length == 0) {
             format = "original";
@@ -201,10 +286,7 @@ public class EntriesAsCSV {
 
         switch (SequenceFormat.fromString(format)) {
             case ORIGINAL:
-                Sequence sequence = sequenceDAO.getByEntry(entry);
-                if (sequence == null)
-                    return "";
-                return sequence.getFileName();
+                return fileName == null ? "" : fileName;
 
             case GENBANK:
             default:
@@ -219,53 +301,133 @@ public class EntriesAsCSV {
         }
     }
 
-    private void writeZip(Set<Long> sequenceSet) {
+    private void writeZip(LongList sequenceIds) {
         Path tmpPath = Paths.get(Utils.getConfigValue(ConfigurationKey.TEMPORARY_DIRECTORY));
         try {
             File tmpZip = File.createTempFile("zip-", ".zip", tmpPath.toFile());
+            try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(tmpZip))) {
+                // get sequence formats
+                writeSequences(sequenceIds, getSequenceFormats(), true, false, zos);
+
+                // write the csv file
+                FileInputStream fis = new FileInputStream(csvPath.toFile());
+                InputStreamWrapper wrapper = new InputStreamWrapper(fis, "entries.csv");
+                putZipEntry(wrapper, zos);
+            }
+            csvPath = tmpZip.toPath();
+        } catch (Exception e) {
+            Logger.error(e);
+        }
+    }
 
-            // out
-            FileOutputStream fos = new FileOutputStream(tmpZip);
-            ZipOutputStream zos = new ZipOutputStream(fos);
+    /**
+     * Writes the sequence files (in each of the requested formats) of the specified entries to the zip file, in
+     * order. The files are generated in parallel, but only a few files are generated ahead of those being
+     * written so a slow output (e.g. a slow client) holds back the generation
+     *
+     * @param sequenceIds ids of entries with sequences
+     * @param formats     formats to write each sequence in
+     * @param useFileName if true, sequences in their original format are written with their original file name
+     * @param inFolders   if true, the files for each entry are written to a folder named after the entry's part number
+     * @param zos         zip output
+     * @throws IOException on exception writing to the zip output
+     */
+    private void writeSequences(LongList sequenceIds, SequenceFormat[] formats, boolean useFileName,
+                                boolean inFolders, ZipOutputStream zos) throws IOException {
+        sequenceFileCount = sequenceIds.size() * formats.length;
+        if (sequenceIds.isEmpty())
+            return;
 
-            // get sequence formats
-            for (long entryId : sequenceSet) {
-                for (String format : formats) {
-                    InputStreamWrapper wrapper = new PartSequence(userId, Long.toString(entryId))
-                            .toFile(SequenceFormat.fromString(format), true);
-                    putZipEntry(wrapper, zos);
+        ExecutorService executor = Executors.newFixedThreadPool(SEQUENCE_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "export-sequences");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Deque<Future<InputStreamWrapper>> pending = new ArrayDeque<>();
+        try {
+            for (int i = 0; i < sequenceIds.size(); i += 1) {
+                long entryId = sequenceIds.getLong(i);
+                for (SequenceFormat format : formats) {
+                    pending.add(executor.submit(() -> getSequenceFile(entryId, format, useFileName, inFolders)));
+                    if (pending.size() >= SEQUENCE_THREADS * 2)
+                        writeZipEntry(getResult(pending.poll()), zos);
                 }
             }
 
-            // write the csv file
-            FileInputStream fis = new FileInputStream(csvPath.toFile());
-            InputStreamWrapper wrapper = new InputStreamWrapper(fis, "entries.csv");
-            putZipEntry(wrapper, zos);
-            zos.close();
-            csvPath = tmpZip.toPath();
+            while (!pending.isEmpty())
+                writeZipEntry(getResult(pending.poll()), zos);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // runs on a sequence thread
+    private InputStreamWrapper getSequenceFile(long entryId, SequenceFormat format, boolean useFileName,
+                                               boolean inFolder) {
+        try {
+            HibernateConfiguration.beginTransaction();
+            InputStreamWrapper wrapper = new SequenceAsString(format, entryId, useFileName).get();
+            if (wrapper != null && inFolder)
+                wrapper.setName(dao.get(entryId).getPartNumber() + "/" + wrapper.getName());
+            HibernateConfiguration.commitTransaction();
+            return wrapper;
         } catch (Exception e) {
+            HibernateConfiguration.rollbackTransaction();
+            Logger.error("Could not retrieve sequence for entry " + entryId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private InputStreamWrapper getResult(Future<InputStreamWrapper> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing sequences");
+        } catch (ExecutionException e) {
             Logger.error(e);
+            return null;
         }
     }
 
     private void putZipEntry(InputStreamWrapper wrapper, ZipOutputStream zos) {
         try {
-            byte[] buffer = new byte[1024];
-            zos.putNextEntry(new ZipEntry(wrapper.getName()));
-            InputStream bis = wrapper.getInputStream();
-            int length;
-            while ((length = bis.read(buffer)) > 0) {
-                zos.write(buffer, 0, length);
-            }
-            bis.close();
-            zos.closeEntry();
+            writeZipEntry(wrapper, zos);
         } catch (Exception e) {
             Logger.error(e);
         }
     }
 
+    // entries with a name that is already in the zip file are skipped
+    private void writeZipEntry(InputStreamWrapper wrapper, ZipOutputStream zos) throws IOException {
+        if (wrapper == null)
+            return;
+
+        try (InputStream inputStream = wrapper.getInputStream()) {
+            try {
+                zos.putNextEntry(new ZipEntry(wrapper.getName()));
+            } catch (ZipException e) {
+                Logger.warn(e.getMessage());
+                return;
+            }
+            IOUtils.copy(inputStream, zos);
+            zos.closeEntry();
+            writtenSequenceFileCount.incrementAndGet();
+        }
+    }
+
+    private SequenceFormat[] getSequenceFormats() {
+        SequenceFormat[] sequenceFormats = new SequenceFormat[formats.length];
+        for (int i = 0; i < formats.length; i += 1)
+            sequenceFormats[i] = SequenceFormat.fromString(formats[i]);
+        return sequenceFormats;
+    }
+
     private EntryFieldLabel[] getEntryFields() {
-        Set<String> recordTypes = new HashSet<>(dao.getRecordTypes(entries));
+        Set<String> recordTypes = new HashSet<>();
+        for (int start = 0; start < entries.size(); start += CHUNK_SIZE)
+            recordTypes.addAll(dao.getRecordTypes(entries.subList(start, Math.min(entries.size(), start + CHUNK_SIZE))));
         List<EntryFieldLabel> fields = EntryFields.getCommonFields();
 
         for (String recordType : recordTypes) {
@@ -297,50 +459,91 @@ public class EntriesAsCSV {
         return fields.toArray(new EntryFieldLabel[0]);
     }
 
-    public ByteArrayOutputStream customize(EntrySelection selection, SequenceFormat format, boolean onePerFolder)
-            throws IOException {
-        Entries retriever = new Entries(this.userId);
-        this.entries = retriever.getEntriesFromSelectionContext(selection);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-//        EntryAuthorization entryAuthorization = new EntryAuthorization();
-
-        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
-            for (long entryId : this.entries) {
-                // get the entry
-                Entry entry = DAOFactory.getEntryDAO().get(entryId);
-                if (entry == null) {
-                    Logger.error("ERROR : no entry " + entryId);  // write to csv file
-                    continue;
-                }
+    /**
+     * Writes a zip file containing the csv file for the specified entries and their sequences in the specified
+     * format directly to the output stream. Progress can be followed (from another thread) with
+     * {@link #getWrittenEntryCount()} and {@link #getWrittenSequenceFileCount()}
+     *
+     * @param entries      ids of entries to export. Entries the user is not allowed to read are skipped
+     * @param format       format of the sequence files
+     * @param onePerFolder if true, the sequence files of each entry are written to a separate folder
+     * @param outputStream stream to write to. It is not closed
+     * @param fields       optional list of fields used to filter the data
+     * @throws IOException on exception writing to the output stream
+     */
+    public void customize(List<Long> entries, SequenceFormat format, boolean onePerFolder, OutputStream outputStream,
+                          EntryFieldLabel... fields) throws IOException {
+        this.entries = entries == null ? new ArrayList<>() : entries;
+        this.includeSequences = false;
+        if (fields == null || fields.length == 0)
+            fields = getEntryFields();
 
-                if (!sequenceDAO.hasSequence(entry.getId())) {
-                    continue;
-                }
+        ZipOutputStream zos = new ZipOutputStream(outputStream);
+        zos.putNextEntry(new ZipEntry("entries.csv"));
+        CSVWriter writer = new CSVWriter(new OutputStreamWriter(zos, StandardCharsets.UTF_8));
+        LongList sequenceIds = new LongList();
+        writeRows(writer, fields, sequenceIds);
+        writer.flush();
+        zos.closeEntry();
+
+        SequenceFormat[] sequenceFormats = {format == null ? SequenceFormat.GENBANK : format};
+        writeSequences(sequenceIds, sequenceFormats, onePerFolder, onePerFolder, zos);
+        zos.finish();
+    }
 
-                // get the sequence
-                InputStreamWrapper wrapper = new PartSequence(userId, Long.toString(entryId)).toFile(format, onePerFolder);
-                if (wrapper == null) {
-                    Logger.error("ERROR : no sequence " + entryId);
-                    continue;
-                }
-                if (onePerFolder)
-                    wrapper.setName(entry.getPartNumber() + File.separatorChar + wrapper.getName());
-                else
-                    wrapper.setName(wrapper.getName());
-                putZipEntry(wrapper, zos);
-            }
-            this.includeSequences = false;
-            writeList(selection.getFields().toArray(new EntryFieldLabel[0]));
+    /**
+     * Filters the specified entries to those the user is allowed to read, using the same rules as the export
+     *
+     * @param entries ids of entries
+     * @return ids of the entries the user can read, in the same order
+     */
+    public List<Long> getReadableEntries(List<Long> entries) {
+        ReadableEntries readableEntries = new ReadableEntries();
+        List<Long> result = new ArrayList<>();
+        for (int start = 0; start < entries.size(); start += CHUNK_SIZE)
+            result.addAll(readableEntries.filter(entries.subList(start, Math.min(entries.size(), start + CHUNK_SIZE))));
+        return result;
+    }
 
-            // write the csv file to zip file
-            FileInputStream fis = new FileInputStream(csvPath.toFile());
-            InputStreamWrapper wrapper = new InputStreamWrapper(fis, "entries.csv");
-            putZipEntry(wrapper, zos);
-        }
-        return baos;
+    /**
+     * @return number of entries written to the csv file so far
+     */
+    public int getWrittenEntryCount() {
+        return writtenEntryCount.get();
+    }
+
+    /**
+     * @return number of sequence files to write; only known once the csv file has been written
+     */
+    public int getSequenceFileCount() {
+        return sequenceFileCount;
+    }
+
+    public int getWrittenSequenceFileCount() {
+        return writtenSequenceFileCount.get();
     }
 
     public Path getFilePath() {
         return csvPath;
     }
+
+    // filters entries based on what the user is allowed to see if the user is not an admin
+    private class ReadableEntries {
+
+        private final Account account;
+        private final boolean isAdmin;
+        private final List<Group> accountGroups;
+
+        ReadableEntries() {
+            account = accountDAO.getByEmail(userId);
+            isAdmin = account.getType() == AccountType.ADMIN;
+            accountGroups = isAdmin ? null : new GroupController().getAllGroups(account);
+        }
+
+        List<Long> filter(List<Long> chunk) {
+            if (isAdmin || chunk.isEmpty())
+                return chunk;
+            return permissionDAO.getCanReadEntries(account, accountGroups, chunk);
+        }
+    }
 }
@@ -0,0 +1,70 @@
+package org.jbei.ice.lib.entry;
+
+import java.util.*;
+
+/**
+ * Read and write privileges of a user on a set of entries, as evaluated by {@link BatchEntryAuthorization}.
+ * The entry ids are kept sorted and the privileges are bitmaps over the positions of the ids
+ */
+public class EntryAccess {
+
+    private final long[] ids;
+    private final BitSet readable;
+    private final BitSet writable;
+
+    EntryAccess(Collection<Long> entryIds, Set<Long> readable, Set<Long> writable) {
+        this.ids = entryIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        this.readable = new BitSet(ids.length);
+        this.writable = new BitSet(ids.length);
+        for (int i = 0; i < ids.length; i += 1) {
+            if (readable.contains(ids[i]))
+                this.readable.set(i);
+            if (writable.contains(ids[i]))
+                this.writable.set(i);
+        }
+    }
+
+    /**
+     * @param entryId unique identifier for entry
+     * @return true if the user can read the entry, false if not or the entry was not evaluated
+     */
+    public boolean canRead(long entryId) {
+        int index = Arrays.binarySearch(ids, entryId);
+        return index >= 0 && readable.get(index);
+    }
+
+    /**
+     * @param entryId unique identifier for entry
+     * @return true if the user can write the entry, false if not or the entry was not evaluated
+     */
+    public boolean canWrite(long entryId) {
+        int index = Arrays.binarySearch(ids, entryId);
+        return index >= 0 && writable.get(index);
+    }
+
+    /**
+     * @return ids of the evaluated entries that the user can read, in ascending order
+     */
+    public List<Long> getReadable() {
+        return getIds(readable);
+    }
+
+    /**
+     * @return ids of the evaluated entries that the user can write, in ascending order
+     */
+    public List<Long> getWritable() {
+        return getIds(writable);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    private List<Long> getIds(BitSet bits) {
+        List<Long> result = new ArrayList<>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            result.add(ids[i]);
+        }
+        return result;
+    }
+}
@@ -74,11 +74,16 @@ public class EntryHistory {
     }
 
     /**
-     * Adds a read history object for the specified user and entry
+     * Adds a read history object for the specified user and entry. The read is queued to be written in the
+     * background (see {@link ReadAuditQueue}) and is written immediately only if the queue is not running
      *
-     * @return true if the object was successfully added, false otherwise
+     * @return true if the object was successfully added (or queued), false otherwise
      */
     public boolean add() {
+        ReadAuditQueue queue = ReadAuditQueue.getInstance();
+        if (queue.isRunning())
+            return queue.add(userId, entry.getId());
+
         Audit audit = new Audit();
         audit.setAction(AuditType.READ.getAbbrev());
         audit.setEntry(entry);
@@ -0,0 +1,253 @@
+package org.jbei.ice.lib.entry;
+
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.AuditQueueStatus;
+import org.jbei.ice.lib.dto.AuditType;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateConfiguration;
+import org.jbei.ice.storage.model.Audit;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind queue for entry read audits, so that viewing an entry does not write to the database.
+ * <p>
+ * Reads are collapsed per user, entry and read interval (only the first read of an entry by a user in each
+ * interval is recorded) and written by a single writer thread in batch inserts, either on a fixed interval or
+ * once the number of pending reads reaches the flush size. The number of pending reads is bounded; reads that
+ * arrive when the queue is full are dropped (and counted) rather than slowing down requests.
+ * <p>
+ * Reads added before the queue is started (or after it is stopped) are not queued; see {@link #isRunning()}
+ */
+public class ReadAuditQueue {
+
+    private static final ReadAuditQueue INSTANCE = new ReadAuditQueue();
+
+    private final ConcurrentHashMap<Read, Long> pending = new ConcurrentHashMap<>();   // read -> time (ms)
+    private final Set<Read> written = ConcurrentHashMap.newKeySet();                 // in the current interval
+    private final AtomicLong oldestPending = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong collapsedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile int lastFlushSize;
+    private volatile long lastFlushDuration;
+    private volatile int flushSize;
+    private volatile int capacity;
+    private volatile long readInterval;
+    private ScheduledExecutorService writer;
+
+    private ReadAuditQueue() {
+    }
+
+    public static ReadAuditQueue getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts the writer thread
+     *
+     * @param flushInterval interval, in seconds, at which pending reads are written
+     * @param flushSize     number of pending reads that triggers an immediate write
+     * @param capacity      maximum number of pending reads
+     * @param readInterval  interval, in seconds, within which reads of an entry by the same user are recorded once
+     */
+    public synchronized void start(int flushInterval, int flushSize, int capacity, int readInterval) {
+        if (writer != null)
+            return;
+
+        Logger.info("Starting read audit queue (interval " + flushInterval + "s, size " + flushSize + ")");
+        this.flushSize = Math.max(1, flushSize);
+        this.capacity = Math.max(this.flushSize, capacity);
+        this.readInterval = TimeUnit.SECONDS.toMillis(Math.max(1, readInterval));
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "read-audit-writer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        long interval = Math.max(1, flushInterval);
+        writer.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes any pending reads and stops the writer thread
+     */
+    public synchronized void stop() {
+        if (writer == null)
+            return;
+
+        Logger.info("Stopping read audit queue");
+        writer.execute(this::flush);
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+                Logger.warn("Read audit queue stopped with " + pending.size() + " pending reads");
+            }
+        } catch (InterruptedException ie) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    public boolean isRunning() {
+        return writer != null;
+    }
+
+    /**
+     * Queues a read of an entry
+     *
+     * @param userId  identifier of user who read the entry
+     * @param entryId identifier of entry that was read
+     * @return true if the read is recorded (queued or collapsed with a pending read), false if the queue is not
+     * running or is full
+     */
+    public boolean add(String userId, long entryId) {
+        ScheduledExecutorService executor = this.writer;
+        if (executor == null || userId == null)
+            return false;
+
+        long time = System.currentTimeMillis();
+        Read read = new Read(userId, entryId, time / readInterval);
+        if (pending.containsKey(read) || written.contains(read)) {
+            collapsedCount.incrementAndGet();
+            return true;
+        }
+
+        if (pending.size() >= capacity) {
+            if (droppedCount.incrementAndGet() % 1000 == 1)
+                Logger.warn("Read audit queue is full. Dropping reads");
+            return false;
+        }
+
+        oldestPending.compareAndSet(0, time);
+        if (pending.putIfAbsent(read, time) != null)
+            collapsedCount.incrementAndGet();
+
+        if (pending.size() >= flushSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::flush);
+            } catch (Exception e) {
+                flushRequested.set(false);
+                Logger.error(e);
+            }
+        }
+        return true;
+    }
+
+    // runs on the writer thread
+    private void flush() {
+        flushRequested.set(false);
+        if (pending.isEmpty())
+            return;
+
+        Map<Read, Long> batch = new HashMap<>();
+        for (Read read : pending.keySet()) {
+            Long time = pending.remove(read);
+            if (time != null)
+                batch.put(read, time);
+        }
+        oldestPending.set(pending.isEmpty() ? 0 : System.currentTimeMillis());
+        if (batch.isEmpty())
+            return;
+
+        Map<Long, List<Audit>> audits = new HashMap<>();
+        for (Map.Entry<Read, Long> entry : batch.entrySet()) {
+            Audit audit = new Audit();
+            audit.setAction(AuditType.READ.getAbbrev());
+            audit.setUserId(entry.getKey().userId);
+            audit.setTime(new Date(entry.getValue()));
+            audits.computeIfAbsent(entry.getKey().entryId, k -> new ArrayList<>()).add(audit);
+        }
+
+        long start = System.currentTimeMillis();
+        int count;
+        try {
+            HibernateConfiguration.beginTransaction();
+            count = DAOFactory.getAuditDAO().createAll(audits);
+            HibernateConfiguration.commitTransaction();
+        } catch (Throwable caught) {
+            Logger.error(caught);
+            HibernateConfiguration.rollbackTransaction();
+
+            // retry on next flush if there is room
+            for (Map.Entry<Read, Long> entry : batch.entrySet()) {
+                if (pending.size() >= capacity) {
+                    droppedCount.incrementAndGet();
+                    continue;
+                }
+                pending.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            oldestPending.compareAndSet(0, start);
+            return;
+        }
+
+        // keep the reads in the current interval so that later reads in the interval are collapsed
+        long current = System.currentTimeMillis() / readInterval;
+        written.removeIf(read -> read.interval < current);
+        if (written.size() + batch.size() > capacity)
+            written.clear();
+        for (Read read : batch.keySet()) {
+            if (read.interval == current)
+                written.add(read);
+        }
+
+        lastFlushDuration = System.currentTimeMillis() - start;
+        lastFlushSize = count;
+        flushCount.incrementAndGet();
+        writtenCount.addAndGet(count);
+        Logger.info("Wrote " + count + " read audits in " + lastFlushDuration + "ms");
+    }
+
+    public AuditQueueStatus getStatus() {
+        AuditQueueStatus status = new AuditQueueStatus();
+        status.setDepth(pending.size());
+        status.setCapacity(capacity);
+        long oldest = oldestPending.get();
+        status.setLag(oldest == 0 ? 0 : System.currentTimeMillis() - oldest);
+        status.setFlushCount(flushCount.get());
+        status.setWrittenCount(writtenCount.get());
+        status.setCollapsedCount(collapsedCount.get());
+        status.setDroppedCount(droppedCount.get());
+        status.setLastFlushSize(lastFlushSize);
+        status.setLastFlushDuration(lastFlushDuration);
+        return status;
+    }
+
+    // read of an entry by a user in a read interval
+    private static class Read {
+        private final String userId;
+        private final long entryId;
+        private final long interval;
+
+        Read(String userId, long entryId, long interval) {
+            this.userId = userId;
+            this.entryId = entryId;
+            this.interval = interval;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Read))
+                return false;
+            Read read = (Read) o;
+            return entryId == read.entryId && interval == read.interval && userId.equals(read.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, entryId, interval);
+        }
+    }
+}
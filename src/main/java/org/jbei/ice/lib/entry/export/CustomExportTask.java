@@ -2,81 +2,158 @@ package org.jbei.ice.lib.entry.export;
 
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.ConfigurationKey;
+import org.jbei.ice.lib.dto.ExportJobStatus;
+import org.jbei.ice.lib.dto.entry.EntryFieldLabel;
 import org.jbei.ice.lib.email.EmailFactory;
 import org.jbei.ice.lib.entry.EntriesAsCSV;
-import org.jbei.ice.lib.entry.EntrySelection;
 import org.jbei.ice.lib.entry.sequence.SequenceFormat;
 import org.jbei.ice.lib.executor.Task;
 import org.jbei.ice.lib.utils.Utils;
 
-import java.io.ByteArrayOutputStream;
-import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.UUID;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
+/**
+ * Task for an export job (see {@link ExportJobs}). Computes the version of the data to export and, unless there is
+ * already an export file for that version, writes a zip file with the csv file and sequences of the entries to a
+ * temporary file next to the export file, which is moved into place once complete so that a partially written
+ * export is never served
+ */
 public class CustomExportTask extends Task {
 
+    private final ExportJobs jobs;
+    private final String jobId;
     private final String userId;
-    private final EntrySelection selection;
+    private final List<Long> entries;
     private final SequenceFormat format;
-    private final Path tmp;
     private final boolean onePerFolder;
+    private final List<EntryFieldLabel> fields;
+    private final Path directory;
+    private final EntriesAsCSV entriesAsCSV;
+    private final Set<String> notify = new HashSet<>();
+    private boolean notified;
 
-    public CustomExportTask(String userId, EntrySelection selection, SequenceFormat format, boolean onePerFolder) {
+    /**
+     * @param jobs         export jobs the job belongs to
+     * @param jobId        identifier for the export job
+     * @param userId       user the entries are exported for
+     * @param entries      ids of entries to export
+     * @param format       format of the sequence files
+     * @param onePerFolder if true, the sequence files of each entry are written to a separate folder
+     * @param fields       fields to include in the csv file
+     * @param directory    directory of the export files
+     */
+    CustomExportTask(ExportJobs jobs, String jobId, String userId, List<Long> entries, SequenceFormat format,
+                     boolean onePerFolder, List<EntryFieldLabel> fields, Path directory) {
+        this.jobs = jobs;
+        this.jobId = jobId;
         this.userId = userId;
-        this.selection = selection;
+        this.entries = entries;
         this.format = format;
         this.onePerFolder = onePerFolder;
-        tmp = Paths.get(Utils.getConfigValue(ConfigurationKey.TEMPORARY_DIRECTORY));
+        this.fields = fields;
+        this.directory = directory;
+        this.entriesAsCSV = new EntriesAsCSV(userId);
+    }
+
+    @Override
+    public String getKey() {
+        return jobId;
+    }
+
+    /**
+     * @param userId user to email once the export file is available
+     * @return false if the export has already completed and the users to notify have been emailed
+     */
+    public synchronized boolean addNotification(String userId) {
+        if (notified)
+            return false;
+
+        if (userId != null && !"Administrator".equalsIgnoreCase(userId))
+            notify.add(userId);
+        return true;
     }
 
     @Override
     public void execute() {
-        // check for the export folder
-        Path exportDirectory = Paths.get(tmp.toString(), "export");
-        if (!Files.exists(exportDirectory)) {
+        String version = ExportJobs.getDataVersion(userId, entries, fields, format, onePerFolder);
+        Path exportFile = directory.resolve(version + ".zip");
+        Path partFile = null;
+        try {
+            Files.createDirectories(directory);
+            if (!reuse(exportFile)) {
+                partFile = Files.createTempFile(directory, version, ".part");
+                try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(partFile))) {
+                    EntryFieldLabel[] labels = fields == null ? new EntryFieldLabel[0]
+                            : fields.toArray(new EntryFieldLabel[0]);
+                    entriesAsCSV.customize(entries, format, onePerFolder, outputStream, labels);
+                }
+                Files.move(partFile, exportFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
             try {
-                Files.createDirectory(exportDirectory);
-            } catch (IOException e) {
-                Logger.error(e);
-                return;
+                if (partFile != null)
+                    Files.deleteIfExists(partFile);
+            } catch (IOException ioe) {
+                Logger.error(ioe);
             }
+            throw new UncheckedIOException(e);
         }
+        jobs.exported(jobId, this, version);
 
-        // create file name unique to user
-        final String uniqueFileIdentifier = UUID.randomUUID().toString();
-        String fileName = userId + "_" + uniqueFileIdentifier + "_export-data.zip";
-        Path exportPath = Paths.get(exportDirectory.toString(), fileName);
+        synchronized (this) {
+            notified = true;
+            for (String recipient : notify)
+                sendEmail(recipient, jobId);
+        }
+        Logger.info("Export file available: " + exportFile.toString());
+    }
 
-        EntriesAsCSV entriesAsCSV = new EntriesAsCSV(userId);
+    // an export file of the same data is reused (and kept from expiring) if it exists
+    private boolean reuse(Path exportFile) throws IOException {
         try {
-            ByteArrayOutputStream byteArrayOutputStream = entriesAsCSV.customize(selection, format, this.onePerFolder);
-            try (OutputStream outputStream = new FileOutputStream(exportPath.toString())) {
-                byteArrayOutputStream.writeTo(outputStream);
-            }
-        } catch (IOException e) {
-            Logger.error(e);
-            return;
+            Files.setLastModifiedTime(exportFile, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
         }
+    }
 
-        if (!"Administrator".equalsIgnoreCase(userId))
-            sendEmail(uniqueFileIdentifier);
-        Logger.info("Export file available: " + exportPath.toString());
+    /**
+     * Sets the progress of the export on the specified status
+     *
+     * @param status status to update
+     */
+    void setProgress(ExportJobStatus status) {
+        status.setStatus(getStatus().name());
+        status.setWrittenEntryCount(entriesAsCSV.getWrittenEntryCount());
+        status.setSequenceFileCount(entriesAsCSV.getSequenceFileCount());
+        status.setWrittenSequenceFileCount(entriesAsCSV.getWrittenSequenceFileCount());
     }
 
-    private void sendEmail(String uuid) {
+    static void sendEmail(String recipient, String jobId) {
+        if ("Administrator".equalsIgnoreCase(recipient))
+            return;
+
         String subject = "Exported file available";
-        String body = "Dear " + userId + ",";
+        String body = "Dear " + recipient + ",";
         body += "\n\nYour export request has completed successfully. ";
         body += "You may download the exported file using the personalized link below :";
-        body += "\n\n\thttps://" + Utils.getConfigValue(ConfigurationKey.URI_PREFIX) + "/download/" + uuid;
+        body += "\n\n\thttps://" + Utils.getConfigValue(ConfigurationKey.URI_PREFIX) + "/download/" + jobId;
         body += "\n\nPlease report any issues you have with this download to your site administrator. ";
-        body += "Be sure to include the unique identifier \"" + uuid + "\" in your report.";
+        body += "Be sure to include the unique identifier \"" + jobId + "\" in your report.";
         body += "\n\nThank you.";
-        EmailFactory.getEmail().send(userId, subject, body);
+        EmailFactory.getEmail().send(recipient, subject, body);
     }
 }
@@ -0,0 +1,361 @@
+package org.jbei.ice.lib.entry.export;
+
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.ConfigurationKey;
+import org.jbei.ice.lib.dto.ExportJobStatus;
+import org.jbei.ice.lib.dto.entry.EntryFieldLabel;
+import org.jbei.ice.lib.entry.BatchEntryAuthorization;
+import org.jbei.ice.lib.entry.Entries;
+import org.jbei.ice.lib.entry.EntriesAsCSV;
+import org.jbei.ice.lib.entry.EntryAccess;
+import org.jbei.ice.lib.entry.EntrySelection;
+import org.jbei.ice.lib.entry.sequence.SequenceFormat;
+import org.jbei.ice.lib.executor.IceExecutorService;
+import org.jbei.ice.lib.executor.TaskStatus;
+import org.jbei.ice.lib.utils.Utils;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.dao.EntryDAO;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export jobs that write the entries of a selection (as a zip file of the csv file and sequences) to disk in the
+ * background (see {@link CustomExportTask}), so that large exports do not hold up a request.
+ * <p>
+ * A job is identified by a hash of the user, the entries the user can read, the fields and the sequence format, so
+ * submitting the same selection again returns the same job. The export file is identified by the version of the
+ * data it contains (the entries, their modification times, their sequences and the parents the user can read); the
+ * version is computed by the job's task, which only writes the file if there is no export file for that version.
+ * Users who export the same data therefore share the export file, and an export file is reused until the underlying
+ * data changes.
+ * <p>
+ * The user and version of a job are also written to a <code>&lt;jobId&gt;.job</code> file next to the export files,
+ * so that completed exports (e.g. the link in the notification email) remain available after a restart.
+ * Export and job files that have not been modified for {@link #MAX_AGE_DAYS} days are deleted
+ */
+public class ExportJobs {
+
+    private static final ExportJobs INSTANCE = new ExportJobs();
+    private static final int CHUNK_SIZE = 500;
+    static final int MAX_AGE_DAYS = 7;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    // package-private for tests (a new instance only has the jobs on disk, as after a restart)
+    ExportJobs() {
+    }
+
+    public static ExportJobs getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts an export job for the selected entries, unless the same export is already running. A job whose export
+     * file was written before is run again to check whether the data has changed
+     *
+     * @param userId       user requesting the export
+     * @param selection    selection of entries to export. The selection's fields are included in the csv file
+     * @param format       format of the sequence files
+     * @param onePerFolder if true, the sequence files of each entry are written to a separate folder
+     * @param notify       if true, the user is emailed once the export file is available
+     * @return status of the export job
+     */
+    public ExportJobStatus submit(String userId, EntrySelection selection, SequenceFormat format,
+                                  boolean onePerFolder, boolean notify) {
+        List<Long> entries = new Entries(userId).getEntriesFromSelectionContext(selection);
+        EntriesAsCSV entriesAsCSV = new EntriesAsCSV(userId);
+        List<Long> readable = entriesAsCSV.getReadableEntries(entries);
+        List<EntryFieldLabel> fields = selection.getFields();
+        String jobId = getJobId(userId, readable, fields, format, onePerFolder);
+
+        deleteExpired();
+        Job job = jobs.compute(jobId, (id, existing) -> {
+            if (existing != null && existing.isRunning())
+                return existing;
+
+            Job created = new Job(userId, readable.size());
+            created.task = new CustomExportTask(this, id, userId, readable, format, onePerFolder, fields,
+                    getExportDirectory());
+            writeJob(id, created);
+            return created;
+        });
+
+        CustomExportTask task = job.task;
+        if (notify && !task.addNotification(userId))
+            CustomExportTask.sendEmail(userId, jobId);
+
+        synchronized (task) {
+            // a rejected task reports its status to the caller and is replaced on the next submit
+            if (task.getStatus() == TaskStatus.NEW && !IceExecutorService.getInstance().runTask(task))
+                Logger.warn("Could not schedule export job " + jobId + " (" + task.getStatus() + ")");
+        }
+        return getStatus(jobId, job);
+    }
+
+    /**
+     * @param userId user requesting the status. Must have submitted the job
+     * @param jobId  identifier for export job
+     * @return status of the job, or null if the job does not exist or was not submitted by the user
+     */
+    public ExportJobStatus getStatus(String userId, String jobId) {
+        Job job = getJob(userId, jobId);
+        if (job == null)
+            return null;
+        return getStatus(jobId, job);
+    }
+
+    /**
+     * @param userId user requesting the export file. Must have submitted the job
+     * @param jobId  identifier for export job
+     * @return path to the export file, or null if the job does not exist, was not submitted by the user or is not
+     * complete
+     */
+    public Path getFile(String userId, String jobId) {
+        Job job = getJob(userId, jobId);
+        if (job == null)
+            return null;
+        return getFile(job);
+    }
+
+    /**
+     * Records the data version of the export file written (or reused) by a job's task
+     *
+     * @param jobId   identifier for export job
+     * @param task    task of the job
+     * @param version data version of the export file
+     */
+    void exported(String jobId, CustomExportTask task, String version) {
+        Job job = jobs.get(jobId);
+        if (job == null || job.task != task)
+            return;
+
+        job.version = version;
+        writeJob(jobId, job);
+    }
+
+    private Job getJob(String userId, String jobId) {
+        if (jobId == null || !jobId.matches("[0-9a-f]{64}"))
+            return null;
+
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            // completed before a restart
+            Job read = readJob(jobId);
+            if (read != null)
+                job = jobs.computeIfAbsent(jobId, id -> read);
+        }
+        if (job == null || !job.userId.equals(userId))
+            return null;
+        return job;
+    }
+
+    // export file of the job. Null if the job is running or did not complete, or the file was deleted
+    private Path getFile(Job job) {
+        CustomExportTask task = job.task;
+        String version = job.version;
+        if (version == null || (task != null && task.getStatus() != TaskStatus.COMPLETED))
+            return null;
+
+        Path file = getExportFile(version);
+        return Files.exists(file) ? file : null;
+    }
+
+    private ExportJobStatus getStatus(String jobId, Job job) {
+        ExportJobStatus status = new ExportJobStatus();
+        status.setId(jobId);
+        status.setEntryCount(job.entryCount);
+        CustomExportTask task = job.task;
+        if (task != null)
+            task.setProgress(status);
+
+        if (task == null || task.getStatus() == TaskStatus.COMPLETED) {
+            Path file = getFile(job);
+            try {
+                if (file == null)
+                    throw new IOException("Export file for job " + jobId + " not available");
+                status.setStatus(TaskStatus.COMPLETED.name());
+                status.setWrittenEntryCount(job.entryCount);
+                status.setFileSize(Files.size(file));
+            } catch (IOException e) {
+                // deleted, or the job did not complete before a restart
+                Logger.error(e);
+                status.setStatus(TaskStatus.EXCEPTION.name());
+            }
+        }
+        return status;
+    }
+
+    /**
+     * Computes the identifier for an export job from the ids of the entries; no data is read for the entries
+     */
+    private String getJobId(String userId, List<Long> entries, List<EntryFieldLabel> fields, SequenceFormat format,
+                            boolean onePerFolder) {
+        MessageDigest digest = getDigest(fields, format, onePerFolder);
+        digest.update(userId.getBytes(StandardCharsets.UTF_8));
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        for (Long entryId : entries)
+            update(digest, buffer, entryId);
+        return Utils.getHexString(digest.digest());
+    }
+
+    /**
+     * Computes the version of the data for an export, which identifies its export file. Entries are processed in
+     * chunks, the same way as the export
+     */
+    static String getDataVersion(String userId, List<Long> entries, List<EntryFieldLabel> fields,
+                                 SequenceFormat format, boolean onePerFolder) {
+        MessageDigest digest = getDigest(fields, format, onePerFolder);
+        EntryDAO entryDAO = DAOFactory.getEntryDAO();
+        BatchEntryAuthorization authorization = new BatchEntryAuthorization(userId);
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        for (int start = 0; start < entries.size(); start += CHUNK_SIZE) {
+            List<Long> chunk = entries.subList(start, Math.min(entries.size(), start + CHUNK_SIZE));
+            Date modified = entryDAO.getLastModificationTime(chunk);
+            update(digest, buffer, modified == null ? 0 : modified.getTime());
+
+            Map<Long, Long> sequences = DAOFactory.getSequenceDAO().getSequenceIds(chunk);
+            Map<Long, Map<Long, String>> parents = entryDAO.getParentPartNumbers(chunk);
+            Set<Long> parentIds = new HashSet<>();
+            parents.values().forEach(map -> parentIds.addAll(map.keySet()));
+            EntryAccess parentAccess = authorization.evaluate(parentIds);
+
+            for (Long entryId : chunk) {
+                update(digest, buffer, entryId);
+                update(digest, buffer, sequences.getOrDefault(entryId, 0L));
+                for (Map.Entry<Long, String> parent : new TreeMap<>(parents.getOrDefault(entryId,
+                        Collections.emptyMap())).entrySet()) {
+                    if (!parentAccess.canRead(parent.getKey()))
+                        continue;
+                    digest.update(parent.getValue().getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return Utils.getHexString(digest.digest());
+    }
+
+    private static MessageDigest getDigest(List<EntryFieldLabel> fields, SequenceFormat format,
+                                           boolean onePerFolder) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        digest.update((format == null ? "" : format.name()).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) (onePerFolder ? 1 : 0));
+        if (fields != null) {
+            for (EntryFieldLabel field : fields)
+                digest.update(field.name().getBytes(StandardCharsets.UTF_8));
+        }
+        return digest;
+    }
+
+    private static void update(MessageDigest digest, ByteBuffer buffer, long value) {
+        buffer.clear();
+        buffer.putLong(value);
+        digest.update(buffer.array());
+    }
+
+    private Path getExportDirectory() {
+        Path tmp = Paths.get(Utils.getConfigValue(ConfigurationKey.TEMPORARY_DIRECTORY));
+        return Paths.get(tmp.toString(), "export", "jobs");
+    }
+
+    private Path getExportFile(String version) {
+        return getExportDirectory().resolve(version + ".zip");
+    }
+
+    private Path getJobFile(String jobId) {
+        return getExportDirectory().resolve(jobId + ".job");
+    }
+
+    private void writeJob(String jobId, Job job) {
+        Properties properties = new Properties();
+        properties.setProperty("user", job.userId);
+        properties.setProperty("entries", Integer.toString(job.entryCount));
+        if (job.version != null)
+            properties.setProperty("version", job.version);
+
+        try {
+            Files.createDirectories(getExportDirectory());
+            try (Writer writer = Files.newBufferedWriter(getJobFile(jobId), StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+        } catch (IOException e) {
+            Logger.error(e);
+        }
+    }
+
+    // job written before a restart, or null if there is none
+    private Job readJob(String jobId) {
+        Path file = getJobFile(jobId);
+        if (!Files.exists(file))
+            return null;
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+            Job job = new Job(properties.getProperty("user"), Integer.parseInt(properties.getProperty("entries")));
+            job.version = properties.getProperty("version");
+            return job.userId == null ? null : job;
+        } catch (IOException | NumberFormatException e) {
+            Logger.error(e);
+            return null;
+        }
+    }
+
+    // deletes export files, job files (and their jobs) and partially written files that have not been modified
+    // for the max age
+    private void deleteExpired() {
+        Path directory = getExportDirectory();
+        if (!Files.isDirectory(directory))
+            return;
+
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_AGE_DAYS);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.{zip,job,part}")) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() >= cutoff)
+                    continue;
+
+                String name = file.getFileName().toString();
+                if (name.endsWith(".job"))
+                    jobs.remove(name.substring(0, name.length() - ".job".length()));
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            Logger.error(e);
+        }
+    }
+
+    // export job; the task is null if the job was read from its file after a restart
+    private static class Job {
+        private final String userId;
+        private final int entryCount;
+        private volatile String version;            // of the export file, once written
+        private volatile CustomExportTask task;
+
+        Job(String userId, int entryCount) {
+            this.userId = userId;
+            this.entryCount = entryCount;
+        }
+
+        boolean isRunning() {
+            CustomExportTask current = task;
+            return current != null && !current.getStatus().isTerminal();
+        }
+    }
+}
@@ -15,7 +15,6 @@ import org.jbei.ice.lib.entry.Entries;
 import org.jbei.ice.lib.entry.EntryAuthorization;
 import org.jbei.ice.lib.entry.HasEntry;
 import org.jbei.ice.lib.entry.sequence.analysis.TraceSequences;
-import org.jbei.ice.lib.executor.IceExecutorService;
 import org.jbei.ice.lib.parsers.AbstractParser;
 import org.jbei.ice.lib.parsers.GeneralParser;
 import org.jbei.ice.lib.parsers.InvalidFormatParserException;
@@ -24,7 +23,7 @@ import org.jbei.ice.lib.parsers.fasta.FastaParser;
 import org.jbei.ice.lib.parsers.genbank.GenBankParser;
 import org.jbei.ice.lib.parsers.sbol.SBOLParser;
 import org.jbei.ice.lib.search.blast.Action;
-import org.jbei.ice.lib.search.blast.RebuildBlastIndexTask;
+import org.jbei.ice.lib.search.blast.BlastIndexUpdateQueue;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.dao.FeatureDAO;
 import org.jbei.ice.storage.hibernate.dao.SequenceDAO;
@@ -152,7 +151,12 @@ public class PartSequence {
             throw new IllegalArgumentException("Cannot write to tmp directory: " + tmpPath);
 
         Path sequencePath = Paths.get(tmpPath.toString(), UUID.randomUUID() + "-" + fileName);
-        Files.copy(inputStream, sequencePath, StandardCopyOption.REPLACE_EXISTING);
+        try {
+            Files.copy(inputStream, sequencePath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(sequencePath);
+            throw e;
+        }
 
         // detect sequence
         SequenceFormat format;
@@ -295,8 +299,7 @@ public class PartSequence {
     }
 
     private void scheduleBlastIndexRebuildTask(Action action, String partId) {
-        RebuildBlastIndexTask task = new RebuildBlastIndexTask(action, partId);
-        IceExecutorService.getInstance().runTask(task);
+        BlastIndexUpdateQueue.getInstance().add(action, partId);
     }
 
     /**
@@ -344,6 +347,9 @@ public class PartSequence {
             // 4. check if any existing features are updated
             checkForUpdatedFeatures(existing, sequence);
 
+            // sequence is updated in place so mark the entry as modified (e.g. for cached exports)
+            this.entry.setModificationTime(new Date());
+
             // rebuild the trace sequence alignments // todo : this might not be needed for all updates
             new TraceSequences().rebuildAllAlignments(entry);
 
@@ -19,6 +19,7 @@ import org.jbei.ice.storage.model.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * ICE Annotations with support for generating potential annotations for a specified entry
@@ -200,14 +201,16 @@ public class Annotations {
     /**
      * Rebuild the annotations blast database
      *
-     * @throws PermissionException if the specified user does not have administrator privileges
+     * @throws PermissionException        if the specified user does not have administrator privileges
+     * @throws RejectedExecutionException if the rebuild could not be scheduled
      */
     public void rebuild() {
         if (!isAdministrator())
             throw new PermissionException("Administrative privileges required to rebuild blast features");
 
-        AutoAnnotationBlastDbBuildTask autoAnnotationBlastDbBuildTask = new AutoAnnotationBlastDbBuildTask(true);
-        IceExecutorService.getInstance().runTask(autoAnnotationBlastDbBuildTask);
+        AutoAnnotationBlastDbBuildTask autoAnnotationBlastDbBuildTask = new AutoAnnotationBlastDbBuildTask();
+        if (!IceExecutorService.getInstance().runTask(autoAnnotationBlastDbBuildTask))
+            throw new RejectedExecutionException("Could not schedule rebuild of annotations blast database");
     }
 
     protected boolean isAdministrator() {
@@ -0,0 +1,79 @@
+package org.jbei.ice.lib.entry.sequence.annotation;
+
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.executor.IceExecutorService;
+
+import java.util.Calendar;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules the rebuild of the auto annotation blast database on start up and then daily at {@link #RUN_HOUR}.
+ * <p>
+ * The schedule is kept on its own (daemon) thread, which only submits an {@link AutoAnnotationBlastDbBuildTask}
+ * to the executor service when a rebuild is due, so that no executor thread is held while waiting
+ */
+public class AutoAnnotationBlastDbScheduler {
+
+    private static final AutoAnnotationBlastDbScheduler INSTANCE = new AutoAnnotationBlastDbScheduler();
+    private static final int RUN_HOUR = 1;    // make config param
+
+    private ScheduledExecutorService scheduler;
+
+    private AutoAnnotationBlastDbScheduler() {
+    }
+
+    public static AutoAnnotationBlastDbScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Submits a rebuild and schedules the daily rebuilds
+     */
+    public synchronized void start() {
+        if (scheduler != null)
+            return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "auto-annotation-schedule");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::run);
+    }
+
+    public synchronized void stop() {
+        if (scheduler == null)
+            return;
+
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    // runs on the scheduler thread
+    private synchronized void run() {
+        if (scheduler == null)
+            return;
+
+        if (!IceExecutorService.getInstance().runTask(new AutoAnnotationBlastDbBuildTask()))
+            Logger.warn("Could not schedule auto annotation blast database rebuild");
+        long delay = getTimeTillRun();
+        Logger.info("Next auto annotation blast database rebuild in " + TimeUnit.MILLISECONDS.toMinutes(delay)
+                + " minutes");
+        scheduler.schedule(this::run, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // time (ms) until the next run hour
+    private long getTimeTillRun() {
+        Calendar calendar = Calendar.getInstance();
+        long now = calendar.getTimeInMillis();
+        if (calendar.get(Calendar.HOUR_OF_DAY) >= RUN_HOUR)
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        calendar.set(Calendar.HOUR_OF_DAY, RUN_HOUR);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis() - now;
+    }
+}
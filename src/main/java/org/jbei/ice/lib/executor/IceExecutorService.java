@@ -2,17 +2,21 @@ package org.jbei.ice.lib.executor;
 
 import org.jbei.ice.lib.common.logging.Logger;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 /**
+ * Runs tasks in the background. Tasks are run in separate lanes (see {@link TaskLane}), each with its own
+ * threads and bounded queue
+ *
  * @author Hector Plahar
  */
 public class IceExecutorService {
 
     private static final IceExecutorService INSTANCE = new IceExecutorService();
-    private ExecutorService pool;
+    private volatile Map<TaskLane, LaneExecutor> lanes;
 
     private IceExecutorService() {
     }
@@ -21,45 +25,58 @@ public class IceExecutorService {
         return INSTANCE;
     }
 
-    public void startService() {
-        if (pool != null)
+    public synchronized void startService() {
+        if (lanes != null)
             return;
 
         Logger.info("Starting executor service");
-        pool = Executors.newFixedThreadPool(5, r -> {
-            Thread thread = new Thread(r);
-            thread.setPriority(Thread.MIN_PRIORITY);
-            return thread;
-        });
+        Map<TaskLane, LaneExecutor> executors = new EnumMap<>(TaskLane.class);
+        for (TaskLane lane : TaskLane.values()) {
+            executors.put(lane, new LaneExecutor(lane));
+        }
+        lanes = executors;
     }
 
-    public void stopService() {
-        if (pool == null)
+    public synchronized void stopService() {
+        if (lanes == null)
             return;
 
         Logger.info("Shutting down executor service");
-        pool.shutdown(); // Disable new tasks from being submitted
-        try {
-            // Wait a while for existing tasks to terminate
-            if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
-                pool.shutdownNow(); // Cancel currently executing tasks
-                // Wait a while for tasks to respond to being cancelled
-                if (!pool.awaitTermination(10, TimeUnit.SECONDS))
-                    Logger.info("Executor service did not terminate");
-            }
-        } catch (InterruptedException ie) {
-            // (Re-)Cancel if current thread also interrupted
-            pool.shutdownNow();
-            // Preserve interrupt status
-            Thread.currentThread().interrupt();
+        Map<TaskLane, LaneExecutor> executors = lanes;
+        lanes = null;
+        for (LaneExecutor executor : executors.values()) {
+            executor.stop();
         }
     }
 
-    public void runTask(Task task) {
-        if (task == null || pool == null)
-            return;
+    /**
+     * Queues a task to be run in its lane
+     *
+     * @param task task to run
+     * @return true if the task was queued; false if the service is not running, the lane's queue is full or an
+     * identical task is already queued
+     */
+    public boolean runTask(Task task) {
+        Map<TaskLane, LaneExecutor> executors = this.lanes;
+        if (task == null || executors == null)
+            return false;
+
+        Logger.info("Adding task to executor service (" + task.getLane().name() + ")");
+        return executors.get(task.getLane()).submit(task);
+    }
+
+    /**
+     * @return queue depth, throughput and latency metrics for each lane; empty if the service is not running
+     */
+    public List<TaskLaneStatus> getStatus() {
+        List<TaskLaneStatus> status = new ArrayList<>();
+        Map<TaskLane, LaneExecutor> executors = this.lanes;
+        if (executors == null)
+            return status;
 
-        Logger.info("Adding task to executor service");
-        pool.execute(new TaskHandler(task));
+        for (LaneExecutor executor : executors.values()) {
+            status.add(executor.getStatus());
+        }
+        return status;
     }
 }
@@ -0,0 +1,169 @@
+package org.jbei.ice.lib.executor;
+
+import org.jbei.ice.lib.common.logging.Logger;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the tasks of a single {@link TaskLane} with the lane's concurrency and bounded queue, and keeps the
+ * metrics reported for the lane
+ */
+class LaneExecutor {
+
+    private final TaskLane lane;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, TaskHandler> queued = new ConcurrentHashMap<>();   // key -> queued task
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder waitTime = new LongAdder();
+    private final LongAdder runTime = new LongAdder();
+    private final AtomicLong maxWait = new AtomicLong();
+
+    LaneExecutor(TaskLane lane) {
+        this.lane = lane;
+        AtomicInteger count = new AtomicInteger();
+        String name = "ice-" + lane.name().toLowerCase().replace('_', '-') + "-";
+        this.executor = new ThreadPoolExecutor(lane.getConcurrency(), lane.getConcurrency(), 0L,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(lane.getQueueCapacity()), r -> {
+            Thread thread = new Thread(r, name + count.incrementAndGet());
+            thread.setPriority(lane.getThreadPriority());
+            return thread;
+        });
+    }
+
+    /**
+     * Queues the task unless an identical task is already queued or the queue is full
+     *
+     * @param task task to run
+     * @return true if the task was queued
+     */
+    boolean submit(Task task) {
+        TaskHandler handler = new TaskHandler(task, this);
+        String key = task.getKey();
+        if (key != null && queued.putIfAbsent(key, handler) != null) {
+            deduplicated.increment();
+            task.setStatus(TaskStatus.CANCELLED);
+            Logger.info("Task " + key + " already queued in lane " + lane.name());
+            return false;
+        }
+
+        task.setStatus(TaskStatus.PENDING);
+        task.setCanceller(() -> cancel(handler));
+        try {
+            executor.execute(handler);
+            submitted.increment();
+            return true;
+        } catch (RejectedExecutionException e) {
+            if (key != null)
+                queued.remove(key, handler);
+            task.setCanceller(null);
+            task.setStatus(TaskStatus.REJECTED);
+            rejected.increment();
+            Logger.warn("Queue for lane " + lane.name() + " is full (or stopped). Rejecting task");
+            return false;
+        }
+    }
+
+    // removes a task from the queue if it has not started
+    private void cancel(TaskHandler handler) {
+        if (!executor.remove(handler))
+            return;
+
+        String key = handler.getTask().getKey();
+        if (key != null)
+            queued.remove(key, handler);
+        handler.getTask().setStatus(TaskStatus.CANCELLED);
+        cancelled.increment();
+    }
+
+    /**
+     * Called when a queued task is taken off the queue to be run
+     *
+     * @param handler  handler for the task
+     * @param waitTime time (ms) the task was queued for
+     * @return true if the task should be run, false if it has been cancelled or has expired
+     */
+    boolean started(TaskHandler handler, long waitTime) {
+        Task task = handler.getTask();
+        String key = task.getKey();
+        if (key != null)
+            queued.remove(key, handler);
+
+        started.increment();
+        this.waitTime.add(waitTime);
+        maxWait.accumulateAndGet(waitTime, Math::max);
+
+        if (task.isCancelled()) {
+            task.setStatus(TaskStatus.CANCELLED);
+            cancelled.increment();
+            return false;
+        }
+
+        if (task.isExpired()) {
+            Logger.warn("Deadline for task in lane " + lane.name() + " passed after " + waitTime + "ms in queue");
+            task.setStatus(TaskStatus.EXPIRED);
+            expired.increment();
+            return false;
+        }
+        return true;
+    }
+
+    void finished(boolean success, long runTime) {
+        this.runTime.add(runTime);
+        if (success)
+            completed.increment();
+        else
+            failed.increment();
+    }
+
+    void stop() {
+        executor.shutdown(); // Disable new tasks from being submitted
+        try {
+            // Wait a while for existing tasks to terminate
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow(); // Cancel currently executing tasks
+                // Wait a while for tasks to respond to being cancelled
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS))
+                    Logger.info("Executor for lane " + lane.name() + " did not terminate");
+            }
+        } catch (InterruptedException ie) {
+            // (Re-)Cancel if current thread also interrupted
+            executor.shutdownNow();
+            // Preserve interrupt status
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    TaskLaneStatus getStatus() {
+        TaskLaneStatus status = new TaskLaneStatus();
+        status.setLane(lane.name());
+        status.setConcurrency(lane.getConcurrency());
+        status.setQueueCapacity(lane.getQueueCapacity());
+        status.setQueueDepth(executor.getQueue().size());
+        status.setActive(executor.getActiveCount());
+        status.setSubmitted(submitted.sum());
+        status.setCompleted(completed.sum());
+        status.setFailed(failed.sum());
+        status.setCancelled(cancelled.sum());
+        status.setExpired(expired.sum());
+        status.setRejected(rejected.sum());
+        status.setDeduplicated(deduplicated.sum());
+
+        long startedCount = started.sum();
+        status.setAverageWait(startedCount == 0 ? 0 : (double) waitTime.sum() / startedCount);
+        status.setMaxWait(maxWait.get());
+        long finishedCount = completed.sum() + failed.sum();
+        status.setAverageRunTime(finishedCount == 0 ? 0 : (double) runTime.sum() / finishedCount);
+        return status;
+    }
+}
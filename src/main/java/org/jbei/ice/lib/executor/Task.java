@@ -1,16 +1,38 @@
 package org.jbei.ice.lib.executor;
 
 /**
- * Abstract class representing tasks that are run by the ice executor service
+ * Abstract class representing tasks that are run by the ice executor service.
+ * <p>
+ * Tasks are run in the {@link TaskLane} returned by {@link #getLane()}. Tasks that return a key from
+ * {@link #getKey()} are not queued if an identical task (same lane and key) is already waiting to be run.
+ * A task that has not started can be cancelled, and is not run if its deadline (if any) passes while it is queued.
+ * Long running tasks can check {@link #isCancelled()} to stop early
  *
  * @author Hector Plahar
  */
 public abstract class Task {
 
-    private TaskStatus status = TaskStatus.NEW;
+    private volatile TaskStatus status = TaskStatus.NEW;
+    private volatile boolean cancelled;
+    private volatile long deadline;
+    private volatile Runnable canceller;
 
     public abstract void execute();
 
+    /**
+     * @return lane the task is run in. Defaults to {@link TaskLane#BULK_EXPORT}
+     */
+    public TaskLane getLane() {
+        return TaskLane.BULK_EXPORT;
+    }
+
+    /**
+     * @return key identifying tasks that do the same work, or null if the task should not be de-duplicated
+     */
+    public String getKey() {
+        return null;
+    }
+
     void setStatus(TaskStatus status) {
         this.status = status;
     }
@@ -18,4 +40,41 @@ public abstract class Task {
     public TaskStatus getStatus() {
         return this.status;
     }
+
+    /**
+     * Cancels the task. A task that is waiting to be run is removed from its queue; a running task is expected to
+     * check {@link #isCancelled()}
+     */
+    public void cancel() {
+        cancelled = true;
+        Runnable runnable = this.canceller;
+        if (runnable != null)
+            runnable.run();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @param deadline time (in ms since the epoch) after which the task should no longer be started. 0 for none
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @return true if the task has a deadline and it has passed
+     */
+    public boolean isExpired() {
+        return deadline > 0 && System.currentTimeMillis() > deadline;
+    }
+
+    void setCanceller(Runnable canceller) {
+        this.canceller = canceller;
+    }
 }
@@ -11,23 +11,38 @@ import org.jbei.ice.storage.hibernate.HibernateConfiguration;
 class TaskHandler implements Runnable {
 
     private final Task task;
+    private final LaneExecutor lane;
+    private final long queuedTime;
 
-    TaskHandler(Task task) {
+    TaskHandler(Task task, LaneExecutor lane) {
         this.task = task;
+        this.lane = lane;
+        this.queuedTime = System.currentTimeMillis();
+    }
+
+    Task getTask() {
+        return task;
     }
 
     @Override
     public void run() {
+        long start = System.currentTimeMillis();
+        task.setCanceller(null);
+        if (!lane.started(this, start - queuedTime))
+            return;
+
         try {
             this.task.setStatus(TaskStatus.IN_PROGRESS);
             HibernateConfiguration.beginTransaction();
             task.execute();
             HibernateConfiguration.commitTransaction();
             this.task.setStatus(TaskStatus.COMPLETED);
+            lane.finished(true, System.currentTimeMillis() - start);
         } catch (Throwable caught) {
             Logger.error(caught);
             HibernateConfiguration.rollbackTransaction();
             this.task.setStatus(TaskStatus.EXCEPTION);
+            lane.finished(false, System.currentTimeMillis() - start);
         }
     }
 }
@@ -0,0 +1,35 @@
+package org.jbei.ice.lib.executor;
+
+/**
+ * Lanes of the {@link IceExecutorService}. Each lane has its own threads and bounded queue so that long running
+ * work in one lane (e.g. rebuilding the search indexes) does not delay tasks in another (e.g. searches of
+ * partner registries a user is waiting on)
+ */
+public enum TaskLane {
+
+    INTERACTIVE(8, 500, Thread.NORM_PRIORITY),          // work a user is waiting on
+    BACKGROUND_INDEX(3, 50, Thread.MIN_PRIORITY),       // blast, lucene and annotation index (re)builds
+    BULK_EXPORT(2, 200, Thread.MIN_PRIORITY);           // bulk deletes, transfers, exports and other bulk work
+
+    private final int concurrency;
+    private final int queueCapacity;
+    private final int threadPriority;
+
+    TaskLane(int concurrency, int queueCapacity, int threadPriority) {
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+        this.threadPriority = threadPriority;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getThreadPriority() {
+        return threadPriority;
+    }
+}
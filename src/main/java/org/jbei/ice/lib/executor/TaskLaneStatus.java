@@ -0,0 +1,145 @@
+package org.jbei.ice.lib.executor;
+
+import org.jbei.ice.storage.IDataTransferModel;
+
+/**
+ * Queue depth, throughput and latency metrics for a lane of the {@link IceExecutorService}
+ */
+public class TaskLaneStatus implements IDataTransferModel {
+
+    private String lane;
+    private int concurrency;
+    private int queueCapacity;
+    private int queueDepth;        // tasks waiting to be run
+    private int active;            // tasks being run
+    private long submitted;
+    private long completed;
+    private long failed;
+    private long cancelled;
+    private long expired;          // not run because the deadline passed while queued
+    private long rejected;         // not queued because the queue was full
+    private long deduplicated;     // not queued because an identical task was already queued
+    private double averageWait;    // ms between submission and start
+    private long maxWait;          // ms
+    private double averageRunTime; // ms
+
+    public String getLane() {
+        return lane;
+    }
+
+    public void setLane(String lane) {
+        this.lane = lane;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public void setActive(int active) {
+        this.active = active;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public void setSubmitted(long submitted) {
+        this.submitted = submitted;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+        this.completed = completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getCancelled() {
+        return cancelled;
+    }
+
+    public void setCancelled(long cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public long getExpired() {
+        return expired;
+    }
+
+    public void setExpired(long expired) {
+        this.expired = expired;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getDeduplicated() {
+        return deduplicated;
+    }
+
+    public void setDeduplicated(long deduplicated) {
+        this.deduplicated = deduplicated;
+    }
+
+    public double getAverageWait() {
+        return averageWait;
+    }
+
+    public void setAverageWait(double averageWait) {
+        this.averageWait = averageWait;
+    }
+
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    public void setMaxWait(long maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    public double getAverageRunTime() {
+        return averageRunTime;
+    }
+
+    public void setAverageRunTime(double averageRunTime) {
+        this.averageRunTime = averageRunTime;
+    }
+}
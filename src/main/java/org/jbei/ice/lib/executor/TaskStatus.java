@@ -13,5 +13,15 @@ public enum TaskStatus {
 
     // terminal states
     COMPLETED,       // task run completed successfully
-    EXCEPTION       // an exception caused the task to stop
+    EXCEPTION,       // an exception caused the task to stop
+    CANCELLED,       // cancelled before it was run
+    EXPIRED,         // deadline passed before it was run
+    REJECTED;        // not accepted because the queue for its lane was full
+
+    /**
+     * @return true if the task has finished or will not be run
+     */
+    public boolean isTerminal() {
+        return this != NEW && this != PENDING && this != IN_PROGRESS;
+    }
 }
@@ -4,9 +4,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.jbei.ice.lib.account.AccountType;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.entry.PartData;
-import org.jbei.ice.lib.entry.Entries;
-import org.jbei.ice.lib.entry.EntrySelection;
 import org.jbei.ice.lib.net.RemoteTransfer;
+import org.jbei.ice.lib.net.TransferProgress;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.model.Account;
 import org.jbei.ice.storage.model.Folder;
@@ -14,7 +13,8 @@ import org.jbei.ice.storage.model.Folder;
 import java.util.List;
 
 /**
- * Task for transferring parts to a another registry
+ * Task for transferring parts to a another registry. The progress of the transfer is kept with the task; a task
+ * created with the progress of an earlier task resumes that transfer (see {@link org.jbei.ice.lib.net.TransferTasks})
  *
  * @author Hector Plahar
  */
@@ -22,12 +22,24 @@ public class TransferTask extends Task {
 
     private final String userId;
     private final long remoteId;
-    private final EntrySelection entrySelection;
+    private final List<Long> entries;
+    private final String folderId;
+    private final TransferProgress progress;
 
-    public TransferTask(String userId, long remoteId, EntrySelection entrySelection) {
+    /**
+     * @param userId   user requesting the transfer. Must be an administrator
+     * @param remoteId unique identifier for remote partner the parts are to be transferred to
+     * @param entries  ids of the entries to transfer
+     * @param folderId folder the entries were selected from. If set, a folder with the transferred entries is created
+     *                 on the partner once all the entries are transferred
+     * @param progress progress of the transfer
+     */
+    public TransferTask(String userId, long remoteId, List<Long> entries, String folderId, TransferProgress progress) {
         this.userId = userId;
         this.remoteId = remoteId;
-        this.entrySelection = entrySelection;
+        this.entries = entries;
+        this.folderId = folderId;
+        this.progress = progress;
     }
 
     public void execute() {
@@ -36,20 +48,23 @@ public class TransferTask extends Task {
         if (account.getType() != AccountType.ADMIN)
             return;
 
-        Entries retriever = new Entries(account.getEmail());
-        List<Long> entries = retriever.getEntriesFromSelectionContext(entrySelection);
         Logger.info(userId + ": requesting transfer to " + remoteId);
         List<PartData> dataList = transfer.getPartsForTransfer(entries);
-        List<Long> remoteIds = transfer.transferEntries(remoteId, dataList);
+        List<Long> remoteIds = transfer.transferEntries(remoteId, dataList, progress);
+        if (remoteIds == null)
+            return;
 
         // check folder
-        if (StringUtils.isEmpty(this.entrySelection.getFolderId()))
+        if (StringUtils.isEmpty(this.folderId))
             return;
 
         // create remoteFolder
-        long folderId = Long.decode(this.entrySelection.getFolderId());
-        Folder folder = DAOFactory.getFolderDAO().get(folderId);
+        Folder folder = DAOFactory.getFolderDAO().get(Long.decode(this.folderId));
         Logger.info("Adding " + remoteIds.size() + " transferred entries to remote folder");
         transfer.transferFolder(remoteId, folder.toDataTransferObject(), remoteIds);
     }
+
+    public TransferProgress getProgress() {
+        return progress;
+    }
 }
@@ -17,7 +17,8 @@ import org.jbei.ice.lib.dto.folder.FolderType;
 import org.jbei.ice.lib.dto.sample.SampleRequest;
 import org.jbei.ice.lib.dto.web.RegistryPartner;
 import org.jbei.ice.lib.entry.Entries;
-import org.jbei.ice.lib.entry.EntryAuthorization;
+import org.jbei.ice.lib.entry.BatchEntryAuthorization;
+import org.jbei.ice.lib.entry.EntryAccess;
 import org.jbei.ice.lib.entry.EntrySelection;
 import org.jbei.ice.lib.entry.EntrySelectionType;
 import org.jbei.ice.lib.group.GroupController;
@@ -309,6 +310,10 @@ public class FolderContents {
         RemoteTransfer remoteTransfer = new RemoteTransfer();
         List<PartData> results = remoteTransfer.getPartsForTransfer(entries);
         List<Long> remoteIds = remoteTransfer.transferEntries(remotePartner.getId(), results);
+        if (remoteIds == null) {
+            Logger.error("Could not transfer entries to remote folder " + remoteAccessModel.getIdentifier());
+            return;
+        }
 
         FolderDetails remoteFolder = new FolderDetails();
         remoteFolder.setId(Long.decode(remoteAccessModel.getIdentifier()));
@@ -544,11 +549,14 @@ public class FolderContents {
     }
 
     private void addEntryPermission(String userId, List<Permission> permissions, List<Entry> entries) {
-        EntryAuthorization entryAuthorization = new EntryAuthorization();
+        List<Long> ids = new ArrayList<>(entries.size());
+        for (Entry entry : entries)
+            ids.add(entry.getId());
+        EntryAccess access = new BatchEntryAuthorization(userId).evaluate(ids);
 
         for (Permission folderPermission : permissions) {
             for (Entry entry : entries) {
-                if (!entryAuthorization.canWrite(userId, entry))
+                if (!access.canWrite(entry.getId()))
                     continue;
 
                 // does the permissions already exists
@@ -0,0 +1,105 @@
+package org.jbei.ice.lib.folder.collection;
+
+import org.jbei.ice.lib.folder.CollectionCounts;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the collection counts shown for each user, and of the counts shown only to administrators (which are
+ * the same for all administrators).
+ * <p>
+ * The whole cache is invalidated (by {@link CollectionCountsListener}) whenever an entry or anything that determines
+ * which entries a user can read (permission, group, group membership or folder) is changed, so counts are
+ * only counted again after a change. Counts also expire after a fixed time so that changes made by other instances
+ * (or directly in the database) are reconciled
+ */
+public class CollectionCountsCache {
+
+    private static final long EXPIRY = TimeUnit.MINUTES.toMillis(1);
+    private static final int MAX_SIZE = 10000;
+    private static final CollectionCountsCache INSTANCE = new CollectionCountsCache();
+
+    private final Map<String, Counts> userCounts = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Counts adminCounts;
+
+    private CollectionCountsCache() {
+    }
+
+    public static CollectionCountsCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Retrieves the counts of the collections of a user, loading (and caching) them if not already available
+     *
+     * @param userId unique user identifier
+     * @param loader counts the collections of the user
+     * @return counts for the user. Must not be modified
+     */
+    CollectionCounts getUserCounts(String userId, Supplier<CollectionCounts> loader) {
+        long currentGeneration = generation.get();
+        Counts counts = userCounts.get(userId);
+        if (counts != null && counts.isValid(currentGeneration))
+            return counts.counts;
+
+        counts = new Counts(loader.get(), currentGeneration);
+
+        // do not cache if invalidated while loading
+        if (currentGeneration == generation.get()) {
+            if (userCounts.size() >= MAX_SIZE)
+                userCounts.clear();
+            userCounts.put(userId, counts);
+        }
+        return counts.counts;
+    }
+
+    /**
+     * Retrieves the counts of the collections available only to administrators, loading (and caching) them if not
+     * already available
+     *
+     * @param loader counts the administrator collections
+     * @return counts of administrator collections. Must not be modified
+     */
+    CollectionCounts getAdminCounts(Supplier<CollectionCounts> loader) {
+        long currentGeneration = generation.get();
+        Counts counts = adminCounts;
+        if (counts != null && counts.isValid(currentGeneration))
+            return counts.counts;
+
+        counts = new Counts(loader.get(), currentGeneration);
+        if (currentGeneration == generation.get())
+            adminCounts = counts;
+        return counts.counts;
+    }
+
+    /**
+     * Discards all cached counts
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        userCounts.clear();
+        adminCounts = null;
+    }
+
+    private static class Counts {
+
+        private final CollectionCounts counts;
+        private final long generation;
+        private final long created;
+
+        Counts(CollectionCounts counts, long generation) {
+            this.counts = counts;
+            this.generation = generation;
+            this.created = System.currentTimeMillis();
+        }
+
+        boolean isValid(long currentGeneration) {
+            return generation == currentGeneration && System.currentTimeMillis() - created < EXPIRY;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.jbei.ice.lib.folder.collection;
+
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.jbei.ice.storage.model.*;
+
+/**
+ * Invalidates the {@link CollectionCountsCache} when an entry, or an entity that determines which entries a user can
+ * read (permission, group, group membership or folder), is changed. As with the search access cache, the
+ * cache is invalidated when the change is flushed and again once the transaction completes
+ */
+public class CollectionCountsListener implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, PostCollectionRecreateEventListener, PostCollectionUpdateEventListener,
+        PostCollectionRemoveEventListener {
+
+    private static final long serialVersionUID = 1L;
+    private static final String ENTRY_VISIBILITY = "visibility";
+    private static final String ENTRY_OWNER_EMAIL = "ownerEmail";
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        checkInvalidate(event.getEntity(), event.getSession(), false);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        // the counts of an entry only depend on its owner and visibility
+        if (event.getEntity() instanceof Entry && !isDirty(event, ENTRY_VISIBILITY)
+                && !isDirty(event, ENTRY_OWNER_EMAIL))
+            return;
+        checkInvalidate(event.getEntity(), event.getSession(), false);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        checkInvalidate(event.getEntity(), event.getSession(), false);
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        checkInvalidate(event.getAffectedOwnerOrNull(), event.getSession(), true);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        checkInvalidate(event.getAffectedOwnerOrNull(), event.getSession(), true);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        checkInvalidate(event.getAffectedOwnerOrNull(), event.getSession(), true);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private static boolean isDirty(PostUpdateEvent event, String propertyName) {
+        int[] dirty = event.getDirtyProperties();
+        if (dirty == null)
+            return true;
+
+        String[] names = event.getPersister().getPropertyNames();
+        for (int index : dirty) {
+            if (propertyName.equals(names[index]))
+                return true;
+        }
+        return false;
+    }
+
+    // changes to an account only affect counts through its group membership (a collection)
+    private void checkInvalidate(Object entity, EventSource session, boolean collection) {
+        if (!(entity instanceof Entry) && !(entity instanceof Permission) && !(entity instanceof Group)
+                && !(entity instanceof Folder) && !(collection && entity instanceof Account))
+            return;
+
+        CollectionCountsCache.getInstance().invalidate();
+        session.getActionQueue().registerProcess((success, sessionImplementor) ->
+                CollectionCountsCache.getInstance().invalidate());
+    }
+}
@@ -28,7 +28,36 @@ public class Collections {
         this.account = DAOFactory.getAccountDAO().getByEmail(userId);
     }
 
+    /**
+     * Retrieves the counts for the collections available to the user. Counts are cached (see
+     * {@link CollectionCountsCache}) and only counted again after entries or access change
+     *
+     * @return counts for the collections
+     */
     public CollectionCounts getAllCounts() {
+        String userId = this.account.getEmail();
+        CollectionCountsCache cache = CollectionCountsCache.getInstance();
+        CollectionCounts userCounts = cache.getUserCounts(userId, this::countUserCollections);
+
+        CollectionCounts collection = new CollectionCounts();
+        collection.setAvailable(userCounts.getAvailable());
+        collection.setDeleted(userCounts.getDeleted());
+        collection.setPersonal(userCounts.getPersonal());
+        collection.setShared(userCounts.getShared());
+        collection.setDrafts(userCounts.getBulkUpload());
+
+        if (account.getType() != AccountType.ADMIN)
+            return collection;
+
+        // admin only options
+        CollectionCounts adminCounts = cache.getAdminCounts(Collections::countAdminCollections);
+        collection.setPending(adminCounts.getPending());
+        collection.setTransferred(adminCounts.getTransferred());
+        collection.setSamples(adminCounts.getSamples());
+        return collection;
+    }
+
+    private CollectionCounts countUserCollections() {
         String userId = this.account.getEmail();
         EntryDAO entryDAO = DAOFactory.getEntryDAO();
         CollectionCounts collection = new CollectionCounts();
@@ -36,16 +65,17 @@ public class Collections {
         collection.setAvailable(visibleEntries.getEntryCount());
         collection.setDeleted(entryDAO.getDeletedCount(userId));
 
-        long ownerEntryCount = DAOFactory.getEntryDAO().ownerEntryCount(userId);
+        long ownerEntryCount = entryDAO.ownerEntryCount(userId);
         collection.setPersonal(ownerEntryCount);
         SharedEntries sharedEntries = new SharedEntries(userId);
         collection.setShared(sharedEntries.getNumberOfEntries(null));
         collection.setDrafts(entryDAO.getByVisibilityCount(userId, Visibility.DRAFT, null));
+        return collection;
+    }
 
-        if (account.getType() != AccountType.ADMIN)
-            return collection;
-
-        // admin only options
+    private static CollectionCounts countAdminCollections() {
+        EntryDAO entryDAO = DAOFactory.getEntryDAO();
+        CollectionCounts collection = new CollectionCounts();
         collection.setPending(entryDAO.getByVisibilityCount(Visibility.PENDING));
         collection.setTransferred(entryDAO.getByVisibilityCount(Visibility.TRANSFERRED));
 
@@ -2,6 +2,7 @@ package org.jbei.ice.lib.net;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jbei.ice.lib.access.AccessTokens;
+import org.jbei.ice.lib.access.TokenVerification;
 import org.jbei.ice.lib.account.AccountTransfer;
 import org.jbei.ice.lib.account.TokenHash;
 import org.jbei.ice.lib.common.logging.Logger;
@@ -15,6 +16,7 @@ import org.jbei.ice.lib.dto.entry.PartData;
 import org.jbei.ice.lib.dto.entry.PartStatistics;
 import org.jbei.ice.lib.dto.folder.FolderDetails;
 import org.jbei.ice.lib.dto.web.RegistryPartner;
+import org.jbei.ice.lib.dto.web.TransferChunk;
 import org.jbei.ice.lib.entry.EntrySelection;
 import org.jbei.ice.lib.utils.Utils;
 import org.jbei.ice.services.rest.IceRestClient;
@@ -90,13 +92,14 @@ public class RemoteContact {
         if (partner == null)
             return false;
 
-        if (!partner.getAuthenticationToken().equals(tokenHash.encrypt(worToken, partner.getSalt()))) {
+        if (!tokenHash.matches(worToken, partner.getSalt(), partner.getAuthenticationToken())) {
             Logger.error("Attempt to remove remote partner " + url + " with invalid worToken " + worToken);
             return false;
         }
 
         Logger.info("Deleting partner '" + url + "' at their request");
         dao.delete(partner); // todo : contact other instances (if this is a master node)
+        TokenVerification.invalidatePartnerToken(url);
         return true;
     }
 
@@ -105,6 +108,11 @@ public class RemoteContact {
         return client.put("/rest/parts/transfer", data, PartData.class);
     }
 
+    TransferChunk transferChunk(String url, String token, TransferChunk chunk) {
+        IceRestClient client = new IceRestClient(url, token);
+        return client.put("/rest/parts/transfer/chunk", chunk, TransferChunk.class);
+    }
+
     void transferSequence(String url, String recordId, EntryType entryType, String sequenceString) {
         IceRestClient client = new IceRestClient(url);
         client.postSequenceFile(recordId, entryType, sequenceString, "/rest/file/sequence");
@@ -12,9 +12,9 @@ import org.jbei.ice.lib.dto.entry.PartStatistics;
 import org.jbei.ice.lib.dto.folder.FolderDetails;
 import org.jbei.ice.lib.dto.web.PartnerEntries;
 import org.jbei.ice.lib.dto.web.RemotePartnerStatus;
+import org.jbei.ice.lib.dto.web.TransferStatus;
+import org.jbei.ice.lib.entry.Entries;
 import org.jbei.ice.lib.entry.EntrySelection;
-import org.jbei.ice.lib.executor.IceExecutorService;
-import org.jbei.ice.lib.executor.TransferTask;
 import org.jbei.ice.lib.utils.Utils;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.dao.RemotePartnerDAO;
@@ -152,12 +152,35 @@ public class RemoteEntries {
      * @param selection context for generating entries to transfer or list of entries
      * @throws PermissionException if user making request is not an administrator
      */
-    public void transferEntries(String userId, long remoteId, EntrySelection selection) {
+    /**
+     * Starts (or resumes) a transfer of the selected entries to a partner. See {@link TransferTasks}
+     *
+     * @param userId    user requesting the transfer. Must be an administrator
+     * @param remoteId  unique identifier for remote partner
+     * @param selection entries to transfer or context used to generate them
+     * @return status of the transfer
+     */
+    public TransferStatus transferEntries(String userId, long remoteId, EntrySelection selection) {
         AccountController accountController = new AccountController();
         if (!accountController.isAdministrator(userId))
             throw new PermissionException("Administrative privileges required to transfer entries");
-        TransferTask task = new TransferTask(userId, remoteId, selection);
-        IceExecutorService.getInstance().runTask(task);
+
+        List<Long> entries = new Entries(userId).getEntriesFromSelectionContext(selection);
+        return TransferTasks.getInstance().submit(userId, remoteId, entries, selection.getFolderId());
+    }
+
+    /**
+     * @param userId     user requesting the status. Must be an administrator
+     * @param remoteId   unique identifier for remote partner
+     * @param transferId identifier for the transfer
+     * @return status of the transfer, or null if it does not exist
+     */
+    public TransferStatus getTransferStatus(String userId, long remoteId, String transferId) {
+        AccountController accountController = new AccountController();
+        if (!accountController.isAdministrator(userId))
+            throw new PermissionException("Administrative privileges required to view transfers");
+
+        return TransferTasks.getInstance().getStatus(remoteId, transferId);
     }
 
     public PartData getPublicEntry(String userId, long remoteId, long entryId) {
@@ -1,13 +1,16 @@
 package org.jbei.ice.lib.net;
 
 import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.ConfigurationKey;
 import org.jbei.ice.lib.dto.entry.PartData;
 import org.jbei.ice.lib.dto.folder.FolderDetails;
+import org.jbei.ice.lib.dto.web.TransferChunk;
 import org.jbei.ice.lib.entry.EntrySelection;
 import org.jbei.ice.lib.entry.EntrySelectionType;
 import org.jbei.ice.lib.entry.sequence.InputStreamWrapper;
 import org.jbei.ice.lib.entry.sequence.SequenceAsString;
 import org.jbei.ice.lib.entry.sequence.SequenceFormat;
+import org.jbei.ice.lib.utils.Utils;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.ModelToInfoFactory;
 import org.jbei.ice.storage.hibernate.dao.EntryDAO;
@@ -19,6 +22,10 @@ import org.jbei.ice.storage.model.RemotePartner;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -26,6 +33,8 @@ import java.util.stream.Collectors;
  */
 public class RemoteTransfer {
 
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+
     private final RemotePartnerDAO remotePartnerDAO;
     private final EntryDAO entryDAO;
     private final RemoteContact remoteContact;
@@ -101,10 +110,106 @@ public class RemoteTransfer {
      * @return list of ids of the transferred entries. These are the ids on the remote recipient and not this ice instance
      */
     public List<Long> transferEntries(long remoteId, List<PartData> entries) {
+        return transferEntries(remoteId, entries, new TransferProgress());
+    }
+
+    /**
+     * Transfers the entries to the remote partner in chunks of {@link ConfigurationKey#TRANSFER_CHUNK_SIZE} parts,
+     * each sent with the sequences of its parts in a single request. Up to {@link
+     * ConfigurationKey#TRANSFER_CONCURRENCY} chunks are sent in parallel and a chunk that fails is retried.
+     * <p>
+     * Chunks already acknowledged in <code>progress</code> are not sent again, so running the transfer again with
+     * the same progress resumes it. If a chunk is still not acknowledged after its retries, the transfer fails; the
+     * chunks that were acknowledged are kept in <code>progress</code>. If the partner does not accept the first chunk sent (e.g. it runs a version that
+     * cannot receive chunks), the entries are transferred one at a time
+     *
+     * @param remoteId unique identifier for remote partner the parts are to be transferred to
+     * @param entries  list of entries to be transferred
+     * @param progress progress of the transfer; updated as chunks are acknowledged
+     * @return list of ids of the transferred entries. These are the ids on the remote recipient and not this ice
+     * instance. Null if not all the entries could be transferred
+     */
+    public List<Long> transferEntries(long remoteId, List<PartData> entries, TransferProgress progress) {
         RemotePartner partner = this.remotePartnerDAO.get(remoteId);
         if (partner == null)
             throw new IllegalArgumentException("Invalid remote host id: " + remoteId);
 
+        if (entries.isEmpty())
+            return new LinkedList<>();
+
+        String url = partner.getUrl();
+        int chunkSize = getConfigValue(ConfigurationKey.TRANSFER_CHUNK_SIZE);
+        List<List<PartData>> chunks = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i += chunkSize) {
+            List<PartData> chunk = entries.subList(i, Math.min(i + chunkSize, entries.size()));
+            chunks.add(chunk);
+            keys.add(getChunkKey(url, chunk));
+        }
+        progress.start(keys, entries.size());
+
+        int concurrency = getConfigValue(ConfigurationKey.TRANSFER_CONCURRENCY);
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "ice-transfer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Semaphore permits = new Semaphore(concurrency);   // bounds the number of chunks in memory
+
+        try {
+            boolean verified = progress.getAcknowledgedChunks() > 0;
+            for (int i = 0; i < chunks.size(); i += 1) {
+                String key = keys.get(i);
+                if (progress.isAcknowledged(key))
+                    continue;
+
+                // built on this thread which has the session
+                TransferChunk chunk = createChunk(key, chunks.get(i));
+                if (!verified) {
+                    if (!sendChunk(partner, chunk, progress)) {
+                        Logger.warn(url + " did not accept transfer chunk. Transferring entries individually");
+                        return transferEach(partner, entries);
+                    }
+                    verified = true;
+                    continue;
+                }
+
+                permits.acquire();
+                executor.execute(() -> {
+                    try {
+                        sendChunk(partner, chunk, progress);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+
+            // wait for chunks being sent
+            permits.acquire(concurrency);
+            permits.release(concurrency);
+        } catch (InterruptedException e) {
+            Logger.warn("Transfer to " + url + " interrupted");
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (!progress.isComplete()) {
+            Logger.error((chunks.size() - progress.getAcknowledgedChunks()) + " of " + chunks.size()
+                    + " chunks could not be transferred to " + url);
+            return null;
+        }
+
+        List<Long> remoteIds = new LinkedList<>();
+        for (String key : keys) {
+            remoteIds.addAll(progress.getRemoteIds(key));
+        }
+        return remoteIds;
+    }
+
+    // transfers the entries one at a time
+    private List<Long> transferEach(RemotePartner partner, List<PartData> entries) {
         int exceptionCount = 0;
         String url = partner.getUrl();
         List<Long> remoteIds = new LinkedList<>();
@@ -112,19 +217,7 @@ public class RemoteTransfer {
         for (PartData data : entries) {
             try {
                 // fetch linked parts to enable remote to create the links
-                if (data.getLinkedParts() != null && !data.getLinkedParts().isEmpty()) {
-                    List<PartData> linkedParts = new ArrayList<>();
-                    for (PartData linkedData : data.getLinkedParts()) {
-                        Entry entry = entryDAO.get(linkedData.getId());
-                        if (entry == null)
-                            continue;
-
-                        linkedData = ModelToInfoFactory.getInfo(entry);
-                        linkedParts.add(linkedData);
-                    }
-                    data.getLinkedParts().clear();
-                    data.getLinkedParts().addAll(linkedParts);
-                }
+                loadLinkedParts(data);
 
                 // transfer the part with information about links (if any)
                 PartData object = remoteContact.transferPart(url, data);
@@ -155,6 +248,111 @@ public class RemoteTransfer {
         return remoteIds;
     }
 
+    // replaces the linked parts with the full data for the linked entries
+    private void loadLinkedParts(PartData data) {
+        if (data.getLinkedParts() == null || data.getLinkedParts().isEmpty())
+            return;
+
+        List<PartData> linkedParts = new ArrayList<>();
+        for (PartData linkedData : data.getLinkedParts()) {
+            Entry entry = entryDAO.get(linkedData.getId());
+            if (entry == null)
+                continue;
+
+            linkedData = ModelToInfoFactory.getInfo(entry);
+            linkedParts.add(linkedData);
+        }
+        data.getLinkedParts().clear();
+        data.getLinkedParts().addAll(linkedParts);
+    }
+
+    // creates the chunk for the parts, including their linked parts and the sequences for both
+    private TransferChunk createChunk(String key, List<PartData> parts) {
+        TransferChunk chunk = new TransferChunk();
+        chunk.setKey(key);
+        for (PartData data : parts) {
+            loadLinkedParts(data);
+            chunk.getParts().add(data);
+            addSequence(chunk, data);
+            if (data.getLinkedParts() == null)
+                continue;
+
+            for (PartData linked : data.getLinkedParts()) {
+                addSequence(chunk, linked);
+            }
+        }
+        return chunk;
+    }
+
+    private void addSequence(TransferChunk chunk, PartData data) {
+        if (chunk.getSequences().containsKey(data.getRecordId()))
+            return;
+
+        String sequence = getSequence(data.getId());
+        if (sequence != null)
+            chunk.getSequences().put(data.getRecordId(), sequence);
+    }
+
+    /**
+     * Sends the chunk to the partner, retrying if it is not acknowledged
+     *
+     * @return true if the partner acknowledged the chunk, false otherwise
+     */
+    private boolean sendChunk(RemotePartner partner, TransferChunk chunk, TransferProgress progress) {
+        String url = partner.getUrl();
+        for (int attempt = 1; attempt <= MAX_CHUNK_ATTEMPTS; attempt += 1) {
+            try {
+                TransferChunk received = remoteContact.transferChunk(url, partner.getApiKey(), chunk);
+                if (received != null && received.getParts().size() == chunk.getParts().size()) {
+                    List<Long> remoteIds = new ArrayList<>();
+                    for (PartData data : received.getParts()) {
+                        remoteIds.add(data.getId());
+                        if (data.getLinkedParts() != null)
+                            remoteIds.addAll(data.getLinkedParts().stream().map(PartData::getId)
+                                    .collect(Collectors.toList()));
+                    }
+                    progress.acknowledged(chunk.getKey(), remoteIds);
+                    return true;
+                }
+                Logger.warn("Chunk " + chunk.getKey() + " not acknowledged by " + url + " (attempt " + attempt + ")");
+            } catch (Exception e) {
+                Logger.warn("Exception sending chunk " + chunk.getKey() + " to " + url + " (attempt " + attempt
+                        + "): " + e.getMessage());
+            }
+
+            if (attempt < MAX_CHUNK_ATTEMPTS) {
+                try {
+                    Thread.sleep(attempt * 1000L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        progress.failed();
+        return false;
+    }
+
+    // key is derived from the parts in the chunk so that a resumed transfer sends the same chunk with the same key
+    private String getChunkKey(String url, List<PartData> parts) {
+        String recordIds = parts.stream().map(PartData::getRecordId).collect(Collectors.joining(","));
+        return UUID.nameUUIDFromBytes((url + ":" + recordIds).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private int getConfigValue(ConfigurationKey key) {
+        String value = Utils.getConfigValue(key);
+        try {
+            int intValue = Integer.parseInt(value.trim());
+            if (intValue > 0)
+                return intValue;
+        } catch (Exception e) {
+            // use default
+        }
+        Logger.warn("Invalid value \"" + value + "\" for " + key.name() + ". Using default");
+        return Integer.parseInt(key.getDefaultValue());
+    }
+
     public FolderDetails transferFolder(long remoteId, FolderDetails folderDetails, List<Long> remoteIds) {
         RemotePartner partner = this.remotePartnerDAO.get(remoteId);
         if (partner == null)
@@ -194,17 +392,9 @@ public class RemoteTransfer {
         String url = partner.getUrl();
 
         // check main entry for sequence
-        if (sequenceDAO.hasSequence(data.getId())) {
-            InputStreamWrapper wrapper = new SequenceAsString(SequenceFormat.GENBANK, data.getId(), true).get();
-            if (wrapper != null && wrapper.getInputStream() != null) {
-                try {
-                    String sequenceString = new String(wrapper.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
-                    remoteContact.transferSequence(url, data.getRecordId(), data.getType(), sequenceString);
-                } catch (IOException e) {
-                    Logger.error("Cannot transfer sequence", e);
-                }
-            }
-        }
+        String sequenceString = getSequence(data.getId());
+        if (sequenceString != null)
+            remoteContact.transferSequence(url, data.getRecordId(), data.getType(), sequenceString);
 
         // todo : check main entry for attachments
 
@@ -230,4 +420,24 @@ public class RemoteTransfer {
             performTransfer(partner, linked);
         }
     }
+
+    /**
+     * @param entryId identifier for entry
+     * @return sequence of the entry in genbank format or null if the entry does not have a sequence
+     */
+    private String getSequence(long entryId) {
+        if (!sequenceDAO.hasSequence(entryId))
+            return null;
+
+        InputStreamWrapper wrapper = new SequenceAsString(SequenceFormat.GENBANK, entryId, true).get();
+        if (wrapper == null || wrapper.getInputStream() == null)
+            return null;
+
+        try {
+            return new String(wrapper.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Logger.error("Cannot transfer sequence", e);
+            return null;
+        }
+    }
 }
@@ -0,0 +1,71 @@
+package org.jbei.ice.lib.net;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of a transfer of entries to a partner registry. Keeps the chunks acknowledged by the partner so that
+ * a transfer that is run again with the same progress only sends the chunks that were not acknowledged
+ */
+public class TransferProgress {
+
+    private final Map<String, List<Long>> acknowledged = new ConcurrentHashMap<>();   // chunk key -> remote ids
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile int totalChunks;
+    private volatile int totalParts;
+
+    // chunks acknowledged in an earlier run that are not part of this run are dropped
+    void start(Collection<String> keys, int totalParts) {
+        acknowledged.keySet().retainAll(keys);
+        this.totalChunks = keys.size();
+        this.totalParts = totalParts;
+        this.failed.set(0);
+    }
+
+    boolean isAcknowledged(String key) {
+        return acknowledged.containsKey(key);
+    }
+
+    void acknowledged(String key, List<Long> remoteIds) {
+        acknowledged.put(key, remoteIds);
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    /**
+     * @param key chunk key
+     * @return ids (on the partner) of the parts in the chunk or an empty list if the chunk was not acknowledged
+     */
+    List<Long> getRemoteIds(String key) {
+        return acknowledged.getOrDefault(key, new ArrayList<>());
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    public int getTotalParts() {
+        return totalParts;
+    }
+
+    public int getAcknowledgedChunks() {
+        return acknowledged.size();
+    }
+
+    /**
+     * @return number of chunks that were not acknowledged by the partner in the last run of the transfer
+     */
+    public int getFailedChunks() {
+        return failed.get();
+    }
+
+    public boolean isComplete() {
+        return totalChunks > 0 && acknowledged.size() >= totalChunks;
+    }
+}
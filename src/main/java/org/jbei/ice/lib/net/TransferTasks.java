@@ -0,0 +1,118 @@
+package org.jbei.ice.lib.net;
+
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.web.TransferStatus;
+import org.jbei.ice.lib.executor.IceExecutorService;
+import org.jbei.ice.lib.executor.TaskStatus;
+import org.jbei.ice.lib.executor.TransferTask;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Transfers of entries to partner registries. A transfer is identified by the partner, the entries and the folder
+ * they were selected from, so requesting the same transfer again returns the existing transfer while it runs, and
+ * resumes it (sending only the chunks the partner has not acknowledged) if it did not complete.
+ * Transfers that finished more than {@link #MAX_AGE_HOURS} hours ago are dropped
+ */
+public class TransferTasks {
+
+    private static final TransferTasks INSTANCE = new TransferTasks();
+    static final int MAX_AGE_HOURS = 24;
+
+    private final Map<String, Transfer> transfers = new ConcurrentHashMap<>();
+
+    private TransferTasks() {
+    }
+
+    public static TransferTasks getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts a transfer of the entries, unless the same transfer is running or has completed
+     *
+     * @param userId   user requesting the transfer. Must be an administrator
+     * @param remoteId unique identifier for remote partner the entries are to be transferred to
+     * @param entries  ids of the entries to transfer
+     * @param folderId folder the entries were selected from, if any
+     * @return status of the transfer
+     */
+    public TransferStatus submit(String userId, long remoteId, List<Long> entries, String folderId) {
+        deleteExpired();
+        String transferId = getTransferId(remoteId, entries, folderId);
+        Transfer transfer = transfers.compute(transferId, (id, existing) -> {
+            if (existing != null && (!existing.task.getStatus().isTerminal()
+                    || existing.task.getProgress().isComplete()))
+                return existing;
+
+            // new transfer, or resume the previous run with its progress
+            TransferProgress progress = existing == null ? new TransferProgress() : existing.task.getProgress();
+            return new Transfer(remoteId, new TransferTask(userId, remoteId, entries, folderId, progress));
+        });
+
+        TransferTask task = transfer.task;
+        synchronized (task) {
+            // a rejected task reports its status to the caller and is resumed on the next submit
+            if (task.getStatus() == TaskStatus.NEW && !IceExecutorService.getInstance().runTask(task))
+                Logger.warn("Could not schedule transfer " + transferId + " (" + task.getStatus() + ")");
+        }
+        return getStatus(transferId, transfer);
+    }
+
+    /**
+     * @param remoteId   unique identifier for remote partner
+     * @param transferId identifier for transfer
+     * @return status of the transfer, or null if there is no transfer with the identifier to the partner
+     */
+    public TransferStatus getStatus(long remoteId, String transferId) {
+        if (transferId == null)
+            return null;
+
+        Transfer transfer = transfers.get(transferId);
+        if (transfer == null || transfer.remoteId != remoteId)
+            return null;
+        return getStatus(transferId, transfer);
+    }
+
+    private TransferStatus getStatus(String transferId, Transfer transfer) {
+        TransferProgress progress = transfer.task.getProgress();
+        TransferStatus status = new TransferStatus();
+        status.setId(transferId);
+        status.setStatus(transfer.task.getStatus().name());
+        status.setTotalParts(progress.getTotalParts());
+        status.setTotalChunks(progress.getTotalChunks());
+        status.setAcknowledgedChunks(progress.getAcknowledgedChunks());
+        status.setFailedChunks(progress.getFailedChunks());
+        status.setComplete(progress.isComplete());
+        return status;
+    }
+
+    private String getTransferId(long remoteId, List<Long> entries, String folderId) {
+        String ids = entries.stream().map(Object::toString).collect(Collectors.joining(","));
+        String value = remoteId + ":" + (folderId == null ? "" : folderId) + ":" + ids;
+        return UUID.nameUUIDFromBytes(value.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    // drops transfers that are no longer running and were started more than the max age ago
+    private void deleteExpired() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(MAX_AGE_HOURS);
+        transfers.values().removeIf(transfer -> transfer.created < cutoff && transfer.task.getStatus().isTerminal());
+    }
+
+    private static class Transfer {
+        private final long remoteId;
+        private final TransferTask task;
+        private final long created = System.currentTimeMillis();
+
+        Transfer(long remoteId, TransferTask task) {
+            this.remoteId = remoteId;
+            this.task = task;
+        }
+    }
+}
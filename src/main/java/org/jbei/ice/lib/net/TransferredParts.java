@@ -1,12 +1,25 @@
 package org.jbei.ice.lib.net;
 
+import org.apache.commons.lang3.StringUtils;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.entry.PartData;
 import org.jbei.ice.lib.dto.entry.Visibility;
+import org.jbei.ice.lib.dto.web.TransferChunk;
+import org.jbei.ice.lib.entry.sequence.PartSequence;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.InfoToModelFactory;
 import org.jbei.ice.storage.hibernate.dao.EntryDAO;
+import org.jbei.ice.storage.hibernate.dao.SequenceDAO;
+import org.jbei.ice.storage.hibernate.dao.TransferChunkDAO;
 import org.jbei.ice.storage.model.Entry;
+import org.jbei.ice.storage.model.TransferChunkModel;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * This class represents one or more entries that have been transferred from another
@@ -16,9 +29,13 @@ import org.jbei.ice.storage.model.Entry;
  */
 public class TransferredParts {
     private final EntryDAO dao;
+    private final SequenceDAO sequenceDAO;
+    private final TransferChunkDAO transferChunkDAO;
 
     public TransferredParts() {
         this.dao = DAOFactory.getEntryDAO();
+        this.sequenceDAO = DAOFactory.getSequenceDAO();
+        this.transferChunkDAO = DAOFactory.getTransferChunkDAO();
     }
 
     public PartData receiveTransferredEntry(PartData part) {
@@ -26,6 +43,100 @@ public class TransferredParts {
         return part;
     }
 
+    /**
+     * Saves the parts (and linked parts) in a chunk transferred from another registry, along with their sequences.
+     * The key of each chunk received is recorded with the local ids of its parts; a chunk with a key that has already
+     * been received is not applied again and is returned with the recorded ids. Otherwise, parts that already exist
+     * locally (same record id) are not created again and sequences are only saved for entries that do not already
+     * have one
+     *
+     * @param chunk chunk of transferred parts
+     * @return the chunk with the part ids set to the local ids of the parts; sequences are not returned
+     */
+    public TransferChunk receiveChunk(TransferChunk chunk) {
+        String key = chunk.getKey();
+        if (!StringUtils.isEmpty(key)) {
+            Optional<TransferChunkModel> received = transferChunkDAO.getByKey(key);
+            if (received.isPresent() && setReceivedIds(chunk, received.get().getEntryIds())) {
+                Logger.info("Transfer chunk " + key + " already received");
+                chunk.getSequences().clear();
+                return chunk;
+            }
+        }
+
+        Logger.info("Receiving transfer chunk " + key + " (" + chunk.getParts().size() + " parts)");
+        for (PartData part : chunk.getParts()) {
+            // record ids of parts are replaced with the local record id when new entries are created
+            Map<PartData, String> recordIds = new IdentityHashMap<>();
+            recordIds.put(part, part.getRecordId());
+            if (part.getLinkedParts() != null) {
+                for (PartData linked : part.getLinkedParts()) {
+                    recordIds.put(linked, linked.getRecordId());
+                }
+            }
+
+            saveTransferred(part);
+
+            for (Map.Entry<PartData, String> entry : recordIds.entrySet()) {
+                String sequence = chunk.getSequences().get(entry.getValue());
+                if (sequence != null)
+                    saveSequence(entry.getKey().getId(), sequence);
+            }
+        }
+        chunk.getSequences().clear();
+
+        if (!StringUtils.isEmpty(key)) {
+            TransferChunkModel model = transferChunkDAO.getByKey(key).orElseGet(TransferChunkModel::new);
+            model.setChunkKey(key);
+            model.setEntryIds(getPartsAndLinked(chunk).stream().map(data -> Long.toString(data.getId()))
+                    .collect(Collectors.joining(",")));
+            model.setCreationTime(new Date());
+            if (model.getId() == 0)
+                transferChunkDAO.create(model);
+            else
+                transferChunkDAO.update(model);
+        }
+        return chunk;
+    }
+
+    // sets the ids recorded for a received chunk. false if they do not match the parts in the chunk
+    private boolean setReceivedIds(TransferChunk chunk, String entryIds) {
+        List<PartData> parts = getPartsAndLinked(chunk);
+        String[] ids = StringUtils.isEmpty(entryIds) ? new String[0] : entryIds.split(",");
+        if (ids.length != parts.size())
+            return false;
+
+        for (int i = 0; i < ids.length; i += 1) {
+            parts.get(i).setId(Long.parseLong(ids[i]));
+        }
+        return true;
+    }
+
+    // each part in the chunk followed by its linked parts
+    private List<PartData> getPartsAndLinked(TransferChunk chunk) {
+        List<PartData> parts = new ArrayList<>();
+        for (PartData part : chunk.getParts()) {
+            parts.add(part);
+            if (part.getLinkedParts() != null)
+                parts.addAll(part.getLinkedParts());
+        }
+        return parts;
+    }
+
+    private void saveSequence(long entryId, String sequence) {
+        if (sequenceDAO.hasSequence(entryId))
+            return;
+
+        try {
+            PartSequence partSequence = new PartSequence(null, Long.toString(entryId));
+            InputStream inputStream = new ByteArrayInputStream(sequence.getBytes(StandardCharsets.UTF_8));
+            if (partSequence.parseSequenceFile(inputStream, "transfer.gb", false) == null)
+                Logger.error("Could not parse transferred sequence for entry " + entryId);
+        } catch (IOException e) {
+            Logger.error("Could not save transferred sequence for entry " + entryId, e);
+        }
+    }
+
     private Entry saveTransferred(PartData part) {
         Entry entry = dao.getByRecordId(part.getRecordId());
         if (entry != null) {
@@ -6,6 +6,7 @@ import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.ConfigurationKey;
 import org.jbei.ice.lib.dto.web.RegistryPartner;
 import org.jbei.ice.lib.executor.Task;
+import org.jbei.ice.lib.executor.TaskLane;
 import org.jbei.ice.lib.utils.Utils;
 
 import java.util.List;
@@ -30,6 +31,11 @@ public class WebOfRegistriesTask extends Task {
         this.remoteContact = new RemoteContact();
     }
 
+    @Override
+    public TaskLane getLane() {
+        return TaskLane.INTERACTIVE;
+    }
+
     @Override
     public void execute() {
         if (!UrlValidator.getInstance().isValid("https://" + this.myUrl)) {
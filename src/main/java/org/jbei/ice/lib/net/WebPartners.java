@@ -4,6 +4,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.validator.routines.UrlValidator;
 import org.jbei.ice.lib.access.AccessTokens;
 import org.jbei.ice.lib.access.PermissionException;
+import org.jbei.ice.lib.access.TokenVerification;
 import org.jbei.ice.lib.account.AccountController;
 import org.jbei.ice.lib.account.TokenHash;
 import org.jbei.ice.lib.common.logging.Logger;
@@ -169,9 +170,10 @@ public class WebPartners {
             // validated. update the authorization token
             partner.setApiKey(request.getApiKey());
             partner.setSalt(tokenHash.generateSalt());
-            partner.setAuthenticationToken(tokenHash.encrypt(thisInstance.getApiKey() +
+            partner.setAuthenticationToken(TokenHash.forCredentials().encode(thisInstance.getApiKey() +
                     request.getUrl(), partner.getSalt()));
             dao.update(partner);
+            TokenVerification.invalidatePartnerToken(partner.getUrl());
         } else {
             // save in db
             request.setStatus(RemotePartnerStatus.APPROVED);
@@ -204,6 +206,7 @@ public class WebPartners {
             return false;
 
         dao.delete(partner);
+        TokenVerification.invalidatePartnerToken(partner.getUrl());
         // todo : contact deleted partner since they cannot contact anymore?
         return true;
     }
@@ -225,6 +228,7 @@ public class WebPartners {
         }
 
         dao.delete(requester);
+        TokenVerification.invalidatePartnerToken(requester.getUrl());
         return true;
     }
 
@@ -271,10 +275,12 @@ public class WebPartners {
 
         // contact succeeded with return of api key, generate new salt
         partner.setSalt(tokenHash.generateSalt());
-        String hash = tokenHash.encrypt(thisPartner.getApiKey() + remotePartner.getUrl(), partner.getSalt());
+        String hash = TokenHash.forCredentials().encode(thisPartner.getApiKey() + remotePartner.getUrl(),
+                partner.getSalt());
         partner.setAuthenticationToken(hash);
         partner.setApiKey(remotePartner.getApiKey()); // todo : check api key (validate?)
         partner = dao.update(partner);
+        TokenVerification.invalidatePartnerToken(partner.getUrl());
         return partner.toDataTransferObject();
     }
 
@@ -301,9 +307,11 @@ public class WebPartners {
         remotePartnerModel.setApiKey(remotePartner.getApiKey()); // todo : no need to validate since url is authenticated
         String salt = tokenHash.generateSalt();
         remotePartnerModel.setSalt(salt);
-        String hash = tokenHash.encrypt(thisInstance.getApiKey() + remotePartner.getUrl(), salt);
+        String hash = TokenHash.forCredentials().encode(thisInstance.getApiKey() + remotePartner.getUrl(), salt);
         remotePartnerModel.setAuthenticationToken(hash);
         dao.update(remotePartnerModel);
+        TokenVerification.invalidatePartnerToken(url);
+        TokenVerification.invalidatePartnerToken(remotePartnerModel.getUrl());
 
         return thisInstance;
     }
@@ -322,7 +330,9 @@ public class WebPartners {
 
         Logger.info(userId + ": updating partner (" + existing.getUrl() + ") to " + partner.toString());
         existing.setPartnerStatus(partner.getStatus());
-        return dao.update(existing).toDataTransferObject();
+        existing = dao.update(existing);
+        TokenVerification.invalidatePartnerToken(existing.getUrl());
+        return existing.toDataTransferObject();
     }
 
     /**
@@ -429,7 +439,7 @@ public class WebPartners {
         remotePartner.setPartnerStatus(newPartner.getStatus());
         if (newPartner.getStatus() == RemotePartnerStatus.APPROVED) {
             remotePartner.setSalt(tokenHash.generateSalt());
-            String hash = tokenHash.encrypt(token + newPartner.getUrl(), remotePartner.getSalt());
+            String hash = TokenHash.forCredentials().encode(token + newPartner.getUrl(), remotePartner.getSalt());
             remotePartner.setAuthenticationToken(hash);
             remotePartner.setApiKey(newPartner.getApiKey());
         }
@@ -16,6 +16,7 @@ import org.jbei.ice.storage.model.RemotePartner;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller for Web of Registries functionality
@@ -115,6 +116,7 @@ public class WoRController {
      *
      * @param enable if true, enables WoR; disables it otherwise
      * @param url    the url for this ice instance
+     * @throws RejectedExecutionException if the task could not be queued
      */
     public void setEnable(String userId, boolean enable, String url) {
         String thisUrl = Utils.getConfigValue(ConfigurationKey.URI_PREFIX);
@@ -125,6 +127,7 @@ public class WoRController {
         }
 
         WebOfRegistriesTask contactTask = new WebOfRegistriesTask(userId, url, enable);
-        IceExecutorService.getInstance().runTask(contactTask);
+        if (!IceExecutorService.getInstance().runTask(contactTask))
+            throw new RejectedExecutionException("Could not schedule web of registries update");
     }
 }
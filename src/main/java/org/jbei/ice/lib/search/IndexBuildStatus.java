@@ -9,10 +9,16 @@ public class IndexBuildStatus implements IDataTransferModel {
 
     private final long done;
     private final long total;
+    private final double rate;
 
     public IndexBuildStatus(long done, long total) {
+        this(done, total, 0);
+    }
+
+    public IndexBuildStatus(long done, long total, double rate) {
         this.done = done;
         this.total = total;
+        this.rate = rate;
     }
 
     public long getDone() {
@@ -22,4 +28,11 @@ public class IndexBuildStatus implements IDataTransferModel {
     public long getTotal() {
         return this.total;
     }
+
+    /**
+     * @return throughput of the index build, in documents processed per second
+     */
+    public double getRate() {
+        return this.rate;
+    }
 }
@@ -10,8 +10,10 @@ import java.util.concurrent.atomic.AtomicLong;
 public class IndexerProgressMonitor implements MassIndexerProgressMonitor {
 
     private static IndexerProgressMonitor INSTANCE = new IndexerProgressMonitor();
+    private static final IndexerProgressMonitor BLAST_INSTANCE = new IndexerProgressMonitor();
     private final AtomicLong documentsDoneCounter = new AtomicLong();
     private final AtomicLong totalCounter = new AtomicLong();
+    private final AtomicLong startTime = new AtomicLong();
 
     private IndexerProgressMonitor() {
     }
@@ -20,6 +22,13 @@ public class IndexerProgressMonitor implements MassIndexerProgressMonitor {
         return INSTANCE;
     }
 
+    /**
+     * @return monitor for the progress of (standard) blast database rebuilds
+     */
+    public static IndexerProgressMonitor getBlastInstance() {
+        return BLAST_INSTANCE;
+    }
+
     @Override
     /**
      * {@inheritDoc}
@@ -40,6 +49,7 @@ public class IndexerProgressMonitor implements MassIndexerProgressMonitor {
      * {@inheritDoc}
      */
     public void addToTotalCount(long count) {
+        startTime.compareAndSet(0l, System.currentTimeMillis());
         totalCounter.addAndGet(count);
     }
 
@@ -50,6 +60,7 @@ public class IndexerProgressMonitor implements MassIndexerProgressMonitor {
     public void indexingCompleted() {
         documentsDoneCounter.set(0l);
         totalCounter.set(0l);
+        startTime.set(0l);
     }
 
     @Override
@@ -65,6 +76,14 @@ public class IndexerProgressMonitor implements MassIndexerProgressMonitor {
     }
 
     public IndexBuildStatus getStatus() {
-        return new IndexBuildStatus(documentsDoneCounter.get(), totalCounter.get());
+        long done = documentsDoneCounter.get();
+        long start = startTime.get();
+        double rate = 0;
+        if (start > 0) {
+            long elapsed = System.currentTimeMillis() - start;
+            if (elapsed > 0)
+                rate = (done * 1000.0) / elapsed;
+        }
+        return new IndexBuildStatus(done, totalCounter.get(), rate);
     }
 }
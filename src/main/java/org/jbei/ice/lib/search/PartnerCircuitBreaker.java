@@ -0,0 +1,68 @@
+package org.jbei.ice.lib.search;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks failed searches of partner registries so that a partner that keeps failing (or timing out) is skipped
+ * instead of holding up every web search.
+ * <p>
+ * After {@link #FAILURE_THRESHOLD} consecutive failures the partner is skipped for {@link #OPEN_TIME}. Once that
+ * time has passed a single search is let through; the partner is searched again normally if it succeeds, or
+ * skipped for another period if it fails
+ */
+class PartnerCircuitBreaker {
+
+    static final int FAILURE_THRESHOLD = 3;
+    static final long OPEN_TIME = TimeUnit.MINUTES.toMillis(1);
+    private static final PartnerCircuitBreaker INSTANCE = new PartnerCircuitBreaker();
+
+    private final Map<Long, State> states = new ConcurrentHashMap<>();
+
+    static PartnerCircuitBreaker getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param partnerId unique identifier for partner
+     * @return true if the partner should be searched
+     */
+    boolean allowRequest(long partnerId) {
+        State state = states.get(partnerId);
+        if (state == null)
+            return true;
+
+        synchronized (state) {
+            if (state.failures < FAILURE_THRESHOLD)
+                return true;
+
+            if (state.trial || System.currentTimeMillis() - state.openedAt < OPEN_TIME)
+                return false;
+
+            state.trial = true;
+            return true;
+        }
+    }
+
+    void recordSuccess(long partnerId) {
+        states.remove(partnerId);
+    }
+
+    void recordFailure(long partnerId) {
+        State state = states.computeIfAbsent(partnerId, id -> new State());
+        synchronized (state) {
+            state.failures += 1;
+            if (state.failures >= FAILURE_THRESHOLD) {
+                state.openedAt = System.currentTimeMillis();
+                state.trial = false;
+            }
+        }
+    }
+
+    private static class State {
+        private int failures;
+        private long openedAt;
+        private boolean trial;       // a search is in progress after the open time passed
+    }
+}
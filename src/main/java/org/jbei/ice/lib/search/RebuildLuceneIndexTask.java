@@ -6,6 +6,7 @@ import org.hibernate.search.MassIndexer;
 import org.hibernate.search.Search;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.executor.Task;
+import org.jbei.ice.lib.executor.TaskLane;
 import org.jbei.ice.storage.hibernate.HibernateConfiguration;
 
 /**
@@ -15,6 +16,16 @@ import org.jbei.ice.storage.hibernate.HibernateConfiguration;
  */
 public class RebuildLuceneIndexTask extends Task {
 
+    @Override
+    public TaskLane getLane() {
+        return TaskLane.BACKGROUND_INDEX;
+    }
+
+    @Override
+    public String getKey() {
+        return "lucene-rebuild";
+    }
+
     @Override
     public void execute() {
         Logger.info("Rebuilding lucene index in background");
@@ -7,11 +7,17 @@ import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.search.*;
 import org.jbei.ice.lib.executor.IceExecutorService;
 import org.jbei.ice.lib.search.blast.BlastException;
+import org.jbei.ice.lib.search.blast.BlastIndexUpdateQueue;
 import org.jbei.ice.lib.search.blast.BlastPlus;
+import org.jbei.ice.lib.search.blast.BlastProcessPool;
+import org.jbei.ice.lib.search.blast.KmerSequenceDatabase;
 import org.jbei.ice.lib.search.blast.StandardBlastDatabase;
+import org.jbei.ice.lib.utils.LongList;
 import org.jbei.ice.storage.hibernate.search.HibernateSearch;
 
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller for running searches on the ice platform
@@ -20,6 +26,9 @@ import java.util.HashMap;
  */
 public class SearchIndexes {
 
+    // sequence queries up to this length (e.g. primers) are run against the k-mer index instead of blast
+    private static final int SHORT_QUERY_LENGTH = 50;
+
     /**
      * Executes search using parameters specified in the query.
      *
@@ -38,8 +47,7 @@ public class SearchIndexes {
                 query.getBlastQuery().setBlastProgram(BlastProgram.BLAST_N);
 
             try {
-                StandardBlastDatabase blastDatabase = StandardBlastDatabase.getInstance();
-                blastResults = blastDatabase.runBlast(query.getBlastQuery());
+                blastResults = runSequenceSearch(query.getBlastQuery());
             } catch (BlastException e) {
                 Logger.error("Exception running blast " + e.getMessage());
                 return null;
@@ -68,13 +76,62 @@ public class SearchIndexes {
         }
     }
 
+    /**
+     * Retrieves the ids of all entries matching the search query that the user can read, without loading any
+     * entry information. Paging and sort parameters of the query are ignored
+     *
+     * @param userId unique identifier for user running search
+     * @param query  search query
+     * @return ids of matching entries, in index order
+     */
+    public LongList runSearchIds(String userId, SearchQuery query) {
+        HashMap<String, SearchResult> blastResults = null;
+        if (query.hasBlastQuery()) {
+            if (query.getBlastQuery().getBlastProgram() == null)
+                query.getBlastQuery().setBlastProgram(BlastProgram.BLAST_N);
+
+            try {
+                blastResults = runSequenceSearch(query.getBlastQuery());
+            } catch (BlastException e) {
+                Logger.error("Exception running blast " + e.getMessage());
+                return new LongList();
+            }
+
+            if (blastResults.isEmpty())
+                return new LongList();
+        }
+
+        HashMap<String, QueryType> terms = null;
+        if (!StringUtils.isEmpty(query.getQueryString()))
+            terms = parseQueryString(query.getQueryString());
+        return HibernateSearch.getInstance().executeSearchIds(userId, terms, query, blastResults);
+    }
+
+    /**
+     * Runs a sequence search using the in process k-mer index if blast is not available or the query is short
+     * (avoids starting a blast process), and blast otherwise
+     *
+     * @param blastQuery sequence search query
+     * @return map of unique entry identifier to the search result hit details
+     * @throws BlastException on exception running search
+     */
+    private HashMap<String, SearchResult> runSequenceSearch(BlastQuery blastQuery) throws BlastException {
+        KmerSequenceDatabase kmerDatabase = KmerSequenceDatabase.getInstance();
+        if (kmerDatabase.canSearch(blastQuery)
+                && (blastQuery.getSequence().length() <= SHORT_QUERY_LENGTH || !new BlastPlus().canRunBlast()))
+            return kmerDatabase.runBlast(blastQuery);
+
+        return StandardBlastDatabase.getInstance().runBlast(blastQuery);
+    }
+
     /**
      * Rebuilds the search indices. Admin privileges required
      *
      * @param userId unique identifier for user making request
      * @param type   type of search index to rebuild
      * @throws PermissionException      if requesting user does not have administrative privileges
-     * @throws IllegalArgumentException on unsupported index type
+     * @throws IllegalArgumentException   on unsupported index type
+     * @throws RejectedExecutionException if the rebuild could not be scheduled
      */
     public void rebuildIndexes(String userId, IndexType type) {
         if (!new AccountController().isAdministrator(userId)) {
@@ -85,7 +142,8 @@ public class SearchIndexes {
         Logger.info(userId + ": rebuilding search index " + type);
         switch (type) {
             case LUCENE:
-                IceExecutorService.getInstance().runTask(new RebuildLuceneIndexTask());
+                if (!IceExecutorService.getInstance().runTask(new RebuildLuceneIndexTask()))
+                    throw new RejectedExecutionException("Could not schedule rebuild of search index");
                 break;
 
             case BLAST:
@@ -94,6 +152,12 @@ public class SearchIndexes {
                 } catch (BlastException e) {
                     Logger.error(e);
                 }
+
+                try {
+                    KmerSequenceDatabase.getInstance().checkRebuild(true);
+                } catch (BlastException e) {
+                    Logger.error(e);
+                }
                 break;
 
             default:
@@ -113,6 +177,20 @@ public class SearchIndexes {
         }
     }
 
+    /**
+     * @return depth, lag and throughput of the queue of pending changes to the blast database
+     */
+    public BlastIndexQueueStatus getBlastQueueStatus() {
+        return BlastIndexUpdateQueue.getInstance().getStatus();
+    }
+
+    /**
+     * @return run statistics (including run time histograms) for blast programs
+     */
+    public List<BlastProgramStats> getBlastProgramStats() {
+        return BlastProcessPool.getInstance().getStats();
+    }
+
     /**
      * Parses the query string checking for terms and phrases. A quote is used to indicate
      * the boundaries of a phrase
@@ -15,9 +15,12 @@ public class WebResult implements IDataTransferModel {
     private RegistryPartner partner;
     private long count;
     private List<SearchResult> results;
+    private WebResultStatus status;
+    private long time;                  // ms taken to retrieve the results
 
     public WebResult() {
         this.results = new LinkedList<>();
+        this.status = WebResultStatus.OK;
     }
 
     public RegistryPartner getPartner() {
@@ -43,4 +46,20 @@ public class WebResult implements IDataTransferModel {
     public void setResults(List<SearchResult> results) {
         this.results = results;
     }
+
+    public WebResultStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(WebResultStatus status) {
+        this.status = status;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
 }
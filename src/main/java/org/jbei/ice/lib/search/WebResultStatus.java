@@ -0,0 +1,11 @@
+package org.jbei.ice.lib.search;
+
+/**
+ * Outcome of the search of a single registry in a web of registries search
+ */
+public enum WebResultStatus {
+    OK,
+    TIMEOUT,        // registry did not respond in time
+    ERROR,          // registry returned an error or could not be contacted
+    SKIPPED         // registry not searched because recent searches of it have failed
+}
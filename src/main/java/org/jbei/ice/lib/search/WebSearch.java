@@ -1,5 +1,7 @@
 package org.jbei.ice.lib.search;
 
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.ConfigurationKey;
 import org.jbei.ice.lib.dto.search.SearchQuery;
 import org.jbei.ice.lib.dto.search.SearchResult;
@@ -8,6 +10,7 @@ import org.jbei.ice.lib.dto.web.RegistryPartner;
 import org.jbei.ice.lib.dto.web.RemotePartnerStatus;
 import org.jbei.ice.lib.executor.IceExecutorService;
 import org.jbei.ice.lib.executor.Task;
+import org.jbei.ice.lib.executor.TaskLane;
 import org.jbei.ice.lib.executor.TaskStatus;
 import org.jbei.ice.lib.utils.Utils;
 import org.jbei.ice.services.rest.IceRestClient;
@@ -15,12 +18,24 @@ import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.dao.RemotePartnerDAO;
 import org.jbei.ice.storage.model.RemotePartner;
 
-import java.util.Iterator;
+import java.net.SocketTimeoutException;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
- * Search for other ICE instances
+ * Search for other ICE instances.
+ * <p>
+ * Each partner registry is searched in a separate task. Results are collected as the tasks complete, until all
+ * partners have responded or the overall search timeout has passed; partners that have not responded by then are
+ * reported with a <code>TIMEOUT</code> status and the results returned are partial. Partners whose recent searches
+ * have failed are skipped (see {@link PartnerCircuitBreaker}). Only searches that were run count as failures;
+ * searches not accepted by the executor service, or still queued at the deadline, say nothing about the partner
  *
  * @author Hector Plahar
  */
@@ -42,11 +57,29 @@ public class WebSearch {
      * @return list of search results
      */
     public WebSearchResults run(SearchQuery query, boolean includeThisInstance) {
+        return run(query, includeThisInstance, null);
+    }
+
+    /**
+     * Searches all registries in the web of registries configuration with this registry, optionally notifying a
+     * listener of the result of each registry as it becomes available
+     *
+     * @param query               wrapper around search query
+     * @param includeThisInstance whether to include results from this instance of ICE
+     * @param listener            optional listener for the result of each registry (including those that timed out,
+     *                            failed or were skipped). Called on the calling thread
+     * @return list of search results
+     */
+    public WebSearchResults run(SearchQuery query, boolean includeThisInstance, Consumer<WebResult> listener) {
         List<RemotePartner> partners = this.remotePartnerDAO.getRegistryPartners();
 
         if (partners == null)
             return null;
 
+        long deadline = System.currentTimeMillis() + getTimeout(ConfigurationKey.WEB_SEARCH_TIMEOUT);
+        PartnerCircuitBreaker circuitBreaker = PartnerCircuitBreaker.getInstance();
+        WebSearchResults searchResults = new WebSearchResults(partners.size() + 1);
+        BlockingQueue<SearchTask> completed = new LinkedBlockingQueue<>();
         List<SearchTask> searchTasks = new LinkedList<>();
 
         // for each approved partner run the search task
@@ -54,14 +87,17 @@ public class WebSearch {
             if (partner.getUrl() == null || partner.getPartnerStatus() != RemotePartnerStatus.APPROVED)
                 continue;
 
-            SearchTask task = runSearchThread(partner, query);
+            if (!circuitBreaker.allowRequest(partner.getId())) {
+                addResult(searchResults, createResult(partner, WebResultStatus.SKIPPED, 0), listener);
+                continue;
+            }
+
+            SearchTask task = runSearchThread(partner, query, deadline);
+            task.getFuture().whenComplete((results, error) -> completed.offer(task));
             searchTasks.add(task);
         }
 
-        WebSearchResults searchResults = new WebSearchResults(searchTasks.size() + 1);
-
         // search this instance (gives the threads time to complete)
-//        String inWWoR = Utils.getConfigValue(ConfigurationKey.JOIN_WEB_OF_REGISTRIES);
         if (includeThisInstance) {
             SearchIndexes searchIndexes = new SearchIndexes();
             SearchResults results = searchIndexes.runSearch(null, query);
@@ -78,69 +114,145 @@ public class WebSearch {
             thisPartner.setName(projectName);
 
             thisResult.setPartner(thisPartner);
-            searchResults.getResults().add(thisResult);
-            searchResults.setTotalCount(thisResult.getCount());
+            addResult(searchResults, thisResult, listener);
         }
 
-        // go through tasks and check if completed
-        while (!searchTasks.isEmpty()) {
-            Iterator<SearchTask> iterator = searchTasks.iterator();
-
-            // todo : set time limit and abandon task (shutdown) if exceeded (or after give it till after this instance is searched)
-            while (iterator.hasNext()) {
-                SearchTask task = iterator.next();
-                TaskStatus status = task.getStatus();
-                if (status == TaskStatus.COMPLETED || status == TaskStatus.EXCEPTION) {
-                    iterator.remove();
-                    if (status == TaskStatus.COMPLETED) {
-                        WebResult webResult = new WebResult();
-                        webResult.setPartner(task.getPartner().toDataTransferObject());
-
-                        SearchResults partnerResults = task.getResults();
-                        webResult.setCount(partnerResults.getResultCount());
-                        webResult.getResults().addAll(partnerResults.getResults());
-
-                        searchResults.getResults().add(webResult);
-                        searchResults.setTotalCount(searchResults.getTotalCount() + partnerResults.getResultCount());
-                    }
-                }
+        // collect partner results as they complete
+        try {
+            while (!searchTasks.isEmpty()) {
+                long remaining = deadline - System.currentTimeMillis();
+                SearchTask task = remaining > 0 ? completed.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                if (task == null)
+                    break;
+
+                searchTasks.remove(task);
+                addResult(searchResults, getResult(task), listener);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // partners that did not respond in time
+        for (SearchTask task : searchTasks) {
+            boolean notRun = task.isNotRun();
+            task.cancel();
+            if (notRun) {
+                Logger.warn("Search of " + task.getPartner().getUrl() + " was not started in time");
+            } else {
+                circuitBreaker.recordFailure(task.getPartner().getId());
+                Logger.warn("Search of " + task.getPartner().getUrl() + " did not complete in time");
             }
+            addResult(searchResults, createResult(task.getPartner(), WebResultStatus.TIMEOUT, task.getTime()),
+                    listener);
         }
 
         return searchResults;
     }
 
-    protected SearchTask runSearchThread(RemotePartner partner, SearchQuery query) {
+    protected SearchTask runSearchThread(RemotePartner partner, SearchQuery query, long deadline) {
         SearchTask searchTask = new SearchTask(partner, query);
-        IceExecutorService.getInstance().runTask(searchTask);
+        searchTask.setDeadline(deadline);
+        if (!IceExecutorService.getInstance().runTask(searchTask))
+            searchTask.getFuture().completeExceptionally(new RejectedExecutionException("Search task was not queued"));
         return searchTask;
     }
 
+    private WebResult getResult(SearchTask task) {
+        PartnerCircuitBreaker circuitBreaker = PartnerCircuitBreaker.getInstance();
+        RemotePartner partner = task.getPartner();
+        CompletableFuture<SearchResults> future = task.getFuture();
+
+        if (future.isCompletedExceptionally()) {
+            Throwable error = future.handle((results, e) -> e).join();
+            if (error instanceof RejectedExecutionException) {
+                Logger.warn("Search of " + partner.getUrl() + " was not run: " + error.getMessage());
+                return createResult(partner, WebResultStatus.ERROR, task.getTime());
+            }
+
+            circuitBreaker.recordFailure(partner.getId());
+            boolean timeout = ExceptionUtils.indexOfType(error, SocketTimeoutException.class) != -1;
+            Logger.warn("Search of " + partner.getUrl() + " failed: " + error.getMessage());
+            return createResult(partner, timeout ? WebResultStatus.TIMEOUT : WebResultStatus.ERROR, task.getTime());
+        }
+
+        circuitBreaker.recordSuccess(partner.getId());
+        SearchResults partnerResults = future.join();
+        WebResult webResult = createResult(partner, WebResultStatus.OK, task.getTime());
+        webResult.setCount(partnerResults.getResultCount());
+        webResult.getResults().addAll(partnerResults.getResults());
+        return webResult;
+    }
+
+    private WebResult createResult(RemotePartner partner, WebResultStatus status, long time) {
+        WebResult webResult = new WebResult();
+        webResult.setPartner(partner.toDataTransferObject());
+        webResult.setStatus(status);
+        webResult.setTime(time);
+        return webResult;
+    }
+
+    private void addResult(WebSearchResults searchResults, WebResult webResult, Consumer<WebResult> listener) {
+        searchResults.getResults().add(webResult);
+        searchResults.setTotalCount(searchResults.getTotalCount() + webResult.getCount());
+        if (listener != null)
+            listener.accept(webResult);
+    }
+
+    private static int getTimeout(ConfigurationKey key) {
+        String value = Utils.getConfigValue(key);
+        try {
+            return (int) TimeUnit.SECONDS.toMillis(Integer.parseInt(value.trim()));
+        } catch (Exception e) {
+            Logger.warn("Invalid value \"" + value + "\" for " + key.name() + ". Using default");
+            return (int) TimeUnit.SECONDS.toMillis(Integer.parseInt(key.getDefaultValue()));
+        }
+    }
+
     public static class SearchTask extends Task {
 
         private final RemotePartner partner;
         private final SearchQuery query;
         private final SearchResults results;
+        private final CompletableFuture<SearchResults> future;
+        private final long created;
+        private volatile long finished;
 
         public SearchTask(RemotePartner partner, SearchQuery query) {
             this.partner = partner;
             this.query = query;
             this.results = new SearchResults();
+            this.future = new CompletableFuture<>();
+            this.created = System.currentTimeMillis();
+        }
+
+        @Override
+        public TaskLane getLane() {
+            return TaskLane.INTERACTIVE;
         }
 
         @Override
         public void execute() {
-            IceRestClient client = new IceRestClient(partner.getUrl(), partner.getApiKey());
-            SearchResults results = client.post("/rest/search", query, SearchResults.class);
-            if (results == null)
-                return;
-
-            RegistryPartner registryPartner = partner.toDataTransferObject();
-            for (SearchResult result : results.getResults()) {
-                result.setPartner(registryPartner);
-                this.results.getResults().add(result);
+            try {
+                int timeout = getTimeout(ConfigurationKey.WEB_SEARCH_PARTNER_TIMEOUT);
+                IceRestClient client = new IceRestClient(partner.getUrl(), partner.getApiKey());
+                client.setTimeout(timeout, timeout);
+                SearchResults results = client.post("/rest/search", query, SearchResults.class);
+                if (results == null)
+                    throw new IllegalStateException("No results returned by " + partner.getUrl());
+
+                RegistryPartner registryPartner = partner.toDataTransferObject();
+                for (SearchResult result : results.getResults()) {
+                    result.setPartner(registryPartner);
+                    this.results.getResults().add(result);
+                }
+                this.results.setResultCount(results.getResultCount());
+                finished = System.currentTimeMillis();
+                future.complete(this.results);
+            } catch (RuntimeException e) {
+                finished = System.currentTimeMillis();
+                future.completeExceptionally(e);
+                throw e;
             }
-            this.results.setResultCount(results.getResultCount());
         }
 
         public SearchResults getResults() {
@@ -151,8 +263,28 @@ public class WebSearch {
             return this.partner;
         }
 
-        // partner id -> total results from that partner
-        // partner id -> results from that partner (paged)
+        /**
+         * @return completed with the results of the search of the partner, or exceptionally if the search failed
+         */
+        public CompletableFuture<SearchResults> getFuture() {
+            return this.future;
+        }
 
+        /**
+         * @return true if the task is waiting to be run or will not be run (rejected, expired or cancelled)
+         */
+        boolean isNotRun() {
+            TaskStatus status = getStatus();
+            return status == TaskStatus.PENDING || status == TaskStatus.REJECTED || status == TaskStatus.EXPIRED
+                    || status == TaskStatus.CANCELLED;
+        }
+
+        /**
+         * @return time (ms) taken by the search, or since the task was created if it has not finished
+         */
+        long getTime() {
+            long end = finished;
+            return (end == 0 ? System.currentTimeMillis() : end) - created;
+        }
     }
 }
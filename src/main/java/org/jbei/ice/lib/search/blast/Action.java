@@ -10,5 +10,6 @@ public enum Action {
     CHECK,              // check that the database existing and if not build
     CREATE,             // create a new sequence
     UPDATE,             // update an existing sequence
-    DELETE              // delete an existing sequence
+    DELETE,             // delete an existing sequence
+    COMPACT             // merge recent changes into the main database volume
 }
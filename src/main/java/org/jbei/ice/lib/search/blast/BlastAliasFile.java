@@ -0,0 +1,78 @@
+package org.jbei.ice.lib.search.blast;
+
+import org.jbei.ice.lib.common.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Blast nucleotide alias file (<code>.nal</code>). Allows a blast search to run against multiple database volumes
+ * (shards) as if they were a single database. The alias is rewritten atomically whenever a volume is replaced
+ * so searches always see a consistent set of volumes.
+ */
+class BlastAliasFile {
+
+    private static final String EXTENSION = ".nal";
+    private final Path filePath;
+    private final String title;
+
+    BlastAliasFile(Path dir, String dbName) {
+        this.filePath = Paths.get(dir.toString(), dbName + EXTENSION);
+        this.title = dbName;
+    }
+
+    Path getFilePath() {
+        return this.filePath;
+    }
+
+    boolean exists() {
+        return Files.exists(this.filePath);
+    }
+
+    /**
+     * @return names of the database volumes referenced by this alias, or an empty list if the alias does not exist
+     */
+    List<String> getDatabases() {
+        List<String> databases = new ArrayList<>();
+        if (!exists())
+            return databases;
+
+        try {
+            for (String line : Files.readAllLines(this.filePath)) {
+                if (!line.startsWith("DBLIST"))
+                    continue;
+
+                Arrays.stream(line.substring("DBLIST".length()).trim().split("\\s+"))
+                        .filter(name -> !name.isEmpty()).forEach(databases::add);
+            }
+        } catch (IOException e) {
+            Logger.error("Could not read blast alias file " + filePath, e);
+        }
+        return databases;
+    }
+
+    /**
+     * Replaces the alias with one that references the specified database volumes
+     *
+     * @param databases names of database volumes
+     * @throws IOException on exception writing the alias file
+     */
+    void write(List<String> databases) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("#");
+        lines.add("# Alias file created by ICE");
+        lines.add("#");
+        lines.add("TITLE " + title);
+        lines.add("DBLIST " + String.join(" ", databases));
+
+        Path tmpFile = Paths.get(filePath.toString() + ".tmp");
+        Files.write(tmpFile, lines);
+        Files.move(tmpFile, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -3,11 +3,15 @@ package org.jbei.ice.lib.search.blast;
 import org.apache.commons.io.FileUtils;
 import org.jbei.ice.lib.common.logging.Logger;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.channels.FileLock;
 import java.nio.file.*;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
 import java.util.stream.Stream;
 
 /**
@@ -19,19 +23,33 @@ public class BlastFastaFile {
 
     private final static String FILE_NAME = "BlastFastaFile";
     private static final String LOCK_FILE_NAME = "write.lock";
+    private static final int LOCK_ATTEMPTS = 10;
+    private static final long LOCK_RETRY_MILLIS = 200;
     private final Path filePath;
-    private boolean exclude;
+    private final String lockFileName;
     private FileLock lock;
 
     /**
      * @param dir directory path for the fasta file
      */
     public BlastFastaFile(Path dir) {
+        this(dir, FILE_NAME, LOCK_FILE_NAME);
+    }
+
+    /**
+     * @param dir      directory path for the fasta file
+     * @param fileName name of the fasta file. Used to allow multiple fasta files in the same directory
+     */
+    public BlastFastaFile(Path dir, String fileName) {
+        this(dir, fileName, fileName + ".lock");
+    }
+
+    private BlastFastaFile(Path dir, String fileName, String lockFileName) {
         if (Files.exists(dir) && !Files.isDirectory(dir))
             throw new IllegalArgumentException("Cannot create fasta file in " + dir + " because it is not a directory");
 
-        this.filePath = Paths.get(dir.toString(), FILE_NAME);
-        this.exclude = false;
+        this.filePath = Paths.get(dir.toString(), fileName);
+        this.lockFileName = lockFileName;
     }
 
     public Path getFilePath() {
@@ -40,7 +58,7 @@ public class BlastFastaFile {
 
     private File createLock() {
         Path directory = this.filePath.getParent();
-        File lockFile = Paths.get(directory.toString(), LOCK_FILE_NAME).toFile();
+        File lockFile = Paths.get(directory.toString(), lockFileName).toFile();
 
         if (lockFile.exists()) {
             Logger.info("Blast db locked (lockfile - " + lockFile.getAbsolutePath() + "). Rebuild aborted!");
@@ -111,44 +129,88 @@ public class BlastFastaFile {
         }
     }
 
-    public void delete(String partNumber) throws IOException {
+    /**
+     * Removes the record for the specified part number from the fasta file
+     *
+     * @param partNumber part number of record to remove
+     * @return number of records removed
+     * @throws IOException on exception writing the new fasta file
+     */
+    public int delete(String partNumber) throws IOException {
+        return delete(Collections.singleton(partNumber.trim()));
+    }
+
+    /**
+     * Removes the records for the specified part numbers in a single pass over the fasta file.
+     * The part number is expected to be the second to last field of the record header (the last field of headers
+     * without a shard), since the name that precedes it may contain the delimiter
+     *
+     * @param partNumbers part numbers of records to remove
+     * @return number of records removed
+     * @throws IOException on exception writing the new fasta file, or if the fasta file stays locked
+     */
+    public int delete(Set<String> partNumbers) throws IOException {
+        if (partNumbers.isEmpty() || !Files.exists(this.filePath))
+            return 0;
+
         File lockFile = createLock();
+        for (int attempt = 1; lockFile == null && attempt < LOCK_ATTEMPTS; attempt += 1) {
+            try {
+                Thread.sleep(LOCK_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            lockFile = createLock();
+        }
         if (lockFile == null)
-            return;
+            throw new IOException("Could not lock " + filePath + " to remove " + partNumbers.size() + " record(s)");
 
+        int count = 0;
         try {
-            Path tmpFile = Paths.get(filePath.getParent().toString(), FILE_NAME + ".tmp");
+            Path tmpFile = Paths.get(filePath.getParent().toString(), filePath.getFileName() + ".tmp");
             Files.deleteIfExists(tmpFile);
-            Files.createFile(tmpFile);
-            if (!Files.exists(tmpFile))
-                throw new IOException(tmpFile + " could not be created");
-
-            Stream<String> lines = Files.lines(this.filePath);
-
-            lines.forEach(line -> {
-
-                if (line.startsWith(">")) {
-                    String[] split = line.split(",");
-                    if (split.length != 4)
-                        return;
-
-                    exclude = split[3].trim().equalsIgnoreCase(partNumber.trim());
-                }
-
-                if (exclude) return;
 
-                try {
-                    Files.write(tmpFile, (line + "\n").getBytes(), StandardOpenOption.APPEND);
-                } catch (IOException e) {
-                    Logger.error(e);
+            try (Stream<String> lines = Files.lines(this.filePath);
+                 BufferedWriter writer = Files.newBufferedWriter(tmpFile)) {
+                boolean exclude = false;
+                for (Iterator<String> iterator = lines.iterator(); iterator.hasNext(); ) {
+                    String line = iterator.next();
+                    if (line.startsWith(">")) {
+                        String[] split = line.split(BlastDatabase.DELIMITER);
+                        int index = split.length == 4 ? 3 : split.length - 2;
+                        exclude = split.length >= 4 && partNumbers.contains(split[index].trim());
+                        if (exclude)
+                            count += 1;
+                    }
+
+                    if (exclude)
+                        continue;
+
+                    writer.write(line);
+                    writer.newLine();
                 }
-            });
+            }
             Files.move(tmpFile, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
         } finally {
             releaseLock(lockFile);
         }
     }
 
+    /**
+     * @return number of records in the fasta file
+     * @throws IOException on exception reading the file
+     */
+    public int count() throws IOException {
+        if (!Files.exists(this.filePath))
+            return 0;
+
+        try (Stream<String> lines = Files.lines(this.filePath)) {
+            return (int) lines.filter(line -> line.startsWith(">")).count();
+        }
+    }
+
     public boolean isLocked() {
         return lock != null && lock.isValid();
     }
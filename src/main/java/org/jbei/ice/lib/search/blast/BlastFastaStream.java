@@ -0,0 +1,184 @@
+package org.jbei.ice.lib.search.blast;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.search.IndexerProgressMonitor;
+import org.jbei.ice.storage.hibernate.HibernateConfiguration;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Stream of fasta records used to (re)build a blast database.
+ * <p>
+ * Records are read from the database in keyset pages (ordered by id) by a producer thread, with each page
+ * retrieved in its own transaction. Pages are handed over to the consumer (the thread writing the fasta file)
+ * through a bounded buffer and formatted as they are consumed. This overlaps database reads with fasta
+ * formatting and limits the number of records held in memory to <code>BUFFER_CAPACITY * CHUNK_SIZE</code>.
+ * <p>
+ * Progress is reported to the (optional) {@link IndexerProgressMonitor} as records are consumed.
+ * Callers must {@link #close()} the stream when done, to stop the producer if the stream is not fully consumed
+ *
+ * @param <T> type of record read from the database
+ */
+class BlastFastaStream<T> implements Iterator<String>, AutoCloseable {
+
+    static final int CHUNK_SIZE = 500;
+    private static final int BUFFER_CAPACITY = 4;
+    private static final List<?> END = new ArrayList<>(0);
+
+    private final BlockingQueue<List<T>> buffer;
+    private final ChunkReader<T> reader;
+    private final ToLongFunction<T> idFunction;
+    private final Function<T, String> formatter;
+    private final IndexerProgressMonitor monitor;
+    private final Thread producer;
+    private volatile boolean closed;
+    private volatile Exception failure;
+    private Iterator<T> current;
+    private boolean finished;
+    private String nextValue;
+
+    /**
+     * Reads a page of records from the database
+     *
+     * @param <T> type of record
+     */
+    @FunctionalInterface
+    interface ChunkReader<T> {
+
+        /**
+         * @param afterId id of the last record read in the previous page, or 0 for the first page
+         * @param limit   maximum number of records to read
+         * @return records (ordered by id) that have an id greater than <code>afterId</code>. An empty list
+         * indicates that all records have been read
+         */
+        List<T> read(long afterId, int limit);
+    }
+
+    /**
+     * @param name       name of the stream. Used to identify the producer thread
+     * @param total      total number of records expected. Used for progress reporting only
+     * @param reader     reads pages of records from the database
+     * @param idFunction retrieves the (keyset) id of a record
+     * @param formatter  converts a record to its fasta representation. A null value indicates the record should be
+     *                   skipped
+     * @param monitor    optional progress monitor
+     */
+    BlastFastaStream(String name, long total, ChunkReader<T> reader, ToLongFunction<T> idFunction,
+                     Function<T, String> formatter, IndexerProgressMonitor monitor) {
+        this.buffer = new ArrayBlockingQueue<>(BUFFER_CAPACITY);
+        this.reader = reader;
+        this.idFunction = idFunction;
+        this.formatter = formatter;
+        this.monitor = monitor;
+        if (this.monitor != null)
+            this.monitor.addToTotalCount(total);
+
+        this.producer = new Thread(this::produce, name + "-fasta-reader");
+        this.producer.setDaemon(true);
+        this.producer.start();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void produce() {
+        long lastId = 0;
+        try {
+            while (!closed) {
+                List<T> chunk;
+                try {
+                    HibernateConfiguration.beginTransaction();
+                    chunk = reader.read(lastId, CHUNK_SIZE);
+                    HibernateConfiguration.commitTransaction();
+                } catch (Exception e) {
+                    HibernateConfiguration.rollbackTransaction();
+                    throw e;
+                }
+
+                if (chunk == null || chunk.isEmpty())
+                    break;
+
+                lastId = idFunction.applyAsLong(chunk.get(chunk.size() - 1));
+                if (!offer(chunk))
+                    return;
+            }
+        } catch (Exception e) {
+            Logger.error(e);
+            failure = e;
+        }
+        offer((List<T>) END);
+    }
+
+    // blocks until there is space in the buffer or the stream is closed
+    private boolean offer(List<T> chunk) {
+        try {
+            while (!closed) {
+                if (buffer.offer(chunk, 1, TimeUnit.SECONDS))
+                    return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            if (current != null && current.hasNext()) {
+                T record = current.next();
+                if (monitor != null)
+                    monitor.documentsAdded(1);
+
+                nextValue = formatter.apply(record);
+                if (StringUtils.isEmpty(nextValue))
+                    continue;
+                return true;
+            }
+
+            if (finished || closed)
+                return false;
+
+            List<T> chunk;
+            try {
+                chunk = buffer.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for fasta records", e);
+            }
+
+            if (chunk == END) {
+                finished = true;
+                if (failure != null)
+                    throw new IllegalStateException("Exception reading fasta records", failure);
+                return false;
+            }
+
+            current = chunk.iterator();
+        }
+    }
+
+    @Override
+    public String next() {
+        if (StringUtils.isEmpty(nextValue))
+            throw new IllegalStateException("No value available. Make sure call to hasNext() returns true");
+        return nextValue;
+    }
+
+    /**
+     * Stops the producer (if still running) and resets the progress monitor
+     */
+    @Override
+    public void close() {
+        closed = true;
+        buffer.clear();
+        if (monitor != null)
+            monitor.indexingCompleted();
+    }
+}
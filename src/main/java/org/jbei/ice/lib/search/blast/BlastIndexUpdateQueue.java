@@ -0,0 +1,197 @@
+package org.jbei.ice.lib.search.blast;
+
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.search.BlastIndexQueueStatus;
+import org.jbei.ice.storage.hibernate.HibernateConfiguration;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind queue for sequence changes to the standard blast database (and the k-mer sequence index).
+ * <p>
+ * Changes are coalesced per part (the latest action for a part wins) and applied by a single writer thread
+ * in one batch, either on a fixed interval or once the number of pending parts reaches the flush size.
+ * A bulk upload of thousands of sequences therefore results in a handful of batch updates instead of a
+ * rebuild per sequence competing for the blast database.
+ * <p>
+ * Changes added before the queue is started (or after it is stopped) are applied immediately in the caller's thread
+ * (and transaction)
+ */
+public class BlastIndexUpdateQueue {
+
+    private static final BlastIndexUpdateQueue INSTANCE = new BlastIndexUpdateQueue();
+
+    private final ConcurrentHashMap<String, Action> pending = new ConcurrentHashMap<>();
+    private final AtomicLong oldestPending = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong appliedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private volatile int lastFlushSize;
+    private volatile long lastFlushDuration;
+    private volatile int flushSize;
+    private ScheduledExecutorService writer;
+
+    private BlastIndexUpdateQueue() {
+    }
+
+    public static BlastIndexUpdateQueue getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts the writer thread
+     *
+     * @param flushInterval interval, in seconds, at which pending changes are applied
+     * @param flushSize     number of pending parts that triggers an immediate flush
+     */
+    public synchronized void start(int flushInterval, int flushSize) {
+        if (writer != null)
+            return;
+
+        Logger.info("Starting blast index update queue (interval " + flushInterval + "s, size " + flushSize + ")");
+        this.flushSize = Math.max(1, flushSize);
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "blast-index-writer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        long interval = Math.max(1, flushInterval);
+        writer.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Applies any pending changes and stops the writer thread
+     */
+    public synchronized void stop() {
+        if (writer == null)
+            return;
+
+        Logger.info("Stopping blast index update queue");
+        writer.execute(this::flush);
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+                Logger.warn("Blast index update queue stopped with " + pending.size() + " pending changes");
+            }
+        } catch (InterruptedException ie) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    /**
+     * Queues a change to the sequence of a part once the current transaction commits (the change is dropped if the
+     * transaction is rolled back). <code>CREATE</code>, <code>UPDATE</code> and <code>DELETE</code> are the only
+     * supported actions
+     *
+     * @param action change to the sequence
+     * @param partId part number of entry whose sequence has changed
+     */
+    public void add(Action action, String partId) {
+        if (action != Action.CREATE && action != Action.UPDATE && action != Action.DELETE)
+            throw new IllegalArgumentException("Unsupported blast index action " + action);
+
+        if (partId == null)
+            return;
+
+        ScheduledExecutorService executor = this.writer;
+        if (executor == null) {
+            try {
+                apply(Collections.singletonMap(partId, action));
+            } catch (BlastException e) {
+                Logger.error(e);
+            }
+            return;
+        }
+
+        // queue only committed changes; a flush (in its own transaction) would not see the change until then
+        HibernateConfiguration.afterCompletion(committed -> {
+            if (committed)
+                enqueue(executor, action, partId);
+        });
+    }
+
+    private void enqueue(ScheduledExecutorService executor, Action action, String partId) {
+        oldestPending.compareAndSet(0, System.currentTimeMillis());
+        if (pending.put(partId, action) != null)
+            coalescedCount.incrementAndGet();
+
+        if (pending.size() >= flushSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::flush);
+            } catch (Exception e) {
+                flushRequested.set(false);
+                Logger.error(e);
+            }
+        }
+    }
+
+    // runs on the writer thread
+    private void flush() {
+        flushRequested.set(false);
+        if (pending.isEmpty())
+            return;
+
+        Map<String, Action> batch = new HashMap<>();
+        for (String partId : pending.keySet()) {
+            Action action = pending.remove(partId);
+            if (action != null)
+                batch.put(partId, action);
+        }
+        oldestPending.set(pending.isEmpty() ? 0 : System.currentTimeMillis());
+        if (batch.isEmpty())
+            return;
+
+        long start = System.currentTimeMillis();
+        try {
+            HibernateConfiguration.beginTransaction();
+            apply(batch);
+            HibernateConfiguration.commitTransaction();
+        } catch (Throwable caught) {
+            Logger.error(caught);
+            HibernateConfiguration.rollbackTransaction();
+
+            // retry on next flush, unless there is a newer change for the part
+            for (Map.Entry<String, Action> entry : batch.entrySet())
+                pending.putIfAbsent(entry.getKey(), entry.getValue());
+            oldestPending.compareAndSet(0, start);
+            return;
+        }
+
+        lastFlushDuration = System.currentTimeMillis() - start;
+        lastFlushSize = batch.size();
+        flushCount.incrementAndGet();
+        appliedCount.addAndGet(batch.size());
+        Logger.info("Applied " + batch.size() + " blast index changes in " + lastFlushDuration + "ms");
+    }
+
+    private static void apply(Map<String, Action> changes) throws BlastException {
+        StandardBlastDatabase.getInstance().applyChanges(changes);
+        KmerSequenceDatabase.getInstance().applyChanges(changes);
+    }
+
+    public BlastIndexQueueStatus getStatus() {
+        BlastIndexQueueStatus status = new BlastIndexQueueStatus();
+        status.setDepth(pending.size());
+        long oldest = oldestPending.get();
+        status.setLag(oldest == 0 ? 0 : System.currentTimeMillis() - oldest);
+        status.setFlushCount(flushCount.get());
+        status.setAppliedCount(appliedCount.get());
+        status.setCoalescedCount(coalescedCount.get());
+        status.setLastFlushSize(lastFlushSize);
+        status.setLastFlushDuration(lastFlushDuration);
+        return status;
+    }
+}
@@ -5,6 +5,7 @@ import org.jbei.ice.lib.dto.ConfigurationKey;
 import org.jbei.ice.lib.dto.search.BlastProgram;
 import org.jbei.ice.lib.parsers.bl2seq.Bl2SeqResult;
 import org.jbei.ice.lib.search.IndexBuildStatus;
+import org.jbei.ice.lib.search.IndexerProgressMonitor;
 import org.jbei.ice.lib.utils.Utils;
 
 import java.io.*;
@@ -49,9 +50,11 @@ public class BlastPlus {
      * @throws BlastException on exception running blast 2 seq
      */
     public List<Bl2SeqResult> runBlast2Seq(String query, String subject) throws BlastException {
+        Path queryFilePath = null;
+        Path subjectFilePath = null;
         try {
-            Path queryFilePath = Files.write(Files.createTempFile("query-", ".seq"), query.getBytes());
-            Path subjectFilePath = Files.write(Files.createTempFile("subject-", ".seq"), subject.getBytes());
+            queryFilePath = Files.write(Files.createTempFile("query-", ".seq"), query.getBytes());
+            subjectFilePath = Files.write(Files.createTempFile("subject-", ".seq"), subject.getBytes());
 
             String blastN = Utils.getConfigValue(ConfigurationKey.BLAST_INSTALL_DIR) + File.separator
                     + BlastProgram.BLAST_N.getName();
@@ -61,35 +64,46 @@ public class BlastPlus {
                     "-outfmt", "10 score qstart qend qseq sstart send sseq sstrand"
             };
 
-            Process process = Runtime.getRuntime().exec(command);
-            BufferedReader input = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String line;
-
-            List<Bl2SeqResult> results = new ArrayList<>();
-            while ((line = input.readLine()) != null) {
-                String[] data = line.split(",");
-                if (data.length != 8) {
-                    Logger.error("Invalid bl2seq result line obtained. skipping");
-                    continue;
+            return BlastProcessPool.getInstance().run(BlastProgram.BLAST_N, command, process -> {
+                List<Bl2SeqResult> results = new ArrayList<>();
+                try (BufferedReader input = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    String line;
+                    while ((line = input.readLine()) != null) {
+                        String[] data = line.split(",");
+                        if (data.length != 8) {
+                            Logger.error("Invalid bl2seq result line obtained. skipping");
+                            continue;
+                        }
+
+                        int score = Integer.decode(data[0]);
+                        int queryStart = Integer.decode(data[1]);
+                        int queryEnd = Integer.decode(data[2]);
+                        int subjectStart = Integer.decode(data[4]);
+                        int subjectEnd = Integer.decode(data[5]);
+                        int orientation = "plus".equalsIgnoreCase(data[7]) ? 0 : 1;
+                        Bl2SeqResult result = new Bl2SeqResult(score, queryStart, queryEnd, data[3], subjectStart,
+                                subjectEnd, data[6], orientation);
+                        results.add(result);
+                    }
                 }
+                return results;
+            });
+        } catch (IOException e) {
+            throw new BlastException(e);
+        } finally {
+            deleteTempFile(queryFilePath);
+            deleteTempFile(subjectFilePath);
+        }
+    }
 
-                int score = Integer.decode(data[0]);
-                int queryStart = Integer.decode(data[1]);
-                int queryEnd = Integer.decode(data[2]);
-                int subjectStart = Integer.decode(data[4]);
-                int subjectEnd = Integer.decode(data[5]);
-                int orientation = "plus".equalsIgnoreCase(data[7]) ? 0 : 1;
-                Bl2SeqResult result = new Bl2SeqResult(score, queryStart, queryEnd, data[3], subjectStart, subjectEnd,
-                        data[6], orientation);
-                results.add(result);
-            }
+    private void deleteTempFile(Path path) {
+        if (path == null)
+            return;
 
-            input.close();
-            Files.deleteIfExists(subjectFilePath);
-            Files.deleteIfExists(queryFilePath);
-            return results;
+        try {
+            Files.deleteIfExists(path);
         } catch (IOException e) {
-            throw new BlastException(e);
+            Logger.error(e);
         }
     }
 
@@ -142,22 +156,10 @@ public class BlastPlus {
         }
     }
 
+    /**
+     * @return progress of the current blast database rebuild, if any
+     */
     public IndexBuildStatus getStatus() {
-//        Path path = Paths.get(indexPath.toString(), LOCK_FILE_NAME);
-//
-//        if (Files.exists(path)) {
-//            try {
-//                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
-//                long seconds = attributes.creationTime().to(TimeUnit.SECONDS);
-//                if ((Instant.now().getEpochSecond() - seconds) > 3 * 24 * 60) {
-//                    Files.delete(path);
-//                    return new IndexBuildStatus(0, 0);
-//                }
-//            } catch (IOException e) {
-//                // ok to ignore
-//            }
-//            return new IndexBuildStatus(0, 1);
-//        }
-        return new IndexBuildStatus(0, 0);
+        return IndexerProgressMonitor.getBlastInstance().getStatus();
     }
 }
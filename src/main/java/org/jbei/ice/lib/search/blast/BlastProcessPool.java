@@ -0,0 +1,195 @@
+package org.jbei.ice.lib.search.blast;
+
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.ConfigurationKey;
+import org.jbei.ice.lib.dto.search.BlastProgram;
+import org.jbei.ice.lib.dto.search.BlastProgramStats;
+import org.jbei.ice.lib.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs blast programs on the command line with bounded concurrency.
+ * <p>
+ * At most <code>BLAST_MAX_CONCURRENT</code> blast processes run at any one time. Additional requests wait for a
+ * slot, up to a limit, after which they are rejected. Each run is given <code>BLAST_TIMEOUT</code> seconds
+ * (including time spent waiting) after which the process is killed and the run fails with a
+ * {@link ProgramTookTooLongException}. Run times are recorded per program
+ */
+public class BlastProcessPool {
+
+    private static final long[] BUCKET_LIMITS = {100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000};
+    private static final int QUEUED_PER_SLOT = 4;
+    private static BlastProcessPool INSTANCE;
+
+    private final Semaphore slots;
+    private final int maxQueued;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ScheduledExecutorService watchdog;
+    private final Map<BlastProgram, Stats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Works with a running blast process (writes input and reads output)
+     *
+     * @param <T> type of result
+     */
+    @FunctionalInterface
+    public interface ProcessHandler<T> {
+        T handle(Process process) throws Exception;
+    }
+
+    public static synchronized BlastProcessPool getInstance() {
+        if (INSTANCE == null)
+            INSTANCE = new BlastProcessPool(getIntValue(ConfigurationKey.BLAST_MAX_CONCURRENT));
+        return INSTANCE;
+    }
+
+    BlastProcessPool(int concurrency) {
+        concurrency = Math.max(1, concurrency);
+        this.slots = new Semaphore(concurrency, true);
+        this.maxQueued = concurrency * QUEUED_PER_SLOT;
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "blast-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Logger.info("Blast process pool started with " + concurrency + " slots");
+    }
+
+    /**
+     * Runs a blast program, waiting for a free slot if the maximum number of processes are already running.
+     * The process is always terminated on return
+     *
+     * @param program type of blast program being run. Used for recording run times
+     * @param command command (and options) to execute
+     * @param handler works with the running process
+     * @param <T>     type of result
+     * @return result of the handler
+     * @throws BlastException if the run is rejected, times out or on exception running the process
+     */
+    public <T> T run(BlastProgram program, String[] command, ProcessHandler<T> handler) throws BlastException {
+        return run(program, command, getIntValue(ConfigurationKey.BLAST_TIMEOUT) * 1000L, handler);
+    }
+
+    <T> T run(BlastProgram program, String[] command, long timeout, ProcessHandler<T> handler)
+            throws BlastException {
+        Stats programStats = stats.computeIfAbsent(program, p -> new Stats());
+        long start = System.currentTimeMillis();
+
+        // wait for a free slot
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            programStats.rejected.increment();
+            throw new BlastException("Too many blast searches in progress. Try again later");
+        }
+
+        try {
+            if (!slots.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                programStats.timeouts.increment();
+                throw new BlastException(new ProgramTookTooLongException("Timed out waiting to run " + program.getName()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BlastException(e);
+        } finally {
+            queued.decrementAndGet();
+        }
+
+        Process process = null;
+        ScheduledFuture<?> kill = null;
+        AtomicBoolean killed = new AtomicBoolean();
+        try {
+            process = Runtime.getRuntime().exec(command);
+            final Process running = process;
+            long remaining = Math.max(1, timeout - (System.currentTimeMillis() - start));
+            kill = watchdog.schedule(() -> {
+                killed.set(true);
+                running.destroyForcibly();
+            }, remaining, TimeUnit.MILLISECONDS);
+
+            T result = handler.handle(process);
+            if (killed.get())
+                throw new ProgramTookTooLongException();
+
+            programStats.record(System.currentTimeMillis() - start);
+            return result;
+        } catch (Exception e) {
+            // output stops (or reading fails) once the process is killed
+            if (killed.get()) {
+                programStats.timeouts.increment();
+                throw new BlastException(new ProgramTookTooLongException(
+                        program.getName() + " did not complete in " + timeout + "ms"));
+            }
+
+            if (e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+            if (e instanceof BlastException)
+                throw (BlastException) e;
+            throw new BlastException(e);
+        } finally {
+            if (kill != null)
+                kill.cancel(false);
+            if (process != null && process.isAlive())
+                process.destroyForcibly();
+            slots.release();
+        }
+    }
+
+    /**
+     * @return run statistics for each blast program that has been run
+     */
+    public List<BlastProgramStats> getStats() {
+        List<BlastProgramStats> list = new ArrayList<>();
+        for (Map.Entry<BlastProgram, Stats> entry : stats.entrySet()) {
+            Stats programStats = entry.getValue();
+            BlastProgramStats value = new BlastProgramStats();
+            value.setProgram(entry.getKey().getName());
+            long count = programStats.count.sum();
+            value.setCount(count);
+            value.setTimeouts(programStats.timeouts.sum());
+            value.setRejected(programStats.rejected.sum());
+            value.setAverageTime(count == 0 ? 0 : programStats.totalTime.sum() / count);
+            value.setBucketLimits(BUCKET_LIMITS.clone());
+            long[] buckets = new long[programStats.buckets.length()];
+            for (int i = 0; i < buckets.length; i += 1)
+                buckets[i] = programStats.buckets.get(i);
+            value.setBuckets(buckets);
+            list.add(value);
+        }
+        return list;
+    }
+
+    private static int getIntValue(ConfigurationKey key) {
+        String value = Utils.getConfigValue(key);
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (Exception e) {
+            Logger.warn("Invalid value \"" + value + "\" for " + key.name() + ". Using default");
+            return Integer.parseInt(key.getDefaultValue());
+        }
+    }
+
+    private static class Stats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalTime = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_LIMITS.length + 1);
+
+        void record(long time) {
+            count.increment();
+            totalTime.add(time);
+            int bucket = 0;
+            while (bucket < BUCKET_LIMITS.length && time > BUCKET_LIMITS[bucket])
+                bucket += 1;
+            buckets.incrementAndGet(bucket);
+        }
+    }
+}
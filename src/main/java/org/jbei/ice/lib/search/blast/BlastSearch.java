@@ -1,5 +1,6 @@
 package org.jbei.ice.lib.search.blast;
 
+import com.opencsv.CSVParser;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.ConfigurationKey;
 import org.jbei.ice.lib.dto.search.BlastProgram;
@@ -25,97 +26,101 @@ public class BlastSearch {
     }
 
     /**
-     * Runs a blast query in the specified database folder
-     * using the specified options
+     * Checks for the existence of a nucleotide blast database, which is either a single volume
+     * (<code>.nsq</code>) or an alias over multiple volumes (<code>.nal</code>)
+     *
+     * @param indexPath path to folder containing database
+     * @param dbName    name of database
+     * @return true if database exists, false otherwise
+     */
+    static boolean databaseExists(Path indexPath, String dbName) {
+        return Files.exists(Paths.get(indexPath.toString(), dbName + ".nsq"))
+                || Files.exists(Paths.get(indexPath.toString(), dbName + ".nal"));
+    }
+
+    /**
+     * Callback for hits output by blast (one per line of <code>-outfmt 10</code> output)
+     */
+    @FunctionalInterface
+    public interface HitHandler {
+
+        /**
+         * @param hit values (comma separated) of the output line for a single hit
+         * @return true to continue receiving hits, false to stop the search
+         */
+        boolean accept(String[] hit);
+    }
+
+    /**
+     * Runs a blast query in the specified database folder using the specified options. The output of blast
+     * is parsed as it is generated, with each hit passed to the handler. If the handler requests the search be
+     * stopped, the blast process is terminated without reading the rest of the output.
+     * <br>
+     * This is a no-op if the specified blast database does not exist in the ice data directory
      *
      * @param query   wrapper around blast query including options such as blast type
-     * @param options command line options for blast
-     * @return results of the query run. An empty string is returned if the specified blast database does not exist
-     * in the ice data directory
-     * @throws BlastException on exception running blast on the command line
+     * @param handler receives each hit as it is output by blast
+     * @param options command line options for blast. Output is expected to be in csv format (<code>-outfmt 10</code>)
+     * @throws BlastException on exception running blast on the command line, if blast exits with an error or does
+     *                        not complete in time (see {@link BlastProcessPool})
      */
-    public String run(BlastQuery query, String... options) throws BlastException {
+    public void run(BlastQuery query, HitHandler handler, String... options) throws BlastException {
         if (query.getBlastProgram() == null)
             query.setBlastProgram(BlastProgram.BLAST_N);
 
-        try {
-            Path commandPath = Paths.get(Utils.getConfigValue(ConfigurationKey.BLAST_INSTALL_DIR),
-                    query.getBlastProgram().getName());
-            String blastDb = Paths.get(this.indexPath.toString(), this.dbName).toString();
-            if (!Files.exists(Paths.get(blastDb + ".nsq"))) {
-                return "";
-            }
-
-            String[] blastCommand = new String[3 + options.length];
-            blastCommand[0] = commandPath.toString();
-            blastCommand[1] = "-db";
-            blastCommand[2] = blastDb;
-            if (options.length > 0)
-                System.arraycopy(options, 0, blastCommand, 3, options.length);
-
-            Process process = Runtime.getRuntime().exec(blastCommand);
-            ProcessResultReader reader = new ProcessResultReader(process.getInputStream());
-            reader.start();
-            BufferedWriter programInputWriter = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
-
-            programInputWriter.write(query.getSequence());
-            programInputWriter.flush();
-            programInputWriter.close();
-            process.getOutputStream().close();
-
-            // TODO this should go into the thread itself & have future wait on it
-            final int exitValue = process.waitFor();
-            switch (exitValue) {
-                case 0:
-                    return reader.toString();
-
-                case 1:
-                    Logger.error("Error in query sequence(s) or BLAST options");
-                    break;
-
-                case 2:
-                    Logger.error("Error in BLAST database");
-                    break;
-
-                default:
-                    Logger.error("Unknown exit value " + exitValue);
-            }
-            return null;
-        } catch (Exception e) {
-            Logger.error(e);
-            throw new BlastException(e);
-        }
-    }
+        if (!databaseExists(this.indexPath, this.dbName))
+            return;
 
+        Path commandPath = Paths.get(Utils.getConfigValue(ConfigurationKey.BLAST_INSTALL_DIR),
+                query.getBlastProgram().getName());
+        String blastDb = Paths.get(this.indexPath.toString(), this.dbName).toString();
 
-    /**
-     * Thread that reads the result of a command line process execution
-     */
-    static class ProcessResultReader extends Thread {
-        final InputStream inputStream;
-        final StringBuilder sb;
+        String[] blastCommand = new String[3 + options.length];
+        blastCommand[0] = commandPath.toString();
+        blastCommand[1] = "-db";
+        blastCommand[2] = blastDb;
+        if (options.length > 0)
+            System.arraycopy(options, 0, blastCommand, 3, options.length);
 
-        ProcessResultReader(final InputStream is) {
-            this.inputStream = is;
-            this.sb = new StringBuilder();
-        }
+        try {
+            BlastProcessPool.getInstance().run(query.getBlastProgram(), blastCommand, process -> {
+                try (BufferedWriter programInputWriter = new BufferedWriter(
+                        new OutputStreamWriter(process.getOutputStream()))) {
+                    programInputWriter.write(query.getSequence());
+                }
 
-        public void run() {
-            try (final InputStreamReader inputStreamReader = new InputStreamReader(inputStream)) {
-                final BufferedReader br = new BufferedReader(inputStreamReader);
-                String line;
-                while ((line = br.readLine()) != null) {
-                    this.sb.append(line).append("\n");
+                // blast reads the entire query before generating any output
+                CSVParser parser = new CSVParser();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isEmpty())
+                            continue;
+
+                        // stopped by handler. process is terminated by the pool
+                        if (!handler.accept(parser.parseLine(line)))
+                            return null;
+                    }
                 }
-            } catch (final IOException ioe) {
-                Logger.error(ioe.getMessage());
-                throw new RuntimeException(ioe);
-            }
-        }
 
-        @Override
-        public String toString() {
-            return this.sb.toString();
+                final int exitValue = process.waitFor();
+                switch (exitValue) {
+                    case 0:
+                        return null;
+
+                    case 1:
+                        throw new BlastException("Error in query sequence(s) or BLAST options");
+
+                    case 2:
+                        throw new BlastException("Error in BLAST database");
+
+                    default:
+                        throw new BlastException("Unknown exit value " + exitValue);
+                }
+            });
+        } catch (BlastException e) {
+            Logger.error(e);
+            throw e;
         }
     }
 }
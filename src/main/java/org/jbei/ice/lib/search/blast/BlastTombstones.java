@@ -0,0 +1,72 @@
+package org.jbei.ice.lib.search.blast;
+
+import org.jbei.ice.lib.common.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Part numbers of sequences that have been removed or replaced since the main volume of the blast database
+ * was last built. Hits from the main volume for these part numbers are stale and filtered out of blast results
+ * until the next compaction merges the changes into the main volume.
+ * <p>
+ * Persisted (one part number per line) so that they survive restarts
+ */
+class BlastTombstones {
+
+    private static final String FILE_NAME = "tombstones";
+    private final Path filePath;
+    private final Set<String> partNumbers;
+
+    BlastTombstones(Path dir) {
+        this.filePath = Paths.get(dir.toString(), FILE_NAME);
+        this.partNumbers = ConcurrentHashMap.newKeySet();
+
+        if (Files.exists(this.filePath)) {
+            try (Stream<String> lines = Files.lines(this.filePath)) {
+                lines.map(String::trim).filter(line -> !line.isEmpty()).forEach(partNumbers::add);
+            } catch (IOException e) {
+                Logger.error("Could not read blast tombstones", e);
+            }
+        }
+    }
+
+    boolean contains(String partNumber) {
+        return partNumbers.contains(partNumber);
+    }
+
+    void addAll(Collection<String> values) throws IOException {
+        List<String> added = new ArrayList<>();
+        for (String partNumber : values) {
+            if (partNumbers.add(partNumber))
+                added.add(partNumber);
+        }
+
+        if (added.isEmpty())
+            return;
+
+        Files.write(this.filePath, added, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    void clear() throws IOException {
+        partNumbers.clear();
+        Files.deleteIfExists(this.filePath);
+    }
+
+    int size() {
+        return partNumbers.size();
+    }
+
+    /**
+     * @return copy of current tombstones
+     */
+    Set<String> get() {
+        return new HashSet<>(partNumbers);
+    }
+}
@@ -1,7 +1,5 @@
 package org.jbei.ice.lib.search.blast;
 
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvException;
 import org.apache.commons.lang3.StringUtils;
 import org.biojava.bio.seq.DNATools;
 import org.biojava.bio.symbol.IllegalAlphabetException;
@@ -12,17 +10,10 @@ import org.jbei.ice.lib.dto.DNAFeature;
 import org.jbei.ice.lib.dto.DNAFeatureLocation;
 import org.jbei.ice.lib.dto.search.BlastQuery;
 import org.jbei.ice.storage.DAOFactory;
-import org.jbei.ice.storage.hibernate.dao.FeatureDAO;
-import org.jbei.ice.storage.hibernate.dao.SequenceFeatureDAO;
 import org.jbei.ice.storage.model.Feature;
-import org.jbei.ice.storage.model.SequenceFeature;
 
 import java.io.IOException;
-import java.io.StringReader;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
 
 public class FeaturesBlastDatabase extends BlastDatabase {
 
@@ -49,15 +40,14 @@ public class FeaturesBlastDatabase extends BlastDatabase {
         }
 
         BlastSearch blastSearch = new BlastSearch(this.indexPath, this.dbName);
-        String result = blastSearch.run(query, "-perc_identity", "100",
+        FeatureHitCollector collector = new FeatureHitCollector();
+        blastSearch.run(query, collector, "-perc_identity", "100",
                 "-outfmt", "10 stitle qstart qend sstart send sstrand");
-        if (result == null)
-            throw new BlastException("Exception running blast");
-        return processBlastOutput(result);
+        return collector.features;
     }
 
     /**
-     * Process the output of the blast run for features
+     * Collects the output of the blast run for features
      * into a list of feature objects
      * <br>
      * Expected format for the output (per line) is
@@ -67,56 +57,46 @@ public class FeaturesBlastDatabase extends BlastDatabase {
      * manually eliminated. The results returned by blast can cover only a subset of the sequence. e.g.
      * given query = 'ATGC' and feature1 = 'ATG' and feature2 = 'TATGT', the query will return
      * 1,3,1,3 and 1,3,2,4.
-     *
-     * @param blastOutput blast program output
-     * @return list of feature objects resulting from processing the blast output
      */
-    private List<DNAFeature> processBlastOutput(String blastOutput) {
-        List<DNAFeature> hashMap = new ArrayList<>();
-        HashSet<String> duplicates = new HashSet<>();
-
-        try (CSVReader reader = new CSVReader(new StringReader(blastOutput))) {
-            List<String[]> lines = reader.readAll();
-
-            for (String[] line : lines) {
-                if (line.length != 9) {
-                    continue;
-                }
-
-                long id = Long.decode(line[0]);
-                String label = line[1];
-                String type = line[2];
-                int strand = Integer.decode(line[3]);
-                int queryStart = Integer.decode(line[4]);
-                int queryEnd = Integer.decode(line[5]);
-                int subjectStart = Integer.decode(line[6]);
-                int subjectEnd = Integer.decode(line[7]);
-//                int strand = "plus".equalsIgnoreCase(line[7]) ? 1 : -1;
-
-                if (!duplicates.add(label + ":" + queryStart + ":" + queryEnd + ":" + strand)) {
-                    continue;
-                }
-
-                if (subjectStart != 1 && (queryEnd - queryStart) + 1 != subjectEnd)
-                    continue;
-
-                // check for full feature coverage
-                DNAFeature dnaFeature = new DNAFeature();
-                dnaFeature.setId(id);
-                dnaFeature.setName(label);
-                dnaFeature.setType(type);
-                DNAFeatureLocation location = new DNAFeatureLocation();
-                location.setGenbankStart(queryStart);
-                location.setEnd(queryEnd);
-                dnaFeature.getLocations().add(location);
-                dnaFeature.setStrand(strand);
-                hashMap.add(dnaFeature);
+    private static class FeatureHitCollector implements BlastSearch.HitHandler {
+
+        private final List<DNAFeature> features = new ArrayList<>();
+        private final HashSet<String> duplicates = new HashSet<>();
+
+        @Override
+        public boolean accept(String[] line) {
+            if (line.length != 9) {
+                return true;
             }
 
-            return hashMap;
-        } catch (IOException | CsvException e) {
-            Logger.error(e);
-            return null;
+            long id = Long.decode(line[0]);
+            String label = line[1];
+            String type = line[2];
+            int strand = Integer.decode(line[3]);
+            int queryStart = Integer.decode(line[4]);
+            int queryEnd = Integer.decode(line[5]);
+            int subjectStart = Integer.decode(line[6]);
+            int subjectEnd = Integer.decode(line[7]);
+
+            if (!duplicates.add(label + ":" + queryStart + ":" + queryEnd + ":" + strand)) {
+                return true;
+            }
+
+            // check for full feature coverage
+            if (subjectStart != 1 && (queryEnd - queryStart) + 1 != subjectEnd)
+                return true;
+
+            DNAFeature dnaFeature = new DNAFeature();
+            dnaFeature.setId(id);
+            dnaFeature.setName(label);
+            dnaFeature.setType(type);
+            DNAFeatureLocation location = new DNAFeatureLocation();
+            location.setGenbankStart(queryStart);
+            location.setEnd(queryEnd);
+            dnaFeature.getLocations().add(location);
+            dnaFeature.setStrand(strand);
+            features.add(dnaFeature);
+            return true;
         }
     }
 
@@ -131,98 +111,103 @@ public class FeaturesBlastDatabase extends BlastDatabase {
             Logger.error("Cannot rebuild due to invalid blast installation");
             return;
         }
-        Iterable<String> iterable = AllFeaturesStream::new;
-        blastFastaFile.write(iterable);
+
+        long count = DAOFactory.getFeatureDAO().getFeatureCount(null);
+        try (BlastFastaStream<FeatureRecord> stream = new BlastFastaStream<>(this.dbName, count,
+                FeaturesBlastDatabase::getFeatureRecords, record -> record.feature.getId(),
+                FeaturesBlastDatabase::getFeatureFasta, null)) {
+            if (!blastFastaFile.write(() -> stream))
+                throw new BlastException("Could not write features fasta file");
+        }
         blastPlus.formatBlastDb(blastFastaFile, this.dbName); // todo
     }
 
-    private static class AllFeaturesStream implements Iterator<String> {
+    /**
+     * Retrieves a page of features along with the strands they have been annotated on
+     */
+    private static List<FeatureRecord> getFeatureRecords(long afterId, int limit) {
+        List<Feature> features = DAOFactory.getFeatureDAO().getFeatures(afterId, limit);
+        List<Long> ids = new ArrayList<>(features.size());
+        for (Feature feature : features)
+            ids.add(feature.getId());
+
+        Map<Long, Set<Integer>> strands = DAOFactory.getSequenceFeatureDAO().getStrandsByFeature(ids);
+        List<FeatureRecord> records = new ArrayList<>(features.size());
+        for (Feature feature : features)
+            records.add(new FeatureRecord(feature, strands.get(feature.getId())));
+        return records;
+    }
+
+    /**
+     * Converts a feature to its fasta representation. Features annotated on the negative strand are included
+     * as the reverse complement and features that have not been annotated on any sequence are treated as
+     * positive
+     *
+     * @param record feature and the strands it is annotated on
+     * @return fasta representation or null if feature should be excluded from the blast database
+     */
+    private static String getFeatureFasta(FeatureRecord record) {
+        Feature feature = record.feature;
+        String featureName = feature.getName();
+        if (featureName == null || featureName.trim().isEmpty())
+            return null;
+
+        if (feature.getCuration() != null && feature.getCuration().isExclude())
+            return null;
 
-        private final long available;
-        private int currentOffset;
-        private String nextValue;
-        private final FeatureDAO featureDAO;
-        private final SequenceFeatureDAO sequenceFeatureDAO;
+        boolean hasNegativeStrand = false;
+        boolean hasPositiveStrand = false;
 
-        public AllFeaturesStream() {
-            featureDAO = DAOFactory.getFeatureDAO();
-            sequenceFeatureDAO = DAOFactory.getSequenceFeatureDAO();
-            available = featureDAO.getFeatureCount(null);
+        if (record.strands == null || record.strands.isEmpty()) {
+            hasPositiveStrand = true;
+        } else {
+            hasPositiveStrand = record.strands.contains(1);
+            hasNegativeStrand = record.strands.contains(-1);
         }
 
-        @Override
-        public boolean hasNext() {
-            while (currentOffset < available) {
-                List<Feature> features = featureDAO.getFeatures(currentOffset++, 1, null);
-                Feature feature = features.get(0);
-                String featureName = feature.getName();
-                if (featureName == null || featureName.trim().isEmpty())
-                    continue;
-
-                if (feature.getCuration() != null && feature.getCuration().isExclude())
-                    continue;
-
-                boolean hasNegativeStrand = false;
-                boolean hasPositiveStrand = false;
-
-                List<SequenceFeature> sequenceFeatures = sequenceFeatureDAO.getByFeature(feature);
-                if (sequenceFeatures == null || sequenceFeatures.isEmpty()) {
-                    hasPositiveStrand = true;
-                } else {
-                    for (SequenceFeature sequenceFeature : sequenceFeatures) {
-                        if (sequenceFeature.getStrand() == 1) {
-                            hasPositiveStrand = true;
-                        } else if (sequenceFeature.getStrand() == -1) {
-                            hasNegativeStrand = true;
-                        }
-                    }
-                }
-
-                String sequenceString = feature.getSequence().trim();
-                if (StringUtils.isEmpty(sequenceString))
-                    continue;
-
-                String line = "";
-
-                if (hasNegativeStrand) {
-                    try {
-                        SymbolList symbolList = DNATools.createDNA(sequenceString);
-                        symbolList = DNATools.reverseComplement(symbolList);
-                        line = getSequenceString(feature, symbolList.seqString(), -1);
-                    } catch (IllegalSymbolException | IllegalAlphabetException e) {
-                        Logger.warn(e.getMessage());
-                        continue;
-                    }
-                }
-
-                if (hasPositiveStrand) {
-                    line += getSequenceString(feature, sequenceString, 1);
-                }
-
-                if (!StringUtils.isEmpty(line)) {
-                    nextValue = line;
-                    return true;
-                }
+        String sequenceString = feature.getSequence().trim();
+        if (StringUtils.isEmpty(sequenceString))
+            return null;
+
+        String line = "";
+
+        if (hasNegativeStrand) {
+            try {
+                SymbolList symbolList = DNATools.createDNA(sequenceString);
+                symbolList = DNATools.reverseComplement(symbolList);
+                line = getSequenceString(feature, symbolList.seqString(), -1);
+            } catch (IllegalSymbolException | IllegalAlphabetException e) {
+                Logger.warn(e.getMessage());
+                return null;
             }
-            return false;
         }
 
-        private String getSequenceString(Feature feature, String seq, int strand) {
-            String idString = ">"
-                    + feature.getId() + DELIMITER
-                    + feature.getName() + DELIMITER
-                    + feature.getGenbankType() + DELIMITER
-                    + strand;
-            idString += "\n";
-            idString += (seq + "\n");
-            return idString;
+        if (hasPositiveStrand) {
+            line += getSequenceString(feature, sequenceString, 1);
         }
 
-        @Override
-        public String next() {
-            if (StringUtils.isEmpty(nextValue))
-                throw new IllegalStateException("No value available. Make sure call to hasNext() returns true");
-            return nextValue;
+        return line;
+    }
+
+    private static String getSequenceString(Feature feature, String seq, int strand) {
+        String idString = ">"
+                + feature.getId() + DELIMITER
+                + feature.getName() + DELIMITER
+                + feature.getGenbankType() + DELIMITER
+                + strand;
+        idString += "\n";
+        idString += (seq + "\n");
+        return idString;
+    }
+
+    private static class FeatureRecord {
+
+        private final Feature feature;
+        private final Set<Integer> strands;
+
+        FeatureRecord(Feature feature, Set<Integer> strands) {
+            this.feature = feature;
+            this.strands = strands;
         }
     }
 }
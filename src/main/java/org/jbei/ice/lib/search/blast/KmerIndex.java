@@ -0,0 +1,595 @@
+package org.jbei.ice.lib.search.blast;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * In-process nucleotide similarity search over a set of sequence records, used as an alternative to running
+ * BLAST+.
+ * <p>
+ * Sequences are concatenated (separated by an <code>N</code>) and every k-mer of length {@link #K} is recorded
+ * in a posting list of the (global) positions it occurs at. A search looks up the k-mers of the query (and its
+ * reverse complement) to find seeds, groups the seeds by diagonal and extends the most promising diagonals using
+ * a banded local alignment. Each alignment covers only the part of the query around the seeds of its diagonal and
+ * stops once the score past the last seed drops too far below the best (X-drop), so the work per diagonal depends
+ * on the length of the match rather than of the query.
+ * <p>
+ * The index is written to four files (record details, sequences, k-mer offsets and k-mer positions) which are
+ * memory mapped when opened. An index can also be created in memory from a (small) list of records in which case
+ * there are no posting lists and seeds are found by scanning the sequences
+ */
+class KmerIndex {
+
+    static final int K = 11;
+    private static final int KMER_COUNT = 1 << (2 * K);
+    private static final int MASK = KMER_COUNT - 1;
+    private static final int MAX_POSTINGS = 10000;      // more frequent (low complexity) k-mers are not used as seeds
+    private static final int MAX_EXTENSIONS = 500;      // maximum number of diagonals extended per strand
+    private static final int BAND = 16;                 // max number of indels (net) allowed in an alignment
+    private static final int EXTENSION = 100;           // query bases aligned before the first seed of a diagonal
+    private static final int X_DROP = 30;               // score drop (from best) past the last seed that ends it
+
+    // scoring (megablast defaults with linear gap)
+    private static final int MATCH = 1;
+    private static final int MISMATCH = -2;
+    private static final int GAP = -3;
+
+    private static final String RECORDS = "records.dat";
+    private static final String SEQUENCES = "sequences.dat";
+    private static final String OFFSETS = "kmers.off";
+    private static final String POSITIONS = "kmers.pos";
+
+    private final long[] entryIds;
+    private final String[] types;
+    private final String[] names;
+    private final String[] partNumbers;
+    private final int[] starts;
+    private final int[] lengths;
+    private final ByteBuffer sequences;
+    private final IntBuffer offsets;        // null for in memory index
+    private final IntBuffer positions;      // null for in memory index
+
+    private KmerIndex(int size, ByteBuffer sequences, IntBuffer offsets, IntBuffer positions) {
+        this.entryIds = new long[size];
+        this.types = new String[size];
+        this.names = new String[size];
+        this.partNumbers = new String[size];
+        this.starts = new int[size];
+        this.lengths = new int[size];
+        this.sequences = sequences;
+        this.offsets = offsets;
+        this.positions = positions;
+    }
+
+    private void setRecord(int index, long entryId, String type, String name, String partNumber, int start,
+                           int length) {
+        entryIds[index] = entryId;
+        types[index] = type;
+        names[index] = name;
+        partNumbers[index] = partNumber;
+        starts[index] = start;
+        lengths[index] = length;
+    }
+
+    /**
+     * Creates an (unindexed) in memory search over the specified records
+     *
+     * @param records records to search
+     * @return search over the records
+     */
+    static KmerIndex of(Collection<KmerRecord> records) {
+        List<KmerRecord> list = new ArrayList<>(records);
+        int total = 0;
+        for (KmerRecord record : list)
+            total += record.getSequence().length + 1;
+
+        ByteBuffer sequences = ByteBuffer.allocate(total);
+        KmerIndex index = new KmerIndex(list.size(), sequences, null, null);
+        for (int i = 0; i < list.size(); i += 1) {
+            KmerRecord record = list.get(i);
+            index.setRecord(i, record.getEntryId(), record.getType(), record.getName(), record.getPartNumber(),
+                    sequences.position(), record.getSequence().length);
+            sequences.put(record.getSequence()).put((byte) 'N');
+        }
+        return index;
+    }
+
+    /**
+     * Writes the index for the specified records to a directory. The total length of the sequences is limited to
+     * what can be memory mapped as a single buffer
+     *
+     * @param dir     directory to write index files to. Created if it does not exist
+     * @param records records to index. Null values are ignored
+     * @return number of records indexed
+     * @throws IOException on exception writing the index files
+     */
+    static int build(Path dir, Iterator<KmerRecord> records) throws IOException {
+        Files.createDirectories(dir);
+        int[] counts = new int[KMER_COUNT];
+        long total = 0;
+        long postings = 0;
+        int recordCount = 0;
+
+        // write sequences and record details, counting k-mers
+        try (OutputStream sequenceOut = new BufferedOutputStream(Files.newOutputStream(dir.resolve(SEQUENCES)));
+             DataOutputStream recordOut = new DataOutputStream(new BufferedOutputStream(
+                     Files.newOutputStream(dir.resolve(RECORDS))))) {
+            while (records.hasNext()) {
+                KmerRecord record = records.next();
+                if (record == null)
+                    continue;
+
+                byte[] sequence = record.getSequence();
+                if (total + sequence.length + 1 > Integer.MAX_VALUE)
+                    throw new IOException("Sequences exceed maximum size of k-mer index");
+
+                recordOut.writeLong(record.getEntryId());
+                recordOut.writeUTF(record.getType());
+                recordOut.writeUTF(record.getName());
+                recordOut.writeUTF(record.getPartNumber());
+                recordOut.writeInt((int) total);
+                recordOut.writeInt(sequence.length);
+
+                sequenceOut.write(sequence);
+                sequenceOut.write('N');
+
+                int kmer = 0;
+                int valid = 0;
+                for (byte base : sequence) {
+                    int code = code(base);
+                    if (code < 0) {
+                        valid = 0;
+                        continue;
+                    }
+                    kmer = ((kmer << 2) | code) & MASK;
+                    if (++valid >= K) {
+                        counts[kmer] += 1;
+                        postings += 1;
+                    }
+                }
+
+                total += sequence.length + 1;
+                recordCount += 1;
+            }
+        }
+
+        if (postings * Integer.BYTES > Integer.MAX_VALUE)
+            throw new IOException("Sequences exceed maximum size of k-mer index");
+
+        // offsets (start of posting list for each k-mer). counts become the insert position for each k-mer
+        try (FileChannel channel = FileChannel.open(dir.resolve(OFFSETS), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (KMER_COUNT + 1L) * Integer.BYTES);
+            IntBuffer offsets = buffer.asIntBuffer();
+            int offset = 0;
+            for (int i = 0; i < KMER_COUNT; i += 1) {
+                offsets.put(offset);
+                int count = counts[i];
+                counts[i] = offset;
+                offset += count;
+            }
+            offsets.put(offset);
+            buffer.force();
+        }
+
+        // positions
+        try (FileChannel sequenceChannel = FileChannel.open(dir.resolve(SEQUENCES), StandardOpenOption.READ);
+             FileChannel channel = FileChannel.open(dir.resolve(POSITIONS), StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer sequences = sequenceChannel.map(FileChannel.MapMode.READ_ONLY, 0, total);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, postings * Integer.BYTES);
+            IntBuffer positions = buffer.asIntBuffer();
+            int kmer = 0;
+            int valid = 0;
+            for (int i = 0; i < total; i += 1) {
+                int code = code(sequences.get(i));
+                if (code < 0) {
+                    valid = 0;
+                    continue;
+                }
+                kmer = ((kmer << 2) | code) & MASK;
+                if (++valid >= K)
+                    positions.put(counts[kmer]++, i - K + 1);
+            }
+            buffer.force();
+        }
+        return recordCount;
+    }
+
+    /**
+     * Opens (memory maps) an index previously written using {@link #build(Path, Iterator)}
+     *
+     * @param dir directory containing the index files
+     * @return opened index
+     * @throws IOException on exception reading the index files
+     */
+    static KmerIndex open(Path dir) throws IOException {
+        List<Object[]> records = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(dir.resolve(RECORDS))))) {
+            while (true) {
+                long entryId;
+                try {
+                    entryId = in.readLong();
+                } catch (EOFException eof) {
+                    break;
+                }
+                records.add(new Object[]{entryId, in.readUTF(), in.readUTF(), in.readUTF(), in.readInt(), in.readInt()});
+            }
+        }
+
+        KmerIndex index = new KmerIndex(records.size(), map(dir.resolve(SEQUENCES)),
+                map(dir.resolve(OFFSETS)).asIntBuffer(), map(dir.resolve(POSITIONS)).asIntBuffer());
+        for (int i = 0; i < records.size(); i += 1) {
+            Object[] record = records.get(i);
+            index.setRecord(i, (Long) record[0], (String) record[1], (String) record[2], (String) record[3],
+                    (Integer) record[4], (Integer) record[5]);
+        }
+        return index;
+    }
+
+    /**
+     * @param dir directory to check
+     * @return true if the directory contains an index
+     */
+    static boolean exists(Path dir) {
+        return Files.exists(Paths.get(dir.toString(), RECORDS)) && Files.exists(Paths.get(dir.toString(), POSITIONS));
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * @return number of records in the index
+     */
+    int size() {
+        return entryIds.length;
+    }
+
+    /**
+     * @return total length of the indexed sequences
+     */
+    long getTotalLength() {
+        if (sequences.limit() == 0)
+            return 0;
+        return sequences.limit() - entryIds.length;     // excludes separators
+    }
+
+    /**
+     * Searches both strands for the query, returning the best local alignment for each matching record
+     *
+     * @param query    query sequence (upper case)
+     * @param excluded tests part numbers of records to exclude from the results
+     * @return best hit (by score) for each matching record
+     */
+    List<KmerHit> search(byte[] query, Predicate<String> excluded) {
+        Map<Integer, KmerHit> hits = new HashMap<>();
+        if (query.length < K || entryIds.length == 0)
+            return new ArrayList<>();
+
+        byte[][] trace = new byte[query.length + 1][2 * BAND + 1];
+        for (byte[] strand : Arrays.asList(query, reverseComplement(query))) {
+            Map<Long, int[]> diagonals = findSeeds(strand);
+            List<Map.Entry<Long, int[]>> ranked = new ArrayList<>(diagonals.entrySet());
+            ranked.sort((a, b) -> Integer.compare(b.getValue()[0], a.getValue()[0]));
+
+            Map<Integer, List<Integer>> extended = new HashMap<>();
+            for (Map.Entry<Long, int[]> entry : ranked.subList(0, Math.min(MAX_EXTENSIONS, ranked.size()))) {
+                int record = recordAt(entry.getValue()[1]);
+                if (record < 0 || excluded.test(partNumbers[record]))
+                    continue;
+
+                // diagonal relative to the start of the record; skip if close to one already extended
+                int diagonal = (int) (entry.getKey() - starts[record]);
+                List<Integer> recordDiagonals = extended.computeIfAbsent(record, k -> new ArrayList<>());
+                if (recordDiagonals.stream().anyMatch(d -> Math.abs(d - diagonal) <= BAND))
+                    continue;
+                recordDiagonals.add(diagonal);
+
+                KmerHit hit = align(strand, record, diagonal, entry.getValue()[2], entry.getValue()[3], trace);
+                if (hit == null)
+                    continue;
+
+                KmerHit existing = hits.get(record);
+                if (existing == null || existing.getScore() < hit.getScore())
+                    hits.put(record, hit);
+            }
+        }
+        return new ArrayList<>(hits.values());
+    }
+
+    // returns map of diagonal (subject position - query position) to
+    // [seed count, subject position of first seed, first seed query position, last seed query position]
+    private Map<Long, int[]> findSeeds(byte[] query) {
+        Map<Long, int[]> diagonals = new HashMap<>();
+        int[] queryKmers = kmers(query);
+
+        if (offsets != null) {
+            for (int queryPosition = 0; queryPosition < queryKmers.length; queryPosition += 1) {
+                int kmer = queryKmers[queryPosition];
+                if (kmer < 0)
+                    continue;
+
+                int from = offsets.get(kmer);
+                int to = offsets.get(kmer + 1);
+                if (to - from > MAX_POSTINGS)
+                    continue;
+
+                for (int i = from; i < to; i += 1)
+                    addSeed(diagonals, positions.get(i), queryPosition);
+            }
+            return diagonals;
+        }
+
+        // no posting lists; scan sequences
+        Map<Integer, List<Integer>> queryPositions = new HashMap<>();
+        for (int i = 0; i < queryKmers.length; i += 1) {
+            if (queryKmers[i] >= 0)
+                queryPositions.computeIfAbsent(queryKmers[i], k -> new ArrayList<>()).add(i);
+        }
+
+        int kmer = 0;
+        int valid = 0;
+        for (int i = 0; i < sequences.limit(); i += 1) {
+            int code = code(sequences.get(i));
+            if (code < 0) {
+                valid = 0;
+                continue;
+            }
+            kmer = ((kmer << 2) | code) & MASK;
+            if (++valid < K)
+                continue;
+
+            List<Integer> matches = queryPositions.get(kmer);
+            if (matches == null)
+                continue;
+
+            for (int queryPosition : matches)
+                addSeed(diagonals, i - K + 1, queryPosition);
+        }
+        return diagonals;
+    }
+
+    private static void addSeed(Map<Long, int[]> diagonals, int subjectPosition, int queryPosition) {
+        int[] seed = diagonals.computeIfAbsent((long) subjectPosition - queryPosition,
+                k -> new int[]{0, subjectPosition, queryPosition, queryPosition});
+        seed[0] += 1;
+        seed[2] = Math.min(seed[2], queryPosition);
+        seed[3] = Math.max(seed[3], queryPosition);
+    }
+
+    // index of record containing the global position
+    private int recordAt(int position) {
+        int index = Arrays.binarySearch(starts, position);
+        if (index < 0)
+            index = -index - 2;
+        if (index < 0 || position >= starts[index] + lengths[index])
+            return -1;
+        return index;
+    }
+
+    /**
+     * Banded local (Smith-Waterman) alignment of the query against a record around the specified diagonal, starting
+     * {@link #EXTENSION} bases before the first seed and ending once the score drops {@link #X_DROP} below the best
+     * after the last seed
+     */
+    private KmerHit align(byte[] query, int record, int diagonal, int firstSeed, int lastSeed, byte[][] trace) {
+        final int width = 2 * BAND + 1;
+        final int start = starts[record];
+        final int length = lengths[record];
+        int[] previous = new int[width];
+        int[] current = new int[width];
+        int bestScore = 0;
+        int bestRow = 0;
+        int bestColumn = 0;
+        final int firstRow = Math.max(1, firstSeed + 1 - EXTENSION);
+        final int seedEnd = Math.min(query.length, lastSeed + K);
+
+        // cell (i, j) aligns query[i - 1] with subject[j - 1]. column k of row i is j = i + diagonal + k - BAND
+        for (int i = firstRow; i <= query.length; i += 1) {
+            byte[] traceRow = trace[i];
+            int rowBest = 0;
+            for (int k = 0; k < width; k += 1) {
+                int j = i + diagonal + k - BAND;
+                if (j < 1 || j > length) {
+                    current[k] = 0;
+                    traceRow[k] = 0;
+                    continue;
+                }
+
+                int score = 0;
+                byte direction = 0;
+                int match = previous[k] + (query[i - 1] == sequences.get(start + j - 1) ? MATCH : MISMATCH);
+                if (match > score) {
+                    score = match;
+                    direction = 1;
+                }
+                if (k + 1 < width && previous[k + 1] + GAP > score) {
+                    score = previous[k + 1] + GAP;
+                    direction = 2;
+                }
+                if (k > 0 && current[k - 1] + GAP > score) {
+                    score = current[k - 1] + GAP;
+                    direction = 3;
+                }
+
+                current[k] = score;
+                traceRow[k] = direction;
+                rowBest = Math.max(rowBest, score);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestRow = i;
+                    bestColumn = k;
+                }
+            }
+
+            int[] tmp = previous;
+            previous = current;
+            current = tmp;
+
+            if (i > seedEnd && (rowBest == 0 || rowBest < bestScore - X_DROP))
+                break;
+        }
+
+        if (bestScore < K)
+            return null;
+
+        // trace back to count identities and alignment length
+        int nident = 0;
+        int alignmentLength = 0;
+        int i = bestRow;
+        int k = bestColumn;
+        while (i >= firstRow && trace[i][k] != 0) {
+            alignmentLength += 1;
+            switch (trace[i][k]) {
+                case 1:
+                    int j = i + diagonal + k - BAND;
+                    if (query[i - 1] == sequences.get(start + j - 1))
+                        nident += 1;
+                    i -= 1;
+                    break;
+
+                case 2:
+                    i -= 1;
+                    k += 1;
+                    break;
+
+                default:
+                    k -= 1;
+            }
+        }
+
+        return new KmerHit(entryIds[record], types[record], names[record], partNumbers[record], bestScore,
+                nident, alignmentLength);
+    }
+
+    // k-mer code starting at each position of the sequence or -1 if the k-mer contains an invalid base
+    private static int[] kmers(byte[] sequence) {
+        int[] kmers = new int[Math.max(0, sequence.length - K + 1)];
+        int kmer = 0;
+        int valid = 0;
+        for (int i = 0; i < sequence.length; i += 1) {
+            int code = code(sequence[i]);
+            if (code < 0) {
+                valid = 0;
+            } else {
+                kmer = ((kmer << 2) | code) & MASK;
+                valid += 1;
+            }
+
+            if (i >= K - 1)
+                kmers[i - K + 1] = valid >= K ? kmer : -1;
+        }
+        return kmers;
+    }
+
+    private static int code(byte base) {
+        switch (base) {
+            case 'A':
+            case 'a':
+                return 0;
+            case 'C':
+            case 'c':
+                return 1;
+            case 'G':
+            case 'g':
+                return 2;
+            case 'T':
+            case 't':
+            case 'U':
+            case 'u':
+                return 3;
+            default:
+                return -1;
+        }
+    }
+
+    static byte[] reverseComplement(byte[] sequence) {
+        byte[] complement = new byte[sequence.length];
+        for (int i = 0; i < sequence.length; i += 1) {
+            byte base = sequence[sequence.length - 1 - i];
+            switch (base) {
+                case 'A':
+                    complement[i] = 'T';
+                    break;
+                case 'T':
+                case 'U':
+                    complement[i] = 'A';
+                    break;
+                case 'C':
+                    complement[i] = 'G';
+                    break;
+                case 'G':
+                    complement[i] = 'C';
+                    break;
+                default:
+                    complement[i] = 'N';
+            }
+        }
+        return complement;
+    }
+
+    /**
+     * Best local alignment of a query against a record
+     */
+    static class KmerHit {
+
+        private final long entryId;
+        private final String type;
+        private final String name;
+        private final String partNumber;
+        private final int score;
+        private final int nident;
+        private final int length;
+
+        KmerHit(long entryId, String type, String name, String partNumber, int score, int nident, int length) {
+            this.entryId = entryId;
+            this.type = type;
+            this.name = name;
+            this.partNumber = partNumber;
+            this.score = score;
+            this.nident = nident;
+            this.length = length;
+        }
+
+        long getEntryId() {
+            return entryId;
+        }
+
+        String getType() {
+            return type;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getPartNumber() {
+            return partNumber;
+        }
+
+        int getScore() {
+            return score;
+        }
+
+        int getNident() {
+            return nident;
+        }
+
+        int getLength() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.jbei.ice.lib.search.blast;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Sequence record in a {@link KmerIndex}. Records are created from the same fasta records used for the blast
+ * database, with a header of the form <code>&gt;entryId,recordType,name,partNumber[,shard]</code>
+ */
+class KmerRecord {
+
+    private final long entryId;
+    private final String type;
+    private final String name;
+    private final String partNumber;
+    private final byte[] sequence;
+
+    KmerRecord(long entryId, String type, String name, String partNumber, byte[] sequence) {
+        this.entryId = entryId;
+        this.type = type;
+        this.name = name;
+        this.partNumber = partNumber;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Parses a fasta record (header line followed by one or more sequence lines)
+     *
+     * @param fasta fasta record
+     * @return parsed record or null if the record is not valid
+     */
+    static KmerRecord fromFasta(String fasta) {
+        if (fasta == null || !fasta.startsWith(">"))
+            return null;
+
+        int headerEnd = fasta.indexOf('\n');
+        if (headerEnd == -1)
+            return null;
+
+        String[] header = fasta.substring(1, headerEnd).trim().split(BlastDatabase.DELIMITER);
+        if (header.length < 4)
+            return null;
+
+        // name may contain the delimiter. headers without a shard have exactly four fields
+        int partNumberIndex = header.length == 4 ? 3 : header.length - 2;
+        String name = String.join(BlastDatabase.DELIMITER, Arrays.copyOfRange(header, 2, partNumberIndex));
+
+        ByteArrayOutputStream sequence = new ByteArrayOutputStream(fasta.length() - headerEnd);
+        for (int i = headerEnd + 1; i < fasta.length(); i += 1) {
+            char c = fasta.charAt(i);
+            if (Character.isLetter(c))
+                sequence.write(Character.toUpperCase(c));
+        }
+        if (sequence.size() == 0)
+            return null;
+
+        try {
+            return new KmerRecord(Long.decode(header[0]), header[1], name, header[partNumberIndex].trim(),
+                    sequence.toByteArray());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    long getEntryId() {
+        return entryId;
+    }
+
+    String getType() {
+        return type;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getPartNumber() {
+        return partNumber;
+    }
+
+    byte[] getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,348 @@
+package org.jbei.ice.lib.search.blast;
+
+import org.apache.commons.io.FileUtils;
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.entry.EntryType;
+import org.jbei.ice.lib.dto.entry.PartData;
+import org.jbei.ice.lib.dto.search.BlastProgram;
+import org.jbei.ice.lib.dto.search.BlastQuery;
+import org.jbei.ice.lib.dto.search.SearchResult;
+import org.jbei.ice.lib.executor.IceExecutorService;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.dao.SequenceDAO;
+import org.jbei.ice.storage.model.Sequence;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Sequence search database that runs in process using a {@link KmerIndex}, for instances without a blast
+ * installation and for short queries (e.g. primers) where starting a blast process dominates the search time.
+ * <p>
+ * Mirrors the layout of the {@link StandardBlastDatabase}: a main index built from all sequences, a (small)
+ * in memory index of sequences changed since the main index was built and tombstones for the changed sequences
+ * in the main index. The main index is rebuilt once the number of changes reaches a threshold.
+ * <p>
+ * Only nucleotide (<code>blastn</code>) searches are supported
+ */
+public class KmerSequenceDatabase extends BlastDatabase {
+
+    private static final String CURRENT = "CURRENT";        // file containing name of current index directory
+    private static final String INDEX = "index_";
+    private static final int REBUILD_THRESHOLD = 1000;
+    private static final int MAX_QUERY_LENGTH = 100000;
+    private static final int MAX_HITS = 1000;
+    private static final double MIN_IDENTITY = 0.7;         // same as -perc_identity used for blastn
+    private static final double MAX_EVALUE = 10;            // blast default
+    private static final double LAMBDA = 1.28;              // karlin-altschul parameters for 1/-2 scoring
+    private static final double KAPPA = 0.46;
+
+    private static KmerSequenceDatabase INSTANCE;
+    private final SequenceDAO sequenceDAO;
+    private final BlastFastaFile recentFastaFile;
+    private final BlastTombstones tombstones;
+    private final Map<String, KmerRecord> recent = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock buildLock = new ReentrantLock();      // one build at a time
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean(false);
+    private volatile KmerIndex index;
+    private volatile KmerIndex recentIndex;
+    private String indexName;
+    private Set<String> changedDuringBuild;                            // guarded by lock; null if not building
+
+    private KmerSequenceDatabase() {
+        super("kmer");
+        sequenceDAO = DAOFactory.getSequenceDAO();
+        recentFastaFile = new BlastFastaFile(indexPath, "RecentFastaFile");
+        tombstones = new BlastTombstones(indexPath);
+
+        try {
+            Path current = Paths.get(indexPath.toString(), CURRENT);
+            if (Files.exists(current)) {
+                String name = new String(Files.readAllBytes(current), StandardCharsets.UTF_8).trim();
+                Path dir = Paths.get(indexPath.toString(), name);
+                if (KmerIndex.exists(dir)) {
+                    index = KmerIndex.open(dir);
+                    indexName = name;
+                }
+            }
+
+            for (String fasta : readFastaRecords(recentFastaFile.getFilePath())) {
+                KmerRecord record = KmerRecord.fromFasta(fasta);
+                if (record != null)
+                    recent.put(record.getPartNumber(), record);
+            }
+            recentIndex = recent.isEmpty() ? null : KmerIndex.of(recent.values());
+        } catch (IOException e) {
+            Logger.error("Could not open k-mer index", e);
+        }
+    }
+
+    public static synchronized KmerSequenceDatabase getInstance() {
+        if (INSTANCE == null)
+            INSTANCE = new KmerSequenceDatabase();
+        return INSTANCE;
+    }
+
+    /**
+     * @param query blast query
+     * @return true if the query can be run against this database
+     */
+    public boolean canSearch(BlastQuery query) {
+        return index != null && (query.getBlastProgram() == null || query.getBlastProgram() == BlastProgram.BLAST_N)
+                && query.getSequence() != null && query.getSequence().length() <= MAX_QUERY_LENGTH;
+    }
+
+    /**
+     * Runs a nucleotide search, returning results in the same form as {@link StandardBlastDatabase#runBlast(BlastQuery)}
+     *
+     * @param query wrapper around blast query
+     * @return map (in order of significance) of unique entry identifier to the search result hit details
+     * @throws BlastException if the query cannot be run against this database
+     */
+    public HashMap<String, SearchResult> runBlast(BlastQuery query) throws BlastException {
+        if (!canSearch(query))
+            throw new BlastException("Query cannot be run against k-mer index");
+
+        byte[] sequence = normalize(query.getSequence());
+        List<KmerIndex.KmerHit> hits = new ArrayList<>();
+        long databaseLength = 0;
+
+        // records contain each sequence twice (see StandardBlastDatabase#getSequenceFasta) so that matches across
+        // the origin of circular sequences are found; the search space is the length of the original sequences
+        KmerIndex main = this.index;
+        if (main != null) {
+            hits.addAll(main.search(sequence, tombstones::contains));
+            databaseLength += main.getTotalLength() / 2;
+        }
+
+        KmerIndex changed = this.recentIndex;
+        if (changed != null) {
+            hits.addAll(changed.search(sequence, partNumber -> false));
+            databaseLength += changed.getTotalLength() / 2;
+        }
+
+        hits.sort((a, b) -> Integer.compare(b.getScore(), a.getScore()));
+        LinkedHashMap<String, SearchResult> results = new LinkedHashMap<>();
+        for (KmerIndex.KmerHit hit : hits) {
+            if (results.size() >= MAX_HITS)
+                break;
+
+            if (hit.getLength() == 0 || (double) hit.getNident() / hit.getLength() < MIN_IDENTITY)
+                continue;
+
+            double evalue = KAPPA * sequence.length * databaseLength * Math.exp(-LAMBDA * hit.getScore());
+            if (evalue > MAX_EVALUE)
+                continue;
+
+            String key = Long.toString(hit.getEntryId());
+            if (results.containsKey(key))
+                continue;
+
+            PartData view = new PartData(EntryType.nameToType(hit.getType()));
+            view.setId(hit.getEntryId());
+            view.setName(hit.getName());
+            view.setPartId(hit.getPartNumber());
+
+            SearchResult searchResult = new SearchResult();
+            searchResult.setEntryInfo(view);
+            searchResult.seteValue(evalue == 0 ? "0.0" : String.format("%.2g", evalue));
+            searchResult.setScore(hit.getScore());
+            searchResult.setAlignment(Integer.toString(hit.getNident()));
+            searchResult.setQueryLength(sequence.length);
+            searchResult.setNident(hit.getNident());
+            results.put(key, searchResult);
+        }
+
+        StandardBlastDatabase.setSummaries(results.values());
+        return results;
+    }
+
+    /**
+     * Builds the main index if it doesn't exist. The build can be forced regardless of the existence of the
+     * index. A new main index contains all sequences and replaces the changed sequences and tombstones.
+     * <p>
+     * The index is built without holding the lock, so that changes can be applied while it is built. Sequences
+     * changed during the build are kept as changed sequences (with tombstones in the new main index) when the new
+     * index is swapped in, since the build may have read them before they changed
+     *
+     * @param force whether to build the index regardless of whether it exists or not
+     * @throws BlastException on exception building the index
+     */
+    public void checkRebuild(boolean force) throws BlastException {
+        if (!force && index != null) {
+            Logger.info("K-mer index found in " + indexPath.toString());
+            return;
+        }
+
+        rebuildScheduled.set(false);
+        buildLock.lock();
+        try {
+            lock.lock();
+            try {
+                changedDuringBuild = new HashSet<>();
+            } finally {
+                lock.unlock();
+            }
+
+            String name = INDEX + System.currentTimeMillis();
+            Path dir = Paths.get(indexPath.toString(), name);
+            int count = sequenceDAO.getSequenceCount();
+            int indexed;
+            try (BlastFastaStream<Sequence> stream = new BlastFastaStream<>("kmer", count,
+                    sequenceDAO::getSequences, Sequence::getId,
+                    sequence -> StandardBlastDatabase.getSequenceFasta(sequence, StandardBlastDatabase.MAIN), null)) {
+                indexed = KmerIndex.build(dir, new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return stream.hasNext();
+                    }
+
+                    @Override
+                    public KmerRecord next() {
+                        return KmerRecord.fromFasta(stream.next());
+                    }
+                });
+            }
+
+            KmerIndex built = KmerIndex.open(dir);
+
+            lock.lock();
+            try {
+                // publish
+                Path current = Paths.get(indexPath.toString(), CURRENT);
+                Path tmp = Paths.get(indexPath.toString(), CURRENT + ".tmp");
+                Files.write(tmp, name.getBytes(StandardCharsets.UTF_8));
+                Files.move(tmp, current, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                String previous = indexName;
+                index = built;
+                indexName = name;
+
+                // changes from before the build are in the new index
+                Set<String> indexedChanges = new HashSet<>(recent.keySet());
+                indexedChanges.removeAll(changedDuringBuild);
+                recentFastaFile.delete(indexedChanges);
+                recent.keySet().removeAll(indexedChanges);
+                recentIndex = recent.isEmpty() ? null : KmerIndex.of(recent.values());
+                tombstones.clear();
+                tombstones.addAll(changedDuringBuild);
+
+                if (previous != null)
+                    FileUtils.deleteQuietly(Paths.get(indexPath.toString(), previous).toFile());
+            } finally {
+                lock.unlock();
+            }
+            Logger.info("Built k-mer index with " + indexed + " sequences");
+        } catch (IOException e) {
+            throw new BlastException(e);
+        } finally {
+            lock.lock();
+            try {
+                changedDuringBuild = null;
+            } finally {
+                lock.unlock();
+            }
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * Applies a batch of sequence changes. See {@link StandardBlastDatabase#applyChanges(Map)}
+     *
+     * @param changes map of part number to the action to apply
+     * @throws BlastException on exception updating the recent fasta file
+     */
+    public void applyChanges(Map<String, Action> changes) throws BlastException {
+        if (changes.isEmpty())
+            return;
+
+        List<String> records = new ArrayList<>();
+        Set<String> partNumbers = StandardBlastDatabase.getChangedRecords(changes, StandardBlastDatabase.RECENT,
+                records);
+        if (partNumbers.isEmpty())
+            return;
+
+        lock.lock();
+        try {
+            recentFastaFile.delete(partNumbers);
+            tombstones.addAll(partNumbers);
+            recent.keySet().removeAll(partNumbers);
+            if (changedDuringBuild != null)
+                changedDuringBuild.addAll(partNumbers);
+
+            if (!records.isEmpty() && !recentFastaFile.write(records))
+                throw new IOException("Could not write " + records.size() + " sequences to recent fasta file");
+
+            for (String fasta : records) {
+                KmerRecord record = KmerRecord.fromFasta(fasta);
+                if (record != null)
+                    recent.put(record.getPartNumber(), record);
+            }
+            recentIndex = recent.isEmpty() ? null : KmerIndex.of(recent.values());
+        } catch (IOException e) {
+            throw new BlastException(e);
+        } finally {
+            lock.unlock();
+        }
+
+        // if the task is not queued, clear the flag so that the next update tries again
+        if (recent.size() + tombstones.size() >= REBUILD_THRESHOLD && rebuildScheduled.compareAndSet(false, true)
+                && !IceExecutorService.getInstance().runTask(new RebuildBlastIndexTask(Action.COMPACT, null)))
+            rebuildScheduled.set(false);
+    }
+
+    /**
+     * Rebuilds the main index if there are any changes since it was built
+     *
+     * @throws BlastException on exception building the index
+     */
+    public void compact() throws BlastException {
+        if (index != null && recent.isEmpty() && tombstones.size() == 0) {
+            rebuildScheduled.set(false);
+            return;
+        }
+        checkRebuild(true);
+    }
+
+    // upper case nucleotides only
+    private static byte[] normalize(String sequence) {
+        StringBuilder builder = new StringBuilder(sequence.length());
+        for (int i = 0; i < sequence.length(); i += 1) {
+            char c = sequence.charAt(i);
+            if (Character.isLetter(c))
+                builder.append(Character.toUpperCase(c));
+        }
+        return builder.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static List<String> readFastaRecords(Path path) throws IOException {
+        List<String> records = new ArrayList<>();
+        if (!Files.exists(path))
+            return records;
+
+        try (Stream<String> lines = Files.lines(path)) {
+            StringBuilder builder = new StringBuilder();
+            for (Iterator<String> iterator = lines.iterator(); iterator.hasNext(); ) {
+                String line = iterator.next();
+                if (line.startsWith(">") && builder.length() > 0) {
+                    records.add(builder.toString());
+                    builder.setLength(0);
+                }
+                builder.append(line).append("\n");
+            }
+            if (builder.length() > 0)
+                records.add(builder.toString());
+        }
+        return records;
+    }
+}
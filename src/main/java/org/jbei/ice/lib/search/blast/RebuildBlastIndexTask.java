@@ -2,6 +2,9 @@ package org.jbei.ice.lib.search.blast;
 
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.executor.Task;
+import org.jbei.ice.lib.executor.TaskLane;
+
+import java.util.Collections;
 
 /**
  * Task to rebuild the blast index
@@ -25,6 +28,16 @@ public class RebuildBlastIndexTask extends Task {
         this(Action.CHECK, null);
     }
 
+    @Override
+    public TaskLane getLane() {
+        return TaskLane.BACKGROUND_INDEX;
+    }
+
+    @Override
+    public String getKey() {
+        return "blast-" + action.name() + (partId == null ? "" : "-" + partId);
+    }
+
     /**
      * Executes one of the following requested actions:
      * <p>
@@ -32,20 +45,17 @@ public class RebuildBlastIndexTask extends Task {
      * <code>CREATE</code>: add a new sequence to the blast database<br>
      * <code>DELETE</code>: delete a sequence from the blast database<br>
      * <code>UPDATE</code>: update the blast database by removing and adding a sequence<br>
-     * code>FORCE_REBUILD</code>: blow away existing blast database and create a new one from scratch
+     * code>FORCE_REBUILD</code>: blow away existing blast database and create a new one from scratch<br>
+     * <code>COMPACT</code>: merge recent changes into the main blast database volume
      * <p>
-     * The blast database uses a lock file to prevent multiple concurrent actions that modify if
+     * Actions that modify the blast database are serialized by the database; concurrent actions wait for their turn.
+     * Each action is also applied to the in process {@link KmerSequenceDatabase}
      */
     @Override
     public void execute() {
         Logger.info("Running blast task with action: " + action.name());
         try {
             StandardBlastDatabase standardBlastDatabase = StandardBlastDatabase.getInstance();
-            if (standardBlastDatabase.isLocked()) { // todo : wait / notify
-                Logger.info("Aborting run. Blast database is locked");
-                return;
-            }
-
             switch (this.action) {
                 case CHECK:
                     standardBlastDatabase.checkRebuild(false);
@@ -66,6 +76,36 @@ public class RebuildBlastIndexTask extends Task {
                 case FORCE_BUILD:
                     standardBlastDatabase.checkRebuild(true);
                     break;
+
+                case COMPACT:
+                    standardBlastDatabase.compact();
+                    break;
+            }
+        } catch (Exception e) {
+            Logger.error(e);
+        }
+
+        // in process (k-mer) sequence search index
+        try {
+            KmerSequenceDatabase kmerDatabase = KmerSequenceDatabase.getInstance();
+            switch (this.action) {
+                case CHECK:
+                    kmerDatabase.checkRebuild(false);
+                    break;
+
+                case CREATE:
+                case DELETE:
+                case UPDATE:
+                    kmerDatabase.applyChanges(Collections.singletonMap(this.partId, this.action));
+                    break;
+
+                case FORCE_BUILD:
+                    kmerDatabase.checkRebuild(true);
+                    break;
+
+                case COMPACT:
+                    kmerDatabase.compact();
+                    break;
             }
         } catch (Exception e) {
             Logger.error(e);
@@ -1,7 +1,5 @@
 package org.jbei.ice.lib.search.blast;
 
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvException;
 import org.apache.commons.lang3.StringUtils;
 import org.biojava.bio.seq.DNATools;
 import org.biojava.bio.seq.RNATools;
@@ -14,45 +12,108 @@ import org.jbei.ice.lib.dto.search.BlastProgram;
 import org.jbei.ice.lib.dto.search.BlastQuery;
 import org.jbei.ice.lib.dto.search.SearchResult;
 import org.jbei.ice.lib.entry.HasEntry;
+import org.jbei.ice.lib.executor.IceExecutorService;
+import org.jbei.ice.lib.search.IndexerProgressMonitor;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.dao.SequenceDAO;
 import org.jbei.ice.storage.model.Entry;
 import org.jbei.ice.storage.model.Sequence;
 
 import java.io.IOException;
-import java.io.StringReader;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 import static org.jbei.ice.lib.utils.SequenceUtils.breakUpLines;
 
 /**
- * Standard blast database for sequences
+ * Standard blast database for sequences.
+ * <p>
+ * The database is made up of two shards (volumes) that are searched together through a blast alias
+ * (<code>ice.nal</code>):
+ * <ul>
+ * <li><code>main</code> - the bulk of the sequences. Only rebuilt on a full rebuild or a compaction</li>
+ * <li><code>recent</code> - sequences created or updated since the main volume was last built. It is small
+ * and therefore cheap to re-format on each change</li>
+ * </ul>
+ * Sequences that are removed or replaced are recorded as tombstones and their (stale) hits in the main volume are
+ * filtered out of the results. Once the recent shard and tombstones grow past a threshold, a compaction
+ * merges them into a new main volume. The cost of a sequence change is therefore proportional to the size of
+ * the recent shard and not the entire database.
+ * <p>
+ * All modifications are serialized; concurrent changes wait their turn instead of being dropped
  *
  * @author Hector Plahar
  */
 public class StandardBlastDatabase extends BlastDatabase {
 
+    static final String MAIN = "main";
+    static final String RECENT = "recent";
+    private static final int COMPACTION_THRESHOLD = 1000;
+    private static final String OUTPUT_FORMAT = "10 stitle qstart qend sstart send sstrand evalue bitscore score length nident";
+    private static final int OUTPUT_COLUMNS = 10;   // number of columns in output format after stitle
+    private static final int MAX_HITS = 1000;       // maximum number of distinct entries returned by a search
+
     private static StandardBlastDatabase INSTANCE;
     private final BlastPlus blastPlus;
     private final BlastFastaFile blastFastaFile;
+    private final BlastFastaFile recentFastaFile;
+    private final BlastTombstones tombstones;
+    private final BlastAliasFile aliasFile;
     private final SequenceDAO sequenceDAO;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean(false);
+    private String mainVolume;
+    private String recentVolume;
+    private volatile int recentCount;
 
     private StandardBlastDatabase() {
         super("blast");
         blastPlus = new BlastPlus();
         sequenceDAO = DAOFactory.getSequenceDAO();
         blastFastaFile = new BlastFastaFile(indexPath);
+        recentFastaFile = new BlastFastaFile(indexPath, "RecentBlastFastaFile");
+        tombstones = new BlastTombstones(indexPath);
+        aliasFile = new BlastAliasFile(indexPath, this.dbName);
+
+        // volumes currently in use
+        for (String volume : aliasFile.getDatabases()) {
+            if (volume.startsWith(MAIN))
+                mainVolume = volume;
+            else if (volume.startsWith(RECENT))
+                recentVolume = volume;
+        }
+
+        try {
+            recentCount = recentFastaFile.count();
+        } catch (IOException e) {
+            Logger.error(e);
+        }
     }
 
-    public static StandardBlastDatabase getInstance() {
+    public static synchronized StandardBlastDatabase getInstance() {
         if (INSTANCE == null)
             INSTANCE = new StandardBlastDatabase();
         return INSTANCE;
     }
 
-    private static String getSequenceFasta(Sequence sequence) {
+    /**
+     * Creates the fasta record for a sequence. The header is of the form
+     * <code>&gt;entryId,recordType,name,partNumber,shard</code>
+     *
+     * @param sequence sequence to create fasta record for
+     * @param shard    shard (<code>main</code> or <code>recent</code>) the record is written to
+     * @return fasta record or null if sequence is not valid
+     */
+    static String getSequenceFasta(Sequence sequence, String shard) {
+        if (sequence.getEntry() == null)
+            return null;
+
         String sequenceString = "";
         String temp = sequence.getSequence();
 
@@ -86,14 +147,11 @@ public class StandardBlastDatabase extends BlastDatabase {
         idString += DELIMITER + name;
         String pNumber = sequence.getEntry().getPartNumber();
         idString += DELIMITER + pNumber;
+        idString += DELIMITER + shard;
         idString += "\n";
         return (idString + sequenceString + "\n");
     }
 
-    public boolean isLocked() {
-        return blastFastaFile.isLocked();
-    }
-
     /**
      * Run a blast query using the following output format options
      * <ul>
@@ -109,82 +167,104 @@ public class StandardBlastDatabase extends BlastDatabase {
      * <li><code>nident</code> - number of identical matches</li>
      * </ul>
      *
+     * Hits are processed as they are output by blast and only the top {@link #MAX_HITS} distinct entries are kept
+     *
      * @param query wrapper around blast query
      * @return map of unique entry identifier (whose sequence was a subject) to the search result hit details
-     * @throws BlastException if results of running blast is null
+     * @throws BlastException on exception running blast
      */
     public HashMap<String, SearchResult> runBlast(BlastQuery query) throws BlastException {
-        List<String> options;
-        if (query.getBlastProgram() == null || query.getBlastProgram() == BlastProgram.BLAST_N)
-            options = Arrays.asList("-perc_identity", "70", "-outfmt",
-                    "10 stitle qstart qend sstart send sstrand evalue bitscore score length nident");
-        else
-            options = Arrays.asList("-outfmt",
-                    "10 stitle qstart qend sstart send sstrand evalue bitscore score length nident");
-
-        BlastSearch blastSearch = new BlastSearch(this.indexPath, this.dbName);
-        String result = blastSearch.run(query, options.toArray(new String[]{}));
-        if (result == null)
-            throw new BlastException("Exception running blast");
-        return processBlastOutput(result, query.getSequence().length());
+        return runBlast(query, MAX_HITS);
     }
 
     /**
-     * Processes the result of a blast search
+     * Runs a blast query, keeping only the first <code>maxHits</code> distinct entries matched. Blast outputs hits
+     * in order of decreasing significance, so the search is stopped once <code>maxHits</code> entries have been
+     * found. Entry summaries for the hits are retrieved in a single lookup once the search completes
      *
-     * @param blastOutput result output from running blast on the command line
-     * @param queryLength length of query sequence
-     * @return mapping of entryId to search result object containing information about the blast search for that particular hit
+     * @param query   wrapper around blast query
+     * @param maxHits maximum number of distinct entries to return
+     * @return map (in order of significance) of unique entry identifier (whose sequence was a subject) to the
+     * search result hit details
+     * @throws BlastException on exception running blast
      */
-    private LinkedHashMap<String, SearchResult> processBlastOutput(String blastOutput, int queryLength) {
-        LinkedHashMap<String, SearchResult> hashMap = new LinkedHashMap<>();
-
-        try (CSVReader reader = new CSVReader(new StringReader(blastOutput))) {
-            List<String[]> lines = reader.readAll();
-            reader.close();
+    public HashMap<String, SearchResult> runBlast(BlastQuery query, int maxHits) throws BlastException {
+        List<String> options;
+        if (query.getBlastProgram() == null || query.getBlastProgram() == BlastProgram.BLAST_N)
+            options = Arrays.asList("-perc_identity", "70", "-outfmt", OUTPUT_FORMAT);
+        else
+            options = Arrays.asList("-outfmt", OUTPUT_FORMAT);
 
-            for (String[] line : lines) {
-                SearchResult info = parseBlastOutputLine(line);
-                if (info == null)
-                    continue;
+        final int queryLength = query.getSequence().length();
+        final LinkedHashMap<String, SearchResult> results = new LinkedHashMap<>();
+        if (maxHits <= 0)
+            return results;
 
+        BlastSearch blastSearch = new BlastSearch(this.indexPath, this.dbName);
+        blastSearch.run(query, hit -> {
+            SearchResult info = parseBlastOutputLine(hit);
+            if (info != null) {
                 info.setQueryLength(queryLength);
-                String idString = Long.toString(info.getEntryInfo().getId());
-                // if there is an existing record for same entry with a lower relative score then replace
-                hashMap.putIfAbsent(idString, info);
+                // keep the first (most significant) hit for each entry
+                results.putIfAbsent(Long.toString(info.getEntryInfo().getId()), info);
             }
-        } catch (IOException | CsvException e) {
-            Logger.error(e);
-            return null;
-        }
+            return results.size() < maxHits;
+        }, options.toArray(new String[]{}));
+
+        setSummaries(results.values());
+        return results;
+    }
+
+    static void setSummaries(Collection<SearchResult> results) {
+        if (results.isEmpty())
+            return;
+
+        List<Long> ids = new ArrayList<>(results.size());
+        for (SearchResult result : results)
+            ids.add(result.getEntryInfo().getId());
 
-        return hashMap;
+        Map<Long, String> summaries = DAOFactory.getEntryDAO().getEntrySummaries(ids);
+        for (SearchResult result : results) {
+            PartData view = result.getEntryInfo();
+            view.setShortDescription(summaries.get(view.getId()));
+        }
     }
 
     /**
-     * Parses a blast output that represents a single hit
+     * Parses a blast output that represents a single hit. The subject title (fasta header) spans the leading
+     * columns and is followed by {@link #OUTPUT_COLUMNS} columns for the requested output format.
      *
      * @param line blast output for hit
-     * @return object wrapper around details of the hit
+     * @return object wrapper around details of the hit or null if the hit is invalid or stale (the sequence has
+     * been removed or replaced since the main volume was built)
      */
     private SearchResult parseBlastOutputLine(String[] line) {
         try {
+            int offset = line.length - OUTPUT_COLUMNS;
+            if (offset < 4)
+                return null;
+
+            // databases built before sharding do not have the shard in the header
+            int partNumberIndex = offset == 4 ? 3 : offset - 2;
+            String partNumber = line[partNumberIndex];
+            String shard = offset == 4 ? MAIN : line[offset - 1];
+            if (MAIN.equals(shard) && tombstones.contains(partNumber))
+                return null;
+
             // extract part information
             PartData view = new PartData(EntryType.nameToType(line[1]));
             view.setId(Long.decode(line[0]));
-            view.setName(line[2]);
-            view.setPartId(line[3]);
-            String summary = DAOFactory.getEntryDAO().getEntrySummary(view.getId());
-            view.setShortDescription(summary);
+            view.setName(String.join(DELIMITER, Arrays.copyOfRange(line, 2, partNumberIndex)));
+            view.setPartId(partNumber);
 
             //search result object
             SearchResult searchResult = new SearchResult();
             searchResult.setEntryInfo(view);
-            searchResult.seteValue(line[9]);
-            searchResult.setScore(Float.parseFloat(line[11].trim()));
-            searchResult.setAlignment(line[13]);
-            searchResult.setQueryLength(Integer.parseInt(line[12].trim()));
-            searchResult.setNident(Integer.parseInt(line[13].trim()));
+            searchResult.seteValue(line[offset + 5]);
+            searchResult.setScore(Float.parseFloat(line[offset + 7].trim()));
+            searchResult.setAlignment(line[offset + 9]);
+            searchResult.setQueryLength(Integer.parseInt(line[offset + 8].trim()));
+            searchResult.setNident(Integer.parseInt(line[offset + 9].trim()));
             return searchResult;
         } catch (Exception e) {
             Logger.error(e);
@@ -194,7 +274,8 @@ public class StandardBlastDatabase extends BlastDatabase {
 
     /**
      * Rebuilds the blast database if it doesn't exist. The rebuild can be forced
-     * regardless of the existence of the database
+     * regardless of the existence of the database. The rebuild creates a new main volume containing all the
+     * sequences and discards the recent shard and tombstones
      *
      * @param force whether to rebuild the database regardless of whether it exists or not
      * @throws BlastException on exception rebuilding sequence db
@@ -210,117 +291,239 @@ public class StandardBlastDatabase extends BlastDatabase {
             return;
         }
 
-        // delete fasta file and create a new one with all sequences in database
-        blastFastaFile.createNew();
-        Iterable<String> iterable = () -> new AllSequencesStream(sequenceDAO);
-        blastFastaFile.write(iterable);
-        blastPlus.formatBlastDb(blastFastaFile, this.dbName);
-    }
+        lock.lock();
+        try {
+            // delete fasta file and create a new one with all sequences in database
+            blastFastaFile.createNew();
+            int count = sequenceDAO.getSequenceCount();
+            try (BlastFastaStream<Sequence> stream = new BlastFastaStream<>(this.dbName, count,
+                    sequenceDAO::getSequences, Sequence::getId, sequence -> getSequenceFasta(sequence, MAIN),
+                    IndexerProgressMonitor.getBlastInstance())) {
+                if (!blastFastaFile.write(() -> stream))
+                    throw new BlastException("Could not write blast fasta file");
+            }
 
-    public void addSequence(String partId) {
-        Entry entry = new HasEntry().getEntry(partId);
-        if (entry == null) {
-            Logger.error("Could not retrieve entry with id " + partId + ". Sequence was not added to blast");
-            return;
+            String volume = newVolumeName(MAIN);
+            blastPlus.formatBlastDb(blastFastaFile, volume);
+
+            // main volume now contains all changes
+            recentFastaFile.createNew();
+            recentCount = 0;
+            tombstones.clear();
+
+            // remove database from before sharding (if any)
+            deleteVolume(this.dbName);
+            publish(volume, null);
+        } catch (IOException e) {
+            throw new BlastException(e);
+        } finally {
+            lock.unlock();
         }
+    }
 
-        Sequence sequence = sequenceDAO.getByEntry(entry);
-        if (sequence == null)
-            return;
+    public void addSequence(String partId) throws BlastException {
+        applyChanges(Collections.singletonMap(partId, Action.CREATE));
+    }
 
-        final String blastFasta = getSequenceFasta(sequence);
-        if (blastFasta == null)
-            return;
+    public void removeSequence(String partId) throws BlastException {
+        applyChanges(Collections.singletonMap(partId, Action.DELETE));
+    }
 
-        blastFastaFile.write(() -> new Iterator<>() {
-            private boolean called = false;
+    public void updateSequence(String partId) throws BlastException {
+        applyChanges(Collections.singletonMap(partId, Action.UPDATE));
+    }
 
-            @Override
-            public boolean hasNext() {
-                if (called)
-                    return false;
+    /**
+     * Applies a batch of sequence changes in a single pass: existing versions of the affected sequences are
+     * removed from the recent shard (and marked as stale in the main volume) in one rewrite, the current versions
+     * are appended and the recent shard is formatted once.
+     * <p>
+     * <code>CREATE</code> and <code>UPDATE</code> add the current sequence for the part (if any), while
+     * <code>DELETE</code> only removes it. Other actions are ignored.
+     *
+     * @param changes map of part number to the action to apply
+     * @throws BlastException on exception updating or formatting the recent shard
+     */
+    public void applyChanges(Map<String, Action> changes) throws BlastException {
+        if (changes.isEmpty() || !blastPlus.canRunBlast())
+            return;
 
-                called = true;
-                return true;
-            }
+        // retrieve current sequences
+        List<String> records = new ArrayList<>();
+        Set<String> partNumbers = getChangedRecords(changes, RECENT, records);
+        if (partNumbers.isEmpty())
+            return;
 
-            @Override
-            public String next() {
-                return blastFasta;
+        lock.lock();
+        try {
+            // remove existing
+            int removed = recentFastaFile.delete(partNumbers);
+            recentCount -= removed;
+            tombstones.addAll(partNumbers);
+
+            // add current
+            if (!records.isEmpty()) {
+                if (!recentFastaFile.write(records))
+                    throw new BlastException("Could not write " + records.size() + " sequences to recent fasta file");
+                recentCount += records.size();
             }
-        });
 
-        try {
-            blastPlus.formatBlastDb(blastFastaFile, this.dbName);
-        } catch (BlastException e) {
-            Logger.error(e);
+            if (removed > 0 || !records.isEmpty())
+                formatRecent();
+        } catch (IOException e) {
+            throw new BlastException(e);
+        } finally {
+            lock.unlock();
         }
+        checkScheduleCompaction();
     }
 
-    public void removeSequence(String partId) {
-        try {
-            blastFastaFile.delete(partId);
-            blastPlus.formatBlastDb(blastFastaFile, this.dbName);
-        } catch (IOException | BlastException e) {
-            Logger.error(e);
+    /**
+     * Retrieves the current fasta records for a batch of sequence changes
+     *
+     * @param changes map of part number to the action to apply. Actions other than <code>CREATE</code>,
+     *                <code>UPDATE</code> and <code>DELETE</code> are ignored
+     * @param shard   shard for the fasta records
+     * @param records list to add the fasta records of current sequences to
+     * @return part numbers of all the changed parts (whose existing records are to be removed)
+     */
+    static Set<String> getChangedRecords(Map<String, Action> changes, String shard, List<String> records) {
+        Set<String> partNumbers = new HashSet<>();
+        SequenceDAO sequenceDAO = DAOFactory.getSequenceDAO();
+        for (Map.Entry<String, Action> change : changes.entrySet()) {
+            String partId = change.getKey();
+            Action action = change.getValue();
+            if (action != Action.CREATE && action != Action.UPDATE && action != Action.DELETE)
+                continue;
+
+            Entry entry = action == Action.DELETE ? null : new HasEntry().getEntry(partId);
+            if (entry == null) {
+                partNumbers.add(partId);
+                continue;
+            }
+
+            partNumbers.add(entry.getPartNumber());
+            Sequence sequence = sequenceDAO.getByEntry(entry);
+            String blastFasta = sequence == null ? null : getSequenceFasta(sequence, shard);
+            if (blastFasta != null)
+                records.add(blastFasta);
         }
+        return partNumbers;
     }
 
-    public void updateSequence(String partId) {
-        // remove and add
+    /**
+     * Merges the recent shard into the main volume and discards the tombstones. The merge is a single pass over
+     * the main fasta file (no database access) followed by a format of the new main volume which replaces the
+     * current one once done.
+     *
+     * @throws BlastException on exception creating new main volume
+     */
+    public void compact() throws BlastException {
+        compactionScheduled.set(false);
+        if (!blastPlus.canRunBlast())
+            return;
+
+        lock.lock();
         try {
-            blastFastaFile.delete(partId);
+            if (recentCount == 0 && tombstones.size() == 0)
+                return;
+
+            Logger.info("Compacting blast database (" + recentCount + " recent, " + tombstones.size() + " removed)");
+            blastFastaFile.delete(tombstones.get());
+            try (Stream<String> lines = Files.lines(recentFastaFile.getFilePath())) {
+                String recentSuffix = DELIMITER + RECENT;
+                Iterator<String> iterator = lines.filter(line -> !line.isEmpty()).map(line -> {
+                    if (line.startsWith(">") && line.endsWith(recentSuffix))
+                        return line.substring(0, line.length() - recentSuffix.length()) + DELIMITER + MAIN;
+                    return line;
+                }).iterator();
+                if (!blastFastaFile.write(() -> iterator))
+                    throw new BlastException("Could not merge recent sequences into blast fasta file");
+            }
+
+            String volume = newVolumeName(MAIN);
+            blastPlus.formatBlastDb(blastFastaFile, volume);
+
+            recentFastaFile.createNew();
+            recentCount = 0;
+            tombstones.clear();
+            publish(volume, null);
         } catch (IOException e) {
-            Logger.error(e);
-            return;
+            throw new BlastException(e);
+        } finally {
+            lock.unlock();
         }
-        addSequence(partId);
     }
 
     /**
-     * Checks if a database exists for blast searches exists by checking for the existence of
-     * the blast database name (currently <code>ice</code>) with <code>.nsq</code> extension
-     *
-     * @return true is a blast database is found, false otherwise
+     * Schedules a compaction if the recent shard or tombstones have grown past the threshold
+     * and one is not already scheduled
      */
-    private boolean blastDatabaseExists() {
-        return Files.exists(Paths.get(indexPath.toString(), this.dbName + ".nsq"));
-    }
-
-    private static class AllSequencesStream implements Iterator<String> {
+    private void checkScheduleCompaction() {
+        if (recentCount + tombstones.size() < COMPACTION_THRESHOLD)
+            return;
 
-        private final int available;
-        private int currentOffset;
-        private final SequenceDAO dao;
-        private String nextValue;
+        // if the task is not queued, clear the flag so that the next update tries again
+        if (compactionScheduled.compareAndSet(false, true)
+                && !IceExecutorService.getInstance().runTask(new RebuildBlastIndexTask(Action.COMPACT, null)))
+            compactionScheduled.set(false);
+    }
 
-        public AllSequencesStream(SequenceDAO sequenceDAO) {
-            dao = sequenceDAO;
-            available = dao.getSequenceCount();
+    // formats recent fasta file into a new volume (if there are recent sequences) and updates the alias
+    private void formatRecent() throws BlastException, IOException {
+        String volume = null;
+        if (recentCount > 0) {
+            volume = newVolumeName(RECENT);
+            blastPlus.formatBlastDb(recentFastaFile, volume);
         }
+        publish(mainVolume, volume);
+    }
 
-        @Override
-        public boolean hasNext() {
-            while (currentOffset < available) {
-                Sequence sequence = dao.getSequence(currentOffset++);
-                if (sequence == null || sequence.getEntry() == null)
-                    continue;
+    /**
+     * Points the database alias to the specified volumes and deletes the volumes that are replaced
+     *
+     * @param main   name of main volume
+     * @param recent name of recent volume. Can be null if there are no recent sequences
+     * @throws IOException on exception writing alias file
+     */
+    private void publish(String main, String recent) throws IOException {
+        List<String> volumes = new ArrayList<>();
+        if (main != null)
+            volumes.add(main);
+        if (recent != null)
+            volumes.add(recent);
+        aliasFile.write(volumes);
+
+        if (mainVolume != null && !mainVolume.equals(main))
+            deleteVolume(mainVolume);
+        if (recentVolume != null && !recentVolume.equals(recent))
+            deleteVolume(recentVolume);
+
+        this.mainVolume = main;
+        this.recentVolume = recent;
+    }
 
-                nextValue = getSequenceFasta(sequence);
-                if (nextValue == null)
-                    continue;
+    private String newVolumeName(String shard) {
+        return shard + "_" + System.currentTimeMillis();
+    }
 
-                return true;
+    // deletes the files that make up the specified blast volume
+    private void deleteVolume(String volume) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(indexPath, volume + ".*")) {
+            for (Path file : files) {
+                if (!file.equals(aliasFile.getFilePath()))
+                    Files.deleteIfExists(file);
             }
-
-            return false;
         }
+    }
 
-        @Override
-        public String next() {
-            if (StringUtils.isEmpty(nextValue))
-                throw new IllegalStateException("No value available. Make sure call to hasNext() returns true");
-            return nextValue;
-        }
+    /**
+     * Checks if a database exists for blast searches by checking for the existence of
+     * the blast database alias (currently <code>ice.nal</code>) and the main volume it references
+     *
+     * @return true is a blast database is found, false otherwise
+     */
+    private boolean blastDatabaseExists() {
+        return aliasFile.exists() && mainVolume != null && BlastSearch.databaseExists(indexPath, mainVolume);
     }
 }
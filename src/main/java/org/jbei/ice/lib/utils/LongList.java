@@ -0,0 +1,95 @@
+package org.jbei.ice.lib.utils;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Growable list of primitive longs (e.g. entry ids). Values are stored in a single <code>long[]</code>, using
+ * 8 bytes per value instead of a boxed <code>Long</code> and a reference per value, and are only boxed when accessed
+ * through the {@link java.util.List} interface
+ */
+public class LongList extends AbstractList<Long> implements RandomAccess {
+
+    private long[] values;
+    private int size;
+
+    public LongList() {
+        this(16);
+    }
+
+    public LongList(int capacity) {
+        this.values = new long[Math.max(1, capacity)];
+    }
+
+    public void addLong(long value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, values.length * 2);
+        values[size++] = value;
+        modCount += 1;
+    }
+
+    public long getLong(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return values[index];
+    }
+
+    /**
+     * @return copy of the values in the list
+     */
+    public long[] toLongArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public boolean add(Long value) {
+        addLong(value);
+        return true;
+    }
+
+    @Override
+    public Long get(int index) {
+        return getLong(index);
+    }
+
+    @Override
+    public Long set(int index, Long value) {
+        long previous = getLong(index);
+        values[index] = value;
+        return previous;
+    }
+
+    @Override
+    public Long remove(int index) {
+        long previous = getLong(index);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size -= 1;
+        modCount += 1;
+        return previous;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Long))
+            return false;
+
+        long value = (Long) o;
+        for (int i = 0; i < size; i += 1) {
+            if (values[i] == value)
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount += 1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
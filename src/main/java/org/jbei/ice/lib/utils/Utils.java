@@ -2,7 +2,7 @@ package org.jbei.ice.lib.utils;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.jbei.ice.lib.common.logging.Logger;
-import org.jbei.ice.lib.config.ConfigurationSettings;
+import org.jbei.ice.lib.config.ConfigurationCache;
 import org.jbei.ice.lib.dto.ConfigurationKey;
 
 import java.io.*;
@@ -61,7 +61,7 @@ public class Utils {
      * @param bytes bytes to convert.
      * @return String of Hex representation
      */
-    private static String getHexString(byte[] bytes) {
+    public static String getHexString(byte[] bytes) {
         byte[] HEX_CHAR_TABLE = {(byte) '0', (byte) '1', (byte) '2', (byte) '3', (byte) '4',
                 (byte) '5', (byte) '6', (byte) '7', (byte) '8', (byte) '9', (byte) 'a', (byte) 'b',
                 (byte) 'c', (byte) 'd', (byte) 'e', (byte) 'f'
@@ -128,11 +128,7 @@ public class Utils {
     }
 
     public static String getConfigValue(ConfigurationKey key) {
-        ConfigurationSettings controller = new ConfigurationSettings();
-        String value = controller.getPropertyValue(key);
-        if (value != null)
-            return value;
-        return key.getDefaultValue();
+        return ConfigurationCache.getInstance().getValue(key);
     }
 
     public static String getString(InputStream stream) throws IOException {
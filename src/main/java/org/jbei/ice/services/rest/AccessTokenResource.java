@@ -72,6 +72,21 @@ public class AccessTokenResource extends RestResource {
         }
     }
 
+    /**
+     * Retrieves statistics for the active user sessions. Administrators only
+     *
+     * @return session statistics
+     */
+    @GET
+    @Path("/sessions")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getSessionStatistics() {
+        String userId = requireUserId();
+        if (!accountController.isAdministrator(userId))
+            throw new WebApplicationException(Response.Status.FORBIDDEN);
+        return super.respond(UserSessions.getStatistics());
+    }
+
     /**
      * Validates web of registries access token (api key)
      */
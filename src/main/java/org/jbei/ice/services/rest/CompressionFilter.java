@@ -0,0 +1,54 @@
+package org.jbei.ice.services.rest;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Gzips JSON and text responses for clients that accept it, by setting the <code>Content-Encoding</code> that the
+ * registered <code>GZipEncoder</code> applies. Other responses (e.g. zip files and other downloads, which are
+ * already compressed and may be served in ranges) are sent as is
+ */
+@Provider
+public class CompressionFilter implements ContainerResponseFilter {
+
+    private static final String GZIP = "gzip";
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (!responseContext.hasEntity() || responseContext.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING))
+            return;
+
+        MediaType mediaType = responseContext.getMediaType();
+        if (mediaType == null || !(MediaType.APPLICATION_JSON_TYPE.isCompatible(mediaType)
+                || "text".equalsIgnoreCase(mediaType.getType())))
+            return;
+
+        responseContext.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING)))
+            responseContext.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+    }
+
+    // true if gzip is listed (and not with a quality of 0) in the accept encoding header
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+
+        for (String value : acceptEncoding.split(",")) {
+            String[] parts = value.trim().split(";");
+            if (!GZIP.equalsIgnoreCase(parts[0].trim()))
+                continue;
+
+            for (int i = 1; i < parts.length; i += 1) {
+                String parameter = parts[i].trim().replace(" ", "");
+                if (parameter.matches("q=0(\\.0*)?"))
+                    return false;
+            }
+            return true;
+        }
+        return false;
+    }
+}
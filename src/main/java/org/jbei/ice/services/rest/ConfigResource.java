@@ -1,9 +1,12 @@
 package org.jbei.ice.services.rest;
 
 import org.jbei.ice.lib.access.PermissionException;
+import org.jbei.ice.lib.account.AccountController;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.config.ConfigurationSettings;
 import org.jbei.ice.lib.dto.Setting;
+import org.jbei.ice.lib.entry.ReadAuditQueue;
+import org.jbei.ice.lib.executor.IceExecutorService;
 
 import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
@@ -51,6 +54,52 @@ public class ConfigResource extends RestResource {
         return controller.getSystemVersion(url);
     }
 
+    /**
+     * Retrieves the queue depth, throughput and latency of each lane of the executor service. Administrators only
+     *
+     * @return status of the executor service lanes
+     */
+    @GET
+    @Path("/executor")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getExecutorStatus() {
+        final String userId = requireUserId();
+        if (!new AccountController().isAdministrator(userId))
+            throw new WebApplicationException(Response.Status.FORBIDDEN);
+        return super.respond(IceExecutorService.getInstance().getStatus());
+    }
+
+    /**
+     * Retrieves the depth, throughput and dropped reads of the queue of entry read audits. Administrators only
+     *
+     * @return status of the read audit queue
+     */
+    @GET
+    @Path("/audit")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getAuditQueueStatus() {
+        final String userId = requireUserId();
+        if (!new AccountController().isAdministrator(userId))
+            throw new WebApplicationException(Response.Status.FORBIDDEN);
+        return super.respond(ReadAuditQueue.getInstance().getStatus());
+    }
+
+    /**
+     * Retrieves the request, latency and error metrics of the clients used to call partner registries.
+     * Administrators only
+     *
+     * @return status of the client for each partner that has been called
+     */
+    @GET
+    @Path("/rest-clients")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getRestClientStatus() {
+        final String userId = requireUserId();
+        if (!new AccountController().isAdministrator(userId))
+            throw new WebApplicationException(Response.Status.FORBIDDEN);
+        return super.respond(RestClientPool.getInstance().getStatus());
+    }
+
     /**
      * Retrieves the value for the specified config key
      *
@@ -18,6 +18,7 @@ import org.jbei.ice.lib.entry.Entries;
 import org.jbei.ice.lib.entry.EntriesAsCSV;
 import org.jbei.ice.lib.entry.EntrySelection;
 import org.jbei.ice.lib.entry.attachment.Attachments;
+import org.jbei.ice.lib.entry.export.ExportJobs;
 import org.jbei.ice.lib.entry.sequence.InputStreamWrapper;
 import org.jbei.ice.lib.entry.sequence.PartSequence;
 import org.jbei.ice.lib.entry.sequence.SequenceFormat;
@@ -28,6 +29,7 @@ import org.jbei.ice.lib.net.RemoteSequence;
 import org.jbei.ice.lib.parsers.InvalidFormatParserException;
 import org.jbei.ice.lib.utils.Utils;
 import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateConfiguration;
 import org.jbei.ice.storage.hibernate.dao.ShotgunSequenceDAO;
 import org.jbei.ice.storage.model.ShotgunSequence;
 import org.jbei.ice.storage.model.TraceSequence;
@@ -69,19 +71,114 @@ public class FileResource extends RestResource {
     @GET
     @Path("/exports/{fileId}")
     @Produces(MediaType.APPLICATION_OCTET_STREAM)
-    public Response downloadExportedFile(@PathParam("fileId") String fileId) {
+    public Response downloadExportedFile(@PathParam("fileId") String fileId,
+                                         @HeaderParam("Range") String range,
+                                         @HeaderParam("If-Range") String ifRange) throws IOException {
         String userId = requireUserId();
         final java.nio.file.Path tmpFile = Paths.get(Utils.getConfigValue(ConfigurationKey.TEMPORARY_DIRECTORY));
         String fileName = userId + "_" + fileId + "_export-data.zip";
-        if (!Files.exists(Paths.get(tmpFile.toString(), "export", fileName)))
+        java.nio.file.Path file = Paths.get(tmpFile.toString(), "export", fileName);
+
+        // export jobs (see the link in the notification email); tagged with the data version of the export file
+        String etag = fileId;
+        if (!Files.exists(file)) {
+            file = ExportJobs.getInstance().getFile(userId, fileId);
+            if (file == null)
+                return super.respond(Response.Status.NOT_FOUND);
+            etag = file.getFileName().toString();
+        }
+
+        return respondWithRange(file, "ice-export-data.zip", etag, range, ifRange);
+    }
+
+    /**
+     * Starts a background export of the selected entries (and their sequences) to a zip file, or returns the
+     * existing export if the same data has already been (or is being) exported. The status of the export
+     * can be polled and the file downloaded, in ranges, once complete
+     */
+    @POST
+    @Path("exports")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response createExport(@DefaultValue("genbank") @QueryParam("sequenceFormat") String sequenceFormat,
+                                 @DefaultValue("false") @QueryParam("onePerFolder") boolean onePerFolder,
+                                 @DefaultValue("false") @QueryParam("notify") boolean notify,
+                                 EntrySelection selection) {
+        String userId = requireUserId();
+        SequenceFormat format = SequenceFormat.fromString(sequenceFormat);
+        return super.respond(ExportJobs.getInstance().submit(userId, selection, format, onePerFolder, notify));
+    }
+
+    @GET
+    @Path("exports/jobs/{jobId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getExportStatus(@PathParam("jobId") String jobId) {
+        String userId = requireUserId();
+        return super.respond(ExportJobs.getInstance().getStatus(userId, jobId));
+    }
+
+    @GET
+    @Path("exports/jobs/{jobId}/file")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    public Response downloadExport(@PathParam("jobId") String jobId,
+                                   @HeaderParam("Range") String range,
+                                   @HeaderParam("If-Range") String ifRange) throws IOException {
+        String userId = requireUserId();
+        java.nio.file.Path file = ExportJobs.getInstance().getFile(userId, jobId);
+        if (file == null)
             return super.respond(Response.Status.NOT_FOUND);
+        return respondWithRange(file, "ice-export-data.zip", file.getFileName().toString(), range, ifRange);
+    }
+
+    /**
+     * Streams the file, or the single range of bytes requested in the <code>Range</code> header. The whole file is
+     * sent if no (or a multiple) range is requested, or if the <code>If-Range</code> header does not match the
+     * file's entity tag
+     */
+    private Response respondWithRange(java.nio.file.Path file, String fileName, String etag, String range,
+                                      String ifRange) throws IOException {
+        long size = Files.size(file);
+        long start = 0;
+        long end = size - 1;
+        String tag = "\"" + etag + "\"";
+        boolean partial = range != null && range.startsWith("bytes=") && !range.contains(",")
+                && (ifRange == null || ifRange.equals(tag));
+
+        if (partial) {
+            String[] positions = range.substring("bytes=".length()).trim().split("-", -1);
+            try {
+                if (positions[0].isEmpty()) {
+                    start = Math.max(0, size - Long.parseLong(positions[1]));
+                } else {
+                    start = Long.parseLong(positions[0]);
+                    if (!positions[1].isEmpty())
+                        end = Math.min(end, Long.parseLong(positions[1]));
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                start = size;
+            }
+
+            if (start > end) {
+                return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header("Content-Range", "bytes */" + size).build();
+            }
+        }
 
+        final long offset = start;
+        final long length = end - start + 1;
         StreamingOutput stream = output -> {
-            java.nio.file.Path file = Paths.get(tmpFile.toString(), "export", fileName);
-            final ByteArrayInputStream input = new ByteArrayInputStream(FileUtils.readFileToByteArray(file.toFile()));
-            IOUtils.copy(input, output);
+            try (InputStream input = Files.newInputStream(file)) {
+                IOUtils.copyLarge(input, output, offset, length);
+            }
         };
-        return addHeaders(Response.ok(stream), "ice-export-data.zip");
+
+        Response.ResponseBuilder builder = partial
+                ? Response.status(Response.Status.PARTIAL_CONTENT).entity(stream)
+                : Response.ok(stream);
+        builder.header("Accept-Ranges", "bytes").header("ETag", tag);
+        if (partial)
+            builder.header("Content-Range", "bytes " + start + "-" + end + "/" + size);
+        return addHeaders(builder, fileName);
     }
 
     /**
@@ -315,17 +412,7 @@ public class FileResource extends RestResource {
                                 EntrySelection selection) {
         String userId = super.requireUserId();
         EntriesAsCSV entriesAsCSV = new EntriesAsCSV(userId, sequenceFormats.toArray(new String[0]));
-        List<EntryFieldLabel> entryFieldLabels = new ArrayList<>();
-        try {
-            if (fields != null && !fields.isEmpty()) {
-                entryFieldLabels.addAll(fields.stream().map(EntryFieldLabel::fromString).collect(Collectors.toList()));
-            }
-        } catch (Exception e) {
-            Logger.error(e);
-        }
-
-        boolean success = entriesAsCSV.setSelectedEntries(selection,
-                entryFieldLabels.toArray(new EntryFieldLabel[0]));
+        boolean success = entriesAsCSV.setSelectedEntries(selection, getEntryFieldLabels(fields));
         if (!success)
             return super.respond(false);
 
@@ -337,6 +424,48 @@ public class FileResource extends RestResource {
         return Response.serverError().build();
     }
 
+    /**
+     * Streams the csv information (as a zip file with the sequences if any sequence formats are specified) for the
+     * selected entries directly in the response, without writing it to the temp dir first
+     */
+    @POST
+    @Path("csv/stream")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    public Response streamCSV(@QueryParam("sequenceFormats") final List<String> sequenceFormats,
+                              @QueryParam("entryFields") final List<String> fields,
+                              EntrySelection selection) {
+        String userId = super.requireUserId();
+        EntriesAsCSV entriesAsCSV = new EntriesAsCSV(userId, sequenceFormats.toArray(new String[0]));
+        EntryFieldLabel[] entryFieldLabels = getEntryFieldLabels(fields);
+        List<Long> entries = new Entries(userId).getEntriesFromSelectionContext(selection);
+
+        // the request transaction is committed before the response is written
+        StreamingOutput stream = output -> {
+            try {
+                HibernateConfiguration.beginTransaction();
+                entriesAsCSV.write(entries, output, entryFieldLabels);
+                HibernateConfiguration.commitTransaction();
+            } catch (IOException | RuntimeException e) {
+                HibernateConfiguration.rollbackTransaction();
+                throw e;
+            }
+        };
+        return addHeaders(Response.ok(stream), entriesAsCSV.isZip() ? "entries.zip" : "entries.csv");
+    }
+
+    private EntryFieldLabel[] getEntryFieldLabels(List<String> fields) {
+        List<EntryFieldLabel> entryFieldLabels = new ArrayList<>();
+        try {
+            if (fields != null && !fields.isEmpty()) {
+                entryFieldLabels.addAll(fields.stream().map(EntryFieldLabel::fromString).collect(Collectors.toList()));
+            }
+        } catch (Exception e) {
+            Logger.error(e);
+        }
+        return entryFieldLabels.toArray(new EntryFieldLabel[0]);
+    }
+
     @POST
     @Consumes(MediaType.MULTIPART_FORM_DATA)
     @Produces(MediaType.APPLICATION_JSON)
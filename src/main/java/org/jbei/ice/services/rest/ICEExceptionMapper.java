@@ -8,6 +8,8 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
 
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Exception mapper for mapping exceptions to {@link Response}s
  *
@@ -25,6 +27,9 @@ public class ICEExceptionMapper implements ExceptionMapper<Exception> {
             response = webEx.getResponse();
         } else if (exception instanceof PermissionException) {
             response = Response.status(Response.Status.FORBIDDEN).build();
+        } else if (exception instanceof RejectedExecutionException) {
+            // background task could not be queued; the request can be retried later
+            response = Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
         } else {
             response = Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
         }
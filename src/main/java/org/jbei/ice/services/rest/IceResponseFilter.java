@@ -8,7 +8,7 @@ import javax.ws.rs.container.ContainerResponseFilter;
 import javax.ws.rs.ext.Provider;
 
 /**
- * Rolls back the transaction if http status is 500
+ * Rolls back the transaction if http status is a server error (5xx)
  * otherwise commits transaction if started
  *
  * @author Hector Plahar
@@ -18,7 +18,7 @@ public class IceResponseFilter implements ContainerResponseFilter {
 
     @Override
     public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
-        if (responseContext.getStatus() == 500) {
+        if (responseContext.getStatus() >= 500) {
             HibernateConfiguration.rollbackTransaction();
         } else {
             HibernateConfiguration.commitTransaction();
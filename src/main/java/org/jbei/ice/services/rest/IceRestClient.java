@@ -2,38 +2,42 @@ package org.jbei.ice.services.rest;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
 import org.glassfish.jersey.media.multipart.FormDataMultiPart;
-import org.glassfish.jersey.media.multipart.MultiPartFeature;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.ConfigurationKey;
 import org.jbei.ice.lib.dto.entry.EntryType;
 import org.jbei.ice.lib.utils.Utils;
 
-import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.util.function.Supplier;
 
 /**
- * ICE REST client
+ * ICE REST client. Instances are cheap to create; the underlying http client (and its connections) is shared by all
+ * instances for the same url (see {@link RestClientPool})
  *
  * @author Hector Plahar
  */
 public class IceRestClient extends RestClient {
 
+    private final PartnerClient client;
     private WebTarget target;
     private String token;
 
     public IceRestClient(String url) {
-        ClientConfig clientConfig = new ClientConfig();
-        clientConfig.register(IceRequestFilter.class);
-        clientConfig.register(PartDataJSONHandler.class);
-        clientConfig.register(ArrayDataJSONHandler.class);
-        clientConfig.register(MultiPartFeature.class);
-        target = ClientBuilder.newClient(clientConfig).target("https://" + url);
+        RestClientPool pool = RestClientPool.getInstance();
+        client = pool.getClient(url);
+        target = client.getClient().target("https://" + url)
+                .property(ClientProperties.CONNECT_TIMEOUT, pool.getConnectTimeout())
+                .property(ClientProperties.READ_TIMEOUT, pool.getReadTimeout());
+        String encoding = pool.getRequestEncoding();
+        if (encoding != null)
+            target = target.property(ClientProperties.USE_ENCODING, encoding);
     }
 
     public IceRestClient(String url, String token) {
@@ -41,6 +45,17 @@ public class IceRestClient extends RestClient {
         this.token = token;
     }
 
+    /**
+     * Sets the timeouts for requests made with this client
+     *
+     * @param connectTimeout time (ms) allowed to establish a connection. 0 for no limit
+     * @param readTimeout    time (ms) allowed to wait for a response. 0 for no limit
+     */
+    public void setTimeout(int connectTimeout, int readTimeout) {
+        target = target.property(ClientProperties.CONNECT_TIMEOUT, connectTimeout)
+                .property(ClientProperties.READ_TIMEOUT, readTimeout);
+    }
+
     public void queryParam(String name, Object... values) {
         target = target.queryParam(name, values);
     }
@@ -49,31 +64,38 @@ public class IceRestClient extends RestClient {
     public <T> T get(String path, Class<T> clazz) {
         Invocation.Builder invocationBuilder = target.path(path).request(MediaType.APPLICATION_JSON_TYPE);
         setHeaders(invocationBuilder);
-        return invocationBuilder.buildGet().invoke(clazz);
+        Response response = invoke(invocationBuilder::get);
+        if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL)
+            throw new WebApplicationException(response);
+        return response.readEntity(clazz);
     }
 
     @Override
     public <T> T post(String path, Object object, Class<T> responseClass) {
         Invocation.Builder invocationBuilder = target.path(path).request(MediaType.APPLICATION_JSON_TYPE);
         setHeaders(invocationBuilder);
-        Response postResponse = invocationBuilder.post(Entity.entity(object, MediaType.APPLICATION_JSON_TYPE));
+        Response postResponse = invoke(() -> invocationBuilder.post(Entity.entity(object,
+                MediaType.APPLICATION_JSON_TYPE)));
         if (postResponse.hasEntity() && postResponse.getStatus() == Response.Status.OK.getStatusCode())
             return postResponse.readEntity(responseClass);
+        postResponse.close();
         return null;
     }
 
     @Override
     public <T> T put(String path, Object object, Class<T> responseClass) {
         Invocation.Builder invocationBuilder = target.path(path).request(MediaType.APPLICATION_JSON_TYPE);
-        Response response = invocationBuilder.put(Entity.entity(object, MediaType.APPLICATION_JSON_TYPE));
         setHeaders(invocationBuilder);
+        Response response = invoke(() -> invocationBuilder.put(Entity.entity(object, MediaType.APPLICATION_JSON_TYPE)));
         if (response.getStatus() != Response.Status.OK.getStatusCode()) {
             Logger.error("PUT call to " + target.getUri().toString() + " returned status of " + response.getStatus());
+            response.close();
             return null;
         }
 
-        if (responseClass != null && response.hasEntity() && response.getStatus() == Response.Status.OK.getStatusCode())
+        if (responseClass != null && response.hasEntity())
             return response.readEntity(responseClass);
+        response.close();
         return null;
     }
 
@@ -81,7 +103,8 @@ public class IceRestClient extends RestClient {
     public boolean delete(String path) {
         Invocation.Builder invocationBuilder = target.path(path).request(MediaType.APPLICATION_JSON_TYPE);
         setHeaders(invocationBuilder);
-        Response response = invocationBuilder.delete();
+        Response response = invoke(invocationBuilder::delete);
+        response.close();
         return response.getStatus() == Response.Status.OK.getStatusCode();
     }
 
@@ -93,12 +116,25 @@ public class IceRestClient extends RestClient {
             multiPart.field("entryType", entryType.name());
 
             Invocation.Builder invocationBuilder = target.path(path).request(MediaType.APPLICATION_JSON_TYPE);
-            invocationBuilder.post(Entity.entity(multiPart, MediaType.MULTIPART_FORM_DATA_TYPE));
+            invoke(() -> invocationBuilder.post(Entity.entity(multiPart, MediaType.MULTIPART_FORM_DATA_TYPE))).close();
         } catch (Exception e) {
             Logger.error(e);
         }
     }
 
+    // runs the request and records its latency and outcome for the partner
+    private Response invoke(Supplier<Response> request) {
+        long start = client.started();
+        try {
+            Response response = request.get();
+            client.finished(start, response.getStatus());
+            return response;
+        } catch (RuntimeException e) {
+            client.failed(start, e);
+            throw e;
+        }
+    }
+
     private void setHeaders(Invocation.Builder invocationBuilder) {
         if (StringUtils.isEmpty(this.token))
             return;
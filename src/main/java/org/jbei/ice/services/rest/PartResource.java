@@ -17,9 +17,10 @@ import org.jbei.ice.lib.dto.common.Results;
 import org.jbei.ice.lib.dto.entry.*;
 import org.jbei.ice.lib.dto.sample.PartSample;
 import org.jbei.ice.lib.dto.web.RegistryPartner;
+import org.jbei.ice.lib.dto.web.TransferChunk;
 import org.jbei.ice.lib.entry.*;
 import org.jbei.ice.lib.entry.attachment.Attachments;
-import org.jbei.ice.lib.entry.export.CustomExportTask;
+import org.jbei.ice.lib.entry.export.ExportJobs;
 import org.jbei.ice.lib.entry.sample.SampleService;
 import org.jbei.ice.lib.entry.sequence.PartSequence;
 import org.jbei.ice.lib.entry.sequence.PartTraceSequences;
@@ -28,7 +29,6 @@ import org.jbei.ice.lib.entry.sequence.Sequences;
 import org.jbei.ice.lib.entry.sequence.analysis.Shotgun;
 import org.jbei.ice.lib.entry.sequence.analysis.TraceSequences;
 import org.jbei.ice.lib.entry.sequence.annotation.Annotations;
-import org.jbei.ice.lib.executor.IceExecutorService;
 import org.jbei.ice.lib.experiment.Experiments;
 import org.jbei.ice.lib.experiment.Study;
 import org.jbei.ice.lib.net.RemoteEntries;
@@ -638,6 +638,23 @@ public class PartResource extends RestResource {
         return super.respond(response);
     }
 
+    /**
+     * Receives a chunk of parts (with their linked parts and sequences) transferred from another registry.
+     * The chunk is saved in a single transaction and can safely be sent again. Only accepted from a web partner
+     *
+     * @param chunk chunk of transferred parts
+     * @return the chunk with the ids of the parts set to the ids in this registry
+     */
+    @PUT
+    @Path("/transfer/chunk")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response transferChunk(TransferChunk chunk) {
+        requireWebPartner();
+        TransferredParts transferredParts = new TransferredParts();
+        return super.respond(transferredParts.receiveChunk(chunk));
+    }
+
     /**
      * Update the part information at the specified resource identifier
      *
@@ -774,8 +791,6 @@ public class PartResource extends RestResource {
             EntrySelection selection) {
         String userId = super.requireUserId();
         SequenceFormat format = SequenceFormat.fromString(sequenceFormat.toUpperCase());
-        CustomExportTask task = new CustomExportTask(userId, selection, format, onePerFolder);
-        IceExecutorService.getInstance().runTask(task);
-        return super.respond(true);
+        return super.respond(ExportJobs.getInstance().submit(userId, selection, format, onePerFolder, true));
     }
 }
@@ -0,0 +1,92 @@
+package org.jbei.ice.services.rest;
+
+import javax.ws.rs.client.Client;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared (thread-safe) client for a single partner registry and the request metrics kept for it
+ */
+class PartnerClient {
+
+    private final String url;
+    private final Client client;
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder latency = new LongAdder();
+    private final AtomicLong maxLatency = new AtomicLong();
+    private volatile String lastError;
+    private volatile long lastErrorTime;
+
+    PartnerClient(String url, Client client) {
+        this.url = url;
+        this.client = client;
+    }
+
+    Client getClient() {
+        return client;
+    }
+
+    /**
+     * @return start time of the request, to be passed to {@link #finished(long, int)} or {@link #failed(long,
+     * Exception)}
+     */
+    long started() {
+        active.incrementAndGet();
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * @param start  start time returned by {@link #started()}
+     * @param status http status of the response. Server errors (5xx) are counted as errors
+     */
+    void finished(long start, int status) {
+        record(start);
+        if (status >= 500)
+            error("HTTP " + status);
+    }
+
+    /**
+     * @param start start time returned by {@link #started()}
+     * @param e     exception thrown by the request (e.g. connection refused or timed out)
+     */
+    void failed(long start, Exception e) {
+        record(start);
+        Throwable cause = e.getCause() == null ? e : e.getCause();
+        error(cause.getClass().getSimpleName() + ": " + cause.getMessage());
+    }
+
+    void close() {
+        client.close();
+    }
+
+    PartnerClientStatus getStatus() {
+        PartnerClientStatus status = new PartnerClientStatus();
+        status.setUrl(url);
+        status.setActive(active.get());
+        long count = requests.sum();
+        status.setRequests(count);
+        status.setErrors(errors.sum());
+        status.setAverageLatency(count == 0 ? 0 : (double) latency.sum() / count);
+        status.setMaxLatency(maxLatency.get());
+        status.setLastError(lastError);
+        status.setLastErrorTime(lastErrorTime);
+        return status;
+    }
+
+    private void record(long start) {
+        long time = System.currentTimeMillis() - start;
+        active.decrementAndGet();
+        requests.increment();
+        latency.add(time);
+        maxLatency.accumulateAndGet(time, Math::max);
+    }
+
+    private void error(String message) {
+        errors.increment();
+        lastError = message;
+        lastErrorTime = System.currentTimeMillis();
+    }
+}
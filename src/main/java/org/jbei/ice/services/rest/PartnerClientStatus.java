@@ -0,0 +1,82 @@
+package org.jbei.ice.services.rest;
+
+import org.jbei.ice.storage.IDataTransferModel;
+
+/**
+ * Request, latency and error metrics for the shared client used to call a partner registry
+ */
+public class PartnerClientStatus implements IDataTransferModel {
+
+    private String url;
+    private int active;             // requests in progress
+    private long requests;
+    private long errors;            // failed requests and server errors (5xx)
+    private double averageLatency;  // ms
+    private long maxLatency;        // ms
+    private String lastError;
+    private long lastErrorTime;
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public void setActive(int active) {
+        this.active = active;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public void setRequests(long requests) {
+        this.requests = requests;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public void setErrors(long errors) {
+        this.errors = errors;
+    }
+
+    public double getAverageLatency() {
+        return averageLatency;
+    }
+
+    public void setAverageLatency(double averageLatency) {
+        this.averageLatency = averageLatency;
+    }
+
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+
+    public void setMaxLatency(long maxLatency) {
+        this.maxLatency = maxLatency;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public long getLastErrorTime() {
+        return lastErrorTime;
+    }
+
+    public void setLastErrorTime(long lastErrorTime) {
+        this.lastErrorTime = lastErrorTime;
+    }
+}
@@ -11,6 +11,7 @@ import org.jbei.ice.lib.dto.entry.PartData;
 import org.jbei.ice.lib.dto.entry.TraceSequenceAnalysis;
 import org.jbei.ice.lib.dto.web.PartnerEntries;
 import org.jbei.ice.lib.dto.web.RegistryPartner;
+import org.jbei.ice.lib.dto.web.TransferStatus;
 import org.jbei.ice.lib.entry.EntrySelection;
 import org.jbei.ice.lib.net.*;
 
@@ -89,16 +90,40 @@ public class PartnerResource extends RestResource {
      *
      * @param remoteId       unique partner identifier
      * @param entrySelection set of entries to transfer or context used to generate entries
+     * @return status of the transfer. A transfer of the same entries that did not complete is resumed
      */
     @POST
+    @Produces(MediaType.APPLICATION_JSON)
     @Path("/{id}/entries")
     public Response transferEntries(@PathParam("id") final long remoteId,
                                     final EntrySelection entrySelection) {
         final String userId = requireUserId();
         RemoteEntries remoteEntries = new RemoteEntries();
         try {
-            remoteEntries.transferEntries(userId, remoteId, entrySelection);
-            return super.respond(Response.Status.OK);
+            TransferStatus status = remoteEntries.transferEntries(userId, remoteId, entrySelection);
+            return super.respond(Response.Status.OK, status);
+        } catch (PermissionException pe) {
+            return super.respond(Response.Status.FORBIDDEN);
+        }
+    }
+
+    /**
+     * @param remoteId   unique partner identifier
+     * @param transferId identifier for transfer of entries to the partner
+     * @return status of the transfer
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/{id}/transfers/{transferId}")
+    public Response getTransferStatus(@PathParam("id") final long remoteId,
+                                      @PathParam("transferId") final String transferId) {
+        final String userId = requireUserId();
+        RemoteEntries remoteEntries = new RemoteEntries();
+        try {
+            TransferStatus status = remoteEntries.getTransferStatus(userId, remoteId, transferId);
+            if (status == null)
+                return super.respond(Response.Status.NOT_FOUND);
+            return super.respond(Response.Status.OK, status);
         } catch (PermissionException pe) {
             return super.respond(Response.Status.FORBIDDEN);
         }
@@ -0,0 +1,120 @@
+package org.jbei.ice.services.rest;
+
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.filter.EncodingFilter;
+import org.glassfish.jersey.media.multipart.MultiPartFeature;
+import org.glassfish.jersey.message.GZipEncoder;
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.ConfigurationKey;
+import org.jbei.ice.lib.utils.Utils;
+
+import javax.ws.rs.client.ClientBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared clients for calls to partner registries, one per partner url. Jersey clients are thread-safe and
+ * expensive to create (provider bootstrap), so a client is created the first time a partner is called and re-used
+ * for all later calls.
+ * <p>
+ * The default connector uses {@link java.net.HttpURLConnection}, which keeps idle connections to each partner
+ * alive and re-uses them (up to <code>http.maxConnections</code> per partner). Responses are requested gzip
+ * compressed and request bodies are compressed if {@link ConfigurationKey#REST_CLIENT_COMPRESS_REQUESTS} is enabled
+ */
+public class RestClientPool {
+
+    private static final RestClientPool INSTANCE = new RestClientPool();
+    private static final String MAX_CONNECTIONS = "20";
+
+    private final Map<String, PartnerClient> clients = new ConcurrentHashMap<>();
+
+    static {
+        // read by HttpURLConnection once, when the first keep-alive connection is cached
+        if (System.getProperty("http.maxConnections") == null)
+            System.setProperty("http.maxConnections", MAX_CONNECTIONS);
+    }
+
+    private RestClientPool() {
+    }
+
+    public static RestClientPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param url partner url
+     * @return shared client for the partner
+     */
+    PartnerClient getClient(String url) {
+        return clients.computeIfAbsent(url, key -> {
+            ClientConfig clientConfig = new ClientConfig();
+            clientConfig.register(IceRequestFilter.class);
+            clientConfig.register(PartDataJSONHandler.class);
+            clientConfig.register(ArrayDataJSONHandler.class);
+            clientConfig.register(MultiPartFeature.class);
+            clientConfig.register(EncodingFilter.class);
+            clientConfig.register(GZipEncoder.class);
+            return new PartnerClient(key, ClientBuilder.newClient(clientConfig));
+        });
+    }
+
+    /**
+     * @return connect timeout (ms) for requests to partners
+     */
+    int getConnectTimeout() {
+        return getTimeout(ConfigurationKey.REST_CLIENT_CONNECT_TIMEOUT);
+    }
+
+    /**
+     * @return read timeout (ms) for requests to partners
+     */
+    int getReadTimeout() {
+        return getTimeout(ConfigurationKey.REST_CLIENT_READ_TIMEOUT);
+    }
+
+    /**
+     * @return encoding for request bodies or null if they should not be compressed
+     */
+    String getRequestEncoding() {
+        String value = Utils.getConfigValue(ConfigurationKey.REST_CLIENT_COMPRESS_REQUESTS);
+        if ("yes".equalsIgnoreCase(value) || "true".equalsIgnoreCase(value))
+            return "gzip";
+        return null;
+    }
+
+    /**
+     * @return request, latency and error metrics for each partner that has been called
+     */
+    public List<PartnerClientStatus> getStatus() {
+        List<PartnerClientStatus> status = new ArrayList<>();
+        for (PartnerClient client : clients.values()) {
+            status.add(client.getStatus());
+        }
+        return status;
+    }
+
+    /**
+     * Closes all clients (and their connections). Clients are created again as needed
+     */
+    public void close() {
+        for (String url : clients.keySet()) {
+            PartnerClient client = clients.remove(url);
+            if (client != null)
+                client.close();
+        }
+    }
+
+    private static int getTimeout(ConfigurationKey key) {
+        String value = Utils.getConfigValue(key);
+        try {
+            return (int) TimeUnit.SECONDS.toMillis(Integer.parseInt(value.trim()));
+        } catch (Exception e) {
+            Logger.warn("Invalid value \"" + value + "\" for " + key.name() + ". Using default");
+            return (int) TimeUnit.SECONDS.toMillis(Integer.parseInt(key.getDefaultValue()));
+        }
+    }
+}
@@ -143,4 +143,18 @@ public class SearchResource extends RestResource {
         IndexBuildStatus status = controller.getIndexStatus(IndexType.valueOf(indexType.toUpperCase()));
         return super.respond(status);
     }
+
+    @GET
+    @Path("/indexes/blast/queue")
+    public Response getBlastQueueStatus() {
+        requireUserId();
+        return super.respond(controller.getBlastQueueStatus());
+    }
+
+    @GET
+    @Path("/indexes/blast/programs")
+    public Response getBlastProgramStats() {
+        requireUserId();
+        return super.respond(controller.getBlastProgramStats());
+    }
 }
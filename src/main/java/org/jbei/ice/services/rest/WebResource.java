@@ -1,5 +1,7 @@
 package org.jbei.ice.services.rest;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.ConfigurationKey;
 import org.jbei.ice.lib.dto.FeaturedDNASequence;
@@ -16,12 +18,15 @@ import org.jbei.ice.lib.net.RemoteEntriesAsCSV;
 import org.jbei.ice.lib.net.WoRController;
 import org.jbei.ice.lib.search.WebSearch;
 import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateConfiguration;
 import org.jbei.ice.storage.model.ConfigurationModel;
 
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-import java.io.File;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -189,6 +194,47 @@ public class WebResource extends RestResource {
         return super.respond(webSearch.run(query, includeLocal));
     }
 
+    /**
+     * Web of registries search that streams the results of each registry (as a line of JSON) as soon as they are
+     * available, instead of waiting for all registries to respond
+     *
+     * @param query        search query
+     * @param includeLocal whether to include results from this registry
+     * @return newline delimited JSON {@link org.jbei.ice.lib.search.WebResult}s
+     */
+    @POST
+    @Produces("application/x-ndjson")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Path("/entries/stream")
+    public Response streamWebEntries(final SearchQuery query,
+                                     @DefaultValue("true") @QueryParam("includeLocal") boolean includeLocal) {
+        requireUserId();
+        StreamingOutput stream = outputStream -> {
+            Gson gson = new GsonBuilder().create();
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            try {
+                HibernateConfiguration.beginTransaction();
+                new WebSearch().run(query, includeLocal, result -> {
+                    try {
+                        writer.write(gson.toJson(result));
+                        writer.write("\n");
+                        writer.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                HibernateConfiguration.commitTransaction();
+            } catch (UncheckedIOException e) {
+                HibernateConfiguration.rollbackTransaction();
+                Logger.warn("Web search stream closed by client: " + e.getMessage());
+            } catch (RuntimeException e) {
+                HibernateConfiguration.rollbackTransaction();
+                throw e;
+            }
+        };
+        return Response.ok(stream).build();
+    }
+
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
@@ -1,6 +1,7 @@
 package org.jbei.ice.services.rest.multipart;
 
 import org.glassfish.jersey.media.multipart.MultiPartFeature;
+import org.glassfish.jersey.message.GZipEncoder;
 import org.jbei.ice.services.rest.AuthenticationInterceptor;
 import org.jbei.ice.services.rest.FileResource;
 
@@ -20,6 +21,9 @@ public class IceApplication extends Application {
         classes.add(MultiPartFeature.class);
         classes.add(FileResource.class);
         classes.add(AuthenticationInterceptor.class);
+
+        // decodes gzip request bodies, and encodes the responses that CompressionFilter selects
+        classes.add(GZipEncoder.class);
         return classes;
     }
 }
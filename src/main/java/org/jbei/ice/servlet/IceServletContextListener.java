@@ -2,7 +2,12 @@ package org.jbei.ice.servlet;
 
 import org.jbei.ice.ApplicationInitialize;
 import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.config.ConfigurationCache;
+import org.jbei.ice.lib.entry.ReadAuditQueue;
+import org.jbei.ice.lib.entry.sequence.annotation.AutoAnnotationBlastDbScheduler;
 import org.jbei.ice.lib.executor.IceExecutorService;
+import org.jbei.ice.lib.search.blast.BlastIndexUpdateQueue;
+import org.jbei.ice.services.rest.RestClientPool;
 import org.jbei.ice.storage.hibernate.HibernateConfiguration;
 
 import javax.servlet.ServletContextEvent;
@@ -36,8 +41,13 @@ public class IceServletContextListener implements ServletContextListener {
     public void contextDestroyed(ServletContextEvent event) {
         Logger.info("Destroying Servlet Context");
 
-        // shutdown executor service
+        // apply pending blast database changes and shutdown executor service
+        BlastIndexUpdateQueue.getInstance().stop();
+        ReadAuditQueue.getInstance().stop();
+        AutoAnnotationBlastDbScheduler.getInstance().stop();
         IceExecutorService.getInstance().stopService();
+        ConfigurationCache.getInstance().stop();
+        RestClientPool.getInstance().close();
         HibernateConfiguration.close();
     }
 }
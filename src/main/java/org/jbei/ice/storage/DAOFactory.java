@@ -42,6 +42,8 @@ public class DAOFactory {
     private static CustomEntryFieldValueDAO customEntryFieldValueDAO;
     private static SampleCreateModelDAO sampleCreateModelDAO;
     private static SequenceFeatureAttributeDAO sequenceFeatureAttributeDAO;
+    private static UserSessionDAO userSessionDAO;
+    private static TransferChunkDAO transferChunkDAO;
 
     public static AccountDAO getAccountDAO() {
         if (accountDAO == null)
@@ -252,4 +254,16 @@ public class DAOFactory {
             sequenceFeatureAttributeDAO = new SequenceFeatureAttributeDAO();
         return sequenceFeatureAttributeDAO;
     }
+
+    public static UserSessionDAO getUserSessionDAO() {
+        if (userSessionDAO == null)
+            userSessionDAO = new UserSessionDAO();
+        return userSessionDAO;
+    }
+
+    public static TransferChunkDAO getTransferChunkDAO() {
+        if (transferChunkDAO == null)
+            transferChunkDAO = new TransferChunkDAO();
+        return transferChunkDAO;
+    }
 }
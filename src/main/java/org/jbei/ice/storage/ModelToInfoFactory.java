@@ -10,10 +10,7 @@ import org.jbei.ice.storage.model.*;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * Factory for converting {@link Entry}s to a {@link org.jbei.ice.lib.dto.entry.PartData}
@@ -259,6 +256,52 @@ public class ModelToInfoFactory {
 
 
     public static PartData createTableView(long entryId, List<String> fields) {
+        Entry entry = DAOFactory.getEntryDAO().get(entryId);
+        boolean hasSample = DAOFactory.getSampleDAO().hasSample(entry);
+        SequenceDAO sequenceDAO = DAOFactory.getSequenceDAO();
+        boolean hasSequence = sequenceDAO.hasSequence(entry.getId());
+        boolean hasOriginalSequence = sequenceDAO.hasOriginalSequence(entry.getId());
+        return createTableView(entry, fields, hasSample, hasSequence, hasOriginalSequence);
+    }
+
+    /**
+     * Bulk version of {@link #createTableView(long, List)}. Entries as well as their sample and sequence flags
+     * are retrieved using a constant number of queries irrespective of the number of ids, which makes it
+     * suitable for hydrating a page of (search) results.
+     *
+     * @param entryIds unique identifiers for entries to create table views for
+     * @param fields   optional fields to include in the table view
+     * @return map of entry id to table view, in the iteration order of <code>entryIds</code>. Ids that do not
+     * reference a valid entry are not included
+     */
+    public static Map<Long, PartData> createTableViews(List<Long> entryIds, List<String> fields) {
+        Map<Long, PartData> views = new LinkedHashMap<>();
+        if (entryIds == null || entryIds.isEmpty())
+            return views;
+
+        Map<Long, Entry> entries = new HashMap<>();
+        for (Entry entry : DAOFactory.getEntryDAO().getEntriesByIdSet(entryIds))
+            entries.put(entry.getId(), entry);
+
+        Set<Long> withSamples = DAOFactory.getSampleDAO().getEntryIdsWithSamples(entries.keySet());
+        SequenceDAO sequenceDAO = DAOFactory.getSequenceDAO();
+        Set<Long> withSequence = sequenceDAO.getEntryIdsWithSequence(entries.keySet());
+        Set<Long> withOriginalSequence = sequenceDAO.getEntryIdsWithOriginalSequence(entries.keySet());
+
+        for (Long entryId : entryIds) {
+            Entry entry = entries.get(entryId);
+            if (entry == null)
+                continue;
+
+            PartData view = createTableView(entry, fields, withSamples.contains(entryId),
+                    withSequence.contains(entryId), withOriginalSequence.contains(entryId));
+            views.put(entryId, view);
+        }
+        return views;
+    }
+
+    private static PartData createTableView(Entry entry, List<String> fields, boolean hasSample,
+                                            boolean hasSequence, boolean hasOriginalSequence) {
         Set<String> fieldsToProcess;
         if (fields == null)
             fieldsToProcess = new HashSet<>();
@@ -272,7 +315,6 @@ public class ModelToInfoFactory {
         fieldsToProcess.add("short_description");
 
         // minimum set of values
-        Entry entry = DAOFactory.getEntryDAO().get(entryId);
         EntryType type = EntryType.nameToType(entry.getRecordType());
         PartData view = new PartData(type);
         view.setId(entry.getId());
@@ -285,16 +327,15 @@ public class ModelToInfoFactory {
         view.setShortDescription(entry.getShortDescription());
 
         // has sample
-        view.setHasSample(DAOFactory.getSampleDAO().hasSample(entry));
+        view.setHasSample(hasSample);
 
         // has sequence
         Visibility visibility = Visibility.valueToEnum(entry.getVisibility());
         if (visibility == Visibility.REMOTE) {
             view.setHasSequence(entry.getLongDescriptionType().equalsIgnoreCase("sequence"));
         } else {
-            SequenceDAO sequenceDAO = DAOFactory.getSequenceDAO();
-            view.setHasSequence(sequenceDAO.hasSequence(entry.getId()));
-            view.setHasOriginalSequence(sequenceDAO.hasOriginalSequence(entry.getId()));
+            view.setHasSequence(hasSequence);
+            view.setHasOriginalSequence(hasOriginalSequence);
         }
 
         // optional values
@@ -4,12 +4,20 @@ import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
 import org.hibernate.service.ServiceRegistry;
 import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.folder.collection.CollectionCountsListener;
+import org.jbei.ice.storage.hibernate.search.AccessChangeListener;
 import org.jbei.ice.storage.model.*;
 
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
 import java.nio.file.Path;
 import java.util.Properties;
+import java.util.function.Consumer;
 
 /**
  * Helper class to Initialize Hibernate, and obtain new sessions.
@@ -58,6 +66,30 @@ public class HibernateConfiguration {
             sessionFactory.getCurrentSession().getTransaction().commit();
     }
 
+    /**
+     * Registers a callback to run once the current transaction completes. The callback runs immediately if there
+     * is no active transaction
+     *
+     * @param callback called with <code>true</code> if the transaction committed, <code>false</code> otherwise
+     */
+    public static void afterCompletion(Consumer<Boolean> callback) {
+        if (sessionFactory == null || !sessionFactory.getCurrentSession().getTransaction().isActive()) {
+            callback.accept(true);
+            return;
+        }
+
+        sessionFactory.getCurrentSession().getTransaction().registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status == Status.STATUS_COMMITTED);
+            }
+        });
+    }
+
     /**
      * Configure the database using the (optional) connection properties
      *
@@ -94,6 +126,29 @@ public class HibernateConfiguration {
         configuration.configure();
         addAnnotatedClasses(configuration);
         sessionFactory = configuration.buildSessionFactory(serviceRegistry);
+        registerListeners();
+    }
+
+    // invalidates cached search security filter inputs on changes to access
+    private static void registerListeners() {
+        EventListenerRegistry registry = ((SessionFactoryImplementor) sessionFactory).getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        AccessChangeListener listener = new AccessChangeListener();
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, listener);
+
+        // invalidates cached collection counts on changes to entries or access
+        CollectionCountsListener countsListener = new CollectionCountsListener();
+        registry.appendListeners(EventType.POST_INSERT, countsListener);
+        registry.appendListeners(EventType.POST_UPDATE, countsListener);
+        registry.appendListeners(EventType.POST_DELETE, countsListener);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, countsListener);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, countsListener);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, countsListener);
     }
 
     private static void configurePostgresDb(Configuration configuration, Properties properties, String dbPath) {
@@ -177,6 +232,8 @@ public class HibernateConfiguration {
         configuration.addAnnotatedClass(CustomEntryFieldValueModel.class);
         configuration.addAnnotatedClass(SequenceHistoryModel.class);
         configuration.addAnnotatedClass(SampleCreateModel.class);
+        configuration.addAnnotatedClass(UserSessionModel.class);
+        configuration.addAnnotatedClass(TransferChunkModel.class);
     }
 
     public static void rollbackTransaction() {
@@ -1,5 +1,7 @@
 package org.jbei.ice.storage.hibernate.dao;
 
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.storage.DAOException;
 import org.jbei.ice.storage.hibernate.HibernateRepository;
@@ -9,7 +11,9 @@ import org.jbei.ice.storage.model.Entry;
 import javax.persistence.criteria.CriteriaDelete;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Accessor for {@link Audit} objects
@@ -18,6 +22,8 @@ import java.util.List;
  */
 public class AuditDAO extends HibernateRepository<Audit> {
 
+    private static final int BATCH_SIZE = 20;   // matches hibernate.jdbc.batch_size
+
     /**
      * Retrieves audit referenced by unique identifier
      *
@@ -56,6 +62,42 @@ public class AuditDAO extends HibernateRepository<Audit> {
         }
     }
 
+    /**
+     * Creates audits in batches, flushing the session after each batch of inserts. Audits for entries that no
+     * longer exist are skipped. Only the inserts are batched; ids are still fetched from the audit sequence one
+     * at a time (allocation size 1) as the audits are saved
+     *
+     * @param audits map of entry id to audits for that entry. The entry is set on each audit that is created
+     * @return number of audits created
+     */
+    public int createAll(Map<Long, List<Audit>> audits) {
+        try {
+            Session session = currentSession();
+            List<Entry> entries = session.byMultipleIds(Entry.class).multiLoad(new ArrayList<>(audits.keySet()));
+            int count = 0;
+            for (Entry entry : entries) {
+                if (entry == null)
+                    continue;
+
+                for (Audit audit : audits.get(entry.getId())) {
+                    audit.setEntry(entry);
+                    session.save(audit);
+                    count += 1;
+                    if (count % BATCH_SIZE == 0) {
+                        session.flush();
+                        session.clear();
+                    }
+                }
+            }
+            session.flush();
+            session.clear();
+            return count;
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
     public int deleteAll(Entry entry) {
         try {
             CriteriaDelete<Audit> query = getBuilder().createCriteriaDelete(Audit.class);
@@ -7,6 +7,7 @@ import org.jbei.ice.storage.DAOException;
 import org.jbei.ice.storage.hibernate.HibernateRepository;
 import org.jbei.ice.storage.model.ConfigurationModel;
 
+import javax.persistence.LockModeType;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
 
@@ -44,5 +45,38 @@ public class ConfigurationDAO extends HibernateRepository<ConfigurationModel> {
             throw new DAOException("Failed to get Configuration using key: " + key, e);
         }
     }
-}
 
+    /**
+     * Increments the numeric value of the configuration with the given key, creating it (with a value of 1) if it
+     * does not exist. The row is locked for the remainder of the transaction so concurrent increments are serialized
+     *
+     * @param key unique configuration key
+     * @return incremented value
+     */
+    public long increment(String key) {
+        try {
+            CriteriaQuery<ConfigurationModel> query = getBuilder().createQuery(ConfigurationModel.class);
+            Root<ConfigurationModel> root = query.from(ConfigurationModel.class);
+            query.where(getBuilder().equal(root.get("key"), key));
+            ConfigurationModel model = currentSession().createQuery(query)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE).uniqueResult();
+            if (model == null) {
+                currentSession().save(new ConfigurationModel(key, "1"));
+                return 1;
+            }
+
+            long value;
+            try {
+                value = Long.parseLong(model.getValue().trim()) + 1;
+            } catch (NumberFormatException e) {
+                value = 1;
+            }
+            model.setValue(Long.toString(value));
+            currentSession().update(model);
+            return value;
+        } catch (HibernateException e) {
+            Logger.error(e);
+            throw new DAOException("Failed to increment configuration value for key: " + key, e);
+        }
+    }
+}
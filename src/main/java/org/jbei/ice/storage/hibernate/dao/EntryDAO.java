@@ -1,6 +1,7 @@
 package org.jbei.ice.storage.hibernate.dao;
 
 import org.hibernate.HibernateException;
+import org.hibernate.Session;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.entry.AutoCompleteField;
 import org.jbei.ice.lib.dto.entry.EntryType;
@@ -45,6 +46,32 @@ public class EntryDAO extends HibernateRepository<Entry> {
         }
     }
 
+    /**
+     * Retrieves the short descriptions (summaries) of the specified entries in a single query
+     *
+     * @param ids unique identifiers for entries
+     * @return map of entry id to its summary. Entries without a summary are not included
+     */
+    public Map<Long, String> getEntrySummaries(Collection<Long> ids) {
+        Map<Long, String> summaries = new HashMap<>();
+        if (ids == null || ids.isEmpty())
+            return summaries;
+
+        try {
+            CriteriaQuery<Object[]> query = getBuilder().createQuery(Object[].class);
+            Root<Entry> from = query.from(Entry.class);
+            query.multiselect(from.get("id"), from.get("shortDescription")).where(from.get("id").in(ids));
+            for (Object[] result : currentSession().createQuery(query).list()) {
+                if (result[1] != null)
+                    summaries.put((Long) result[0], (String) result[1]);
+            }
+            return summaries;
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
     public List<String> getMatchingPlasmidField(AutoCompleteField field, String token, int limit) {
         String fieldString;
         switch (field) {
@@ -713,6 +740,49 @@ public class EntryDAO extends HibernateRepository<Entry> {
         }
     }
 
+    /**
+     * Retrieves the parents of the specified entries. This is the bulk equivalent of {@link #getParents(long)}
+     * that only retrieves the id and part number of each parent
+     *
+     * @param entryIds unique identifiers for entries
+     * @return map of entry id to the ids and part numbers of its parents, for entries that have parents
+     */
+    public Map<Long, Map<Long, String>> getParentPartNumbers(Collection<Long> entryIds) {
+        try {
+            CriteriaQuery<Object[]> query = getBuilder().createQuery(Object[].class);
+            Root<Entry> from = query.from(Entry.class);
+            Join<Entry, Entry> linked = from.join("linkedEntries");
+            query.multiselect(linked.get("id"), from.get("id"), from.get("partNumber"))
+                    .where(linked.get("id").in(entryIds))
+                    .orderBy(getBuilder().asc(from.get("id")));
+            Map<Long, Map<Long, String>> parents = new HashMap<>();
+            for (Object[] result : currentSession().createQuery(query).list()) {
+                parents.computeIfAbsent((Long) result[0], k -> new LinkedHashMap<>()).put((Long) result[1], (String) result[2]);
+            }
+            return parents;
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    /**
+     * Removes the specified entries from the session, so that they (and their loaded associations) can be garbage
+     * collected when reading a large number of entries. Changes to the entries that have not been flushed are lost
+     *
+     * @param entries entries to remove from the session
+     */
+    public void evict(Collection<Entry> entries) {
+        try {
+            Session session = currentSession();
+            for (Entry entry : entries)
+                session.evict(entry);
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
     public int getDeletedCount(String ownerUserId) {
         try {
             CriteriaQuery<Long> query = getBuilder().createQuery(Long.class);
@@ -744,7 +814,7 @@ public class EntryDAO extends HibernateRepository<Entry> {
         try {
             CriteriaQuery<String> query = getBuilder().createQuery(String.class);
             Root<Entry> from = query.from(Entry.class);
-            query.select(from.get("recordType")).where(from.get("id").in(list));
+            query.select(from.get("recordType")).distinct(true).where(from.get("id").in(list));
             return currentSession().createQuery(query).list();
         } catch (HibernateException e) {
             Logger.error(e);
@@ -752,6 +822,26 @@ public class EntryDAO extends HibernateRepository<Entry> {
         }
     }
 
+    /**
+     * @param ids unique identifiers for entries
+     * @return most recent modification time of the specified entries, or null if none of the entries exist
+     * @throws DAOException on HibernateException
+     */
+    public Date getLastModificationTime(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty())
+            return null;
+
+        try {
+            CriteriaQuery<Date> query = getBuilder().createQuery(Date.class);
+            Root<Entry> from = query.from(Entry.class);
+            query.select(getBuilder().greatest(from.<Date>get("modificationTime"))).where(from.get("id").in(ids));
+            return currentSession().createQuery(query).uniqueResult();
+        } catch (HibernateException e) {
+            Logger.error(e);
+            throw new DAOException(e);
+        }
+    }
+
     public List<Long> filterByUserId(String userId, List<Long> entries) {
         try {
             CriteriaQuery<Long> query = getBuilder().createQuery(Long.class);
@@ -765,6 +855,27 @@ public class EntryDAO extends HibernateRepository<Entry> {
         }
     }
 
+    /**
+     * Filters the specified entries, retaining those that are owned by the specified user (or that have no owner)
+     *
+     * @param userId  unique identifier for user
+     * @param entries list of entry ids to filter
+     * @return ids of entries (from the specified list) that the user owns
+     */
+    public List<Long> getOwnedEntryIds(String userId, Collection<Long> entries) {
+        try {
+            CriteriaQuery<Long> query = getBuilder().createQuery(Long.class);
+            Root<Entry> from = query.from(Entry.class);
+            query.select(from.get("id")).where(from.get("id").in(entries), getBuilder().or(
+                    getBuilder().isNull(from.get("ownerEmail")),
+                    getBuilder().equal(getBuilder().lower(from.get("ownerEmail")), userId.toLowerCase())));
+            return currentSession().createQuery(query).list();
+        } catch (HibernateException e) {
+            Logger.error(e);
+            throw new DAOException(e);
+        }
+    }
+
     public List<Entry> getMatching(String name, String alias, EntryType type) {
         try {
             CriteriaQuery<Entry> query = getBuilder().createQuery(Entry.class);
@@ -80,6 +80,29 @@ public class FeatureDAO extends HibernateRepository<Feature> {
         }
     }
 
+    /**
+     * Keyset paging alternative to {@link #getFeatures(int, int, String)}. Retrieves (in increasing order of id) up
+     * to <code>limit</code> named features whose id is greater than <code>afterId</code>
+     *
+     * @param afterId id of last feature retrieved in the previous page. Use 0 to start from the beginning
+     * @param limit   maximum number of features to retrieve
+     * @return list of features. An empty list indicates there are no more features
+     * @throws DAOException on Hibernate Exception
+     */
+    public List<Feature> getFeatures(long afterId, int limit) {
+        try {
+            CriteriaQuery<Feature> query = getBuilder().createQuery(Feature.class);
+            Root<Feature> from = query.from(Feature.class);
+            query.where(getBuilder().greaterThan(from.get("id"), afterId),
+                    getBuilder().isNotNull(from.get("name")), getBuilder().notEqual(from.get("name"), ""));
+            query.orderBy(getBuilder().asc(from.get("id")));
+            return currentSession().createQuery(query).setMaxResults(limit).list();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
     public long getFeaturesGroupByCount() {
         try {
             CriteriaQuery<Long> query = getBuilder().createQuery(Long.class);
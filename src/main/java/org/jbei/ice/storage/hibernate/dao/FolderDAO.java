@@ -389,6 +389,27 @@ public class FolderDAO extends HibernateRepository<Folder> {
         }
     }
 
+    /**
+     * Filters the specified entries, retaining those that are contained in at least one folder of the specified type
+     *
+     * @param type    type of folder
+     * @param entries list of entry ids to filter
+     * @return ids of entries (from the specified list) that are in a folder of the specified type
+     */
+    public List<Long> getEntryIdsInFolderType(FolderType type, Collection<Long> entries) {
+        try {
+            CriteriaQuery<Long> query = getBuilder().createQuery(Long.class);
+            Root<Folder> from = query.from(Folder.class);
+            Join<Folder, Entry> entry = from.join("contents");
+            query.select(entry.get("id")).distinct(true)
+                    .where(getBuilder().equal(from.get("type"), type), entry.get("id").in(entries));
+            return currentSession().createQuery(query).list();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
     /**
      * Retrieves distinct list of types for the entries contained in the folder
      *
@@ -11,10 +11,7 @@ import org.jbei.ice.storage.hibernate.HibernateRepository;
 import org.jbei.ice.storage.model.*;
 
 import javax.persistence.criteria.*;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * {@link Permission} data accessor Object
@@ -324,6 +321,75 @@ public class PermissionDAO extends HibernateRepository<Permission> {
         }
     }
 
+    /**
+     * Retrieves the permissions that the specified account or groups have been explicitly granted on any of the
+     * specified entries
+     *
+     * @param entries list of entry ids
+     * @param account account whose permissions are retrieved. Can be null
+     * @param groups  groups whose permissions are retrieved. Can be null or empty
+     * @return map of ids (of the entries that have a matching permission) to whether the permission allows write
+     */
+    public Map<Long, Boolean> getEntryPermissions(Collection<Long> entries, Account account, Collection<Group> groups) {
+        try {
+            CriteriaQuery<Object[]> query = getBuilder().createQuery(Object[].class);
+            Root<Permission> from = query.from(Permission.class);
+            Join<Permission, Entry> entry = from.join("entry");
+            query.multiselect(entry.get("id"), from.get("canWrite")).distinct(true);
+            query.where(entry.get("id").in(entries), getAccountOrGroupPredicate(from, account, groups));
+            return toPermissionMap(currentSession().createQuery(query).list());
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    /**
+     * Retrieves the permissions that the specified account or groups have on any of the specified entries
+     * through folders that the entries are contained in
+     *
+     * @param entries list of entry ids
+     * @param account account whose folder permissions are retrieved. Can be null
+     * @param groups  groups whose folder permissions are retrieved. Can be null or empty
+     * @return map of ids (of the entries that are in a folder with a matching permission) to whether the permission
+     * allows write
+     */
+    public Map<Long, Boolean> getFolderEntryPermissions(Collection<Long> entries, Account account,
+                                                        Collection<Group> groups) {
+        try {
+            CriteriaQuery<Object[]> query = getBuilder().createQuery(Object[].class);
+            Root<Permission> from = query.from(Permission.class);
+            Join<Permission, Folder> folder = from.join("folder");
+            Join<Folder, Entry> entry = folder.join("contents");
+            query.multiselect(entry.get("id"), from.get("canWrite")).distinct(true);
+            query.where(entry.get("id").in(entries), getAccountOrGroupPredicate(from, account, groups));
+            return toPermissionMap(currentSession().createQuery(query).list());
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    private Predicate getAccountOrGroupPredicate(Root<Permission> from, Account account, Collection<Group> groups) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (account != null)
+            predicates.add(getBuilder().equal(from.get("account"), account));
+        if (groups != null && !groups.isEmpty())
+            predicates.add(from.get("group").in(groups));
+        if (predicates.isEmpty())
+            return getBuilder().disjunction();
+        return getBuilder().or(predicates.toArray(new Predicate[0]));
+    }
+
+    // entry id -> can write (true if any of the permissions for the entry allows write)
+    private Map<Long, Boolean> toPermissionMap(List<Object[]> results) {
+        Map<Long, Boolean> permissions = new HashMap<>();
+        for (Object[] result : results) {
+            permissions.merge((Long) result[0], (Boolean) result[1], Boolean::logicalOr);
+        }
+        return permissions;
+    }
+
     public Permission get(String userId, RemotePartner remotePartner, Folder folder) {
         try {
             CriteriaQuery<Permission> query = getBuilder().createQuery(Permission.class);
@@ -9,8 +9,12 @@ import org.jbei.ice.storage.model.Sample;
 import org.jbei.ice.storage.model.Storage;
 
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Root;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @author Hector Plahar
@@ -30,6 +34,29 @@ public class SampleDAO extends HibernateRepository<Sample> {
         }
     }
 
+    /**
+     * Determines which of the specified entries have at least one sample associated with them, using a single query
+     *
+     * @param entryIds unique identifiers for entries to check
+     * @return subset of <code>entryIds</code> that have samples
+     * @throws DAOException on HibernateException
+     */
+    public Set<Long> getEntryIdsWithSamples(Collection<Long> entryIds) {
+        if (entryIds == null || entryIds.isEmpty())
+            return new HashSet<>();
+
+        try {
+            CriteriaQuery<Long> query = getBuilder().createQuery(Long.class);
+            Root<Sample> from = query.from(Sample.class);
+            Join<Sample, Entry> entry = from.join("entry");
+            query.select(entry.get("id")).distinct(true).where(entry.get("id").in(entryIds));
+            return new HashSet<>(currentSession().createQuery(query).list());
+        } catch (HibernateException e) {
+            Logger.error(e);
+            throw new DAOException(e);
+        }
+    }
+
     public int getSampleCount(Entry entry) {
         try {
             CriteriaQuery<Long> query = getBuilder().createQuery(Long.class);
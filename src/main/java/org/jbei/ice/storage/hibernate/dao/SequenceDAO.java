@@ -12,7 +12,7 @@ import org.jbei.ice.storage.model.Sequence;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Root;
-import java.util.Optional;
+import java.util.*;
 
 /**
  * Manipulate {@link Sequence} and associated objects in the database.
@@ -88,6 +88,111 @@ public class SequenceDAO extends HibernateRepository<Sequence> {
         }
     }
 
+    /**
+     * Determines which of the specified entries have a sequence associated with them, using a single query
+     *
+     * @param entryIds unique identifiers for entries to check
+     * @return subset of <code>entryIds</code> that have a sequence
+     * @throws DAOException on HibernateException
+     */
+    public Set<Long> getEntryIdsWithSequence(Collection<Long> entryIds) {
+        if (entryIds == null || entryIds.isEmpty())
+            return new HashSet<>();
+
+        try {
+            CriteriaQuery<Long> query = getBuilder().createQuery(Long.class);
+            Root<Sequence> from = query.from(Sequence.class);
+            Join<Sequence, Entry> entry = from.join("entry");
+            query.select(entry.get("id")).distinct(true).where(entry.get("id").in(entryIds));
+            return new HashSet<>(currentSession().createQuery(query).list());
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    /**
+     * Determines which of the specified entries have a sequence file that was originally uploaded by the user.
+     * This is the bulk equivalent of {@link #hasOriginalSequence(long)}
+     *
+     * @param entryIds unique identifiers for entries to check
+     * @return subset of <code>entryIds</code> that have an original sequence
+     * @throws DAOException on HibernateException
+     */
+    public Set<Long> getEntryIdsWithOriginalSequence(Collection<Long> entryIds) {
+        if (entryIds == null || entryIds.isEmpty())
+            return new HashSet<>();
+
+        try {
+            CriteriaQuery<Long> query = getBuilder().createQuery(Long.class);
+            Root<Sequence> from = query.from(Sequence.class);
+            Join<Sequence, Entry> entry = from.join("entry");
+            query.select(entry.get("id")).distinct(true).where(
+                    entry.get("id").in(entryIds),
+                    getBuilder().notEqual(from.get("sequenceUser"), ""),
+                    getBuilder().isNotNull(from.get("sequenceUser")));
+            return new HashSet<>(currentSession().createQuery(query).list());
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    /**
+     * Retrieves the file names of the sequences of the specified entries, using a single query
+     *
+     * @param entryIds unique identifiers for entries
+     * @return map of entry id to the file name of the entry's sequence (which can be null), for entries that have a
+     * sequence
+     * @throws DAOException on HibernateException
+     */
+    public Map<Long, String> getSequenceFileNames(Collection<Long> entryIds) {
+        Map<Long, String> fileNames = new HashMap<>();
+        if (entryIds == null || entryIds.isEmpty())
+            return fileNames;
+
+        try {
+            CriteriaQuery<Object[]> query = getBuilder().createQuery(Object[].class);
+            Root<Sequence> from = query.from(Sequence.class);
+            Join<Sequence, Entry> entry = from.join("entry");
+            query.multiselect(entry.get("id"), from.get("fileName")).where(entry.get("id").in(entryIds));
+            for (Object[] result : currentSession().createQuery(query).list()) {
+                fileNames.put((Long) result[0], (String) result[1]);
+            }
+            return fileNames;
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    /**
+     * Retrieves the identifiers of the sequences of the specified entries, using a single query
+     *
+     * @param entryIds unique identifiers for entries
+     * @return map of entry id to the id of the entry's sequence, for entries that have a sequence
+     * @throws DAOException on HibernateException
+     */
+    public Map<Long, Long> getSequenceIds(Collection<Long> entryIds) {
+        Map<Long, Long> sequenceIds = new HashMap<>();
+        if (entryIds == null || entryIds.isEmpty())
+            return sequenceIds;
+
+        try {
+            CriteriaQuery<Object[]> query = getBuilder().createQuery(Object[].class);
+            Root<Sequence> from = query.from(Sequence.class);
+            Join<Sequence, Entry> entry = from.join("entry");
+            query.multiselect(entry.get("id"), from.get("id")).where(entry.get("id").in(entryIds));
+            for (Object[] result : currentSession().createQuery(query).list()) {
+                sequenceIds.put((Long) result[0], (Long) result[1]);
+            }
+            return sequenceIds;
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
     public String getSequenceFilename(Entry entry) {
         try {
             CriteriaQuery<String> query = getBuilder().createQuery(String.class);
@@ -152,6 +257,41 @@ public class SequenceDAO extends HibernateRepository<Sequence> {
         }
     }
 
+    /**
+     * Keyset paging alternative to {@link #getSequence(int)}. Retrieves (in increasing order of id) up to
+     * <code>limit</code> sequences, for valid (visibility=9) entries, whose id is greater than <code>afterId</code>.
+     * Unlike offset based paging, the cost of retrieving a page does not depend on its position.
+     * <p>
+     * Expected usage is
+     * <code>
+     * long lastId = 0;
+     * List&lt;Sequence&gt; sequences;
+     * while (!(sequences = dao.getSequences(lastId, 100)).isEmpty()) {
+     * // do something with sequences
+     * lastId = sequences.get(sequences.size() - 1).getId();
+     * }
+     * </code>
+     *
+     * @param afterId id of last sequence retrieved in the previous page. Use 0 to start from the beginning
+     * @param limit   maximum number of sequences to retrieve
+     * @return list of sequences in increasing order of id. An empty list indicates there are no more sequences
+     * @throws DAOException on Hibernate Exception
+     */
+    public List<Sequence> getSequences(long afterId, int limit) {
+        try {
+            CriteriaQuery<Sequence> query = getBuilder().createQuery(Sequence.class);
+            Root<Sequence> from = query.from(Sequence.class);
+            Join<Sequence, Entry> entry = from.join("entry");
+            query.where(getBuilder().greaterThan(from.get("id"), afterId),
+                    getBuilder().equal(entry.get("visibility"), Visibility.OK.getValue()));
+            query.orderBy(getBuilder().asc(from.get("id")));
+            return currentSession().createQuery(query).setMaxResults(limit).list();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
     /**
      * @return number of sequences available for all valid (visibility=9) entry object
      */
@@ -10,8 +10,7 @@ import org.jbei.ice.storage.model.*;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Root;
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
 
 /**
  * Hibernate Data accessor object for {@link SequenceFeature}s
@@ -51,6 +50,35 @@ public class SequenceFeatureDAO extends HibernateRepository<SequenceFeature> {
         }
     }
 
+    /**
+     * Retrieves the strands that each of the specified features has been annotated on, in a single query.
+     * Features that are not associated with any sequence are not included in the returned map
+     *
+     * @param featureIds unique identifiers for features
+     * @return map of feature id to the set of strands (+1 or -1) it is annotated on
+     * @throws DAOException on Hibernate Exception
+     */
+    public Map<Long, Set<Integer>> getStrandsByFeature(Collection<Long> featureIds) {
+        Map<Long, Set<Integer>> strands = new HashMap<>();
+        if (featureIds == null || featureIds.isEmpty())
+            return strands;
+
+        try {
+            CriteriaQuery<Object[]> query = getBuilder().createQuery(Object[].class);
+            Root<SequenceFeature> from = query.from(SequenceFeature.class);
+            Join<SequenceFeature, Feature> feature = from.join("feature");
+            query.multiselect(feature.get("id"), from.get("strand")).distinct(true);
+            query.where(feature.get("id").in(featureIds));
+            for (Object[] result : currentSession().createQuery(query).list()) {
+                strands.computeIfAbsent((Long) result[0], k -> new HashSet<>()).add((Integer) result[1]);
+            }
+            return strands;
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
     public int getFeatureCount(Entry entry) {
         try {
             CriteriaQuery<Long> query = getBuilder().createQuery(Long.class);
@@ -0,0 +1,38 @@
+package org.jbei.ice.storage.hibernate.dao;
+
+import org.hibernate.HibernateException;
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.storage.DAOException;
+import org.jbei.ice.storage.hibernate.HibernateRepository;
+import org.jbei.ice.storage.model.TransferChunkModel;
+
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.Optional;
+
+/**
+ * Data accessor object for received {@link TransferChunkModel} objects
+ */
+public class TransferChunkDAO extends HibernateRepository<TransferChunkModel> {
+
+    @Override
+    public TransferChunkModel get(long id) {
+        return super.get(TransferChunkModel.class, id);
+    }
+
+    /**
+     * @param chunkKey idempotency key of chunk
+     * @return container that may or may not contain the received chunk with the specified key
+     */
+    public Optional<TransferChunkModel> getByKey(String chunkKey) {
+        try {
+            CriteriaQuery<TransferChunkModel> query = getBuilder().createQuery(TransferChunkModel.class);
+            Root<TransferChunkModel> from = query.from(TransferChunkModel.class);
+            query.where(getBuilder().equal(from.get("chunkKey"), chunkKey));
+            return currentSession().createQuery(query).uniqueResultOptional();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+}
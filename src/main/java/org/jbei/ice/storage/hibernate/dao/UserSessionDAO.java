@@ -0,0 +1,110 @@
+package org.jbei.ice.storage.hibernate.dao;
+
+import org.hibernate.HibernateException;
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.storage.DAOException;
+import org.jbei.ice.storage.hibernate.HibernateRepository;
+import org.jbei.ice.storage.model.UserSessionModel;
+
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Root;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Data accessor object for stored {@link UserSessionModel} objects
+ */
+public class UserSessionDAO extends HibernateRepository<UserSessionModel> {
+
+    @Override
+    public UserSessionModel get(long id) {
+        return super.get(UserSessionModel.class, id);
+    }
+
+    /**
+     * @param sessionId unique session identifier
+     * @return container that may or may not contain the session with the specified identifier
+     */
+    public Optional<UserSessionModel> getBySessionId(String sessionId) {
+        try {
+            CriteriaQuery<UserSessionModel> query = getBuilder().createQuery(UserSessionModel.class);
+            Root<UserSessionModel> from = query.from(UserSessionModel.class);
+            query.where(getBuilder().equal(from.get("sessionId"), sessionId));
+            return currentSession().createQuery(query).uniqueResultOptional();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    /**
+     * Updates the last access time of a session without loading it
+     *
+     * @param sessionId      unique session identifier
+     * @param lastAccessTime time the session was last accessed
+     * @return number of sessions updated
+     */
+    public int updateLastAccessTime(String sessionId, Date lastAccessTime) {
+        try {
+            CriteriaUpdate<UserSessionModel> update = getBuilder().createCriteriaUpdate(UserSessionModel.class);
+            Root<UserSessionModel> from = update.from(UserSessionModel.class);
+            update.set(from.get("lastAccessTime"), lastAccessTime);
+            update.where(getBuilder().equal(from.get("sessionId"), sessionId));
+            return currentSession().createQuery(update).executeUpdate();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    /**
+     * @param sessionId unique identifier of session to delete
+     * @return number of sessions deleted
+     */
+    public int deleteBySessionId(String sessionId) {
+        return delete("sessionId", sessionId);
+    }
+
+    /**
+     * @param userId unique identifier of user whose sessions are to be deleted
+     * @return number of sessions deleted
+     */
+    public int deleteByUserId(String userId) {
+        return delete("userId", userId);
+    }
+
+    /**
+     * Deletes sessions that were created or last accessed before the specified times
+     *
+     * @param createdBefore  sessions created before this time are deleted
+     * @param accessedBefore sessions last accessed before this time are deleted
+     * @return number of sessions deleted
+     */
+    public int deleteExpired(Date createdBefore, Date accessedBefore) {
+        try {
+            CriteriaDelete<UserSessionModel> delete = getBuilder().createCriteriaDelete(UserSessionModel.class);
+            Root<UserSessionModel> from = delete.from(UserSessionModel.class);
+            delete.where(getBuilder().or(
+                    getBuilder().lessThan(from.<Date>get("creationTime"), createdBefore),
+                    getBuilder().lessThan(from.<Date>get("lastAccessTime"), accessedBefore)));
+            return currentSession().createQuery(delete).executeUpdate();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    private int delete(String field, String value) {
+        try {
+            CriteriaDelete<UserSessionModel> delete = getBuilder().createCriteriaDelete(UserSessionModel.class);
+            Root<UserSessionModel> from = delete.from(UserSessionModel.class);
+            delete.where(getBuilder().equal(from.get(field), value));
+            return currentSession().createQuery(delete).executeUpdate();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.jbei.ice.storage.hibernate.search;
+
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.jbei.ice.storage.model.Account;
+import org.jbei.ice.storage.model.Folder;
+import org.jbei.ice.storage.model.Group;
+import org.jbei.ice.storage.model.Permission;
+
+/**
+ * Invalidates the {@link SearchPrincipalCache} when an entity that determines which entries a user can read
+ * (permission, group, group membership, account or folder) is changed. The cache is invalidated when the change is
+ * flushed and again once the transaction completes, so that values loaded by concurrent searches before the
+ * change is committed are not retained.
+ * <p>
+ * Changes to an account only invalidate the cached values for that account, and updates to an account are ignored
+ * unless its type (which determines administrator access) changes
+ */
+public class AccessChangeListener implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, PostCollectionRecreateEventListener, PostCollectionUpdateEventListener,
+        PostCollectionRemoveEventListener {
+
+    private static final long serialVersionUID = 1L;
+    private static final String ACCOUNT_TYPE = "type";
+    private static final String ACCOUNT_GROUPS = Account.class.getName() + ".groups";
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        checkInvalidate(event.getEntity(), event.getSession());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Account && !isDirty(event, ACCOUNT_TYPE))
+            return;
+        checkInvalidate(event.getEntity(), event.getSession());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        checkInvalidate(event.getEntity(), event.getSession());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        checkInvalidate(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        checkInvalidate(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        checkInvalidate(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private static boolean isDirty(PostUpdateEvent event, String propertyName) {
+        int[] dirty = event.getDirtyProperties();
+        if (dirty == null)
+            return true;
+
+        String[] names = event.getPersister().getPropertyNames();
+        for (int index : dirty) {
+            if (propertyName.equals(names[index]))
+                return true;
+        }
+        return false;
+    }
+
+    // the only collection of an account that determines access is its group membership
+    private void checkInvalidate(AbstractCollectionEvent event) {
+        Object owner = event.getAffectedOwnerOrNull();
+        if (owner instanceof Account && !ACCOUNT_GROUPS.equals(event.getCollection().getRole()))
+            return;
+        checkInvalidate(owner, event.getSession());
+    }
+
+    private void checkInvalidate(Object entity, EventSource session) {
+        if (entity instanceof Account) {
+            String email = ((Account) entity).getEmail();
+            SearchPrincipalCache.getInstance().invalidate(email);
+            session.getActionQueue().registerProcess((success, sessionImplementor) ->
+                    SearchPrincipalCache.getInstance().invalidate(email));
+            return;
+        }
+
+        if (!(entity instanceof Permission) && !(entity instanceof Group) && !(entity instanceof Folder))
+            return;
+
+        SearchPrincipalCache.getInstance().invalidate();
+        session.getActionQueue().registerProcess((success, sessionImplementor) ->
+                SearchPrincipalCache.getInstance().invalidate());
+    }
+}
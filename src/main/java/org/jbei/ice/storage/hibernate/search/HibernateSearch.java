@@ -2,15 +2,26 @@ package org.jbei.ice.storage.hibernate.search;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.queries.TermsQuery;
 import org.apache.lucene.search.*;
+import org.apache.lucene.uninverting.UninvertingReader;
+import org.apache.lucene.util.BytesRef;
 import org.hibernate.Session;
 import org.hibernate.search.FullTextQuery;
 import org.hibernate.search.FullTextSession;
 import org.hibernate.search.Search;
 import org.hibernate.search.engine.ProjectionConstants;
+import org.hibernate.search.exception.SearchException;
+import org.hibernate.search.filter.FullTextFilter;
 import org.hibernate.search.query.dsl.QueryBuilder;
 import org.hibernate.search.query.dsl.TermContext;
-import org.jbei.ice.lib.account.AccountController;
+import org.hibernate.search.query.engine.spi.DocumentExtractor;
+import org.hibernate.search.query.engine.spi.HSQuery;
+import org.hibernate.search.spi.SearchIntegrator;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.entry.EntryType;
 import org.jbei.ice.lib.dto.entry.PartData;
@@ -19,17 +30,20 @@ import org.jbei.ice.lib.dto.search.FieldFilter;
 import org.jbei.ice.lib.dto.search.SearchQuery;
 import org.jbei.ice.lib.dto.search.SearchResult;
 import org.jbei.ice.lib.dto.search.SearchResults;
-import org.jbei.ice.lib.folder.Folders;
-import org.jbei.ice.lib.group.GroupController;
 import org.jbei.ice.lib.search.QueryType;
 import org.jbei.ice.lib.search.filter.SearchFieldFactory;
 import org.jbei.ice.lib.shared.BioSafetyOption;
 import org.jbei.ice.lib.shared.ColumnField;
+import org.jbei.ice.lib.utils.LongList;
 import org.jbei.ice.storage.ModelToInfoFactory;
 import org.jbei.ice.storage.hibernate.HibernateConfiguration;
+import org.jbei.ice.storage.hibernate.filter.EntryHasFilterFactory;
+import org.jbei.ice.storage.hibernate.filter.EntrySecurityFilterFactory;
 import org.jbei.ice.storage.model.Entry;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Apache Lucene full text library functionality in Hibernate.
@@ -80,59 +94,12 @@ public class HibernateSearch {
     }
 
     public SearchResults executeSearchNoTerms(String userId, HashMap<String, SearchResult> blastResults, SearchQuery searchQuery) {
-        ArrayList<EntryType> entryTypes = searchQuery.getEntryTypes();
-        if (entryTypes == null || entryTypes.isEmpty()) {
-            entryTypes = new ArrayList<>(Arrays.asList(EntryType.values()));
-        }
-
         try (Session session = HibernateConfiguration.newSession()) {
             FullTextSession fullTextSession = Search.getFullTextSession(session);
-            BooleanQuery.Builder builder = new BooleanQuery.Builder();
-            QueryBuilder qb = fullTextSession.getSearchFactory().buildQueryBuilder().forEntity(Entry.class).get();
-
-            ArrayList<Query> except = new ArrayList<>();
-            for (EntryType type : EntryType.values()) {
-                if (entryTypes.contains(type))
-                    continue;
-
-                except.add(qb.keyword().onField("recordType").matching(type.getName()).createQuery());
-            }
-
-            // add terms for record types
-            Query[] queries = new Query[]{};
-            Query recordTypeQuery = qb.all().except(except.toArray(queries)).createQuery();
-            builder.add(recordTypeQuery, BooleanClause.Occur.FILTER);
-
-            // visibility
-            Query visibilityQuery = qb.keyword().onField("visibility").matching(Visibility.OK.getValue()).createQuery();
-            builder.add(visibilityQuery, BooleanClause.Occur.FILTER);
-
-            // bio safety level
-            BioSafetyOption option = searchQuery.getBioSafetyOption();
-            if (option != null) {
-                TermContext bslContext = qb.keyword();
-                Query biosafetyQuery =
-                        bslContext.onField("bioSafetyLevel").ignoreFieldBridge().matching(option.getIntValue()).createQuery();
-                builder.add(biosafetyQuery, BooleanClause.Occur.FILTER);
-            }
-
-            // check filter filters
-            if (searchQuery.getFieldFilters() != null && !searchQuery.getFieldFilters().isEmpty()) {
-                for (FieldFilter fieldFilter : searchQuery.getFieldFilters()) {
-                    String searchField = SearchFieldFactory.searchFieldForEntryField(fieldFilter.getField());
-                    if (StringUtils.isEmpty(searchField))
-                        continue;
-
-                    Query filterQuery = qb.keyword().onField(searchField).matching(fieldFilter.getFilter()).createQuery();
-                    builder.add(filterQuery, BooleanClause.Occur.MUST);
-                }
-            }
-
-            // check if there is a blast results
-            createBlastFilterQuery(fullTextSession, blastResults, builder);
+            Query query = createNoTermsQuery(fullTextSession, searchQuery, blastResults);
 
             // wrap Lucene query in a org.hibernate.Query
-            FullTextQuery fullTextQuery = fullTextSession.createFullTextQuery(builder.build(), Entry.class);
+            FullTextQuery fullTextQuery = fullTextSession.createFullTextQuery(query, Entry.class);
 
             // get sorting values
             Sort sort = getSort(searchQuery.getParameters().isSortAscending(), searchQuery.getParameters().getSortField());
@@ -140,21 +107,23 @@ public class HibernateSearch {
             fullTextQuery.setProjection(ProjectionConstants.ID, "owner");
 
             // enable security filter if needed
-            checkEnableSecurityFilter(userId, fullTextQuery);
+            checkEnableSecurityFilter(userId, fullTextQuery::enableFullTextFilter);
 
             // enable has attachment/sequence/sample (if needed)
-            checkEnableHasAttribute(fullTextQuery, searchQuery.getParameters());
+            checkEnableHasAttribute(fullTextQuery::enableFullTextFilter, searchQuery.getParameters());
 
             // set paging params
             fullTextQuery.setFirstResult(searchQuery.getParameters().getStart());
             fullTextQuery.setMaxResults(searchQuery.getParameters().getRetrieveCount());
 
-            int resultCount = fullTextQuery.getResultSize();
+            // result size is retained from the list query, so it does not require another search
             List<?> result = fullTextQuery.list();
+            int resultCount = fullTextQuery.getResultSize();
 
             LinkedList<SearchResult> searchResults = new LinkedList<>();
 
             // since we are using projection, result is an arraylist of objects
+            Map<Long, PartData> views = createTableViews(result, 0, blastResults);
             for (Object object : result) {
                 Object[] objects = (Object[]) object;
                 long entryId = (Long) objects[0];
@@ -164,9 +133,12 @@ public class HibernateSearch {
                     if (searchResult == null) // this should not really happen since we already filter
                         continue;
                 } else {
+                    PartData info = views.get(entryId);
+                    if (info == null)
+                        continue;
+
                     searchResult = new SearchResult();
                     searchResult.setScore(1f);
-                    PartData info = ModelToInfoFactory.createTableView(entryId, null);
                     info.setOwner((String) objects[1]);
                     searchResult.setEntryInfo(info);
                 }
@@ -204,19 +176,9 @@ public class HibernateSearch {
             QueryBuilder qb = fullTextSession.getSearchFactory().buildQueryBuilder().forEntity(Entry.class).get();
             Query query = qb.keyword().onField("visibility").matching(Visibility.OK.getValue()).createQuery();
 
-            // todo : there is a limit of 1024 boolean clauses so return only return top blast results
             BooleanQuery.Builder builder = new BooleanQuery.Builder();
             builder.add(query, BooleanClause.Occur.FILTER);
-
-            // wrap Lucene query in a org.hibernate.Query
-            Class<?>[] classes = SearchFieldFactory.classesForTypes(searchQuery.getEntryTypes());
-            FullTextQuery fullTextQuery = fullTextSession.createFullTextQuery(builder.build(), classes);
-
-            // enable security filter if an admin
-            checkEnableSecurityFilter(userId, fullTextQuery);
-
-            // enable has attachment/sequence/sample (if needed)
-            checkEnableHasAttribute(fullTextQuery, searchQuery.getParameters());
+            builder.add(createIdSetQuery(blastResults.keySet()), BooleanClause.Occur.FILTER);
 
             // bio-safety level
             if (searchQuery.getBioSafetyOption() != null) {
@@ -226,25 +188,34 @@ public class HibernateSearch {
                 builder.add(biosafetyQuery, BooleanClause.Occur.MUST);
             }
 
+            // wrap Lucene query in a org.hibernate.Query
+            Class<?>[] classes = SearchFieldFactory.classesForTypes(searchQuery.getEntryTypes());
+            FullTextQuery fullTextQuery = fullTextSession.createFullTextQuery(builder.build(), classes);
+
+            // enable security filter if an admin
+            checkEnableSecurityFilter(userId, fullTextQuery::enableFullTextFilter);
+
+            // enable has attachment/sequence/sample (if needed)
+            checkEnableHasAttribute(fullTextQuery::enableFullTextFilter, searchQuery.getParameters());
+
             // execute search
             fullTextQuery.setProjection("id");
 
             // list contains an object array with one Long object
             List<?> luceneResult = fullTextQuery.list();
             HashSet<String> resultSet = new HashSet<>();
-
-            // page
             for (Object object : luceneResult) {
                 Long result = (Long) ((Object[]) object)[0];
                 resultSet.add(result.toString());
             }
 
+            // blast results are in order of significance
             blastResults.keySet().removeIf(key -> !resultSet.contains(key));
 
             SearchResult[] searchResults = new SearchResult[count];
             int limit = Math.min((start + count), blastResults.size());
             LinkedList<SearchResult> list = new LinkedList<>(Arrays.asList(blastResults.values().toArray(searchResults))
-                    .subList(start, limit));
+                    .subList(Math.min(start, limit), limit));
 
             SearchResults results = new SearchResults();
             results.setResultCount(blastResults.size());
@@ -253,71 +224,65 @@ public class HibernateSearch {
         }
     }
 
-    @SuppressWarnings("unchecked")
     public SearchResults executeSearch(String userId, HashMap<String, QueryType> terms,
                                        SearchQuery searchQuery,
                                        HashMap<String, SearchResult> blastResults) {
         try (Session session = HibernateConfiguration.newSession()) {
+            long queryStart = System.currentTimeMillis();
             int resultCount;
             FullTextSession fullTextSession = Search.getFullTextSession(session);
-            BooleanQuery.Builder builder = new BooleanQuery.Builder();
 
             // get classes for search
-            HashSet<String> fields = new HashSet<>(SearchFieldFactory.entryFields(searchQuery.getEntryTypes()));
             Class<?>[] classes = SearchFieldFactory.classesForTypes(searchQuery.getEntryTypes());
 
-            // generate queries for terms filtering stop words
-            for (Map.Entry<String, QueryType> entry : terms.entrySet()) {
-                String term = cleanQuery(entry.getKey());
-                if (term.trim().isEmpty() || StandardAnalyzer.STOP_WORDS_SET.contains(term.toLowerCase()))
-                    continue;
+            // query is executed directly against the search engine in order to retrieve the total number of hits,
+            // max score and requested page in a single pass over the index
+            HSQuery hsQuery = fullTextSession.getSearchFactory().unwrap(SearchIntegrator.class)
+                    .createHSQuery(createTermsQuery(fullTextSession, terms, searchQuery, blastResults), classes);
 
-                BioSafetyOption safetyOption = searchQuery.getBioSafetyOption();
-                generateQueriesForType(fullTextSession, fields, builder, term, entry.getValue(), safetyOption);
-            }
-
-            // check for blast search results filter
-            createBlastFilterQuery(fullTextSession, blastResults, builder);
-
-            // wrap Lucene query in a org.hibernate.Query
-            FullTextQuery fullTextQuery = fullTextSession.createFullTextQuery(builder.build(), classes);
-
-            // get max score
-            fullTextQuery.setFirstResult(0);
-            fullTextQuery.setMaxResults(1);
-            fullTextQuery.setProjection(FullTextQuery.SCORE);
-            List<?> result = fullTextQuery.list();
-            float maxScore = -1f;
-            if (result.size() == 1) {
-                maxScore = (Float) ((Object[]) (result.get(0)))[0];
-            }
-            // end get max score
-
-            // get sorting values
+            // get sorting values. No sort is set for descending relevance (the default) since (unlike sorting by
+            // fields) collecting hits by score also tracks the max score
+            boolean scoreOrder = searchQuery.getParameters().getSortField() == ColumnField.RELEVANCE
+                    && !searchQuery.getParameters().isSortAscending();
             Sort sort = getSort(searchQuery.getParameters().isSortAscending(), searchQuery.getParameters().getSortField());
-            fullTextQuery.setSort(sort);
+            hsQuery.sort(scoreOrder ? null : sort);
 
             // projection (specified properties must be stored in the index @Field(store=Store.YES))
-            fullTextQuery.setProjection(FullTextQuery.SCORE, FullTextQuery.ID, "owner");
+            hsQuery.projection(ProjectionConstants.SCORE, ProjectionConstants.ID, "owner");
 
             // enable security filter if needed
-            checkEnableSecurityFilter(userId.toLowerCase(), fullTextQuery);
+            checkEnableSecurityFilter(userId.toLowerCase(), hsQuery::enableFullTextFilter);
 
             // check sample
-            checkEnableHasAttribute(fullTextQuery, searchQuery.getParameters());
+            checkEnableHasAttribute(hsQuery::enableFullTextFilter, searchQuery.getParameters());
 
-            // set paging params
-            fullTextQuery.setFirstResult(searchQuery.getParameters().getStart());
-            fullTextQuery.setMaxResults(searchQuery.getParameters().getRetrieveCount());
+            // text and sequence search ranked by relevance
+            if (blastResults != null && searchQuery.getParameters().getSortField() == ColumnField.RELEVANCE) {
+                return rankBlastResults(hsQuery, searchQuery, blastResults);
+            }
 
-            resultCount = fullTextQuery.getResultSize();
+            // set paging params
+            hsQuery.firstResult(searchQuery.getParameters().getStart());
+            hsQuery.maxResults(searchQuery.getParameters().getRetrieveCount());
 
             // execute search
-            result = fullTextQuery.list();
-            Logger.info(userId + ": " + resultCount + " results for \"" + searchQuery.getQueryString() + "\"");
+            long searchStart = System.currentTimeMillis();
+            SearchHits hits = collect(hsQuery);
+            resultCount = hits.totalHits;
+            float maxScore = hits.maxScore;
+
+            // max score is not tracked when sorting by fields
+            if (!scoreOrder && resultCount > 0) {
+                hsQuery.sort(null);
+                hsQuery.firstResult(0);
+                hsQuery.maxResults(1);
+                maxScore = collect(hsQuery).maxScore;
+            }
 
+            long loadStart = System.currentTimeMillis();
             LinkedList<SearchResult> searchResults = new LinkedList<>();
-            for (Object[] objects : (Iterable<Object[]>) result) {
+            Map<Long, PartData> views = createTableViews(hits.rows, 1, blastResults);
+            for (Object[] objects : hits.rows) {
                 float score = (Float) objects[0];
                 Long entryId = (Long) objects[1];
                 SearchResult searchResult;
@@ -326,9 +291,12 @@ public class HibernateSearch {
                     if (searchResult == null) // this should not really happen since we already filter
                         continue;
                 } else {
+                    PartData info = views.get(entryId);
+                    if (info == null)
+                        continue;
+
                     searchResult = new SearchResult();
                     searchResult.setScore(score);
-                    PartData info = ModelToInfoFactory.createTableView(entryId, null);
                     info.setOwner((String) objects[2]);
                     searchResult.setEntryInfo(info);
                 }
@@ -337,6 +305,11 @@ public class HibernateSearch {
                 searchResults.add(searchResult);
             }
 
+            long end = System.currentTimeMillis();
+            Logger.info(userId + ": " + resultCount + " results for \"" + searchQuery.getQueryString() + "\" (query "
+                    + (searchStart - queryStart) + "ms, search " + (loadStart - searchStart) + "ms, load "
+                    + (end - loadStart) + "ms)");
+
             SearchResults results = new SearchResults();
             results.setResultCount(resultCount);
             results.setResults(searchResults);
@@ -344,6 +317,257 @@ public class HibernateSearch {
         }
     }
 
+    /**
+     * Retrieves the ids of all entries matching a search, in index order. Unlike {@link #executeSearch} and
+     * {@link #executeSearchNoTerms}, hits are neither sorted nor paged and no entry information is loaded; the id
+     * of each hit is read from the index as it is collected. Intended for operations on all the results of a
+     * search (e.g. export or adding to a folder)
+     *
+     * @param userId       identifier for account of user performing search. Results are restricted to entries
+     *                     that the user can read
+     * @param terms        search terms. Can be null or empty for a search without terms
+     * @param searchQuery  search query containing entry types and filters. Paging and sort parameters are ignored
+     * @param blastResults blast results to restrict the search to, or null if there is no blast query
+     * @return ids of matching entries
+     */
+    public LongList executeSearchIds(String userId, HashMap<String, QueryType> terms, SearchQuery searchQuery,
+                                     HashMap<String, SearchResult> blastResults) {
+        try (Session session = HibernateConfiguration.newSession()) {
+            long start = System.currentTimeMillis();
+            FullTextSession fullTextSession = Search.getFullTextSession(session);
+            BooleanQuery.Builder builder = new BooleanQuery.Builder();
+
+            if (terms == null || terms.isEmpty()) {
+                builder.add(createNoTermsQuery(fullTextSession, searchQuery, blastResults), BooleanClause.Occur.MUST);
+            } else {
+                builder.add(createTermsQuery(fullTextSession, terms, searchQuery, blastResults), BooleanClause.Occur.MUST);
+
+                // restrict to requested types (done using the entity classes for other searches)
+                if (searchQuery.getEntryTypes() != null && !searchQuery.getEntryTypes().isEmpty()) {
+                    QueryBuilder qb = fullTextSession.getSearchFactory().buildQueryBuilder().forEntity(Entry.class).get();
+                    BooleanQuery.Builder typeBuilder = new BooleanQuery.Builder();
+                    for (EntryType type : searchQuery.getEntryTypes()) {
+                        Query typeQuery = qb.keyword().onField("recordType").matching(type.getName()).createQuery();
+                        typeBuilder.add(typeQuery, BooleanClause.Occur.SHOULD);
+                    }
+                    builder.add(typeBuilder.build(), BooleanClause.Occur.FILTER);
+                }
+            }
+
+            // the full text filters are added to the query since it is not run through hibernate search
+            Query securityQuery = createSecurityFilterQuery(userId == null ? null : userId.toLowerCase());
+            if (securityQuery != null)
+                builder.add(securityQuery, BooleanClause.Occur.FILTER);
+
+            ArrayList<String> hasFields = getHasAttributeFields(searchQuery.getParameters());
+            if (!hasFields.isEmpty()) {
+                EntryHasFilterFactory hasFilterFactory = new EntryHasFilterFactory();
+                hasFilterFactory.setField(hasFields);
+                builder.add(hasFilterFactory.getFilter(), BooleanClause.Occur.FILTER);
+            }
+
+            SearchIntegrator integrator = fullTextSession.getSearchFactory().unwrap(SearchIntegrator.class);
+            IndexReader reader = integrator.getIndexReaderAccessor().open(Entry.class);
+            try {
+                IdCollector collector = new IdCollector();
+                new IndexSearcher(reader).search(builder.build(), collector);
+                LongList ids = collector.getIds();
+                Logger.info(userId + ": retrieved " + ids.size() + " result ids in "
+                        + (System.currentTimeMillis() - start) + "ms");
+                return ids;
+            } catch (IOException e) {
+                throw new SearchException("Unable to retrieve search result ids", e);
+            } finally {
+                integrator.getIndexReaderAccessor().close(reader);
+            }
+        }
+    }
+
+    /**
+     * Ranks the results of a combined text and blast search using the lucene score and blast score of each hit,
+     * each normalized by the maximum, with equal weight. All matching hits (bounded by the number of blast hits)
+     * are retrieved and ranked before the requested page is returned
+     *
+     * @param hsQuery      text query filtered by blast hits with score and id projections
+     * @param searchQuery  search query containing paging parameters
+     * @param blastResults blast results for the search
+     * @return requested page of ranked results
+     */
+    private SearchResults rankBlastResults(HSQuery hsQuery, SearchQuery searchQuery,
+                                           HashMap<String, SearchResult> blastResults) {
+        hsQuery.sort(null);
+        hsQuery.firstResult(0);
+        hsQuery.maxResults(Math.max(1, blastResults.size()));
+
+        SearchHits hits = collect(hsQuery);
+        List<Object[]> result = hits.rows;
+        float maxScore = hits.maxScore;
+        List<SearchResult> matches = new ArrayList<>(result.size());
+        Map<SearchResult, Float> luceneScores = new HashMap<>();
+        float maxBlastScore = 0f;
+        for (Object[] objects : result) {
+            SearchResult searchResult = blastResults.get(Long.toString((Long) objects[1]));
+            if (searchResult == null)
+                continue;
+
+            matches.add(searchResult);
+            luceneScores.put(searchResult, (Float) objects[0]);
+            maxBlastScore = Math.max(maxBlastScore, searchResult.getScore());
+        }
+
+        final float luceneMax = maxScore > 0 ? maxScore : 1f;
+        final float blastMax = maxBlastScore > 0 ? maxBlastScore : 1f;
+        Map<SearchResult, Float> combined = new HashMap<>();
+        for (SearchResult searchResult : matches) {
+            float value = 0.5f * (luceneScores.get(searchResult) / luceneMax) + 0.5f * (searchResult.getScore() / blastMax);
+            combined.put(searchResult, value);
+        }
+
+        Comparator<SearchResult> comparator = Comparator.comparing(combined::get);
+        if (!searchQuery.getParameters().isSortAscending())
+            comparator = comparator.reversed();
+        matches.sort(comparator);
+
+        int start = Math.min(searchQuery.getParameters().getStart(), matches.size());
+        int end = Math.min(start + searchQuery.getParameters().getRetrieveCount(), matches.size());
+        LinkedList<SearchResult> page = new LinkedList<>(matches.subList(start, end));
+        for (SearchResult searchResult : page)
+            searchResult.setMaxScore(maxScore);
+
+        SearchResults results = new SearchResults();
+        results.setResultCount(matches.size());
+        results.setResults(page);
+        return results;
+    }
+
+    /**
+     * Executes the query, collecting the total number of hits, the max score and the projected values of the
+     * requested page of hits in a single pass over the index
+     *
+     * @param hsQuery query with projections, filters and paging parameters set
+     * @return collected hits
+     */
+    private SearchHits collect(HSQuery hsQuery) {
+        try (DocumentExtractor extractor = hsQuery.queryDocumentExtractor()) {
+            SearchHits hits = new SearchHits();
+            hits.totalHits = hsQuery.queryResultSize();    // retained from the collector pass
+            float maxScore = extractor.getTopDocs().getMaxScore();
+            hits.maxScore = Float.isNaN(maxScore) ? -1f : maxScore;
+            hits.rows = new ArrayList<>();
+            if (hits.totalHits == 0)
+                return hits;
+
+            for (int i = extractor.getFirstIndex(); i <= extractor.getMaxIndex(); i += 1) {
+                hits.rows.add(extractor.extract(i).getProjection());
+            }
+            return hits;
+        } catch (IOException e) {
+            throw new SearchException("Unable to retrieve search hits", e);
+        }
+    }
+
+    /**
+     * Hydrates the table views for a page of projected search hits in bulk, instead of one entry at a time.
+     * Not needed when there are blast results since those already contain the entry information
+     *
+     * @param result       projected results of the full text query
+     * @param idIndex      index of the entry id in each projected row
+     * @param blastResults blast results (if any) for the search
+     * @return map of entry id to table view for the hits
+     */
+    private Map<Long, PartData> createTableViews(List<?> result, int idIndex,
+                                                 HashMap<String, SearchResult> blastResults) {
+        if (blastResults != null)
+            return new HashMap<>();
+
+        List<Long> entryIds = new ArrayList<>(result.size());
+        for (Object object : result) {
+            entryIds.add((Long) ((Object[]) object)[idIndex]);
+        }
+        return ModelToInfoFactory.createTableViews(entryIds, null);
+    }
+
+    /**
+     * Creates the query for a search without terms: all visible entries of the requested types, optionally
+     * filtered by bio-safety level, field values and blast results
+     */
+    private Query createNoTermsQuery(FullTextSession fullTextSession, SearchQuery searchQuery,
+                                     HashMap<String, SearchResult> blastResults) {
+        ArrayList<EntryType> entryTypes = searchQuery.getEntryTypes();
+        if (entryTypes == null || entryTypes.isEmpty()) {
+            entryTypes = new ArrayList<>(Arrays.asList(EntryType.values()));
+        }
+
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        QueryBuilder qb = fullTextSession.getSearchFactory().buildQueryBuilder().forEntity(Entry.class).get();
+
+        ArrayList<Query> except = new ArrayList<>();
+        for (EntryType type : EntryType.values()) {
+            if (entryTypes.contains(type))
+                continue;
+
+            except.add(qb.keyword().onField("recordType").matching(type.getName()).createQuery());
+        }
+
+        // add terms for record types
+        Query[] queries = new Query[]{};
+        Query recordTypeQuery = qb.all().except(except.toArray(queries)).createQuery();
+        builder.add(recordTypeQuery, BooleanClause.Occur.FILTER);
+
+        // visibility
+        Query visibilityQuery = qb.keyword().onField("visibility").matching(Visibility.OK.getValue()).createQuery();
+        builder.add(visibilityQuery, BooleanClause.Occur.FILTER);
+
+        // bio safety level
+        BioSafetyOption option = searchQuery.getBioSafetyOption();
+        if (option != null) {
+            TermContext bslContext = qb.keyword();
+            Query biosafetyQuery =
+                    bslContext.onField("bioSafetyLevel").ignoreFieldBridge().matching(option.getIntValue()).createQuery();
+            builder.add(biosafetyQuery, BooleanClause.Occur.FILTER);
+        }
+
+        // check filter filters
+        if (searchQuery.getFieldFilters() != null && !searchQuery.getFieldFilters().isEmpty()) {
+            for (FieldFilter fieldFilter : searchQuery.getFieldFilters()) {
+                String searchField = SearchFieldFactory.searchFieldForEntryField(fieldFilter.getField());
+                if (StringUtils.isEmpty(searchField))
+                    continue;
+
+                Query filterQuery = qb.keyword().onField(searchField).matching(fieldFilter.getFilter()).createQuery();
+                builder.add(filterQuery, BooleanClause.Occur.MUST);
+            }
+        }
+
+        // check if there is a blast results
+        createBlastFilterQuery(fullTextSession, blastResults, builder);
+        return builder.build();
+    }
+
+    /**
+     * Creates the query for a search with terms, matching the terms against the fields of the requested entry
+     * types and optionally filtered by bio-safety level and blast results
+     */
+    private Query createTermsQuery(FullTextSession fullTextSession, HashMap<String, QueryType> terms,
+                                   SearchQuery searchQuery, HashMap<String, SearchResult> blastResults) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        HashSet<String> fields = new HashSet<>(SearchFieldFactory.entryFields(searchQuery.getEntryTypes()));
+
+        // generate queries for terms filtering stop words
+        for (Map.Entry<String, QueryType> entry : terms.entrySet()) {
+            String term = cleanQuery(entry.getKey());
+            if (term.trim().isEmpty() || StandardAnalyzer.STOP_WORDS_SET.contains(term.toLowerCase()))
+                continue;
+
+            BioSafetyOption safetyOption = searchQuery.getBioSafetyOption();
+            generateQueriesForType(fullTextSession, fields, builder, term, entry.getValue(), safetyOption);
+        }
+
+        // check for blast search results filter
+        createBlastFilterQuery(fullTextSession, blastResults, builder);
+        return builder.build();
+    }
+
     private void generateQueriesForType(FullTextSession fullTextSession, HashSet<String> fields,
                                         BooleanQuery.Builder builder, String term, QueryType type,
                                         BioSafetyOption option) {
@@ -424,10 +648,23 @@ public class HibernateSearch {
         QueryBuilder qb = fullTextSession.getSearchFactory().buildQueryBuilder().forEntity(Entry.class).get();
         Query query = qb.keyword().onField("visibility").matching(Visibility.OK.getValue()).createQuery();
         builder.add(query, BooleanClause.Occur.FILTER);
-        for (String id : blastResults.keySet()) {
-            Query filterQuery = qb.keyword().onField("id").matching(id).createQuery();
-            builder.add(filterQuery, BooleanClause.Occur.FILTER);
-        }
+        builder.add(createIdSetQuery(blastResults.keySet()), BooleanClause.Occur.FILTER);
+    }
+
+    /**
+     * Creates a single set membership query (matched using a doc id bitset) over entry ids, which, unlike a
+     * boolean query with a clause per id, is not limited in the number of ids. The terms are created directly on
+     * the id field, which the document id bridge indexes as the decimal string of the id
+     *
+     * @param ids entry ids
+     * @return query matching documents with any of the ids
+     * @throws NumberFormatException if any of the ids is not a valid entry id
+     */
+    private Query createIdSetQuery(Collection<String> ids) {
+        List<BytesRef> terms = new ArrayList<>(ids.size());
+        for (String id : ids)
+            terms.add(new BytesRef(Long.toString(Long.parseLong(id.trim()))));
+        return new TermsQuery("id", terms);
     }
 
     /**
@@ -436,32 +673,47 @@ public class HibernateSearch {
      * @param userId        identifier for account which is checked for administrative privs
      * @param fullTextQuery search fulltextquery for which filter is enabled
      */
-    private void checkEnableSecurityFilter(String userId, FullTextQuery fullTextQuery) {
-        Set<String> groupUUIDs = new HashSet<>();
-        Set<String> folderIds = new HashSet<>();
-
-        if (StringUtils.isEmpty(userId)) {
-            groupUUIDs.add(GroupController.PUBLIC_GROUP_UUID);
-        } else {
-            AccountController accountController = new AccountController();
-            if (accountController.isAdministrator(userId)) {
-                return;
-            }
-            groupUUIDs = new GroupController().retrieveAccountGroupUUIDs(userId);
-            folderIds = new Folders(userId).getCanReadFolderIds();
-        }
+    private void checkEnableSecurityFilter(String userId, Function<String, FullTextFilter> filters) {
+        SearchPrincipalCache.Principal principal = SearchPrincipalCache.getInstance().get(userId);
+        if (principal.isAdministrator())
+            return;
 
-        fullTextQuery.enableFullTextFilter("security")
-                .setParameter("account", userId)
-                .setParameter("folderIds", folderIds)
-                .setParameter("groupUUids", groupUUIDs);
+        filters.apply("security")
+                .setParameter("account", StringUtils.isEmpty(userId) ? null : userId)
+                .setParameter("folderIds", principal.getFolderIds())
+                .setParameter("groupUUids", principal.getGroupUUIDs());
     }
 
-    private void checkEnableHasAttribute(FullTextQuery fullTextQuery, SearchQuery.Parameters parameters) {
-        if (parameters == null)
+    /**
+     * Creates the query applied by the security filter (see {@link #checkEnableSecurityFilter})
+     *
+     * @param userId identifier for account which is checked for administrative privs
+     * @return security filter query or null if the account has administrative privileges
+     */
+    private Query createSecurityFilterQuery(String userId) {
+        SearchPrincipalCache.Principal principal = SearchPrincipalCache.getInstance().get(userId);
+        if (principal.isAdministrator())
+            return null;
+
+        EntrySecurityFilterFactory factory = new EntrySecurityFilterFactory();
+        factory.setAccount(StringUtils.isEmpty(userId) ? null : userId);
+        factory.setFolderIds(principal.getFolderIds());
+        factory.setGroupUUids(principal.getGroupUUIDs());
+        return factory.getFilter();
+    }
+
+    private void checkEnableHasAttribute(Function<String, FullTextFilter> filters, SearchQuery.Parameters parameters) {
+        ArrayList<String> terms = getHasAttributeFields(parameters);
+        if (terms.isEmpty())
             return;
 
+        filters.apply("boolean").setParameter("field", terms);
+    }
+
+    private ArrayList<String> getHasAttributeFields(SearchQuery.Parameters parameters) {
         ArrayList<String> terms = new ArrayList<>(3);
+        if (parameters == null)
+            return terms;
 
         if (parameters.getHasSample()) {
             terms.add("hasSample");
@@ -475,10 +727,84 @@ public class HibernateSearch {
             terms.add("hasSequence");
         }
 
-        if (terms.isEmpty())
-            return;
+        return terms;
+    }
+
+    // hits collected in a single pass over the index
+    private static class SearchHits {
+        private int totalHits;
+        private float maxScore;
+        private List<Object[]> rows;
+    }
+
+    /**
+     * Collects the ids of matching documents, which are returned in score (relevance) order. Ids are read from the
+     * doc values of the "id" field, or (for segments indexed before the field had doc values) from the field cache,
+     * which is built once per segment
+     */
+    private static class IdCollector extends SimpleCollector {
+        private static final Map<String, UninvertingReader.Type> ID_FIELD =
+                Collections.singletonMap("id", UninvertingReader.Type.SORTED);
+        private final LongList ids = new LongList(1024);
+        private float[] scores = new float[1024];
+        private SortedDocValues values;
+        private Scorer scorer;
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            // doc values are used as is if the segment has them
+            values = DocValues.getSorted(new UninvertingReader(context.reader(), ID_FIELD), "id");
+        }
+
+        @Override
+        public void setScorer(Scorer scorer) {
+            this.scorer = scorer;
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            BytesRef value = values.get(doc);
+            if (value.length == 0)
+                return;
 
-        fullTextQuery.enableFullTextFilter("boolean").setParameter("field", terms);
+            if (ids.size() == scores.length)
+                scores = Arrays.copyOf(scores, scores.length * 2);
+            scores[ids.size()] = scorer.score();
+            ids.addLong(parseLong(value));
+        }
+
+        @Override
+        public boolean needsScores() {
+            return true;
+        }
+
+        /**
+         * @return ids of the matching documents, by descending score. Documents with the same score are in index
+         * order
+         */
+        LongList getIds() {
+            // sort keys: inverted score (non-negative floats order as their bits) in the high bits, position in the low
+            long[] keys = new long[ids.size()];
+            for (int i = 0; i < keys.length; i += 1) {
+                keys[i] = ((long) (Integer.MAX_VALUE - Float.floatToIntBits(Math.max(0f, scores[i]))) << 32) | i;
+            }
+            Arrays.sort(keys);
+
+            LongList sorted = new LongList(keys.length);
+            for (long key : keys) {
+                sorted.addLong(ids.getLong((int) key));
+            }
+            return sorted;
+        }
+
+        // ids are indexed as the decimal string of the id
+        private static long parseLong(BytesRef value) {
+            long result = 0;
+            for (int i = value.offset; i < value.offset + value.length; i += 1) {
+                result = result * 10 + (value.bytes[i] - '0');
+            }
+            return result;
+        }
     }
 
     private static class SingletonHolder {
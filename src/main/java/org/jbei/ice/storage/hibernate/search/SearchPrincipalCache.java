@@ -0,0 +1,141 @@
+package org.jbei.ice.storage.hibernate.search;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jbei.ice.lib.account.AccountController;
+import org.jbei.ice.lib.folder.Folders;
+import org.jbei.ice.lib.group.GroupController;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the inputs to the search security filter for each user: whether the user is an administrator, the
+ * uuids of the groups the user is a member of and the ids of the folders the user can read.
+ * <p>
+ * The whole cache is invalidated (by {@link AccessChangeListener}) whenever permissions, groups or folders change,
+ * and the values for an account when its group membership or type changes. Entries also expire after a fixed time
+ * as a safeguard
+ */
+public class SearchPrincipalCache {
+
+    private static final long EXPIRY = TimeUnit.MINUTES.toMillis(5);
+    private static final int MAX_SIZE = 10000;
+    private static final String ANONYMOUS = "";
+    private static final SearchPrincipalCache INSTANCE = new SearchPrincipalCache();
+
+    private final Map<String, Principal> principals = new ConcurrentHashMap<>();
+    private final Map<String, Long> invalidated = new ConcurrentHashMap<>();   // user -> generation of invalidation
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong userGeneration = new AtomicLong();
+
+    private SearchPrincipalCache() {
+    }
+
+    public static SearchPrincipalCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Retrieves the security filter inputs for a user, loading (and caching) them if not already available
+     *
+     * @param userId unique user identifier. Null or empty for anonymous (web of registries) access
+     * @return filter inputs for user
+     */
+    public Principal get(String userId) {
+        String key = StringUtils.isEmpty(userId) ? ANONYMOUS : userId;
+        long currentGeneration = generation.get();
+        Principal principal = principals.get(key);
+        if (principal != null && principal.generation == currentGeneration
+                && System.currentTimeMillis() - principal.created < EXPIRY)
+            return principal;
+
+        Long invalidation = invalidated.get(key);
+        principal = load(key, currentGeneration);
+
+        // do not cache if invalidated while loading
+        if (currentGeneration == generation.get() && Objects.equals(invalidation, invalidated.get(key))) {
+            if (principals.size() >= MAX_SIZE)
+                principals.clear();
+            principals.put(key, principal);
+        }
+        return principal;
+    }
+
+    /**
+     * Discards all cached values
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        principals.clear();
+        invalidated.clear();
+    }
+
+    /**
+     * Discards the cached values for a user
+     *
+     * @param userId unique user identifier
+     */
+    public void invalidate(String userId) {
+        if (StringUtils.isEmpty(userId))
+            return;
+
+        if (invalidated.size() >= MAX_SIZE) {
+            invalidate();
+            return;
+        }
+
+        invalidated.put(userId, userGeneration.incrementAndGet());
+        principals.remove(userId);
+    }
+
+    private Principal load(String userId, long generation) {
+        if (ANONYMOUS.equals(userId)) {
+            HashSet<String> groupUUIDs = new HashSet<>();
+            groupUUIDs.add(GroupController.PUBLIC_GROUP_UUID);
+            return new Principal(false, groupUUIDs, new HashSet<>(), generation);
+        }
+
+        if (new AccountController().isAdministrator(userId))
+            return new Principal(true, new HashSet<>(), new HashSet<>(), generation);
+
+        HashSet<String> groupUUIDs = new HashSet<>(new GroupController().retrieveAccountGroupUUIDs(userId));
+        HashSet<String> folderIds = new HashSet<>(new Folders(userId).getCanReadFolderIds());
+        return new Principal(false, groupUUIDs, folderIds, generation);
+    }
+
+    /**
+     * Security filter inputs for a user. Sets must not be modified
+     */
+    public static class Principal {
+
+        private final boolean administrator;
+        private final HashSet<String> groupUUIDs;
+        private final HashSet<String> folderIds;
+        private final long generation;
+        private final long created;
+
+        Principal(boolean administrator, HashSet<String> groupUUIDs, HashSet<String> folderIds, long generation) {
+            this.administrator = administrator;
+            this.groupUUIDs = groupUUIDs;
+            this.folderIds = folderIds;
+            this.generation = generation;
+            this.created = System.currentTimeMillis();
+        }
+
+        public boolean isAdministrator() {
+            return administrator;
+        }
+
+        public HashSet<String> getGroupUUIDs() {
+            return groupUUIDs;
+        }
+
+        public HashSet<String> getFolderIds() {
+            return folderIds;
+        }
+    }
+}
@@ -69,7 +69,7 @@ import java.util.*;
 @Entity
 @Indexed(index = "Entry")
 @FullTextFilterDefs({
-        @FullTextFilterDef(name = "security", impl = EntrySecurityFilterFactory.class, cache = FilterCacheModeType.INSTANCE_ONLY),
+        @FullTextFilterDef(name = "security", impl = EntrySecurityFilterFactory.class, cache = FilterCacheModeType.INSTANCE_AND_DOCIDSETRESULTS),
         @FullTextFilterDef(name = "boolean", impl = EntryHasFilterFactory.class, cache = FilterCacheModeType.INSTANCE_ONLY)
 })
 @AnalyzerDef(name = "customanalyzer",
@@ -89,6 +89,7 @@ public class Entry implements DataModel {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO, generator = "sequence")
     @DocumentId
+    @SortableField(forField = "id")
     private long id;
 
     @Column(name = "record_id", length = 36, nullable = false, unique = true)
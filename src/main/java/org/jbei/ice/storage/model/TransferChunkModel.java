@@ -0,0 +1,68 @@
+package org.jbei.ice.storage.model;
+
+import org.hibernate.annotations.Type;
+import org.jbei.ice.storage.DataModel;
+import org.jbei.ice.storage.IDataTransferModel;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Chunk of parts received from another registry (see {@link org.jbei.ice.lib.dto.web.TransferChunk}), recorded by
+ * its idempotency key so that a chunk that is sent again is not applied again
+ */
+@Entity
+@Table(name = "transfer_chunk")
+@SequenceGenerator(name = "transfer_chunk_id", sequenceName = "transfer_chunk_id_seq", allocationSize = 1)
+public class TransferChunkModel implements DataModel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO, generator = "transfer_chunk_id")
+    private long id;
+
+    @Column(name = "chunk_key", nullable = false, unique = true)
+    private String chunkKey;
+
+    // local ids of the parts (each followed by its linked parts) in the order they are in the chunk
+    @Column(name = "entry_ids")
+    @Lob
+    @Type(type = "org.hibernate.type.TextType")
+    private String entryIds;
+
+    @Column(name = "creation_time")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date creationTime;
+
+    public long getId() {
+        return id;
+    }
+
+    public String getChunkKey() {
+        return chunkKey;
+    }
+
+    public void setChunkKey(String chunkKey) {
+        this.chunkKey = chunkKey;
+    }
+
+    public String getEntryIds() {
+        return entryIds;
+    }
+
+    public void setEntryIds(String entryIds) {
+        this.entryIds = entryIds;
+    }
+
+    public Date getCreationTime() {
+        return creationTime;
+    }
+
+    public void setCreationTime(Date creationTime) {
+        this.creationTime = creationTime;
+    }
+
+    @Override
+    public IDataTransferModel toDataTransferObject() {
+        return null;
+    }
+}
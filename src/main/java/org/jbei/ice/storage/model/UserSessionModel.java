@@ -0,0 +1,75 @@
+package org.jbei.ice.storage.model;
+
+import org.jbei.ice.lib.account.UserSession;
+import org.jbei.ice.storage.DataModel;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Stored web application session for a user
+ */
+@Entity
+@Table(name = "user_session")
+@SequenceGenerator(name = "user_session_id", sequenceName = "user_session_id_seq", allocationSize = 1)
+public class UserSessionModel implements DataModel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO, generator = "user_session_id")
+    private long id;
+
+    @Column(name = "session_id", nullable = false, unique = true)
+    private String sessionId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "creation_time")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date creationTime;
+
+    @Column(name = "last_access_time")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastAccessTime;
+
+    public long getId() {
+        return id;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public Date getCreationTime() {
+        return creationTime;
+    }
+
+    public void setCreationTime(Date creationTime) {
+        this.creationTime = creationTime;
+    }
+
+    public Date getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    public void setLastAccessTime(Date lastAccessTime) {
+        this.lastAccessTime = lastAccessTime;
+    }
+
+    @Override
+    public UserSession toDataTransferObject() {
+        return new UserSession(sessionId, userId, creationTime.getTime(), lastAccessTime.getTime());
+    }
+}
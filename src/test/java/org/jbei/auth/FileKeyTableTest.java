@@ -0,0 +1,73 @@
+package org.jbei.auth;
+
+import org.jbei.auth.hmac.HmacSignatureFactory;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class FileKeyTableTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGetKey() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        Key key = HmacSignatureFactory.createKey();
+        write(directory, "first.jbei.org", key);
+
+        try (FileKeyTable table = new FileKeyTable(directory)) {
+            Assert.assertArrayEquals(key.getEncoded(), table.getKey("first.jbei.org").getEncoded());
+            Assert.assertNull(table.getKey("unknown.jbei.org"));
+            Assert.assertNull(table.getKey("../first.jbei.org"));
+
+            // changes to the directory are picked up without a lookup from disk
+            Key second = HmacSignatureFactory.createKey();
+            write(directory, "second.jbei.org", second);
+            Assert.assertTrue(await(() -> table.getKey("second.jbei.org") != null));
+            Assert.assertArrayEquals(second.getEncoded(), table.getKey("second.jbei.org").getEncoded());
+
+            Files.delete(directory.resolve("first.jbei.org"));
+            Assert.assertTrue(await(() -> table.getKey("first.jbei.org") == null));
+        }
+    }
+
+    @Test
+    public void testGetKeyWithoutDirectory() throws Exception {
+        Path directory = folder.getRoot().toPath().resolve("rest-auth");
+        try (FileKeyTable table = new FileKeyTable(directory)) {
+            Assert.assertNull(table.getKey("test.jbei.org"));
+
+            // directory created after the table; watched from the next lookup
+            Files.createDirectories(directory);
+            Key key = HmacSignatureFactory.createKey();
+            write(directory, "test.jbei.org", key);
+            Assert.assertArrayEquals(key.getEncoded(), table.getKey("test.jbei.org").getEncoded());
+
+            Files.delete(directory.resolve("test.jbei.org"));
+            Assert.assertTrue(await(() -> table.getKey("test.jbei.org") == null));
+        }
+    }
+
+    private void write(Path directory, String keyId, Key key) throws Exception {
+        Files.write(directory.resolve(keyId), HmacSignatureFactory.encodeKey(key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean await(Supplier<Boolean> condition) throws InterruptedException {
+        long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (System.currentTimeMillis() < end) {
+            if (condition.get())
+                return true;
+            Thread.sleep(50);
+        }
+        return false;
+    }
+}
@@ -132,4 +132,26 @@ public class HmacSignatureFactoryTest {
         }
     }
 
+    /**
+     * Tests that signatures built from reused (cloned) Mac instances are independent of each other, and that a
+     * replaced key is picked up.
+     */
+    @Test
+    public final void testBuildSignatureReusesKey() throws Exception {
+        final MemoryKeyTable keys = new MemoryKeyTable(Collections.singletonMap(keyId,
+                HmacSignatureFactory.decodeKey(encoded)));
+        final HmacSignatureFactory factory = new HmacSignatureFactory(keys);
+        final HmacSignature first = factory.buildSignature(simpleRequest, keyId, userId);
+        final HmacSignature second = factory.buildSignature(simpleGet, keyId, userId);
+        Assert.assertEquals(simpleSignature, first.generateSignature());
+        Assert.assertEquals(simpleSignature, second.generateSignature());
+
+        keys.put(keyId, HmacSignatureFactory.createKey());
+        Assert.assertNotEquals(simpleSignature, factory.buildSignature(simpleRequest, keyId, userId)
+                .generateSignature());
+
+        keys.remove(keyId);
+        Assert.assertNull(factory.buildSignature(simpleRequest, keyId, userId));
+    }
+
 }
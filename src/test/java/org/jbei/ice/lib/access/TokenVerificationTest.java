@@ -1,13 +1,17 @@
 package org.jbei.ice.lib.access;
 
 import org.jbei.ice.lib.AccountCreator;
+import org.jbei.ice.lib.account.AccountType;
 import org.jbei.ice.lib.account.TokenHash;
 import org.jbei.ice.lib.account.UserApiKeys;
+import org.jbei.ice.lib.config.ConfigurationSettings;
+import org.jbei.ice.lib.dto.ConfigurationKey;
 import org.jbei.ice.lib.dto.access.AccessKey;
 import org.jbei.ice.lib.dto.web.RemotePartnerStatus;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.HibernateRepositoryTest;
 import org.jbei.ice.storage.model.Account;
+import org.jbei.ice.storage.model.ApiKey;
 import org.jbei.ice.storage.model.RemotePartner;
 import org.junit.Assert;
 import org.junit.Test;
@@ -52,6 +56,18 @@ public class TokenVerificationTest extends HibernateRepositoryTest {
         keys.update(key.getId(), key);
         Assert.assertNotNull(key);
         Assert.assertEquals(userId1, verification.verifyAPIKey(key.getToken(), key.getClientId(), userId1));
+
+        // owner is checked again when the cached verification is used
+        account.setType(AccountType.NORMAL);
+        DAOFactory.getAccountDAO().update(account);
+        caught = false;
+        try {
+            verification.verifyAPIKey(key.getToken(), key.getClientId(), userId1);
+        } catch (PermissionException e) {
+            caught = true;
+        }
+        Assert.assertTrue(caught);
+        Assert.assertEquals(userId, verification.verifyAPIKey(key.getToken(), key.getClientId(), userId));
     }
 
     @Test
@@ -70,4 +86,48 @@ public class TokenVerificationTest extends HibernateRepositoryTest {
         Assert.assertNotNull(DAOFactory.getRemotePartnerDAO().create(remotePartner));
         Assert.assertNotNull(verification.verifyPartnerToken(remotePartner.getUrl(), token));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testVerifyAPIKeyCached() throws Exception {
+        Account account = AccountCreator.createTestAccount("testVerifyAPIKeyCached", false);
+        String userId = account.getEmail();
+        UserApiKeys keys = new UserApiKeys(userId);
+        AccessKey key = keys.requestKey("cached.jbei.org");
+        Assert.assertEquals(userId, verification.verifyAPIKey(key.getToken(), key.getClientId(), userId));
+
+        long hits = VerifiedTokenCache.getInstance().getHits();
+        Assert.assertEquals(userId, verification.verifyAPIKey(key.getToken(), key.getClientId(), userId));
+        Assert.assertEquals(hits + 1, VerifiedTokenCache.getInstance().getHits());
+
+        // deleting the key invalidates the cached verification
+        Assert.assertTrue(keys.deleteKey(key.getId(), key.getSecret()));
+        boolean caught = false;
+        try {
+            verification.verifyAPIKey(key.getToken(), key.getClientId(), userId);
+        } catch (PermissionException e) {
+            caught = true;
+        }
+        Assert.assertTrue(caught);
+    }
+
+    @Test
+    public void testVerifyAPIKeyHashParameters() throws Exception {
+        ConfigurationSettings settings = new ConfigurationSettings();
+        settings.setPropertyValue(ConfigurationKey.TOKEN_HASH_ALGORITHM, "PBKDF2WithHmacSHA256");
+        settings.setPropertyValue(ConfigurationKey.TOKEN_HASH_ITERATIONS, "1000");
+        try {
+            Account account = AccountCreator.createTestAccount("testVerifyAPIKeyHashParameters", false);
+            String userId = account.getEmail();
+            AccessKey key = new UserApiKeys(userId).requestKey("hash.jbei.org");
+            ApiKey apiKey = DAOFactory.getApiKeyDAO().getByClientId(key.getClientId()).orElse(null);
+            Assert.assertNotNull(apiKey);
+            Assert.assertTrue(apiKey.getHashedToken().startsWith("$PBKDF2WithHmacSHA256$1000$"));
+            Assert.assertEquals(userId, verification.verifyAPIKey(key.getToken(), key.getClientId(), userId));
+        } finally {
+            settings.setPropertyValue(ConfigurationKey.TOKEN_HASH_ALGORITHM,
+                    ConfigurationKey.TOKEN_HASH_ALGORITHM.getDefaultValue());
+            settings.setPropertyValue(ConfigurationKey.TOKEN_HASH_ITERATIONS,
+                    ConfigurationKey.TOKEN_HASH_ITERATIONS.getDefaultValue());
+        }
+    }
+}
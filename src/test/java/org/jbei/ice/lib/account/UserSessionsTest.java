@@ -0,0 +1,73 @@
+package org.jbei.ice.lib.account;
+
+import org.jbei.ice.lib.config.ConfigurationSettings;
+import org.jbei.ice.lib.dto.ConfigurationKey;
+import org.jbei.ice.storage.hibernate.HibernateConfiguration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UserSessionsTest {
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateConfiguration.initializeMock();
+        HibernateConfiguration.beginTransaction();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ConfigurationSettings settings = new ConfigurationSettings();
+        settings.setPropertyValue(ConfigurationKey.SESSION_STORE, ConfigurationKey.SESSION_STORE.getDefaultValue());
+        settings.setPropertyValue(ConfigurationKey.SESSION_IDLE_TIMEOUT,
+                ConfigurationKey.SESSION_IDLE_TIMEOUT.getDefaultValue());
+        UserSessions.clearSessions();
+        HibernateConfiguration.commitTransaction();
+    }
+
+    @Test
+    public void testGetUserIdBySession() {
+        String first = UserSessions.createNewSessionForUser("UserSessionsTest.first");
+        String second = UserSessions.createNewSessionForUser("UserSessionsTest.first");
+        String other = UserSessions.createSessionForUser("UserSessionsTest.other", "other-session-id");
+        Assert.assertEquals("other-session-id", other);
+
+        Assert.assertEquals("UserSessionsTest.first", UserSessions.getUserIdBySession(first));
+        Assert.assertEquals("UserSessionsTest.first", UserSessions.getUserIdBySession(second));
+        Assert.assertEquals("UserSessionsTest.other", UserSessions.getUserIdBySession(other));
+        Assert.assertNull(UserSessions.getUserIdBySession("unknown-session-id"));
+
+        // invalidates all sessions for the user
+        UserSessions.invalidateSession("UserSessionsTest.first");
+        Assert.assertNull(UserSessions.getUserIdBySession(first));
+        Assert.assertNull(UserSessions.getUserIdBySession(second));
+        Assert.assertEquals("UserSessionsTest.other", UserSessions.getUserIdBySession(other));
+
+        SessionStatistics statistics = UserSessions.getStatistics();
+        Assert.assertTrue(statistics.getActiveSessions() >= 1);
+        Assert.assertTrue(statistics.getLookups() >= 7);
+    }
+
+    @Test
+    public void testIdleExpiry() throws Exception {
+        new ConfigurationSettings().setPropertyValue(ConfigurationKey.SESSION_IDLE_TIMEOUT, "0");
+        String sessionId = UserSessions.createNewSessionForUser("UserSessionsTest.idle");
+        Thread.sleep(5);
+        Assert.assertNull(UserSessions.getUserIdBySession(sessionId));
+    }
+
+    @Test
+    public void testDatabaseStore() {
+        new ConfigurationSettings().setPropertyValue(ConfigurationKey.SESSION_STORE, "DATABASE");
+        String sessionId = UserSessions.createNewSessionForUser("UserSessionsTest.stored");
+
+        // session is retrieved from the store after a restart
+        UserSessions.clearSessions();
+        Assert.assertEquals("UserSessionsTest.stored", UserSessions.getUserIdBySession(sessionId));
+
+        UserSessions.invalidateSession("UserSessionsTest.stored");
+        UserSessions.clearSessions();
+        Assert.assertNull(UserSessions.getUserIdBySession(sessionId));
+    }
+}
@@ -18,6 +18,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @author Hector Plahar
@@ -153,6 +154,14 @@ public class BulkUploadsTest extends HibernateRepositoryTest {
         BulkUploadInfo info = createUpload(account.getEmail(), EntryType.STRAIN);
         Assert.assertNotNull(uploads.get(account.getEmail(), info.getId(), 0, 0));
 
+        // executor service is not running so the delete cannot be scheduled
+        try {
+            uploads.deleteDraftById(account.getEmail(), info.getId());
+            Assert.fail("Expected delete to be rejected");
+        } catch (RejectedExecutionException e) {
+            Assert.assertNotNull(uploads.get(account.getEmail(), info.getId(), 0, 0));
+        }
+
         // delete bulk upload
         BulkUploadDeleteTask task = new BulkUploadDeleteTask(account.getEmail(), info.getId());
         task.execute();
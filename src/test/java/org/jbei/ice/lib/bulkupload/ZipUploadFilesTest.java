@@ -0,0 +1,117 @@
+package org.jbei.ice.lib.bulkupload;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+public class ZipUploadFilesTest {
+
+    @Test
+    public void testFiles() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(outputStream)) {
+            zos.putNextEntry(new ZipEntry("upload/"));
+            zos.closeEntry();
+            addEntry(zos, "upload/entries.csv", "Name,Sequence File\nTest,test.gb\n");
+            addEntry(zos, "upload/sequences/test.gb", "LOCUS       test");
+            addEntry(zos, "__MACOSX/upload/._test.gb", "ignored");
+            addEntry(zos, "attachment.txt", "attachment");
+        }
+
+        Path directory = Files.createTempDirectory("ZipUploadFilesTest");
+        ZipUploadFiles files = new ZipUploadFiles(new ByteArrayInputStream(outputStream.toByteArray()), directory);
+        try {
+            // spooled to the directory
+            try (Stream<Path> spooled = Files.list(directory)) {
+                Assert.assertEquals(1, spooled.count());
+            }
+
+            Assert.assertEquals(1, files.getCsvCount());
+            try (InputStream csv = files.getCsvInputStream()) {
+                Assert.assertTrue(IOUtils.toString(csv, StandardCharsets.UTF_8).startsWith("Name,Sequence File"));
+            }
+
+            // referenced by name without folders, and dot files are ignored
+            Assert.assertTrue(files.contains("test.gb"));
+            Assert.assertTrue(files.contains("attachment.txt"));
+            Assert.assertFalse(files.contains("._test.gb"));
+            Assert.assertFalse(files.contains("entries.csv"));
+            Assert.assertEquals(16, files.getSize("test.gb"));
+            Assert.assertEquals(-1, files.getSize("missing.gb"));
+            Assert.assertNull(files.getInputStream("missing.gb"));
+
+            // files can be read more than once
+            for (int i = 0; i < 2; i += 1) {
+                try (InputStream inputStream = files.getInputStream("test.gb")) {
+                    Assert.assertEquals("LOCUS       test", IOUtils.toString(inputStream, StandardCharsets.UTF_8));
+                }
+            }
+        } finally {
+            files.close();
+        }
+
+        // spooled file is deleted when closed
+        try (Stream<Path> spooled = Files.list(directory)) {
+            Assert.assertEquals(0, spooled.count());
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testGetInputStreamLimit() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(outputStream)) {
+            addEntry(zos, "test.gb", "LOCUS       test");
+        }
+
+        Path directory = Files.createTempDirectory("ZipUploadFilesTest");
+        try (ZipUploadFiles files = new ZipUploadFiles(new ByteArrayInputStream(outputStream.toByteArray()),
+                directory)) {
+            Assert.assertNull(files.getInputStream("missing.gb", 16));
+            try (InputStream inputStream = files.getInputStream("test.gb", 16)) {
+                Assert.assertEquals("LOCUS       test", IOUtils.toString(inputStream, StandardCharsets.UTF_8));
+            }
+
+            // enforced while reading, whatever the size recorded in the archive
+            try (InputStream inputStream = files.getInputStream("test.gb", 15)) {
+                IOUtils.toByteArray(inputStream);
+                Assert.fail("Expected size limit exception");
+            } catch (ZipUploadFiles.SizeLimitException e) {
+                Assert.assertTrue(e.getMessage().contains("test.gb"));
+            }
+        } finally {
+            Files.delete(directory);
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void testInvalidArchive() throws Exception {
+        Path directory = Files.createTempDirectory("ZipUploadFilesTest");
+        try {
+            new ZipUploadFiles(new ByteArrayInputStream("not a zip".getBytes(StandardCharsets.UTF_8)), directory);
+        } finally {
+            // spooled file is deleted if the archive cannot be read
+            try (Stream<Path> spooled = Files.list(directory)) {
+                Assert.assertEquals(0, spooled.count());
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private void addEntry(ZipOutputStream zos, String name, String content) throws Exception {
+        zos.putNextEntry(new ZipEntry(name));
+        zos.write(content.getBytes(StandardCharsets.UTF_8));
+        zos.closeEntry();
+    }
+}
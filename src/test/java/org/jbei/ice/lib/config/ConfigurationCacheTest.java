@@ -0,0 +1,91 @@
+package org.jbei.ice.lib.config;
+
+import org.jbei.ice.lib.dto.ConfigurationKey;
+import org.jbei.ice.lib.utils.Utils;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateConfiguration;
+import org.jbei.ice.storage.hibernate.dao.ConfigurationDAO;
+import org.jbei.ice.storage.model.ConfigurationModel;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class ConfigurationCacheTest {
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateConfiguration.initializeMock();
+        HibernateConfiguration.beginTransaction();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        HibernateConfiguration.beginTransaction();
+        new ConfigurationSettings().setPropertyValue(ConfigurationKey.BLAST_TIMEOUT,
+                ConfigurationKey.BLAST_TIMEOUT.getDefaultValue());
+        HibernateConfiguration.commitTransaction();
+    }
+
+    @Test
+    public void testSetPropertyValue() {
+        ConfigurationCache cache = ConfigurationCache.getInstance();
+        Assert.assertEquals(ConfigurationKey.BLAST_TIMEOUT.getDefaultValue(),
+                cache.getValue(ConfigurationKey.BLAST_TIMEOUT));
+        List<String> changes = new ArrayList<>();
+        Consumer<String> listener = changes::add;
+        cache.subscribe(ConfigurationKey.BLAST_TIMEOUT, listener);
+
+        try {
+            ConfigurationSettings settings = new ConfigurationSettings();
+            settings.setPropertyValue(ConfigurationKey.BLAST_TIMEOUT, "45");
+            Assert.assertEquals("45", Utils.getConfigValue(ConfigurationKey.BLAST_TIMEOUT));
+            Assert.assertEquals("45", settings.getPropertyValue(ConfigurationKey.BLAST_TIMEOUT));
+            HibernateConfiguration.commitTransaction();
+
+            // value is available without a transaction
+            Assert.assertEquals("45", Utils.getConfigValue(ConfigurationKey.BLAST_TIMEOUT));
+
+            // rolled back value is discarded
+            HibernateConfiguration.beginTransaction();
+            settings.setPropertyValue(ConfigurationKey.BLAST_TIMEOUT, "90");
+            Assert.assertEquals("90", Utils.getConfigValue(ConfigurationKey.BLAST_TIMEOUT));
+            HibernateConfiguration.rollbackTransaction();
+            Assert.assertEquals("45", Utils.getConfigValue(ConfigurationKey.BLAST_TIMEOUT));
+
+            // unchanged value does not notify
+            HibernateConfiguration.beginTransaction();
+            settings.setPropertyValue(ConfigurationKey.BLAST_TIMEOUT, "45");
+            HibernateConfiguration.commitTransaction();
+
+            Assert.assertEquals(List.of("45", "90", "45"), changes);
+        } finally {
+            cache.unsubscribe(ConfigurationKey.BLAST_TIMEOUT, listener);
+        }
+    }
+
+    @Test
+    public void testRefresh() {
+        ConfigurationCache cache = ConfigurationCache.getInstance();
+        new ConfigurationSettings().setPropertyValue(ConfigurationKey.BLAST_TIMEOUT, "30");
+        HibernateConfiguration.commitTransaction();
+        Assert.assertEquals("30", Utils.getConfigValue(ConfigurationKey.BLAST_TIMEOUT));
+
+        // simulate a change by another instance sharing the database
+        HibernateConfiguration.beginTransaction();
+        ConfigurationDAO dao = DAOFactory.getConfigurationDAO();
+        ConfigurationModel model = dao.get(ConfigurationKey.BLAST_TIMEOUT);
+        model.setValue("120");
+        dao.update(model);
+        dao.increment(ConfigurationCache.VERSION_KEY);
+        HibernateConfiguration.commitTransaction();
+
+        Assert.assertEquals("30", Utils.getConfigValue(ConfigurationKey.BLAST_TIMEOUT));
+        cache.refresh();
+        Assert.assertEquals("120", Utils.getConfigValue(ConfigurationKey.BLAST_TIMEOUT));
+    }
+}
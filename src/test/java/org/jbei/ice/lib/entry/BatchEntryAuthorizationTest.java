@@ -0,0 +1,113 @@
+package org.jbei.ice.lib.entry;
+
+import org.jbei.ice.lib.AccountCreator;
+import org.jbei.ice.lib.TestEntryCreator;
+import org.jbei.ice.lib.dto.folder.FolderType;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateRepositoryTest;
+import org.jbei.ice.storage.model.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class BatchEntryAuthorizationTest extends HibernateRepositoryTest {
+
+    @Test
+    public void testEvaluate() throws Exception {
+        Account owner = AccountCreator.createTestAccount("BatchEntryAuthorizationTest.testEvaluate1", false);
+        Account user = AccountCreator.createTestAccount("BatchEntryAuthorizationTest.testEvaluate2", false);
+        Account admin = AccountCreator.createTestAccount("BatchEntryAuthorizationTest.testEvaluate3", true);
+
+        Strain ownStrain = TestEntryCreator.createTestStrain(user);
+        Strain privateStrain = TestEntryCreator.createTestStrain(owner);
+        Strain readStrain = TestEntryCreator.createTestStrain(owner);
+        Strain writeStrain = TestEntryCreator.createTestStrain(owner);
+        Strain folderStrain = TestEntryCreator.createTestStrain(owner);
+        Strain publicStrain = TestEntryCreator.createTestStrain(owner);
+
+        // explicit permissions
+        addPermission(readStrain, null, user, true, false);
+        addPermission(writeStrain, null, user, false, true);
+
+        // folder permission
+        Folder folder = createFolder(owner, FolderType.PRIVATE, folderStrain);
+        addPermission(null, folder, user, true, false);
+
+        // public folder
+        createFolder(owner, FolderType.PUBLIC, publicStrain);
+
+        List<Long> ids = Arrays.asList(ownStrain.getId(), privateStrain.getId(), readStrain.getId(),
+                writeStrain.getId(), folderStrain.getId(), publicStrain.getId());
+
+        EntryAccess access = new BatchEntryAuthorization(user.getEmail()).evaluate(ids);
+        Assert.assertEquals(6, access.size());
+        Assert.assertEquals(Arrays.asList(ownStrain.getId(), readStrain.getId(), writeStrain.getId(),
+                folderStrain.getId(), publicStrain.getId()), access.getReadable());
+        Assert.assertEquals(Arrays.asList(ownStrain.getId(), writeStrain.getId()), access.getWritable());
+        Assert.assertFalse(access.canRead(privateStrain.getId()));
+        Assert.assertFalse(access.canRead(Long.MAX_VALUE));
+
+        // same write privileges as evaluating each entry
+        EntryAuthorization authorization = new EntryAuthorization();
+        for (long id : ids) {
+            Entry entry = DAOFactory.getEntryDAO().get(id);
+            Assert.assertEquals(authorization.canWrite(user.getEmail(), entry), access.canWrite(id));
+        }
+
+        // admin can read and write everything
+        access = new BatchEntryAuthorization(admin.getEmail()).evaluate(ids);
+        Assert.assertEquals(ids.size(), access.getWritable().size());
+
+        // anonymous users can only read entries shared with the public group
+        access = new BatchEntryAuthorization(null).evaluate(ids);
+        Assert.assertTrue(access.getReadable().isEmpty());
+        Assert.assertTrue(access.getWritable().isEmpty());
+    }
+
+    @Test
+    public void testMemoized() throws Exception {
+        Account owner = AccountCreator.createTestAccount("BatchEntryAuthorizationTest.testMemoized1", false);
+        Account user = AccountCreator.createTestAccount("BatchEntryAuthorizationTest.testMemoized2", false);
+        Strain strain = TestEntryCreator.createTestStrain(owner);
+
+        BatchEntryAuthorization authorization = new BatchEntryAuthorization(user.getEmail());
+        Assert.assertFalse(authorization.canRead(strain.getId()));
+
+        // entries already evaluated are not evaluated again by the same instance
+        addPermission(strain, null, user, true, false);
+        Assert.assertFalse(authorization.canRead(strain.getId()));
+        Assert.assertTrue(new BatchEntryAuthorization(user.getEmail()).canRead(strain.getId()));
+
+        // larger than a single batch
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i < BatchEntryAuthorization.BATCH_SIZE * 2; i += 1)
+            ids.add(Long.MAX_VALUE - i);
+        ids.add(strain.getId());
+        EntryAccess access = new BatchEntryAuthorization(user.getEmail()).evaluate(ids);
+        Assert.assertEquals(Collections.singletonList(strain.getId()), access.getReadable());
+    }
+
+    private void addPermission(Entry entry, Folder folder, Account account, boolean canRead, boolean canWrite) {
+        Permission permission = new Permission();
+        permission.setEntry(entry);
+        permission.setFolder(folder);
+        permission.setAccount(account);
+        permission.setCanRead(canRead);
+        permission.setCanWrite(canWrite);
+        DAOFactory.getPermissionDAO().create(permission);
+    }
+
+    private Folder createFolder(Account owner, FolderType type, Entry entry) {
+        Folder folder = new Folder("BatchEntryAuthorizationTest");
+        folder.setOwnerEmail(owner.getEmail());
+        folder.setType(type);
+        folder = DAOFactory.getFolderDAO().create(folder);
+        DAOFactory.getFolderDAO().addFolderContents(folder, Collections.singletonList(entry));
+        entry.getFolders().add(folder);
+        return folder;
+    }
+}
@@ -1,15 +1,34 @@
 package org.jbei.ice.lib.entry;
 
+import org.jbei.ice.lib.AccountCreator;
+import org.jbei.ice.lib.TestEntryCreator;
+import org.jbei.ice.lib.dto.entry.EntryFieldLabel;
+import org.jbei.ice.lib.entry.sequence.PartSequence;
 import org.jbei.ice.storage.hibernate.HibernateConfiguration;
+import org.jbei.ice.storage.model.Account;
+import org.jbei.ice.storage.model.Strain;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
 /**
  * @author Hector Plahar
  */
 public class EntriesAsCSVTest {
 
+    private static String fasta =
+            ">org.jbei|test.1| \n" +
+                    "ccggcttatcggtcagtttcacttcttcataaaacccgcttcggcgggtttttgcttttacagggcggcaggatgaatga\n" +
+                    "ctgtccacgacgctatacccaaaagaaa";
+
     @Before
     public void setUp() throws Exception {
         HibernateConfiguration.initializeMock();
@@ -25,4 +44,55 @@ public class EntriesAsCSVTest {
     public void testSetEntries() throws Exception {
 
     }
+
+    @Test
+    public void testWrite() throws Exception {
+        Account account = AccountCreator.createTestAccount("EntriesAsCSVTest.testWrite", false);
+        Account other = AccountCreator.createTestAccount("EntriesAsCSVTest.testWrite2", false);
+        Strain withSequence = TestEntryCreator.createTestStrain(account);
+        Strain withoutSequence = TestEntryCreator.createTestStrain(account);
+        Strain notReadable = TestEntryCreator.createTestStrain(other);
+        new PartSequence(account.getEmail(), withSequence.getRecordId())
+                .parseSequenceFile(new ByteArrayInputStream(fasta.getBytes()), "test.fa", false);
+
+        // sequence files are generated in separate transactions
+        HibernateConfiguration.commitTransaction();
+        HibernateConfiguration.beginTransaction();
+
+        List<Long> ids = Arrays.asList(withoutSequence.getId(), notReadable.getId(), withSequence.getId());
+
+        // csv only
+        EntriesAsCSV entriesAsCSV = new EntriesAsCSV(account.getEmail());
+        Assert.assertFalse(entriesAsCSV.isZip());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        entriesAsCSV.write(ids, outputStream, EntryFieldLabel.NAME);
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8.name()).split("\n");
+        Assert.assertEquals(3, lines.length);
+        Assert.assertTrue(lines[1].contains(withoutSequence.getPartNumber()));
+        Assert.assertTrue(lines[2].contains(withSequence.getPartNumber()));
+
+        // zip with csv and sequences
+        entriesAsCSV = new EntriesAsCSV(account.getEmail(), "genbank", "fasta");
+        Assert.assertTrue(entriesAsCSV.isZip());
+        outputStream = new ByteArrayOutputStream();
+        entriesAsCSV.write(ids, outputStream, EntryFieldLabel.NAME);
+
+        Map<String, String> files = new LinkedHashMap<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null)
+                files.put(entry.getName(), new String(zis.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        Assert.assertEquals(3, files.size());
+        Iterator<String> names = files.keySet().iterator();
+        Assert.assertEquals("entries.csv", names.next());
+        Assert.assertTrue(names.next().endsWith(".gb"));
+        Assert.assertTrue(names.next().endsWith(".fa"));
+
+        lines = files.get("entries.csv").split("\n");
+        Assert.assertEquals(3, lines.length);
+        Assert.assertFalse(lines[1].contains(".gb"));
+        Assert.assertTrue(lines[2].contains(withSequence.getPartNumber() + ".gb"));
+    }
 }
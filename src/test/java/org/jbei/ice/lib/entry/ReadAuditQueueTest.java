@@ -0,0 +1,83 @@
+package org.jbei.ice.lib.entry;
+
+import org.jbei.ice.lib.AccountCreator;
+import org.jbei.ice.lib.TestEntryCreator;
+import org.jbei.ice.lib.dto.AuditQueueStatus;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateConfiguration;
+import org.jbei.ice.storage.model.Account;
+import org.jbei.ice.storage.model.Entry;
+import org.jbei.ice.storage.model.Plasmid;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReadAuditQueueTest {
+
+    private final ReadAuditQueue queue = ReadAuditQueue.getInstance();
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateConfiguration.initializeMock();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queue.stop();
+    }
+
+    @Test
+    public void testAdd() throws Exception {
+        // entries must be committed to be visible to the writer thread
+        HibernateConfiguration.beginTransaction();
+        Account account = AccountCreator.createTestAccount("ReadAuditQueueTest.testAdd", false);
+        Plasmid plasmid = TestEntryCreator.createTestPlasmid(account);
+        Account reader = AccountCreator.createTestAccount("ReadAuditQueueTest.testAddReader", false);
+        HibernateConfiguration.commitTransaction();
+
+        queue.start(3600, 100, 1000, 3600);
+        HibernateConfiguration.beginTransaction();
+        EntryHistory history = new EntryHistory(reader.getEmail(), plasmid.getId());
+        Assert.assertTrue(history.add());
+        Assert.assertTrue(history.add());       // collapsed with the first read
+        Assert.assertTrue(new EntryHistory(account.getEmail(), plasmid.getId()).add());
+        HibernateConfiguration.commitTransaction();
+
+        // nothing written until the queue is flushed
+        HibernateConfiguration.beginTransaction();
+        Entry entry = DAOFactory.getEntryDAO().get(plasmid.getId());
+        Assert.assertEquals(0, DAOFactory.getAuditDAO().getAuditsForEntryCount(entry));
+        HibernateConfiguration.commitTransaction();
+
+        AuditQueueStatus status = queue.getStatus();
+        Assert.assertEquals(2, status.getDepth());
+        Assert.assertTrue(status.getCollapsedCount() >= 1);
+
+        queue.stop();
+        Assert.assertFalse(queue.isRunning());
+        HibernateConfiguration.beginTransaction();
+        entry = DAOFactory.getEntryDAO().get(plasmid.getId());
+        Assert.assertEquals(2, DAOFactory.getAuditDAO().getAuditsForEntryCount(entry));
+        HibernateConfiguration.commitTransaction();
+        Assert.assertEquals(0, queue.getStatus().getDepth());
+    }
+
+    @Test
+    public void testFlushOnSize() throws Exception {
+        queue.start(3600, 10, 100, 3600);
+        long written = queue.getStatus().getWrittenCount();
+        long flushes = queue.getStatus().getFlushCount();
+        for (int i = 0; i < 10; i += 1) {
+            Assert.assertTrue(queue.add("ReadAuditQueueTest.testFlushOnSize", Long.MAX_VALUE - i));
+        }
+
+        // reaching the flush size triggers a write; reads of entries that do not exist are skipped
+        for (int i = 0; i < 50 && queue.getStatus().getFlushCount() == flushes; i += 1) {
+            Thread.sleep(100);
+        }
+        Assert.assertEquals(flushes + 1, queue.getStatus().getFlushCount());
+        Assert.assertEquals(0, queue.getStatus().getDepth());
+        Assert.assertEquals(written, queue.getStatus().getWrittenCount());
+    }
+}
@@ -0,0 +1,146 @@
+package org.jbei.ice.lib.entry.export;
+
+import org.jbei.ice.lib.AccountCreator;
+import org.jbei.ice.lib.TestEntryCreator;
+import org.jbei.ice.lib.dto.ExportJobStatus;
+import org.jbei.ice.lib.entry.EntrySelection;
+import org.jbei.ice.lib.entry.sequence.PartSequence;
+import org.jbei.ice.lib.entry.sequence.SequenceFormat;
+import org.jbei.ice.lib.executor.IceExecutorService;
+import org.jbei.ice.lib.executor.TaskStatus;
+import org.jbei.ice.lib.group.GroupController;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateConfiguration;
+import org.jbei.ice.storage.model.Account;
+import org.jbei.ice.storage.model.Entry;
+import org.jbei.ice.storage.model.Strain;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+public class ExportJobsTest {
+
+    private static String fasta =
+            ">org.jbei|test.1| \n" +
+                    "ccggcttatcggtcagtttcacttcttcataaaacccgcttcggcgggtttttgcttttacagggcggcaggatgaatga\n" +
+                    "ctgtccacgacgctatacccaaaagaaa";
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateConfiguration.initializeMock();
+        HibernateConfiguration.beginTransaction();
+
+        // created before any export runs, so that it is not created concurrently by the export threads
+        new GroupController().createOrRetrievePublicGroup();
+        HibernateConfiguration.commitTransaction();
+        HibernateConfiguration.beginTransaction();
+        IceExecutorService.getInstance().startService();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        IceExecutorService.getInstance().stopService();
+        HibernateConfiguration.commitTransaction();
+    }
+
+    @Test
+    public void testSubmit() throws Exception {
+        Account account = AccountCreator.createTestAccount("ExportJobsTest.testSubmit", false);
+        Account other = AccountCreator.createTestAccount("ExportJobsTest.testSubmit2", false);
+        Strain withSequence = TestEntryCreator.createTestStrain(account);
+        Strain withoutSequence = TestEntryCreator.createTestStrain(account);
+        Strain notReadable = TestEntryCreator.createTestStrain(other);
+        new PartSequence(account.getEmail(), withSequence.getRecordId())
+                .parseSequenceFile(new ByteArrayInputStream(fasta.getBytes()), "test.fa", false);
+
+        // export runs in a separate transaction
+        HibernateConfiguration.commitTransaction();
+        HibernateConfiguration.beginTransaction();
+
+        EntrySelection selection = new EntrySelection();
+        selection.setEntries(new ArrayList<>(Arrays.asList(withSequence.getId(), withoutSequence.getId(),
+                notReadable.getId())));
+
+        ExportJobs jobs = ExportJobs.getInstance();
+        ExportJobStatus status = jobs.submit(account.getEmail(), selection, SequenceFormat.GENBANK, true, false);
+        Assert.assertNotNull(status.getId());
+        Assert.assertEquals(2, status.getEntryCount());
+        status = waitForCompletion(account.getEmail(), status.getId());
+        Assert.assertEquals(TaskStatus.COMPLETED.name(), status.getStatus());
+        Assert.assertEquals(2, status.getWrittenEntryCount());
+        Assert.assertEquals(1, status.getWrittenSequenceFileCount());
+
+        Path file = jobs.getFile(account.getEmail(), status.getId());
+        Assert.assertNotNull(file);
+        Assert.assertEquals(Files.size(file), status.getFileSize());
+        List<String> names = new ArrayList<>();
+        try (InputStream inputStream = Files.newInputStream(file);
+             ZipInputStream zis = new ZipInputStream(inputStream)) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null)
+                names.add(entry.getName());
+        }
+        Assert.assertEquals(Arrays.asList("entries.csv",
+                withSequence.getPartNumber() + "/" + withSequence.getPartNumber() + ".gb"), names);
+
+        // only available to users who submitted the job
+        Assert.assertNull(jobs.getStatus(other.getEmail(), status.getId()));
+        Assert.assertNull(jobs.getFile(other.getEmail(), status.getId()));
+
+        // available after a restart
+        ExportJobs restarted = new ExportJobs();
+        Assert.assertEquals(file, restarted.getFile(account.getEmail(), status.getId()));
+        Assert.assertEquals(TaskStatus.COMPLETED.name(), restarted.getStatus(account.getEmail(),
+                status.getId()).getStatus());
+        Assert.assertNull(restarted.getFile(other.getEmail(), status.getId()));
+
+        // same export of unchanged data is the same job, and reuses the export file
+        ExportJobStatus reused = jobs.submit(account.getEmail(), selection, SequenceFormat.GENBANK, true, false);
+        Assert.assertEquals(status.getId(), reused.getId());
+        Assert.assertEquals(TaskStatus.COMPLETED.name(),
+                waitForCompletion(account.getEmail(), reused.getId()).getStatus());
+        Assert.assertEquals(file, jobs.getFile(account.getEmail(), reused.getId()));
+
+        // different format is a different export
+        ExportJobStatus fastaStatus = jobs.submit(account.getEmail(), selection, SequenceFormat.FASTA, true, false);
+        Assert.assertNotEquals(status.getId(), fastaStatus.getId());
+        waitForCompletion(account.getEmail(), fastaStatus.getId());
+        Assert.assertNotEquals(file, jobs.getFile(account.getEmail(), fastaStatus.getId()));
+
+        // modified entry is written to a new export file
+        Entry entry = DAOFactory.getEntryDAO().get(withoutSequence.getId());
+        entry.setModificationTime(new Date(entry.getModificationTime().getTime() + 1000));
+        DAOFactory.getEntryDAO().update(entry);
+        HibernateConfiguration.commitTransaction();
+        HibernateConfiguration.beginTransaction();
+
+        ExportJobStatus modified = jobs.submit(account.getEmail(), selection, SequenceFormat.GENBANK, true, false);
+        Assert.assertEquals(status.getId(), modified.getId());
+        Assert.assertEquals(TaskStatus.COMPLETED.name(),
+                waitForCompletion(account.getEmail(), modified.getId()).getStatus());
+        Path modifiedFile = jobs.getFile(account.getEmail(), modified.getId());
+        Assert.assertNotNull(modifiedFile);
+        Assert.assertNotEquals(file, modifiedFile);
+    }
+
+    private ExportJobStatus waitForCompletion(String userId, String jobId) throws InterruptedException {
+        ExportJobStatus status = ExportJobs.getInstance().getStatus(userId, jobId);
+        for (int i = 0; i < 300 && !TaskStatus.valueOf(status.getStatus()).isTerminal(); i += 1) {
+            Thread.sleep(100);
+            status = ExportJobs.getInstance().getStatus(userId, jobId);
+        }
+        return status;
+    }
+}
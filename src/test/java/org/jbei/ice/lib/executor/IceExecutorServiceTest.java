@@ -0,0 +1,135 @@
+package org.jbei.ice.lib.executor;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class IceExecutorServiceTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        IceExecutorService.getInstance().startService();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        IceExecutorService.getInstance().stopService();
+    }
+
+    @Test
+    public void testRunTask() throws Exception {
+        IceExecutorService service = IceExecutorService.getInstance();
+
+        // occupy all background threads
+        List<TestTask> running = new ArrayList<>();
+        for (int i = 0; i < TaskLane.BACKGROUND_INDEX.getConcurrency(); i += 1) {
+            TestTask task = new TestTask(TaskLane.BACKGROUND_INDEX, null);
+            Assert.assertTrue(service.runTask(task));
+            running.add(task);
+        }
+        for (TestTask task : running) {
+            Assert.assertTrue(task.started.await(10, TimeUnit.SECONDS));
+        }
+
+        // identical queued tasks are de-duplicated
+        TestTask queued = new TestTask(TaskLane.BACKGROUND_INDEX, "rebuild");
+        Assert.assertTrue(service.runTask(queued));
+        Assert.assertEquals(TaskStatus.PENDING, queued.getStatus());
+        TestTask duplicate = new TestTask(TaskLane.BACKGROUND_INDEX, "rebuild");
+        Assert.assertFalse(service.runTask(duplicate));
+        Assert.assertEquals(TaskStatus.CANCELLED, duplicate.getStatus());
+
+        // queued tasks can be cancelled
+        TestTask cancelled = new TestTask(TaskLane.BACKGROUND_INDEX, null);
+        Assert.assertTrue(service.runTask(cancelled));
+        cancelled.cancel();
+        Assert.assertEquals(TaskStatus.CANCELLED, cancelled.getStatus());
+
+        // and are not started once the deadline has passed
+        TestTask expired = new TestTask(TaskLane.BACKGROUND_INDEX, null);
+        expired.setDeadline(System.currentTimeMillis() + 1);
+        Assert.assertTrue(service.runTask(expired));
+
+        // interactive tasks are not held up by the background lane
+        TestTask interactive = new TestTask(TaskLane.INTERACTIVE, null);
+        interactive.release.countDown();
+        Assert.assertTrue(service.runTask(interactive));
+        Assert.assertTrue(interactive.finished.await(10, TimeUnit.SECONDS));
+
+        TaskLaneStatus status = getStatus(TaskLane.BACKGROUND_INDEX);
+        Assert.assertEquals(TaskLane.BACKGROUND_INDEX.getConcurrency(), status.getActive());
+        Assert.assertEquals(2, status.getQueueDepth());
+        Assert.assertEquals(1, status.getDeduplicated());
+        Assert.assertEquals(1, status.getCancelled());
+
+        Thread.sleep(5);
+        release.countDown();
+        Assert.assertTrue(queued.finished.await(10, TimeUnit.SECONDS));
+        long end = System.currentTimeMillis() + 10000;
+        while (!expired.getStatus().isTerminal() && System.currentTimeMillis() < end)
+            Thread.sleep(10);
+
+        Assert.assertEquals(TaskStatus.EXPIRED, expired.getStatus());
+        Assert.assertFalse(cancelled.ran);
+        Assert.assertFalse(expired.ran);
+        Assert.assertEquals(1, getStatus(TaskLane.BACKGROUND_INDEX).getExpired());
+        Assert.assertEquals(1, getStatus(TaskLane.INTERACTIVE).getCompleted());
+    }
+
+    private TaskLaneStatus getStatus(TaskLane lane) {
+        for (TaskLaneStatus status : IceExecutorService.getInstance().getStatus()) {
+            if (status.getLane().equals(lane.name()))
+                return status;
+        }
+        return null;
+    }
+
+    private class TestTask extends Task {
+
+        private final TaskLane lane;
+        private final String key;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean ran;
+
+        TestTask(TaskLane lane, String key) {
+            this.lane = lane;
+            this.key = key;
+        }
+
+        @Override
+        public void execute() {
+            ran = true;
+            started.countDown();
+            try {
+                while (!IceExecutorServiceTest.this.release.await(10, TimeUnit.MILLISECONDS)) {
+                    if (release.getCount() == 0)
+                        break;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        }
+
+        @Override
+        public TaskLane getLane() {
+            return lane;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+    }
+}
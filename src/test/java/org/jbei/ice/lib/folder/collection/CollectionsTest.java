@@ -0,0 +1,44 @@
+package org.jbei.ice.lib.folder.collection;
+
+import org.jbei.ice.lib.AccountCreator;
+import org.jbei.ice.lib.TestEntryCreator;
+import org.jbei.ice.lib.folder.CollectionCounts;
+import org.jbei.ice.storage.hibernate.HibernateConfiguration;
+import org.jbei.ice.storage.model.Account;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CollectionsTest {
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateConfiguration.initializeMock();
+        HibernateConfiguration.beginTransaction();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        HibernateConfiguration.rollbackTransaction();
+    }
+
+    @Test
+    public void testGetAllCounts() throws Exception {
+        Account account = AccountCreator.createTestAccount("CollectionsTest.testGetAllCounts", false);
+        TestEntryCreator.createTestPlasmid(account);
+
+        Collections collections = new Collections(account.getEmail());
+        CollectionCounts counts = collections.getAllCounts();
+        Assert.assertEquals(1, counts.getPersonal());
+        Assert.assertEquals(0, counts.getPending());
+
+        // cached counts are returned as copies
+        counts.setPersonal(100);
+        Assert.assertEquals(1, collections.getAllCounts().getPersonal());
+
+        // creating an entry invalidates the cached counts
+        TestEntryCreator.createTestPlasmid(account);
+        Assert.assertEquals(2, collections.getAllCounts().getPersonal());
+    }
+}
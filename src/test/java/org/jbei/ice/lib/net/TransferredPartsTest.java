@@ -3,6 +3,7 @@ package org.jbei.ice.lib.net;
 import org.jbei.ice.lib.AccountCreator;
 import org.jbei.ice.lib.dto.entry.PartData;
 import org.jbei.ice.lib.dto.entry.Visibility;
+import org.jbei.ice.lib.dto.web.TransferChunk;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.HibernateConfiguration;
 import org.jbei.ice.storage.model.Account;
@@ -14,12 +15,22 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Date;
+import java.util.UUID;
 
 /**
  * @author Hector Plahar
  */
 public class TransferredPartsTest {
 
+    private static final String GENBANK =
+            "LOCUS       pTrc                     60 bp    DNA     linear\n" +
+                    "FEATURES             Location/Qualifiers\n" +
+                    "     promoter        1..60\n" +
+                    "                     /label=\"pTrc promoter\"\n" +
+                    "ORIGIN\n" +
+                    "        1 cgactgcacg gtgcaccaat gcttctggcg tcaggcagcc atcggaagct gtggtatggc\n" +
+                    "//";
+
     private TransferredParts parts;
 
     @Before
@@ -80,6 +91,61 @@ public class TransferredPartsTest {
         Assert.assertTrue(strain.getLinkedEntries().contains(plasmid2));
     }
 
+    @Test
+    public void testReceiveChunk() throws Exception {
+        Account account = AccountCreator.createTestAccount("testReceiveChunk", false);
+        PartData strainData = createStrainObject(account).toDataTransferObject();
+        PartData plasmidData = createPlasmidObject(account).toDataTransferObject();
+        strainData.setRecordId(UUID.randomUUID().toString());
+        plasmidData.setRecordId(UUID.randomUUID().toString());
+        strainData.getLinkedParts().add(plasmidData);
+
+        TransferChunk chunk = new TransferChunk();
+        chunk.setKey("testReceiveChunk");
+        chunk.getParts().add(strainData);
+        chunk.getSequences().put(plasmidData.getRecordId(), GENBANK);
+
+        TransferChunk received = parts.receiveChunk(chunk);
+        Assert.assertNotNull(received);
+        Assert.assertTrue(received.getSequences().isEmpty());
+        long strainId = received.getParts().get(0).getId();
+        long plasmidId = received.getParts().get(0).getLinkedParts().get(0).getId();
+
+        Strain strain = (Strain) DAOFactory.getEntryDAO().get(strainId);
+        Assert.assertNotNull(strain);
+        Assert.assertEquals(1, strain.getLinkedEntries().size());
+        Assert.assertFalse(DAOFactory.getSequenceDAO().hasSequence(strainId));
+        Assert.assertTrue(DAOFactory.getSequenceDAO().hasSequence(plasmidId));
+
+        // receiving the same chunk again does not create new entries
+        TransferChunk again = new TransferChunk();
+        again.setKey("testReceiveChunk");
+        again.getParts().add(strainData);
+        again.getSequences().put(plasmidData.getRecordId(), GENBANK);
+
+        received = parts.receiveChunk(again);
+        Assert.assertEquals(strainId, received.getParts().get(0).getId());
+        Assert.assertEquals(plasmidId, received.getParts().get(0).getLinkedParts().get(0).getId());
+        Assert.assertEquals(1, DAOFactory.getEntryDAO().get(strainId).getLinkedEntries().size());
+
+        // resent by the sender (with its record ids) after the chunk was received, the recorded ids are returned
+        PartData resentStrain = createStrainObject(account).toDataTransferObject();
+        PartData resentPlasmid = createPlasmidObject(account).toDataTransferObject();
+        resentStrain.setRecordId(UUID.randomUUID().toString());
+        resentPlasmid.setRecordId(UUID.randomUUID().toString());
+        resentStrain.getLinkedParts().add(resentPlasmid);
+        TransferChunk resent = new TransferChunk();
+        resent.setKey("testReceiveChunk");
+        resent.getParts().add(resentStrain);
+        resent.getSequences().put(resentPlasmid.getRecordId(), GENBANK);
+
+        received = parts.receiveChunk(resent);
+        Assert.assertTrue(received.getSequences().isEmpty());
+        Assert.assertEquals(strainId, received.getParts().get(0).getId());
+        Assert.assertEquals(plasmidId, received.getParts().get(0).getLinkedParts().get(0).getId());
+        Assert.assertNull(DAOFactory.getEntryDAO().getByRecordId(resentStrain.getRecordId()));
+    }
+
     private Plasmid createPlasmidObject(Account owner) {
         Plasmid plasmid = new Plasmid();
         plasmid.setBackbone("plasmid backone");
@@ -5,11 +5,15 @@ import org.jbei.ice.lib.dto.entry.EntryType;
 import org.jbei.ice.lib.dto.entry.PartData;
 import org.jbei.ice.lib.dto.entry.PlasmidData;
 import org.jbei.ice.lib.dto.search.SearchQuery;
+import org.jbei.ice.lib.dto.search.SearchResult;
 import org.jbei.ice.lib.dto.search.SearchResults;
 import org.jbei.ice.lib.entry.Entries;
+import org.jbei.ice.lib.entry.EntrySelection;
+import org.jbei.ice.lib.entry.EntrySelectionType;
 import org.jbei.ice.lib.shared.BioSafetyOption;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.HibernateConfiguration;
+import org.jbei.ice.storage.hibernate.search.HibernateSearch;
 import org.jbei.ice.storage.model.Account;
 import org.jbei.ice.storage.model.Entry;
 import org.junit.After;
@@ -17,7 +21,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.util.HashMap;
+import java.util.*;
 
 /**
  * @author Hector Plahar
@@ -84,6 +88,9 @@ public class SearchIndexesTest {
         SearchResults results = controller.runSearch(account.getEmail(), query);
         Assert.assertNotNull(results);
         Assert.assertEquals(1, results.getResultCount());
+        SearchResult result = results.getResults().get(0);
+        Assert.assertTrue(result.getMaxScore() > 0);
+        Assert.assertEquals(result.getMaxScore(), result.getScore(), 0.0001f);
 
         // case insensentive
         results = controller.runSearch(account.getEmail().toLowerCase(), query);
@@ -108,4 +115,88 @@ public class SearchIndexesTest {
         Assert.assertNotNull(results);
         Assert.assertEquals(0, results.getResultCount());
     }
+
+    @Test
+    public void testFilterBlastResults() throws Exception {
+        Account account = AccountCreator.createTestAccount("testFilterBlastResults", false);
+        PartData partData = new PartData(EntryType.PART);
+        partData.setBioSafetyLevel(BioSafetyOption.LEVEL_ONE.ordinal());
+        partData.setStatus("Complete");
+        partData.setName("testBlastFilter");
+        partData.setFundingSource("DOE");
+        partData.setPrincipalInvestigator("Nathan");
+        partData = new Entries(account.getEmail()).create(partData);
+        HibernateConfiguration.commitTransaction();   // commit triggers indexing
+
+        HibernateConfiguration.beginTransaction();
+
+        // more hits than the maximum number of boolean clauses
+        HashMap<String, SearchResult> blastResults = new LinkedHashMap<>();
+        for (long id = Integer.MAX_VALUE; id < Integer.MAX_VALUE + 2000L; id += 1)
+            blastResults.put(Long.toString(id), new SearchResult());
+        SearchResult hit = new SearchResult();
+        hit.setScore(10);
+        blastResults.put(Long.toString(partData.getId()), hit);
+
+        SearchQuery query = new SearchQuery();
+        SearchResults results = HibernateSearch.getInstance().filterBlastResults(account.getEmail(), 0, 15, query,
+                blastResults);
+        Assert.assertEquals(1, results.getResultCount());
+        Assert.assertSame(hit, results.getResults().get(0));
+    }
+
+    @Test
+    public void testRunSearchIds() throws Exception {
+        Account account = AccountCreator.createTestAccount("testRunSearchIds", false);
+        Account other = AccountCreator.createTestAccount("testRunSearchIds2", false);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i += 1) {
+            PartData partData = new PartData(EntryType.PART);
+            partData.setBioSafetyLevel(BioSafetyOption.LEVEL_ONE.ordinal());
+            partData.setStatus("Complete");
+            partData.setName("testSearchIdsPart");
+            partData.setFundingSource("DOE");
+            partData.setPrincipalInvestigator("Nathan");
+            ids.add(new Entries(account.getEmail()).create(partData).getId());
+        }
+
+        // created last, but matches in more fields
+        PartData best = new PartData(EntryType.PART);
+        best.setBioSafetyLevel(BioSafetyOption.LEVEL_ONE.ordinal());
+        best.setStatus("Complete");
+        best.setName("testSearchIdsPart");
+        best.setAlias("testSearchIdsPart");
+        best.setShortDescription("testSearchIdsPart");
+        best.setFundingSource("DOE");
+        best.setPrincipalInvestigator("Nathan");
+        long bestId = new Entries(account.getEmail()).create(best).getId();
+        ids.add(bestId);
+        HibernateConfiguration.commitTransaction();   // commit triggers indexing
+
+        HibernateConfiguration.beginTransaction();
+        SearchQuery query = new SearchQuery();
+        query.setQueryString("testSearchIdsPart");
+        List<Long> results = controller.runSearchIds(account.getEmail(), query);
+        Assert.assertEquals(new HashSet<>(ids), new HashSet<>(results));
+        Assert.assertEquals(ids.size(), results.size());
+
+        // in relevance order
+        Assert.assertEquals(bestId, (long) results.get(0));
+
+        // security filter
+        Assert.assertTrue(controller.runSearchIds(other.getEmail(), query).isEmpty());
+
+        // entry type filter
+        query.getEntryTypes().clear();
+        query.getEntryTypes().add(EntryType.PLASMID);
+        Assert.assertTrue(controller.runSearchIds(account.getEmail(), query).isEmpty());
+
+        // selection of all search results
+        query.setEntryTypes(Arrays.asList(EntryType.values()));
+        EntrySelection selection = new EntrySelection();
+        selection.setSelectionType(EntrySelectionType.SEARCH);
+        selection.setSearchQuery(query);
+        results = new Entries(account.getEmail()).getEntriesFromSelectionContext(selection);
+        Assert.assertEquals(new HashSet<>(ids), new HashSet<>(results));
+    }
 }
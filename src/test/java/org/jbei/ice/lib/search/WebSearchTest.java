@@ -0,0 +1,102 @@
+package org.jbei.ice.lib.search;
+
+import org.jbei.ice.lib.config.ConfigurationSettings;
+import org.jbei.ice.lib.dto.ConfigurationKey;
+import org.jbei.ice.lib.dto.search.SearchQuery;
+import org.jbei.ice.lib.dto.search.SearchResults;
+import org.jbei.ice.lib.dto.web.RemotePartnerStatus;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateConfiguration;
+import org.jbei.ice.storage.model.RemotePartner;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+public class WebSearchTest {
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateConfiguration.initializeMock();
+        HibernateConfiguration.beginTransaction();
+        new ConfigurationSettings().setPropertyValue(ConfigurationKey.WEB_SEARCH_TIMEOUT, "1");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        new ConfigurationSettings().setPropertyValue(ConfigurationKey.WEB_SEARCH_TIMEOUT,
+                ConfigurationKey.WEB_SEARCH_TIMEOUT.getDefaultValue());
+        HibernateConfiguration.commitTransaction();
+    }
+
+    @Test
+    public void testRun() {
+        RemotePartner ok = createPartner("ok.websearchtest.jbei.org");
+        RemotePartner error = createPartner("error.websearchtest.jbei.org");
+        RemotePartner slow = createPartner("slow.websearchtest.jbei.org");
+        RemotePartner rejected = createPartner("rejected.websearchtest.jbei.org");
+
+        // partners that respond immediately, fail or never respond
+        WebSearch webSearch = new WebSearch() {
+            @Override
+            protected SearchTask runSearchThread(RemotePartner partner, SearchQuery query, long deadline) {
+                SearchTask task = new SearchTask(partner, query);
+                if (partner.getUrl().startsWith("error."))
+                    task.getFuture().completeExceptionally(new IllegalStateException("error"));
+                else if (partner.getUrl().startsWith("rejected."))
+                    task.getFuture().completeExceptionally(new RejectedExecutionException("rejected"));
+                else if (!partner.getUrl().startsWith("slow.")) {
+                    SearchResults results = new SearchResults();
+                    results.setResultCount(partner.getUrl().startsWith("ok.") ? 5 : 0);
+                    task.getFuture().complete(results);
+                }
+                return task;
+            }
+        };
+
+        List<WebResult> streamed = new ArrayList<>();
+        long start = System.currentTimeMillis();
+        WebSearchResults results = webSearch.run(new SearchQuery(), false, streamed::add);
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+        Assert.assertEquals(streamed, results.getResults());
+
+        Map<String, WebResult> byUrl = new HashMap<>();
+        for (WebResult result : results.getResults()) {
+            byUrl.put(result.getPartner().getUrl(), result);
+        }
+        Assert.assertEquals(WebResultStatus.OK, byUrl.get(ok.getUrl()).getStatus());
+        Assert.assertEquals(5, byUrl.get(ok.getUrl()).getCount());
+        Assert.assertEquals(WebResultStatus.ERROR, byUrl.get(error.getUrl()).getStatus());
+        Assert.assertEquals(WebResultStatus.TIMEOUT, byUrl.get(slow.getUrl()).getStatus());
+        Assert.assertEquals(WebResultStatus.ERROR, byUrl.get(rejected.getUrl()).getStatus());
+        Assert.assertEquals(5, results.getTotalCount());
+
+        // partners that keep failing are skipped
+        for (int i = 1; i < PartnerCircuitBreaker.FAILURE_THRESHOLD; i += 1) {
+            webSearch.run(new SearchQuery(), false);
+        }
+        results = webSearch.run(new SearchQuery(), false);
+        for (WebResult result : results.getResults()) {
+            byUrl.put(result.getPartner().getUrl(), result);
+        }
+        Assert.assertEquals(WebResultStatus.OK, byUrl.get(ok.getUrl()).getStatus());
+        Assert.assertEquals(WebResultStatus.SKIPPED, byUrl.get(error.getUrl()).getStatus());
+        Assert.assertEquals(WebResultStatus.SKIPPED, byUrl.get(slow.getUrl()).getStatus());
+
+        // searches that were not run do not count as failures
+        Assert.assertEquals(WebResultStatus.ERROR, byUrl.get(rejected.getUrl()).getStatus());
+    }
+
+    private RemotePartner createPartner(String url) {
+        RemotePartner partner = new RemotePartner();
+        partner.setUrl(url);
+        partner.setPartnerStatus(RemotePartnerStatus.APPROVED);
+        return DAOFactory.getRemotePartnerDAO().create(partner);
+    }
+}
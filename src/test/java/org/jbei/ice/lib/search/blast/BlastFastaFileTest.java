@@ -0,0 +1,49 @@
+package org.jbei.ice.lib.search.blast;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+public class BlastFastaFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDelete() throws Exception {
+        BlastFastaFile fastaFile = new BlastFastaFile(folder.getRoot().toPath(), "TestFastaFile");
+        fastaFile.createNew();
+        Assert.assertTrue(fastaFile.write(Arrays.asList(
+                ">1,PART,name,TEST_1,main", "ACGT",
+                ">2,PLASMID,name, with comma,TEST_2,main", "CCGG",
+                ">3,STRAIN,TEST_1,TEST_3,recent", "GGTT",
+                ">4,PART,no shard,TEST_4", "TTAA")));
+        Assert.assertEquals(4, fastaFile.count());
+
+        // part number is read from the end of the header, so names with the delimiter or a part number are kept
+        Assert.assertEquals(2, fastaFile.delete(new HashSet<>(Arrays.asList("TEST_1", "TEST_2", "comma"))));
+        Assert.assertEquals(1, fastaFile.delete("TEST_4"));
+        List<String> lines = Files.readAllLines(fastaFile.getFilePath());
+        Assert.assertEquals(Arrays.asList(">3,STRAIN,TEST_1,TEST_3,recent", "GGTT"), lines);
+    }
+
+    @Test(expected = IOException.class)
+    public void testDeleteLocked() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        BlastFastaFile fastaFile = new BlastFastaFile(dir, "TestFastaFile");
+        fastaFile.createNew();
+        Assert.assertTrue(fastaFile.write(Arrays.asList(">1,PART,name,TEST_1,main", "ACGT")));
+
+        // held by another writer
+        Files.createFile(dir.resolve("TestFastaFile.lock"));
+        fastaFile.delete("TEST_1");
+    }
+}
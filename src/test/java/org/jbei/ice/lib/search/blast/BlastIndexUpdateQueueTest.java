@@ -0,0 +1,47 @@
+package org.jbei.ice.lib.search.blast;
+
+import org.jbei.ice.storage.hibernate.HibernateConfiguration;
+import org.jbei.ice.storage.hibernate.HibernateRepositoryTest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BlastIndexUpdateQueueTest extends HibernateRepositoryTest {
+
+    private final BlastIndexUpdateQueue queue = BlastIndexUpdateQueue.getInstance();
+
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        queue.start(3600, 1000);   // no flush while the test runs
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queue.stop();
+        super.tearDown();
+    }
+
+    @Test
+    public void testAddQueuesOnCommit() {
+        long depth = queue.getStatus().getDepth();
+
+        queue.add(Action.CREATE, "testAddQueuesOnCommit");
+        Assert.assertEquals(depth, queue.getStatus().getDepth());
+
+        HibernateConfiguration.commitTransaction();
+        Assert.assertEquals(depth + 1, queue.getStatus().getDepth());
+        HibernateConfiguration.beginTransaction();
+    }
+
+    @Test
+    public void testAddDroppedOnRollback() {
+        long depth = queue.getStatus().getDepth();
+
+        queue.add(Action.DELETE, "testAddDroppedOnRollback");
+        HibernateConfiguration.rollbackTransaction();
+        Assert.assertEquals(depth, queue.getStatus().getDepth());
+        HibernateConfiguration.beginTransaction();
+    }
+}
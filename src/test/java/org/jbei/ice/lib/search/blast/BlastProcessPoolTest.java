@@ -0,0 +1,48 @@
+package org.jbei.ice.lib.search.blast;
+
+import org.jbei.ice.lib.dto.search.BlastProgram;
+import org.jbei.ice.lib.dto.search.BlastProgramStats;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.util.List;
+
+public class BlastProcessPoolTest {
+
+    @Test
+    public void testRun() throws Exception {
+        BlastProcessPool pool = new BlastProcessPool(1);
+        String output = pool.run(BlastProgram.BLAST_N, new String[]{"echo", "hit"}, 10000, process -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                return reader.readLine();
+            }
+        });
+        Assert.assertEquals("hit", output);
+
+        List<BlastProgramStats> stats = pool.getStats();
+        Assert.assertEquals(1, stats.size());
+        Assert.assertEquals("blastn", stats.get(0).getProgram());
+        Assert.assertEquals(1, stats.get(0).getCount());
+        Assert.assertEquals(0, stats.get(0).getTimeouts());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        BlastProcessPool pool = new BlastProcessPool(1);
+        long start = System.currentTimeMillis();
+        try {
+            pool.run(BlastProgram.BLAST_N, new String[]{"sleep", "30"}, 500, Process::waitFor);
+            Assert.fail("Expected timeout");
+        } catch (BlastException e) {
+            Assert.assertTrue(e.getCause() instanceof ProgramTookTooLongException);
+        }
+        Assert.assertTrue(System.currentTimeMillis() - start < 10000);
+        Assert.assertEquals(1, pool.getStats().get(0).getTimeouts());
+
+        // slot is released
+        Integer exit = pool.run(BlastProgram.BLAST_N, new String[]{"true"}, 10000, Process::waitFor);
+        Assert.assertEquals(0, exit.intValue());
+    }
+}
@@ -0,0 +1,115 @@
+package org.jbei.ice.lib.search.blast;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class KmerIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String randomSequence(Random random, int length) {
+        char[] bases = {'A', 'C', 'G', 'T'};
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i += 1)
+            builder.append(bases[random.nextInt(4)]);
+        return builder.toString();
+    }
+
+    private static KmerRecord record(long id, String partNumber, String sequence) {
+        return KmerRecord.fromFasta(">" + id + ",PART,name " + id + "," + partNumber + ",main\n" + sequence + "\n");
+    }
+
+    @Test
+    public void testFromFasta() {
+        KmerRecord record = KmerRecord.fromFasta(">12,PLASMID,name, with comma,TEST_12,recent\nacgt\nnacg\n");
+        Assert.assertNotNull(record);
+        Assert.assertEquals(12, record.getEntryId());
+        Assert.assertEquals("PLASMID", record.getType());
+        Assert.assertEquals("name, with comma", record.getName());
+        Assert.assertEquals("TEST_12", record.getPartNumber());
+        Assert.assertEquals("ACGTNACG", new String(record.getSequence(), StandardCharsets.US_ASCII));
+
+        // header from before sharding
+        record = KmerRecord.fromFasta(">13,PART,name,TEST_13\nACGT\n");
+        Assert.assertNotNull(record);
+        Assert.assertEquals("TEST_13", record.getPartNumber());
+        Assert.assertNull(KmerRecord.fromFasta("ACGT"));
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        Random random = new Random(7);
+        String first = randomSequence(random, 3000);
+        String second = randomSequence(random, 2000);
+        List<KmerRecord> records = Arrays.asList(record(1, "TEST_1", first), record(2, "TEST_2", second),
+                record(3, "TEST_3", randomSequence(random, 1000)));
+
+        Path dir = folder.newFolder("index").toPath();
+        Assert.assertEquals(3, KmerIndex.build(dir, records.iterator()));
+        Assert.assertTrue(KmerIndex.exists(dir));
+        KmerIndex index = KmerIndex.open(dir);
+        Assert.assertEquals(3, index.size());
+        Assert.assertEquals(6000, index.getTotalLength());
+
+        // primer from second sequence
+        byte[] primer = second.substring(500, 522).getBytes(StandardCharsets.US_ASCII);
+        List<KmerIndex.KmerHit> hits = index.search(primer, partNumber -> false);
+        Assert.assertEquals(1, hits.size());
+        Assert.assertEquals(2, hits.get(0).getEntryId());
+        Assert.assertEquals(22, hits.get(0).getNident());
+        Assert.assertEquals(22, hits.get(0).getScore());
+
+        // reverse strand
+        hits = index.search(KmerIndex.reverseComplement(primer), partNumber -> false);
+        Assert.assertEquals(1, hits.size());
+        Assert.assertEquals(2, hits.get(0).getEntryId());
+
+        // mismatch and deletion in longer query
+        StringBuilder query = new StringBuilder(first.substring(1000, 1200));
+        query.setCharAt(50, query.charAt(50) == 'A' ? 'C' : 'A');
+        query.deleteCharAt(120);
+        hits = index.search(query.toString().getBytes(StandardCharsets.US_ASCII), partNumber -> false);
+        Assert.assertEquals(1, hits.size());
+        Assert.assertEquals(1, hits.get(0).getEntryId());
+        Assert.assertTrue(hits.get(0).getNident() >= 190);
+
+        // excluded
+        hits = index.search(primer, "TEST_2"::equals);
+        Assert.assertTrue(hits.isEmpty());
+
+        // in memory index gives same results
+        KmerIndex memoryIndex = KmerIndex.of(records);
+        hits = memoryIndex.search(primer, partNumber -> false);
+        Assert.assertEquals(1, hits.size());
+        Assert.assertEquals(2, hits.get(0).getEntryId());
+        Assert.assertEquals(22, hits.get(0).getNident());
+    }
+
+    @Test
+    public void testSearchLongQuery() throws Exception {
+        Random random = new Random(11);
+        String first = randomSequence(random, 3000);
+        List<KmerRecord> records = Arrays.asList(record(1, "TEST_1", first),
+                record(2, "TEST_2", randomSequence(random, 2000)));
+        Path dir = folder.newFolder("index").toPath();
+        KmerIndex.build(dir, records.iterator());
+        KmerIndex index = KmerIndex.open(dir);
+
+        // match deep inside a long query is found in full; extensions cover only the part around their seeds
+        String query = randomSequence(random, 60000) + first.substring(1000, 1500) + randomSequence(random, 39500);
+        List<KmerIndex.KmerHit> hits = index.search(query.getBytes(StandardCharsets.US_ASCII), partNumber -> false);
+        KmerIndex.KmerHit hit = hits.stream().filter(h -> h.getEntryId() == 1).findFirst().orElse(null);
+        Assert.assertNotNull(hit);
+        Assert.assertTrue(hit.getNident() >= 500);
+        Assert.assertTrue(hit.getScore() >= 500);
+    }
+}
@@ -0,0 +1,42 @@
+package org.jbei.ice.services.rest;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+public class CompressionFilterTest {
+
+    @Test
+    public void testFilter() {
+        Assert.assertEquals("gzip", filter(MediaType.APPLICATION_JSON_TYPE, "gzip, deflate"));
+        Assert.assertEquals("gzip", filter(MediaType.TEXT_PLAIN_TYPE, "deflate;q=0.5, gzip;q=1"));
+
+        // not accepted
+        Assert.assertNull(filter(MediaType.APPLICATION_JSON_TYPE, null));
+        Assert.assertNull(filter(MediaType.APPLICATION_JSON_TYPE, "gzip;q=0"));
+
+        // downloads are not compressed
+        Assert.assertNull(filter(MediaType.APPLICATION_OCTET_STREAM_TYPE, "gzip"));
+        Assert.assertNull(filter(new MediaType("application", "zip"), "gzip"));
+    }
+
+    private String filter(MediaType mediaType, String acceptEncoding) {
+        ContainerRequestContext request = Mockito.mock(ContainerRequestContext.class);
+        Mockito.when(request.getHeaderString(HttpHeaders.ACCEPT_ENCODING)).thenReturn(acceptEncoding);
+        ContainerResponseContext response = Mockito.mock(ContainerResponseContext.class);
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        Mockito.when(response.hasEntity()).thenReturn(true);
+        Mockito.when(response.getMediaType()).thenReturn(mediaType);
+        Mockito.when(response.getHeaders()).thenReturn(headers);
+
+        new CompressionFilter().filter(request, response);
+        return (String) headers.getFirst(HttpHeaders.CONTENT_ENCODING);
+    }
+}
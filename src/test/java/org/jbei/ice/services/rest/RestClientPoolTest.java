@@ -0,0 +1,54 @@
+package org.jbei.ice.services.rest;
+
+import org.jbei.ice.storage.hibernate.HibernateConfiguration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.ProcessingException;
+
+public class RestClientPoolTest {
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateConfiguration.initializeMock();
+        HibernateConfiguration.beginTransaction();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        HibernateConfiguration.commitTransaction();
+    }
+
+    @Test
+    public void testGetClient() {
+        RestClientPool pool = RestClientPool.getInstance();
+        PartnerClient client = pool.getClient("pool.restclientpooltest.jbei.org");
+        Assert.assertSame(client, pool.getClient("pool.restclientpooltest.jbei.org"));
+        Assert.assertNotSame(client, pool.getClient("other.restclientpooltest.jbei.org"));
+        Assert.assertTrue(pool.getConnectTimeout() > 0);
+        Assert.assertTrue(pool.getReadTimeout() > 0);
+    }
+
+    @Test
+    public void testFailedRequestIsRecorded() {
+        // nothing listens on port 1
+        String url = "localhost:1";
+        IceRestClient client = new IceRestClient(url);
+        try {
+            client.get("/rest/config", String.class);
+            Assert.fail("Request should fail");
+        } catch (ProcessingException e) {
+            // expected
+        }
+
+        PartnerClientStatus status = RestClientPool.getInstance().getStatus().stream()
+                .filter(s -> url.equals(s.getUrl())).findFirst().orElse(null);
+        Assert.assertNotNull(status);
+        Assert.assertEquals(1, status.getRequests());
+        Assert.assertEquals(1, status.getErrors());
+        Assert.assertEquals(0, status.getActive());
+        Assert.assertNotNull(status.getLastError());
+    }
+}
@@ -11,9 +11,7 @@ import org.jbei.ice.storage.model.Entry;
 import org.junit.Assert;
 import org.junit.Test;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.*;
 
 /**
  * @author Hector Plahar
@@ -30,6 +28,18 @@ public class EntryDAOTest extends HibernateRepositoryTest {
         Assert.assertEquals("summary for test", summary);
     }
 
+    @Test
+    public void testGetEntrySummaries() throws Exception {
+        Account account = AccountCreator.createTestAccount("testGetEntrySummaries", false);
+        long id1 = TestEntryCreator.createTestPart(account.getEmail());
+        long id2 = TestEntryCreator.createTestPart(account.getEmail());
+        Map<Long, String> summaries = entryDAO.getEntrySummaries(Arrays.asList(id1, id2, id2 + 1000));
+        Assert.assertEquals(2, summaries.size());
+        Assert.assertEquals("summary for test", summaries.get(id1));
+        Assert.assertEquals("summary for test", summaries.get(id2));
+        Assert.assertTrue(entryDAO.getEntrySummaries(new ArrayList<>()).isEmpty());
+    }
+
 
     @Test
     public void testMatchingPlasmidField() throws Exception {
@@ -13,7 +13,7 @@ import org.jbei.ice.storage.model.Strain;
 import org.junit.Assert;
 import org.junit.Test;
 
-import java.util.Optional;
+import java.util.*;
 
 /**
  * @author Hector Plahar
@@ -196,6 +196,41 @@ public class SequenceDAOTest extends HibernateRepositoryTest {
         Assert.assertTrue(sequenceDAO.hasSequence(plasmid3.getId()));
     }
 
+    @Test
+    public void testGetEntryIdsWithSequence() throws Exception {
+        Account account = AccountCreator.createTestAccount("SequenceDAOTest.testGetEntryIdsWithSequence", false);
+        Plasmid plasmid1 = TestEntryCreator.createTestPlasmid(account);
+        Plasmid plasmid2 = TestEntryCreator.createTestPlasmid(account);
+        Plasmid plasmid3 = TestEntryCreator.createTestPlasmid(account);
+
+        // original sequence for plasmid1
+        FeaturedDNASequence dnaSequence = GeneralParser.parse(sequenceString);
+        Sequence sequence = SequenceUtil.dnaSequenceToSequence(dnaSequence);
+        Assert.assertNotNull(sequence);
+        sequence.setSequenceUser(sequenceString);
+        sequence.setEntry(plasmid1);
+        Assert.assertNotNull(sequenceDAO.create(sequence));
+
+        // no original sequence for plasmid3
+        dnaSequence = GeneralParser.parse(sequenceString + "atc");
+        sequence = SequenceUtil.dnaSequenceToSequence(dnaSequence);
+        Assert.assertNotNull(sequence);
+        sequence.setEntry(plasmid3);
+        Assert.assertNotNull(sequenceDAO.create(sequence));
+
+        List<Long> ids = Arrays.asList(plasmid1.getId(), plasmid2.getId(), plasmid3.getId());
+        Set<Long> withSequence = sequenceDAO.getEntryIdsWithSequence(ids);
+        Assert.assertEquals(2, withSequence.size());
+        Assert.assertTrue(withSequence.contains(plasmid1.getId()));
+        Assert.assertTrue(withSequence.contains(plasmid3.getId()));
+
+        Set<Long> withOriginal = sequenceDAO.getEntryIdsWithOriginalSequence(ids);
+        Assert.assertEquals(1, withOriginal.size());
+        Assert.assertTrue(withOriginal.contains(plasmid1.getId()));
+
+        Assert.assertTrue(sequenceDAO.getEntryIdsWithSequence(new ArrayList<>()).isEmpty());
+    }
+
     @Test
     public void testGetSequenceFilename() throws Exception {
         Account account = AccountCreator.createTestAccount("SequenceDAOTest.testGetSequenceFilename", false);
@@ -265,6 +300,33 @@ public class SequenceDAOTest extends HibernateRepositoryTest {
         Assert.assertNotNull(sequenceDAO.getSequence(0));
     }
 
+    @Test
+    public void testGetSequences() throws Exception {
+        Account account = AccountCreator.createTestAccount("SequenceDAOTest.testGetSequences", false);
+        List<Sequence> created = new ArrayList<>();
+        for (int i = 0; i < 3; i += 1) {
+            Plasmid plasmid = TestEntryCreator.createTestPlasmid(account);
+            FeaturedDNASequence dnaSequence = GeneralParser.parse(sequenceString);
+            Sequence sequence = SequenceUtil.dnaSequenceToSequence(dnaSequence);
+            Assert.assertNotNull(sequence);
+            sequence.setEntry(plasmid);
+            created.add(sequenceDAO.create(sequence));
+        }
+
+        // first page
+        List<Sequence> page = sequenceDAO.getSequences(created.get(0).getId() - 1, 2);
+        Assert.assertEquals(2, page.size());
+        Assert.assertEquals(created.get(0), page.get(0));
+        Assert.assertEquals(created.get(1), page.get(1));
+
+        // next page starts after the last id of previous page
+        page = sequenceDAO.getSequences(page.get(1).getId(), 2);
+        Assert.assertFalse(page.isEmpty());
+        Assert.assertEquals(created.get(2), page.get(0));
+
+        Assert.assertTrue(sequenceDAO.getSequences(created.get(2).getId(), 2).isEmpty());
+    }
+
     @Test
     public void testGetSequenceCount() throws Exception {
         Account account = AccountCreator.createTestAccount("SequenceDAOTest.testGetSequenceCount", false);
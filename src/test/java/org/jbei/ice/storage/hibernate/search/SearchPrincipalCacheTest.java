@@ -0,0 +1,70 @@
+package org.jbei.ice.storage.hibernate.search;
+
+import org.jbei.ice.lib.AccountCreator;
+import org.jbei.ice.lib.dto.group.GroupType;
+import org.jbei.ice.lib.group.GroupController;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateRepositoryTest;
+import org.jbei.ice.storage.model.Account;
+import org.jbei.ice.storage.model.Group;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.UUID;
+
+public class SearchPrincipalCacheTest extends HibernateRepositoryTest {
+
+    @Test
+    public void testGet() throws Exception {
+        SearchPrincipalCache cache = SearchPrincipalCache.getInstance();
+
+        // anonymous
+        SearchPrincipalCache.Principal principal = cache.get(null);
+        Assert.assertFalse(principal.isAdministrator());
+        Assert.assertEquals(1, principal.getGroupUUIDs().size());
+        Assert.assertTrue(principal.getGroupUUIDs().contains(GroupController.PUBLIC_GROUP_UUID));
+
+        Account admin = AccountCreator.createTestAccount("SearchPrincipalCacheTest.testGetAdmin", true);
+        Assert.assertTrue(cache.get(admin.getEmail()).isAdministrator());
+
+        Account account = AccountCreator.createTestAccount("SearchPrincipalCacheTest.testGet", false);
+        cache.get(account.getEmail());  // flushes account creation (which invalidates) so not retained
+        principal = cache.get(account.getEmail());
+        Assert.assertFalse(principal.isAdministrator());
+        Assert.assertSame(principal, cache.get(account.getEmail()));
+
+        // group membership change invalidates
+        Group group = new Group();
+        group.setCreationTime(new Date());
+        group.setLabel("principal group");
+        group.setDescription("principal group");
+        group.setType(GroupType.PRIVATE);
+        group.setUuid(UUID.randomUUID().toString());
+        group = DAOFactory.getGroupDAO().create(group);
+        account.getGroups().add(group);
+        DAOFactory.getAccountDAO().update(account);
+        Assert.assertEquals(1, DAOFactory.getGroupDAO().getMemberCount(group.getUuid()));   // flush
+
+        SearchPrincipalCache.Principal updated = cache.get(account.getEmail());
+        Assert.assertNotSame(principal, updated);
+        Assert.assertTrue(updated.getGroupUUIDs().contains(group.getUuid()));
+
+        // account changes that do not affect access do not invalidate
+        account.setLastLoginTime(new Date());
+        DAOFactory.getAccountDAO().update(account);
+        Assert.assertNotNull(DAOFactory.getAccountDAO().getByEmail(account.getEmail()));   // flush
+        Assert.assertSame(updated, cache.get(account.getEmail()));
+
+        // group membership change only invalidates the account
+        Account other = AccountCreator.createTestAccount("SearchPrincipalCacheTest.testGet2", false);
+        cache.get(other.getEmail());
+        SearchPrincipalCache.Principal otherPrincipal = cache.get(other.getEmail());
+        Assert.assertSame(otherPrincipal, cache.get(other.getEmail()));
+        account.getGroups().remove(group);
+        DAOFactory.getAccountDAO().update(account);
+        Assert.assertEquals(0, DAOFactory.getGroupDAO().getMemberCount(group.getUuid()));   // flush
+        Assert.assertSame(otherPrincipal, cache.get(other.getEmail()));
+        Assert.assertFalse(cache.get(account.getEmail()).getGroupUUIDs().contains(group.getUuid()));
+    }
+}